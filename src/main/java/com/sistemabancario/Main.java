@@ -1,21 +1,111 @@
 package com.sistemabancario;
 
-import java.util.Objects;
+import javax.management.JMException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.Scanner;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
+import com.sistemabancario.metricas.Metricas;
 import com.sistemabancario.model.Cliente;
 import com.sistemabancario.model.ColecaoClientes;
 import com.sistemabancario.model.ColecaoContas;
 import com.sistemabancario.model.Conta;
+import com.sistemabancario.model.LimiteTentativas;
+import com.sistemabancario.model.Sessoes;
+import com.sistemabancario.persistencia.DiarioOperacoes;
+import com.sistemabancario.rede.ServidorBinario;
+import com.sistemabancario.rede.ServidorCaixas;
 
 public class Main {
-    public static void main(String[] args) {
+    /**
+     * Porta padrão do modo servidor.
+     */
+    private static final int PORTA_PADRAO = 5000;
+
+    /**
+     * Diretório onde o diário de operações e os instantâneos são armazenados.
+     */
+    private static final Path DIRETORIO_DIARIO = Paths.get("diario");
+
+    /**
+     * Intervalo (em minutos) entre dois instantâneos das contas e clientes.
+     */
+    private static final int INTERVALO_INSTANTANEOS = 10;
+
+    /**
+     * Inicia o sistema no console ou, se o primeiro argumento for --servidor,
+     * como um {@link ServidorCaixas servidor} que atende vários caixas pela rede
+     * (na porta indicada no segundo argumento ou na porta {@value #PORTA_PADRAO}).
+     * Se o primeiro argumento for --binario, inicia um {@link ServidorBinario servidor}
+     * que usa o protocolo binário, da mesma forma.
+     * Antes de atender qualquer requisição, o estado das contas e clientes é restaurado
+     * a partir do {@link DiarioOperacoes diário} no diretório {@code diario},
+     * que passa a registrar todas as operações.
+     * @param args argumentos da linha de comando
+     * @throws IOException se não for possível abrir o diário ou iniciar o servidor
+     */
+    public static void main(String[] args) throws IOException {
         Scanner scanner = new Scanner(System.in);
 
         // Criando coleção de clientes
         ColecaoClientes clientes = ColecaoClientes.inicializaClientes();
         // Criando coleção de contas
         ColecaoContas contas = ColecaoContas.inicializaContas();
+        // Restaura o último instantâneo e as operações registradas depois dele
+        final DiarioOperacoes diario = DiarioOperacoes.abre(DIRETORIO_DIARIO, contas, clientes);
+        final ScheduledExecutorService instantaneos = Executors.newSingleThreadScheduledExecutor(tarefa -> {
+            final Thread thread = new Thread(tarefa, "instantaneos");
+            thread.setDaemon(true);
+            return thread;
+        });
+        diario.agendaInstantaneos(instantaneos, INTERVALO_INSTANTANEOS, TimeUnit.MINUTES, contas, clientes);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            instantaneos.shutdownNow();
+            try {
+                diario.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }));
+        // A senha é conferida somente ao abrir a sessão
+        Sessoes sessoes = new Sessoes(1000, 15, TimeUnit.MINUTES);
+        // A cada minuto: até 5 tentativas de login por CPF, 300 senhas conferidas e 6000 falhas no total
+        sessoes.setLimite(new LimiteTentativas(5, 6000, 300, 1, TimeUnit.MINUTES));
+        // Métricas podem ser habilitadas e consultadas pelo JMX (como pelo JConsole)
+        try {
+            Metricas.registra();
+        } catch (JMException e) {
+            System.err.println("Não foi possível publicar as métricas: " + e.getMessage());
+        }
+
+        if (args.length > 0 && "--servidor".equals(args[0])) {
+            final int porta = args.length > 1 ? Integer.parseInt(args[1]) : PORTA_PADRAO;
+            try (ServidorCaixas servidor = new ServidorCaixas(clientes, contas, sessoes)) {
+                servidor.inicia(porta);
+                System.out.println("Servidor aguardando conexões na porta " + servidor.getPorta());
+                System.out.println("Pressione ENTER para encerrar.");
+                scanner.nextLine();
+            }
+            scanner.close();
+            return;
+        }
+
+        if (args.length > 0 && "--binario".equals(args[0])) {
+            final int porta = args.length > 1 ? Integer.parseInt(args[1]) : PORTA_PADRAO;
+            try (ServidorBinario servidor = new ServidorBinario(clientes, contas, sessoes)) {
+                servidor.inicia(porta);
+                System.out.println("Servidor binário aguardando conexões na porta " + servidor.getPorta());
+                System.out.println("Pressione ENTER para encerrar.");
+                scanner.nextLine();
+            }
+            scanner.close();
+            return;
+        }
 
         System.out.println("SISTEMA BANCO ITAÍVIS");
         System.out.println("Insira os dados para se autenticar: ");
@@ -26,9 +116,9 @@ public class Main {
         System.out.print("Senha: ");
         String senha = scanner.nextLine();
         
-        Cliente cliente = clientes.getCliente(cpf);
+        String token = sessoes.abre(clientes, cpf, senha);
 
-        while (!Cliente.autentica(cliente, cpf, senha)) {
+        while (token == null) {
             System.out.println("Acesso negado! Tente novamente!");
 
             System.out.print("CPF: ");
@@ -37,9 +127,11 @@ public class Main {
             System.out.print("Senha: ");
             senha = scanner.nextLine();
 
-            cliente = clientes.getCliente(cpf);
+            token = sessoes.abre(clientes, cpf, senha);
         }
 
+        Cliente cliente = sessoes.getCliente(token);
+
         System.out.println("Autenticado!");
 
         System.out.println("OPÇÕES: ");
@@ -53,6 +145,12 @@ public class Main {
         System.out.flush();
         try {
             while(opcao != 4) {
+                cliente = sessoes.getCliente(token);
+                if (cliente == null) {
+                    System.out.println("Sessão expirada!");
+                    break;
+                }
+
                 switch (opcao) {
                     case 1:
                         System.out.println("==== SAQUE ====");
@@ -73,9 +171,8 @@ public class Main {
                         String conta = scanner.next();
                         System.out.print("Valor: ");
                         valor = scanner.nextDouble();
-                        cliente.getConta().saque(valor);
                         Conta contaParaDeposito = contas.getConta(conta);
-                        contaParaDeposito.depositoDinheiro(valor);
+                        cliente.getConta().transferencia(contaParaDeposito, valor);
                         break;
                     default:
                         System.out.println("Opção não suportada!");
@@ -95,6 +192,7 @@ public class Main {
             System.out.println(e);
         }
             
+        sessoes.encerra(token);
         System.out.println("BYE BYE!");
 
         scanner.close();
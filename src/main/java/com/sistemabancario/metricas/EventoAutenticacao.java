@@ -0,0 +1,69 @@
+package com.sistemabancario.metricas;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Evento do Java Flight Recorder (JFR) emitido ao autenticar um cliente.
+ * Para não expor dados pessoais na gravação, o evento contém
+ * somente o número da conta do cliente (e não o seu CPF).
+ *
+ * @author Manoel Campos da Silva Filho
+ * @see EventoOperacao
+ */
+@Name(EventoAutenticacao.NOME)
+@Label("Autenticação de Cliente")
+@Category({"Sistema Bancário", "Clientes"})
+@Description("Conferência da senha de um cliente.")
+@StackTrace(false)
+public final class EventoAutenticacao extends Event {
+    public static final String NOME = "com.sistemabancario.Autenticacao";
+
+    @Label("Conta")
+    @Description("Conta do cliente, se ele foi encontrado.")
+    private String conta;
+
+    @Label("Resultado")
+    @Description("REALIZADA ou o motivo da recusa.")
+    private String resultado;
+
+    /**
+     * Cria o evento de uma autenticação que está iniciando.
+     * @return
+     */
+    public static EventoAutenticacao inicia() {
+        final EventoAutenticacao evento = new EventoAutenticacao();
+        evento.begin();
+        return evento;
+    }
+
+    /**
+     * Registra uma autenticação realizada.
+     * @param conta número da conta do cliente
+     */
+    public void conclui(final String conta) {
+        registra(conta, EventoOperacao.REALIZADA);
+    }
+
+    /**
+     * Registra uma autenticação recusada.
+     * @param conta número da conta do cliente (ou null se ele não foi encontrado)
+     * @param motivo motivo da recusa
+     */
+    public void recusa(final String conta, final MotivoRecusa motivo) {
+        registra(conta, motivo.name());
+    }
+
+    private void registra(final String conta, final String resultado) {
+        end();
+        if (shouldCommit()) {
+            this.conta = conta;
+            this.resultado = resultado;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.sistemabancario.metricas;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Evento do Java Flight Recorder (JFR) emitido por uma operação numa conta
+ * (saque, depósito, transferência ou lançamento), realizada ou recusada.
+ * Permite relacionar as operações às pausas do coletor de lixo e às disputas
+ * por bloqueios registradas na mesma gravação.
+ *
+ * <p>
+ * O evento é criado com {@link #inicia()} no início da operação e
+ * registrado por {@link #conclui(String, Enum, long)} ou
+ * {@link #recusa(String, Enum, long, MotivoRecusa)} ao final.
+ * Os atributos só são preenchidos se o evento estiver habilitado e a operação
+ * durar mais que o limite configurado (veja o arquivo {@code jfr/sistemabancario.jfc}).
+ * Quando o evento está desabilitado, a JVM elimina a sua criação e todas as chamadas.
+ * </p>
+ *
+ * @author Manoel Campos da Silva Filho
+ */
+@Name(EventoOperacao.NOME)
+@Label("Operação em Conta")
+@Category({"Sistema Bancário", "Contas"})
+@Description("Operação realizada ou recusada numa conta.")
+@StackTrace(false)
+public final class EventoOperacao extends Event {
+    public static final String NOME = "com.sistemabancario.Operacao";
+
+    /**
+     * {@link #resultado Resultado} de uma operação que não foi recusada.
+     */
+    public static final String REALIZADA = "REALIZADA";
+
+    @Label("Conta")
+    private String conta;
+
+    @Label("Operação")
+    private String operacao;
+
+    @Label("Valor")
+    @Description("Valor da operação em centavos.")
+    private long valor;
+
+    @Label("Conta de Destino")
+    @Description("Conta que recebeu o valor, nas transferências.")
+    private String contaDestino;
+
+    @Label("Resultado")
+    @Description("REALIZADA ou o motivo da recusa.")
+    private String resultado;
+
+    /**
+     * Cria o evento de uma operação que está iniciando.
+     * @return
+     */
+    public static EventoOperacao inicia() {
+        final EventoOperacao evento = new EventoOperacao();
+        evento.begin();
+        return evento;
+    }
+
+    /**
+     * Registra uma operação realizada.
+     * @param conta número da conta
+     * @param operacao tipo da operação
+     * @param centavos valor da operação
+     */
+    public void conclui(final String conta, final Enum<?> operacao, final long centavos) {
+        registra(conta, operacao, centavos, null, REALIZADA);
+    }
+
+    /**
+     * Registra uma transferência realizada.
+     * @param conta número da conta de origem
+     * @param operacao tipo da operação
+     * @param centavos valor transferido
+     * @param contaDestino número da conta de destino
+     */
+    public void conclui(final String conta, final Enum<?> operacao, final long centavos, final String contaDestino) {
+        registra(conta, operacao, centavos, contaDestino, REALIZADA);
+    }
+
+    /**
+     * Registra uma operação recusada.
+     * @param conta número da conta
+     * @param operacao tipo da operação
+     * @param centavos valor da operação
+     * @param motivo motivo da recusa
+     */
+    public void recusa(final String conta, final Enum<?> operacao, final long centavos, final MotivoRecusa motivo) {
+        registra(conta, operacao, centavos, null, motivo.name());
+    }
+
+    private void registra(final String conta, final Enum<?> operacao, final long centavos,
+                          final String contaDestino, final String resultado)
+    {
+        end();
+        if (shouldCommit()) {
+            this.conta = conta;
+            this.operacao = operacao.name();
+            this.valor = centavos;
+            this.contaDestino = contaDestino;
+            this.resultado = resultado;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.sistemabancario.metricas;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Evento do Java Flight Recorder (JFR) emitido ao pesquisar uma conta ou um cliente
+ * nas coleções. Como as pesquisas levam poucos nanossegundos, o arquivo
+ * {@code jfr/sistemabancario.jfc} registra somente as que demoram mais que o normal
+ * (como as interrompidas por uma pausa do coletor de lixo).
+ *
+ * @author Manoel Campos da Silva Filho
+ * @see EventoOperacao
+ */
+@Name(EventoPesquisa.NOME)
+@Label("Pesquisa em Coleção")
+@Category({"Sistema Bancário", "Coleções"})
+@Description("Pesquisa de uma conta ou de um cliente.")
+@StackTrace(false)
+public final class EventoPesquisa extends Event {
+    public static final String NOME = "com.sistemabancario.Pesquisa";
+
+    @Label("Coleção")
+    private String colecao;
+
+    @Label("Conta")
+    @Description("Conta pesquisada ou conta do cliente encontrado.")
+    private String conta;
+
+    @Label("Encontrado")
+    private boolean encontrado;
+
+    /**
+     * Cria o evento de uma pesquisa que está iniciando.
+     * @return
+     */
+    public static EventoPesquisa inicia() {
+        final EventoPesquisa evento = new EventoPesquisa();
+        evento.begin();
+        return evento;
+    }
+
+    /**
+     * Registra uma pesquisa.
+     * @param colecao nome da coleção pesquisada
+     * @param conta número da conta pesquisada ou da conta do cliente encontrado (ou null se não houver)
+     * @param encontrado se o item pesquisado foi encontrado
+     */
+    public void conclui(final String colecao, final String conta, final boolean encontrado) {
+        end();
+        if (shouldCommit()) {
+            this.colecao = colecao;
+            this.conta = conta;
+            this.encontrado = encontrado;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.sistemabancario.metricas;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histograma de latências (em nanossegundos) que pode ser atualizado
+ * por várias threads ao mesmo tempo, sem bloqueios.
+ *
+ * <p>
+ * Os intervalos são fixos: cada potência de 2 é dividida em {@value #SUBFAIXAS} partes iguais,
+ * assim o percentil informado difere do real em no máximo 25%, de nanossegundos a minutos.
+ * Para que threads em processadores diferentes não disputem as mesmas posições de memória,
+ * cada thread incrementa as contagens de uma das várias linhas do histograma,
+ * escolhida pelo seu id. As linhas só são somadas ao consultar os percentis.
+ * </p>
+ *
+ * @author Manoel Campos da Silva Filho
+ */
+final class HistogramaLatencias {
+    private static final int BITS_SUBFAIXA = 2;
+    private static final int SUBFAIXAS = 1 << BITS_SUBFAIXA;
+
+    /**
+     * Maior latência registrada separadamente (cerca de 18 minutos).
+     * Latências maiores são contadas como iguais a ela.
+     */
+    private static final long MAXIMO = (1L << 40) - 1;
+
+    /**
+     * Quantidade de intervalos em cada linha.
+     */
+    static final int INTERVALOS = indice(MAXIMO) + 1;
+
+    /**
+     * Quantidade de linhas: uma potência de 2 maior ou igual à quantidade de processadores.
+     */
+    private static final int LINHAS = Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors() - 1)) << 1;
+
+    private final AtomicLongArray contagens = new AtomicLongArray(LINHAS * INTERVALOS);
+    private final LongAdder soma = new LongAdder();
+
+    /**
+     * Registra uma latência.
+     * @param nanos latência em nanossegundos (valores negativos são registrados como zero)
+     */
+    void registra(final long nanos) {
+        final long valor = Math.min(Math.max(nanos, 0), MAXIMO);
+        final int linha = (int) Thread.currentThread().getId() & (LINHAS - 1);
+        contagens.getAndIncrement(linha * INTERVALOS + indice(valor));
+        soma.add(valor);
+    }
+
+    /**
+     * Obtém o intervalo de um valor. Os valores menores que {@code 2 * SUBFAIXAS} têm um intervalo
+     * cada; os maiores são deslocados à direita até ficarem menores que isso,
+     * mantendo os seus {@code BITS_SUBFAIXA + 1} bits mais significativos.
+     */
+    private static int indice(final long valor) {
+        final int deslocamento = Math.max(0, Long.SIZE - Long.numberOfLeadingZeros(valor) - BITS_SUBFAIXA - 1);
+        return deslocamento * SUBFAIXAS + (int) (valor >>> deslocamento);
+    }
+
+    /**
+     * Obtém o maior valor de um intervalo.
+     */
+    static long maiorValor(final int indice) {
+        if (indice < 2 * SUBFAIXAS) {
+            return indice;
+        }
+
+        final int deslocamento = indice / SUBFAIXAS - 1;
+        final long base = indice - (long) deslocamento * SUBFAIXAS;
+        return ((base + 1) << deslocamento) - 1;
+    }
+
+    /**
+     * Soma as contagens de todas as linhas.
+     * @return a quantidade de latências registradas em cada intervalo
+     */
+    private long[] contagensPorIntervalo() {
+        final long[] totais = new long[INTERVALOS];
+        for (int i = 0; i < contagens.length(); i++) {
+            totais[i % INTERVALOS] += contagens.get(i);
+        }
+        return totais;
+    }
+
+    long getTotal() {
+        long total = 0;
+        for (final long contagem : contagensPorIntervalo()) {
+            total += contagem;
+        }
+        return total;
+    }
+
+    /**
+     * Obtém a latência média.
+     * @return a média em nanossegundos ou 0 se nenhuma latência foi registrada
+     */
+    long media() {
+        final long total = getTotal();
+        return total == 0 ? 0 : soma.sum() / total;
+    }
+
+    /**
+     * Obtém a latência abaixo da qual está um determinado percentual das latências registradas.
+     * @param percentual percentual entre 0 e 100
+     * @return o maior valor do intervalo onde está o percentil, ou 0 se nenhuma latência foi registrada
+     */
+    long percentil(final double percentual) {
+        final long[] totais = contagensPorIntervalo();
+        long total = 0;
+        for (final long contagem : totais) {
+            total += contagem;
+        }
+        if (total == 0) {
+            return 0;
+        }
+
+        final long posicao = Math.max(1, (long) Math.ceil(percentual / 100 * total));
+        long acumulado = 0;
+        for (int i = 0; i < totais.length; i++) {
+            acumulado += totais[i];
+            if (acumulado >= posicao) {
+                return maiorValor(i);
+            }
+        }
+
+        return MAXIMO;
+    }
+
+    /**
+     * Zera o histograma. Latências registradas durante a execução do método podem ser mantidas.
+     */
+    void reinicia() {
+        for (int i = 0; i < contagens.length(); i++) {
+            contagens.set(i, 0);
+        }
+        soma.reset();
+    }
+}
@@ -0,0 +1,129 @@
+package com.sistemabancario.metricas;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+
+/**
+ * Métricas das operações mais frequentes do sistema, publicadas como MBeans JMX
+ * no domínio {@value #DOMINIO}.
+ *
+ * <p>
+ * As métricas são desabilitadas por padrão e podem ser habilitadas pela propriedade
+ * de sistema {@code -Dsistemabancario.metricas=true}, por {@link #setHabilitadas(boolean)}
+ * ou pelo próprio JMX (atributo {@code Habilitadas} do MBean {@code type=Metricas}).
+ * </p>
+ *
+ * @author Manoel Campos da Silva Filho
+ */
+public final class Metricas implements MetricasMBean {
+    /**
+     * Domínio dos nomes dos MBeans.
+     */
+    public static final String DOMINIO = "com.sistemabancario";
+
+    /**
+     * Amostragem padrão: quantidade de operações para cada uma que tem a sua latência medida.
+     */
+    public static final int AMOSTRAGEM_PADRAO = 8;
+
+    public static final MetricasOperacao SAQUE = new MetricasOperacao("saque");
+    public static final MetricasOperacao DEPOSITO_DINHEIRO = new MetricasOperacao("depositoDinheiro");
+    public static final MetricasOperacao DEPOSITO_CHEQUE = new MetricasOperacao("depositoCheque");
+    public static final MetricasOperacao ADD_MOVIMENTACAO = new MetricasOperacao("addMovimentacao");
+    public static final MetricasOperacao AUTENTICACAO = new MetricasOperacao("autentica");
+
+    private static final List<MetricasOperacao> OPERACOES =
+            List.of(SAQUE, DEPOSITO_DINHEIRO, DEPOSITO_CHEQUE, ADD_MOVIMENTACAO, AUTENTICACAO);
+
+    private static final Metricas INSTANCIA = new Metricas();
+
+    static volatile boolean habilitadas = Boolean.getBoolean("sistemabancario.metricas");
+
+    /**
+     * Máscara aplicada a um número aleatório para decidir se a latência de uma operação
+     * será medida: somente quando o resultado for zero.
+     */
+    static volatile int mascaraAmostragem = AMOSTRAGEM_PADRAO - 1;
+
+    /**
+     * Construtor privado, pois existe uma única instância, usada somente para publicar o MBean.
+     */
+    private Metricas(){/**/}
+
+    /**
+     * Obtém a instância que controla as métricas pelo JMX.
+     * @return
+     */
+    public static Metricas getInstancia() {
+        return INSTANCIA;
+    }
+
+    /**
+     * Publica os MBeans das métricas no servidor JMX da JVM.
+     * @throws JMException se os MBeans já estiverem publicados
+     */
+    public static void registra() throws JMException {
+        registra(ManagementFactory.getPlatformMBeanServer());
+    }
+
+    /**
+     * Publica os MBeans das métricas num servidor JMX.
+     * @param servidor servidor onde os MBeans serão publicados
+     * @throws JMException se os MBeans já estiverem publicados
+     */
+    public static void registra(final MBeanServer servidor) throws JMException {
+        servidor.registerMBean(INSTANCIA, new ObjectName(DOMINIO + ":type=Metricas"));
+        for (final MetricasOperacao operacao : OPERACOES) {
+            servidor.registerMBean(operacao, nome(operacao));
+        }
+    }
+
+    /**
+     * Obtém o nome do MBean das métricas de uma operação.
+     * @param operacao métricas da operação
+     * @return
+     * @throws JMException se o nome da operação não puder ser usado num nome de MBean
+     */
+    public static ObjectName nome(final MetricasOperacao operacao) throws JMException {
+        return new ObjectName(DOMINIO + ":type=Metricas,operacao=" + operacao.getNome());
+    }
+
+    @Override
+    public boolean isHabilitadas() {
+        return habilitadas;
+    }
+
+    @Override
+    public void setHabilitadas(final boolean habilitadas) {
+        Metricas.habilitadas = habilitadas;
+    }
+
+    @Override
+    public int getAmostragem() {
+        return mascaraAmostragem + 1;
+    }
+
+    /**
+     * Define a quantidade de operações para cada operação que tem a sua latência medida.
+     * @param amostragem uma potência de 2 (1 para medir todas as operações)
+     * @throws IllegalArgumentException se a amostragem não for uma potência de 2
+     */
+    @Override
+    public void setAmostragem(final int amostragem) {
+        if (amostragem <= 0 || Integer.bitCount(amostragem) != 1) {
+            throw new IllegalArgumentException("Amostragem deve ser uma potência de 2.");
+        }
+
+        mascaraAmostragem = amostragem - 1;
+    }
+
+    @Override
+    public void reinicia() {
+        for (final MetricasOperacao operacao : OPERACOES) {
+            operacao.reinicia();
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.sistemabancario.metricas;
+
+/**
+ * Interface JMX que permite habilitar, desabilitar e reiniciar
+ * todas as {@link Metricas métricas}.
+ *
+ * @author Manoel Campos da Silva Filho
+ */
+public interface MetricasMBean {
+    boolean isHabilitadas();
+
+    void setHabilitadas(boolean habilitadas);
+
+    /**
+     * Quantidade de operações para cada operação que tem a sua latência medida.
+     * @return
+     * @see Metricas#setAmostragem(int)
+     */
+    int getAmostragem();
+
+    void setAmostragem(int amostragem);
+
+    /**
+     * Zera todas as métricas.
+     */
+    void reinicia();
+}
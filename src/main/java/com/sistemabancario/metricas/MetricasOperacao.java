@@ -0,0 +1,149 @@
+package com.sistemabancario.metricas;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Métricas de uma operação: quantidade de operações realizadas,
+ * de recusas por {@link MotivoRecusa motivo} e latências.
+ *
+ * <p>
+ * Uma operação é medida chamando {@link #inicia()} no seu início e
+ * {@link #conclui(long)} ao final (ou {@link #recusa(MotivoRecusa)} se ela for recusada).
+ * Quando as métricas estão {@link Metricas#setHabilitadas(boolean) desabilitadas},
+ * esses métodos apenas leem um atributo. Quando habilitadas, as contagens
+ * usam {@link LongAdder}s (que distribuem os incrementos de threads diferentes
+ * em células diferentes) e somente uma a cada {@link Metricas#setAmostragem(int) N}
+ * operações tem a sua latência medida, pois obter a hora atual custa mais que
+ * todas as demais métricas juntas.
+ * </p>
+ *
+ * @author Manoel Campos da Silva Filho
+ */
+public final class MetricasOperacao implements MetricasOperacaoMBean {
+    /**
+     * Retornado por {@link #inicia()} quando as métricas estão desabilitadas.
+     */
+    private static final long DESABILITADA = Long.MIN_VALUE;
+
+    /**
+     * Retornado por {@link #inicia()} quando a latência da operação não será medida.
+     */
+    private static final long NAO_MEDIDA = Long.MIN_VALUE + 1;
+
+    private final String nome;
+    private final LongAdder total = new LongAdder();
+    private final LongAdder[] recusas = new LongAdder[MotivoRecusa.values().length];
+    private final HistogramaLatencias latencias = new HistogramaLatencias();
+
+    MetricasOperacao(final String nome) {
+        this.nome = nome;
+        for (int i = 0; i < recusas.length; i++) {
+            recusas[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Indica o início de uma operação.
+     * @return o valor a ser passado para {@link #conclui(long)}
+     */
+    public long inicia() {
+        if (!Metricas.habilitadas) {
+            return DESABILITADA;
+        }
+
+        return (ThreadLocalRandom.current().nextInt() & Metricas.mascaraAmostragem) == 0 ? System.nanoTime() : NAO_MEDIDA;
+    }
+
+    /**
+     * Indica que uma operação foi realizada.
+     * @param inicio valor retornado por {@link #inicia()} no início da operação
+     */
+    public void conclui(final long inicio) {
+        if (inicio == DESABILITADA) {
+            return;
+        }
+
+        total.increment();
+        if (inicio != NAO_MEDIDA) {
+            latencias.registra(System.nanoTime() - inicio);
+        }
+    }
+
+    /**
+     * Indica que uma operação foi recusada.
+     * @param motivo motivo da recusa
+     */
+    public void recusa(final MotivoRecusa motivo) {
+        if (Metricas.habilitadas) {
+            recusas[motivo.ordinal()].increment();
+        }
+    }
+
+    /**
+     * Obtém a quantidade de recusas por um determinado motivo.
+     * @param motivo motivo das recusas
+     * @return
+     */
+    public long getRecusas(final MotivoRecusa motivo) {
+        return recusas[motivo.ordinal()].sum();
+    }
+
+    public String getNome() {
+        return nome;
+    }
+
+    @Override
+    public long getTotal() {
+        return total.sum();
+    }
+
+    @Override
+    public long getRecusasSaldoInsuficiente() {
+        return getRecusas(MotivoRecusa.SALDO_INSUFICIENTE);
+    }
+
+    @Override
+    public long getRecusasValorInvalido() {
+        return getRecusas(MotivoRecusa.VALOR_INVALIDO);
+    }
+
+    @Override
+    public long getRecusasCpfInvalido() {
+        return getRecusas(MotivoRecusa.CPF_INVALIDO);
+    }
+
+    @Override
+    public long getRecusasSenhaIncorreta() {
+        return getRecusas(MotivoRecusa.SENHA_INCORRETA);
+    }
+
+    @Override
+    public long getLatenciaMedia() {
+        return latencias.media();
+    }
+
+    @Override
+    public long getLatenciaP50() {
+        return latencias.percentil(50);
+    }
+
+    @Override
+    public long getLatenciaP99() {
+        return latencias.percentil(99);
+    }
+
+    @Override
+    public long getLatenciaP999() {
+        return latencias.percentil(99.9);
+    }
+
+    @Override
+    public void reinicia() {
+        total.reset();
+        for (final LongAdder recusa : recusas) {
+            recusa.reset();
+        }
+        latencias.reinicia();
+    }
+}
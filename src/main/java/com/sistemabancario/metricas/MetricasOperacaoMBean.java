@@ -0,0 +1,36 @@
+package com.sistemabancario.metricas;
+
+/**
+ * Interface JMX das {@link MetricasOperacao métricas de uma operação}.
+ * As latências são informadas em nanossegundos.
+ *
+ * @author Manoel Campos da Silva Filho
+ */
+public interface MetricasOperacaoMBean {
+    /**
+     * Quantidade de operações realizadas (sem incluir as recusadas).
+     * @return
+     */
+    long getTotal();
+
+    long getRecusasSaldoInsuficiente();
+
+    long getRecusasValorInvalido();
+
+    long getRecusasCpfInvalido();
+
+    long getRecusasSenhaIncorreta();
+
+    long getLatenciaMedia();
+
+    long getLatenciaP50();
+
+    long getLatenciaP99();
+
+    long getLatenciaP999();
+
+    /**
+     * Zera as métricas da operação.
+     */
+    void reinicia();
+}
@@ -0,0 +1,34 @@
+package com.sistemabancario.metricas;
+
+/**
+ * Motivos pelos quais uma operação pode ser recusada,
+ * contados separadamente em cada {@link MetricasOperacao}.
+ *
+ * @author Manoel Campos da Silva Filho
+ */
+public enum MotivoRecusa {
+    /**
+     * O saldo da conta é menor que o valor da operação.
+     */
+    SALDO_INSUFICIENTE,
+
+    /**
+     * O valor da operação não é positivo.
+     */
+    VALOR_INVALIDO,
+
+    /**
+     * A conta de destino não existe ou é a própria conta de origem.
+     */
+    CONTA_INVALIDA,
+
+    /**
+     * Não existe cliente com o CPF informado.
+     */
+    CPF_INVALIDO,
+
+    /**
+     * A senha informada não confere com a do cliente.
+     */
+    SENHA_INCORRETA
+}
@@ -0,0 +1,8 @@
+/**
+ * Pacote contendo as métricas das operações do sistema (quantidade, recusas e latência),
+ * publicadas como MBeans JMX para serem acompanhadas por ferramentas como o JConsole,
+ * e os eventos emitidos para o Java Flight Recorder (JFR).
+ *
+ * @author Manoel Campos da Silva Filho
+ */
+package com.sistemabancario.metricas;
@@ -54,6 +54,11 @@ public class Agencia implements Cadastro {
      */
     private String numero;
 
+    /**
+     * Chave numérica do {@link #numero}, obtida por {@link Chaves#agencia(CharSequence)}.
+     */
+    private int chaveNumero = Chaves.INVALIDA;
+
     public Agencia(Banco banco) {
         this.banco = banco;
     }
@@ -76,6 +81,15 @@ public class Agencia implements Cadastro {
         return numero;
     }
 
+    /**
+     * Obtém a chave numérica do número da agência.
+     * @return a chave (no formato 99999) ou {@link Chaves#INVALIDA}
+     *         se o número não foi definido
+     */
+    public int getChaveNumero() {
+        return chaveNumero;
+    }
+
     /**
      * Altera o número da agência, verificando se o dígito está correto
      * utilizando o algoritmo 
@@ -89,14 +103,16 @@ public class Agencia implements Cadastro {
             throw new IllegalArgumentException("Número não pode ser vazio.");
         }
 
-        if(!numero.matches("\\d{4}-\\d")){
+        final int chave = Chaves.agencia(numero);
+        if(chave == Chaves.INVALIDA){
             throw new IllegalArgumentException("Numero invalido. Deve estar no formato 0638-6");
         }
 
-        if (!numero.endsWith(Util.calculaDigitoModulo11(numero))) {
+        if (chave == Chaves.DIGITO_INVALIDO) {
             throw new IllegalArgumentException("Dígito final inválido. Deve estar no formato 0638-6");
         }
 
+        this.chaveNumero = chave;
         this.numero = numero;
     }
 }
@@ -35,6 +35,11 @@ public class Banco implements Cadastro {
      */
     private String numero;
 
+    /**
+     * Chave numérica do {@link #numero}, obtida por {@link Chaves#banco(CharSequence)}.
+     */
+    private int chaveNumero = Chaves.INVALIDA;
+
     @Override
     public long getId() {
         return id;
@@ -65,6 +70,15 @@ public class Banco implements Cadastro {
         return numero;
     }
 
+    /**
+     * Obtém a chave numérica do número do banco.
+     * @return a chave (entre 0 e 999) ou {@link Chaves#INVALIDA}
+     *         se o número não foi definido
+     */
+    public int getChaveNumero() {
+        return chaveNumero;
+    }
+
     public void setNumero(String numero) {
         Objects.requireNonNull(numero, "Número não pode ser nulo.");
 
@@ -72,10 +86,12 @@ public class Banco implements Cadastro {
             throw new IllegalArgumentException("Número não pode ser vazio.");
         }
 
-        if(!numero.matches("\\d{3}")){
+        final int chave = Chaves.banco(numero);
+        if(chave < 0){
             throw new IllegalArgumentException("Numero invalido. Deve estar no formato 333");
         }
 
+        this.chaveNumero = chave;
         this.numero = numero;
     }
 
@@ -0,0 +1,77 @@
+package com.sistemabancario.model;
+
+/**
+ * Funções para representar valores monetários em ponto fixo,
+ * como um número inteiro de centavos armazenado num long.
+ *
+ * <p>
+ * Diferente de um double, um total de centavos não sofre erros
+ * de arredondamento ao somar e subtrair valores. Como os valores
+ * são primitivos, nenhum objeto é criado para operá-los e os métodos
+ * (pequenos e estáticos) podem ser facilmente otimizados pela JVM.
+ * As operações aritméticas lançam {@link ArithmeticException}
+ * se o resultado não couber num long.
+ * </p>
+ *
+ * @author Manoel Campos da Silva Filho
+ */
+public final class Centavos {
+    /**
+     * Total de centavos em um real.
+     */
+    public static final int POR_REAL = 100;
+
+    /**
+     * Construtor privado para evitar que a classe seja instanciada,
+     * uma vez que ela não possui atributos e todos os métodos são estáticos.
+     */
+    private Centavos(){/**/}
+
+    /**
+     * Converte um valor em reais para centavos, arredondando
+     * para o centavo mais próximo.
+     * @param reais valor em reais
+     * @return o valor em centavos
+     * @throws IllegalArgumentException se o valor não for um número finito
+     *         ou não puder ser representado em centavos
+     */
+    public static long deReais(final double reais) {
+        final double centavos = reais * POR_REAL;
+        if (Double.isNaN(centavos) || Math.abs(centavos) >= Long.MAX_VALUE) {
+            throw new IllegalArgumentException("Valor monetário inválido: " + reais);
+        }
+
+        return Math.round(centavos);
+    }
+
+    /**
+     * Converte um valor em centavos para reais.
+     * @param centavos valor em centavos
+     * @return o valor em reais
+     */
+    public static double paraReais(final long centavos) {
+        return centavos / (double) POR_REAL;
+    }
+
+    /**
+     * Soma dois valores em centavos.
+     * @param a primeiro valor
+     * @param b segundo valor
+     * @return a soma dos valores
+     * @throws ArithmeticException se a soma não couber num long
+     */
+    public static long soma(final long a, final long b) {
+        return Math.addExact(a, b);
+    }
+
+    /**
+     * Subtrai dois valores em centavos.
+     * @param a valor do qual será subtraído
+     * @param b valor a ser subtraído
+     * @return a diferença entre os valores
+     * @throws ArithmeticException se a diferença não couber num long
+     */
+    public static long subtrai(final long a, final long b) {
+        return Math.subtractExact(a, b);
+    }
+}
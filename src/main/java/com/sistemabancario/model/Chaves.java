@@ -0,0 +1,205 @@
+package com.sistemabancario.model;
+
+/**
+ * Converte os números de {@link Conta contas}, {@link Agencia agências} e
+ * {@link Banco bancos} em chaves numéricas compactas (e vice-versa).
+ *
+ * <p>
+ * Os números são validados e convertidos numa única passada pelos caracteres,
+ * sem usar expressões regulares nem criar objetos. Assim, as chaves podem
+ * ser usadas internamente para armazenar e pesquisar os cadastros,
+ * evitando calcular o hash de Strings a cada pesquisa.
+ * As chaves válidas são sempre positivas (ou zero): os métodos de conversão
+ * retornam {@link #INVALIDA} ou {@link #DIGITO_INVALIDO} para indicar que
+ * o número informado não é válido.
+ * </p>
+ *
+ * <ul>
+ *     <li>conta: 99999-9 é convertida para 999999;</li>
+ *     <li>agência: 9999-9 é convertida para 99999;</li>
+ *     <li>banco: 999 é convertido para 999;</li>
+ *     <li>CPF: 99999999999 é convertido para um long 99999999999.</li>
+ * </ul>
+ *
+ * @author Manoel Campos da Silva Filho
+ */
+public final class Chaves {
+    /**
+     * Valor retornado quando o número não está no formato esperado.
+     */
+    public static final int INVALIDA = -1;
+
+    /**
+     * Valor retornado quando o número está no formato esperado,
+     * mas o dígito verificador não confere.
+     */
+    public static final int DIGITO_INVALIDO = -2;
+
+    private static final int TOTAL_AGENCIAS = 10000;
+
+    private static final int TAMANHO_CPF = 11;
+
+    /**
+     * Dígito verificador (módulo 11) de cada um dos números de agência
+     * (de 0000 a 9999), calculado uma única vez.
+     */
+    private static final byte[] DIGITOS_AGENCIA = new byte[TOTAL_AGENCIAS];
+
+    static {
+        for (int agencia = 0; agencia < TOTAL_AGENCIAS; agencia++) {
+            /* Os pesos dos 4 algarismos são 5, 4, 3 e 2, como calculado
+               em Util.digitoModulo11(CharSequence, int) */
+            final int soma = 5 * (agencia / 1000) + 4 * (agencia / 100 % 10) +
+                             3 * (agencia / 10 % 10) + 2 * (agencia % 10);
+            DIGITOS_AGENCIA[agencia] = (byte) Util.digitoModulo11(soma);
+        }
+    }
+
+    /**
+     * Construtor privado para evitar que a classe seja instanciada,
+     * uma vez que ela não possui atributos e todos os métodos são estáticos.
+     */
+    private Chaves(){/**/}
+
+    /**
+     * Converte o número de uma conta (no formato 99999-9) para a sua chave.
+     * @param numero número da conta
+     * @return a chave da conta (entre 0 e 999999) ou {@link #INVALIDA}
+     *         se o número não estiver no formato 99999-9
+     * @throws NullPointerException se o número for nulo
+     */
+    public static int conta(final CharSequence numero) {
+        if (numero.length() != 7 || numero.charAt(5) != '-') {
+            return INVALIDA;
+        }
+
+        final int base = algarismos(numero, 0, 5);
+        final int digito = algarismos(numero, 6, 7);
+        return base < 0 || digito < 0 ? INVALIDA : base * 10 + digito;
+    }
+
+    /**
+     * Converte o número de uma agência (no formato 9999-9) para a sua chave,
+     * verificando o dígito verificador.
+     * @param numero número da agência
+     * @return a chave da agência (entre 0 e 99999), {@link #INVALIDA}
+     *         se o número não estiver no formato 9999-9 ou {@link #DIGITO_INVALIDO}
+     *         se o dígito verificador não conferir
+     * @throws NullPointerException se o número for nulo
+     */
+    public static int agencia(final CharSequence numero) {
+        if (numero.length() != 6 || numero.charAt(4) != '-') {
+            return INVALIDA;
+        }
+
+        final int base = algarismos(numero, 0, 4);
+        final int digito = algarismos(numero, 5, 6);
+        if (base < 0 || digito < 0) {
+            return INVALIDA;
+        }
+
+        return DIGITOS_AGENCIA[base] == digito ? base * 10 + digito : DIGITO_INVALIDO;
+    }
+
+    /**
+     * Converte o número de um banco (com 3 algarismos) para a sua chave.
+     * @param numero número do banco
+     * @return a chave do banco (entre 0 e 999) ou {@link #INVALIDA}
+     *         se o número não tiver exatamente 3 algarismos
+     * @throws NullPointerException se o número for nulo
+     */
+    public static int banco(final CharSequence numero) {
+        return numero.length() == 3 ? algarismos(numero, 0, 3) : INVALIDA;
+    }
+
+    /**
+     * Converte um CPF (com 11 algarismos, sem pontos nem hífen) para a sua chave.
+     * Os dígitos verificadores não são conferidos, pois o CPF já é validado
+     * ao ser {@link Cliente#setCpf(String) atribuído ao cliente}.
+     * @param cpf CPF a ser convertido
+     * @return a chave do CPF ou {@link #INVALIDA} se o CPF não tiver exatamente 11 algarismos
+     * @throws NullPointerException se o CPF for nulo
+     */
+    public static long cpf(final CharSequence cpf) {
+        if (cpf.length() != TAMANHO_CPF) {
+            return INVALIDA;
+        }
+
+        long valor = 0;
+        for (int i = 0; i < TAMANHO_CPF; i++) {
+            final int algarismo = cpf.charAt(i) - '0';
+            if (algarismo < 0 || algarismo > 9) {
+                return INVALIDA;
+            }
+
+            valor = valor * 10 + algarismo;
+        }
+
+        return valor;
+    }
+
+    /**
+     * Converte a chave de uma conta de volta para o número no formato 99999-9.
+     * @param chave chave obtida por {@link #conta(CharSequence)}
+     * @return o número da conta
+     */
+    public static String formataConta(final int chave) {
+        final char[] numero = new char[7];
+        preenche(numero, 0, 5, chave / 10);
+        numero[5] = '-';
+        numero[6] = (char) ('0' + chave % 10);
+        return new String(numero);
+    }
+
+    /**
+     * Converte a chave de uma agência de volta para o número no formato 9999-9.
+     * @param chave chave obtida por {@link #agencia(CharSequence)}
+     * @return o número da agência
+     */
+    public static String formataAgencia(final int chave) {
+        final char[] numero = new char[6];
+        preenche(numero, 0, 4, chave / 10);
+        numero[4] = '-';
+        numero[5] = (char) ('0' + chave % 10);
+        return new String(numero);
+    }
+
+    /**
+     * Converte a chave de um banco de volta para o número com 3 algarismos.
+     * @param chave chave obtida por {@link #banco(CharSequence)}
+     * @return o número do banco
+     */
+    public static String formataBanco(final int chave) {
+        final char[] numero = new char[3];
+        preenche(numero, 0, 3, chave);
+        return new String(numero);
+    }
+
+    /**
+     * Converte os caracteres de um intervalo para um número.
+     * @return o número ou {@link #INVALIDA} se algum caractere não for um algarismo
+     */
+    private static int algarismos(final CharSequence numero, final int inicio, final int fim) {
+        int valor = 0;
+        for (int i = inicio; i < fim; i++) {
+            final int algarismo = numero.charAt(i) - '0';
+            if (algarismo < 0 || algarismo > 9) {
+                return INVALIDA;
+            }
+
+            valor = valor * 10 + algarismo;
+        }
+
+        return valor;
+    }
+
+    /**
+     * Escreve os algarismos de um valor num intervalo, completando com zeros à esquerda.
+     */
+    private static void preenche(final char[] destino, final int inicio, final int fim, int valor) {
+        for (int i = fim - 1; i >= inicio; i--) {
+            destino[i] = (char) ('0' + valor % 10);
+            valor /= 10;
+        }
+    }
+}
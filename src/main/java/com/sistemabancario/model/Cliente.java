@@ -1,5 +1,9 @@
 package com.sistemabancario.model;
 
+import com.sistemabancario.metricas.EventoAutenticacao;
+import com.sistemabancario.metricas.Metricas;
+import com.sistemabancario.metricas.MotivoRecusa;
+
 import java.util.Objects;
 
 /**
@@ -11,6 +15,13 @@ import java.util.Objects;
  * @author Manoel Campos da Silva Filho
  */
 public class Cliente implements Cadastro {
+    /**
+     * Resultados possíveis da verificação de um CPF por {@link #verificaCpf(String)}.
+     */
+    private static final int CPF_VALIDO = 0, CPF_VAZIO = 1, CPF_QUANTIDADE_INVALIDA = 2,
+                             CPF_NUMEROS_REPETIDOS = 3, CPF_DIGITO_INVALIDO = 4;
+
+    private static final int TAMANHO_CPF = 11;
 
     private long id;
 
@@ -59,7 +70,8 @@ public class Cliente implements Cadastro {
     private String nome;
 
     /**
-     * Senha do cliente
+     * Hash da senha do cliente, gerado por {@link Senhas#gera(String)}.
+     * A senha em si nunca é armazenada.
      */
     private String senha;
 
@@ -85,23 +97,65 @@ public class Cliente implements Cadastro {
     public void setCpf(String cpf) {
         Objects.requireNonNull(cpf, "Cpf não pode ser nulo.");
 
-        if(cpf.trim().isEmpty()) {
-            throw new IllegalArgumentException("Cpf não pode ser vazio.");
+        switch (verificaCpf(cpf)) {
+            case CPF_VAZIO: throw new IllegalArgumentException("Cpf não pode ser vazio.");
+            case CPF_QUANTIDADE_INVALIDA: throw new IllegalArgumentException("CPF inválido - Quantidade de caracteres");
+            case CPF_NUMEROS_REPETIDOS: throw new IllegalArgumentException("CPF inválido - Números repetidos");
+            case CPF_DIGITO_INVALIDO: throw new IllegalArgumentException("CPF inválido");
+            default: this.cpf = cpf;
+        }
+    }
+
+    /**
+     * Verifica se um CPF tem exatamente 11 algarismos, que não sejam todos iguais,
+     * e se os dígitos verificadores são válidos. Os algarismos são percorridos
+     * uma única vez, calculando ao mesmo tempo as somas dos dois dígitos verificadores,
+     * sem usar expressões regulares e sem criar nenhum objeto.
+     *
+     * @param cpf CPF a ser verificado
+     * @return {@link #CPF_VALIDO} ou o código do problema encontrado
+     */
+    private static int verificaCpf(final String cpf) {
+        if (cpf.length() != TAMANHO_CPF) {
+            return isBranco(cpf) ? CPF_VAZIO : CPF_QUANTIDADE_INVALIDA;
         }
 
-        if(!cpf.matches("\\d{11}")) {
-            throw new IllegalArgumentException("CPF inválido - Quantidade de caracteres");
+        final char primeiro = cpf.charAt(0);
+        boolean repetidos = true;
+        int soma1 = 0, soma2 = 0;
+        for (int i = 0; i < TAMANHO_CPF; i++) {
+            final char c = cpf.charAt(i);
+            if (c < '0' || c > '9') {
+                return isBranco(cpf) ? CPF_VAZIO : CPF_QUANTIDADE_INVALIDA;
+            }
+
+            repetidos &= c == primeiro;
+            final int algarismo = c - '0';
+            if (i < 9) soma1 += (10 - i) * algarismo;
+            if (i < 10) soma2 += (11 - i) * algarismo;
         }
 
-        if(cpf.matches("^([0-9])\\1*$")) {
-            throw new IllegalArgumentException("CPF inválido - Números repetidos");
+        if (repetidos) {
+            return CPF_NUMEROS_REPETIDOS;
         }
 
-        if (!isCpfValido(cpf)) {
-            throw new IllegalArgumentException("CPF inválido");
+        final boolean digitosValidos =
+                cpf.charAt(9) - '0' == Util.digitoModulo11(soma1) &&
+                cpf.charAt(10) - '0' == Util.digitoModulo11(soma2);
+        return digitosValidos ? CPF_VALIDO : CPF_DIGITO_INVALIDO;
+    }
+
+    /**
+     * Verifica se um texto contém apenas espaços (ou outros caracteres removidos por {@link String#trim()}).
+     */
+    private static boolean isBranco(final String texto) {
+        for (int i = 0; i < texto.length(); i++) {
+            if (texto.charAt(i) > ' ') {
+                return false;
+            }
         }
 
-        this.cpf = cpf;
+        return true;
     }
 
     /**
@@ -120,6 +174,10 @@ public class Cliente implements Cadastro {
      * Com isto, evitamos qualquer repetição de código e tornamos o código do método
      * isCpfValido menor e muito mais legível.
      *
+     * Como CPFs são validados a cada cadastro e login, o cálculo passou a ser
+     * feito percorrendo o CPF uma única vez, sem criar objetos (como Strings
+     * intermediárias), usando {@link Util#digitoModulo11(int)}.
+     *
      * Ao criar o método calcularDigito, definimos sua visibilidade como private,
      * para indicar que ele não será acessível fora da classe. Isto porque, o método
      * é apenas parte do processo de validação do CPF. Ele chamado fora deste
@@ -132,26 +190,31 @@ public class Cliente implements Cadastro {
      * @return true se o CPF for válido, false caso contrário.
      */
     public boolean isCpfValido(String cpf) {
-        // Remove caracteres não numéricos do CPF
-        cpf = cpf.replaceAll("\\D", "");
-
-        if (cpf.length() != 11) {
-            return false;
+        /* Os caracteres não numéricos (como pontos e hífen) são ignorados.
+           As somas usadas para calcular os dois dígitos verificadores são
+           feitas enquanto os algarismos são percorridos, assim nenhuma
+           String intermediária precisa ser criada. */
+        int algarismos = 0, soma1 = 0, soma2 = 0, d1 = 0, d2 = 0;
+        for (int i = 0; i < cpf.length(); i++) {
+            final char c = cpf.charAt(i);
+            if (c < '0' || c > '9') {
+                continue;
+            }
+
+            if (algarismos == TAMANHO_CPF) {
+                return false;
+            }
+
+            final int algarismo = c - '0';
+            if (algarismos < 9) soma1 += (10 - algarismos) * algarismo;
+            if (algarismos < 10) soma2 += (11 - algarismos) * algarismo;
+            if (algarismos == 9) d1 = algarismo;
+            if (algarismos == 10) d2 = algarismo;
+            algarismos++;
         }
 
-        final String d1 = Util.calculaDigitoModulo11(cpf, 9);
-        final String d2 = Util.calculaDigitoModulo11(cpf, 10);
-
-        /* Converte os dígitos calculados de int para String e une (concatena) 
-        os dois numa só String.*/
-        final String digVerificadorCalculado = d1 + d2;
-
-        // Copia os 2 últimos dígitos do CPF informado, pra comparar com os dígitos calculados
-        final String digVerificadorExistente = cpf.substring(cpf.length() - 2);
-
-        /* Compara os 2 últimos dígitos do CPF com os 2 calculados. 
-           Se forem iguais, o CPF é válido. */
-        return digVerificadorExistente.equals(digVerificadorCalculado);
+        // Compara os 2 últimos dígitos do CPF com os 2 calculados
+        return algarismos == TAMANHO_CPF && d1 == Util.digitoModulo11(soma1) && d2 == Util.digitoModulo11(soma2);
     }
 
     public String getNome() {
@@ -172,18 +235,40 @@ public class Cliente implements Cadastro {
         this.nome = nome;
     }
 
+    /**
+     * Obtém o hash da senha do cliente (não a senha em si).
+     * @return o hash no formato gerado por {@link Senhas#gera(String)}
+     */
     public String getSenha() {
         return this.senha;
     }
 
+    /**
+     * Altera a senha do cliente, armazenando apenas o seu hash,
+     * gerado com um sal aleatório por {@link Senhas#gera(String)}.
+     * @param senha nova senha
+     */
     public void setSenha(String senha) {
         Objects.requireNonNull(senha, "Senha não pode ser nula.");
 
-        if(nome.trim().isEmpty()) {
+        if(senha.trim().isEmpty()) {
             throw new IllegalArgumentException("Senha não pode ser vazia.");
         }
 
-        this.senha = senha;
+        this.senha = Senhas.gera(senha);
+    }
+
+    /**
+     * Define o hash da senha do cliente, como obtido por {@link #getSenha()}.
+     * Usado para restaurar um cliente gravado, sem conhecer a sua senha.
+     * @param hash hash da senha no formato gerado por {@link Senhas#gera(String)}
+     */
+    public void setHashSenha(String hash) {
+        if (!Senhas.isHashValido(hash)) {
+            throw new IllegalArgumentException("Hash de senha inválido.");
+        }
+
+        this.senha = hash;
     }
 
     public Conta getConta() {
@@ -196,17 +281,34 @@ public class Cliente implements Cadastro {
 
     /**
      * Testa se as informações de login do usuário estão corretas
-     * e autentica o usuário
+     * e autentica o usuário.
+     * Como o hash da senha é propositalmente lento, este método deve ser
+     * chamado somente no login. Para as requisições seguintes,
+     * deve-se usar uma {@link Sessoes sessão}.
      * @param cliente
      * @param cpf
      * @param senha
      * @return boolean
      */
     public static Boolean autentica(Cliente cliente, String cpf, String senha) {
-        if (!Objects.isNull(cliente) && senha.equals(cliente.getSenha())) {
-            return true;
+        final long inicio = Metricas.AUTENTICACAO.inicia();
+        final EventoAutenticacao evento = EventoAutenticacao.inicia();
+        if (Objects.isNull(cliente)) {
+            Metricas.AUTENTICACAO.recusa(MotivoRecusa.CPF_INVALIDO);
+            evento.recusa(null, MotivoRecusa.CPF_INVALIDO);
+            return false;
         }
-        return false;
+
+        final String conta = cliente.getConta() == null ? null : cliente.getConta().getNumero();
+        if (!Senhas.confere(senha, cliente.getSenha())) {
+            Metricas.AUTENTICACAO.recusa(MotivoRecusa.SENHA_INCORRETA);
+            evento.recusa(conta, MotivoRecusa.SENHA_INCORRETA);
+            return false;
+        }
+
+        Metricas.AUTENTICACAO.conclui(inicio);
+        evento.conclui(conta);
+        return true;
     }
 
 }
@@ -1,39 +1,94 @@
 package com.sistemabancario.model;
 
+import com.sistemabancario.metricas.EventoPesquisa;
+
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.Map;
 
 public class ColecaoClientes {
+    /**
+     * Nome da coleção nos {@link EventoPesquisa eventos de pesquisa}.
+     */
+    private static final String NOME_PESQUISA = "clientes";
+
+    /**
+     * Coleção de clientes indexada pelo CPF do Cliente (convertido para long
+     * por {@link Chaves#cpf(CharSequence)}), cujo índice fica fora do heap.
+     * Permite percorrer os clientes (por exemplo, para gravá-los em disco)
+     * enquanto outros são adicionados.
+     */
+    private final IndiceClientes clientes;
 
     /**
-     * Coleção de clientes feita em HashMap,
-     * sendo a key o cpf do Cliente, e o value o seu objeto
+     * Instancia uma coleção de clientes vazia
+     * @param capacidadeEsperada total de clientes que se espera armazenar,
+     *                           evitando que o índice precise crescer
+     *                           enquanto os clientes são adicionados
      */
-    private HashMap<String, Cliente> clientes;
+    public ColecaoClientes(int capacidadeEsperada) {
+        this.clientes = new IndiceClientes(capacidadeEsperada);
+    }
 
     /**
      * Instancia uma coleção de clientes para ser utilizado nas movimentações
      * @param clientes a coleção {@link clientes} para inicializar a ColecaoClientes
+     * @throws IllegalArgumentException se algum CPF não tiver exatamente 11 algarismos
      */
-    public ColecaoClientes(HashMap<String, Cliente> clientes) {
-        this.clientes = clientes;
+    public ColecaoClientes(Map<String, Cliente> clientes) {
+        this(clientes.size());
+        clientes.forEach((cpf, cliente) -> putCliente(cliente, cpf));
     }
 
     /**
-     * Pesquisa por um Cliente utilizando o seu cpf dentro do HashMap
+     * Pesquisa por um Cliente utilizando o seu cpf.
+     * O CPF é convertido para long sem criar nenhum objeto.
      * @param cpf
-     * @return {@link Cliente}
+     * @return {@link Cliente} ou null se não existir cliente com o CPF
+     *         (ou se o CPF for nulo ou não tiver exatamente 11 algarismos)
      */
     public Cliente getCliente(String cpf) {
-        return clientes.get(cpf);
+        return getCliente(cpf == null ? Chaves.INVALIDA : Chaves.cpf(cpf));
+    }
+
+    /**
+     * Pesquisa por um Cliente utilizando a chave numérica do seu CPF,
+     * como a recebida pelo protocolo binário.
+     * @param chave chave do CPF (obtida por {@link Chaves#cpf(CharSequence)})
+     * @return {@link Cliente} ou null se não existir cliente com o CPF
+     *         (ou se a chave for negativa)
+     */
+    public Cliente getCliente(final long chave) {
+        final EventoPesquisa evento = EventoPesquisa.inicia();
+        final Cliente cliente = chave < 0 ? null : clientes.get(chave);
+        final Conta conta = cliente == null ? null : cliente.getConta();
+        evento.conclui(NOME_PESQUISA, conta == null ? null : conta.getNumero(), cliente != null);
+        return cliente;
     }
 
     /**
-     * Adiciona um novo Cliente ao HashMap de Coleção de clientes
+     * Adiciona um novo Cliente à Coleção de clientes
      * @param cliente
      * @param cpf
+     * @throws IllegalArgumentException se o CPF não tiver exatamente 11 algarismos
      */
     public void putCliente(Cliente cliente, String cpf) {
-        clientes.put(cpf, cliente);
+        final long chave = Chaves.cpf(cpf);
+        if (chave < 0) {
+            throw new IllegalArgumentException("CPF inválido - Quantidade de caracteres");
+        }
+
+        clientes.put(chave, cliente);
+    }
+
+    /**
+     * Retorna uma visão somente leitura dos clientes armazenados,
+     * que pode ser percorrida enquanto outros clientes são adicionados.
+     * @return os clientes da coleção
+     */
+    public Collection<Cliente> getClientes() {
+        return Collections.unmodifiableCollection(clientes.values());
     }
 
     public static ColecaoClientes inicializaClientes() {
@@ -1,38 +1,222 @@
 package com.sistemabancario.model;
 
+import com.sistemabancario.metricas.EventoPesquisa;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
 
 public class ColecaoContas {
     /**
-     * Coleção de contas feita em HashMap,
-     * sendo a key o número da Conta, e o value o seu objeto
+     * Nome da coleção nos {@link EventoPesquisa eventos de pesquisa}.
+     */
+    private static final String NOME_PESQUISA = "contas";
+
+    /**
+     * Coleção de contas indexada pela chave numérica do número da Conta
+     * (obtida por {@link Chaves#conta(CharSequence)}).
+     * Permite que vários caixas pesquisem contas sem bloqueio enquanto
+     * outros abrem novas contas.
+     */
+    private final IndiceContas contas;
+
+    /**
+     * Registro definido para todas as contas da coleção, inclusive
+     * as que forem adicionadas depois (ou null para não registrar as operações).
+     */
+    private volatile RegistroOperacoes registro;
+
+    /**
+     * Instancia uma coleção de contas vazia
+     * @param capacidadeEsperada total de contas que se espera armazenar,
+     *                           evitando que a tabela precise ser redimensionada
+     *                           enquanto as contas são adicionadas
+     */
+    public ColecaoContas(int capacidadeEsperada) {
+        this(capacidadeEsperada, false);
+    }
+
+    /**
+     * Instancia uma coleção de contas vazia
+     * @param capacidadeEsperada total de contas que se espera armazenar,
+     *                           evitando que a tabela precise ser redimensionada
+     *                           enquanto as contas são adicionadas
+     * @param foraDoHeap indica se as chaves do índice das contas devem ser alocadas fora do heap,
+     *                   reduzindo o trabalho do coletor de lixo quando
+     *                   são armazenadas milhões de contas (as contas continuam no heap)
      */
-    private HashMap<String, Conta> contas;
+    public ColecaoContas(int capacidadeEsperada, boolean foraDoHeap) {
+        this.contas = new IndiceContas(capacidadeEsperada, foraDoHeap);
+    }
 
     /**
      * Instancia uma coleção de contas para ser utilizado nas movimentações
      * @param contas a coleção {@link contas} para inicializar a ColecaoContas
      */
-    public ColecaoContas(HashMap<String, Conta> contas) {
-        this.contas = contas;
+    public ColecaoContas(Map<String, Conta> contas) {
+        this(contas.size());
+        contas.forEach((numero, conta) -> this.contas.put(chave(numero), conta));
     }
 
     /**
-     * Pesquisa por um Conta utilizando o seu numero dentro do HashMap
+     * Pesquisa por um Conta utilizando o seu numero
      * @param numero
-     * @return {@link Conta}
+     * @return {@link Conta} ou null se não existir conta com o número
+     *         (ou se o número for nulo ou não estiver no formato 99999-9)
      */
     public Conta getConta(String numero) {
-        return contas.get(numero);
+        final EventoPesquisa evento = EventoPesquisa.inicia();
+        final int chave = numero == null ? Chaves.INVALIDA : Chaves.conta(numero);
+        final Conta conta = chave < 0 ? null : contas.get(chave);
+        evento.conclui(NOME_PESQUISA, numero, conta != null);
+        return conta;
     }
 
     /**
-     * Adiciona um novo Conta ao HashMap de Coleção de contas
+     * Pesquisa por um Conta utilizando a chave numérica do seu número.
+     * @param chave chave do número da conta, obtida por {@link Chaves#conta(CharSequence)}
+     *              ou {@link Conta#getChaveNumero()}
+     * @return {@link Conta} ou null se não existir conta com a chave
+     */
+    public Conta getConta(int chave) {
+        final EventoPesquisa evento = EventoPesquisa.inicia();
+        final Conta conta = chave < 0 ? null : contas.get(chave);
+        evento.conclui(NOME_PESQUISA, conta == null ? null : conta.getNumero(), conta != null);
+        return conta;
+    }
+
+    /**
+     * Adiciona um novo Conta à Coleção de contas
      * @param conta
      * @param numero
+     * @throws IllegalArgumentException se o número não estiver no formato 99999-9
      */
     public void putConta(Conta conta, String numero) {
-        contas.put(numero, conta);
+        final int chave = chave(numero);
+        defineRegistro(conta);
+        contas.put(chave, conta);
+    }
+
+    /**
+     * Adiciona várias contas de uma só vez à Coleção de contas
+     * @param contas mapa contendo o número de cada conta e o seu objeto
+     * @throws IllegalArgumentException se algum número não estiver no formato 99999-9
+     */
+    public void putContas(Map<String, Conta> contas) {
+        //Valida todos os números antes de adicionar qualquer conta
+        contas.keySet().forEach(ColecaoContas::chave);
+        contas.forEach((numero, conta) -> this.contas.put(chave(numero), defineRegistro(conta)));
+    }
+
+    /**
+     * Abre uma conta com um determinado número, caso ainda não exista
+     * uma conta com tal número. A verificação e a inserção são feitas
+     * atomicamente, assim dois caixas tentando abrir a mesma conta
+     * ao mesmo tempo obtêm o mesmo objeto.
+     * @param numero número da conta a ser aberta
+     * @param criaConta função que cria a conta a partir do seu número,
+     *                  chamada somente se a conta ainda não existir
+     * @return a {@link Conta} existente ou a que acabou de ser aberta
+     * @throws IllegalArgumentException se o número não estiver no formato 99999-9
+     */
+    public Conta abreConta(String numero, Function<String, Conta> criaConta) {
+        return contas.computeIfAbsent(chave(numero), c -> defineRegistro(criaConta.apply(numero)));
+    }
+
+    /**
+     * Define onde as operações realizadas em todas as contas da coleção
+     * (inclusive as que forem adicionadas depois) serão registradas.
+     * @param registro registro das operações ou null para não registrá-las
+     * @see Conta#setRegistro(RegistroOperacoes)
+     */
+    public void setRegistro(RegistroOperacoes registro) {
+        this.registro = registro;
+        contas.values().forEach(conta -> conta.setRegistro(registro));
+    }
+
+    RegistroOperacoes getRegistro() {
+        return registro;
+    }
+
+    private static int chave(final String numero) {
+        final int chave = Chaves.conta(numero);
+        if (chave < 0) {
+            throw new IllegalArgumentException("Numero invalido. Deve estar no formato 99999-9");
+        }
+
+        return chave;
+    }
+
+    private Conta defineRegistro(final Conta conta) {
+        if (registro != null) {
+            conta.setRegistro(registro);
+        }
+        return conta;
+    }
+
+    /**
+     * Retorna uma visão somente leitura das contas armazenadas.
+     * A visão pode ser percorrida enquanto outras threads adicionam contas,
+     * sem lançar {@link java.util.ConcurrentModificationException}.
+     * Cada conta é retornada no máximo uma vez, e contas adicionadas
+     * durante a iteração podem ou não ser incluídas.
+     * @return
+     */
+    public Collection<Conta> getContas() {
+        return Collections.unmodifiableCollection(contas.values());
+    }
+
+    /**
+     * Retorna o total de contas armazenadas.
+     * @return
+     */
+    public int getTotal() {
+        return contas.size();
+    }
+
+    /**
+     * Adiciona um lote de movimentações de uma ou várias contas (como os créditos
+     * de uma folha de pagamento). Todas as movimentações são validadas antes que
+     * qualquer uma seja adicionada; então elas são agrupadas por conta e cada conta
+     * recebe suas movimentações de uma única vez, como em {@link Conta#addMovimentacoes(Collection)}.
+     * As operações de todas as contas são registradas antes de se aguardar que
+     * os registros sejam armazenados, assim o lote inteiro aguarda uma única gravação em disco,
+     * em vez de uma por conta.
+     * O lote não é atômico entre contas diferentes: se o registro das operações
+     * de uma conta falhar, as contas anteriores já terão recebido suas movimentações.
+     *
+     * @param lote movimentações a serem adicionadas, cada uma vinculada à sua conta
+     * @throws IllegalArgumentException se alguma movimentação não tiver conta
+     *                                  ou não tiver tipo 'C' ou 'D'
+     */
+    public void addMovimentacoes(Collection<? extends Movimentacao> lote) {
+        final Map<Conta, List<Movimentacao>> porConta = new IdentityHashMap<>();
+        for (final Movimentacao movimentacao : lote) {
+            Conta.validaLancamento(movimentacao);
+            final Conta conta = movimentacao.getConta();
+            if (conta == null) {
+                throw new IllegalArgumentException("Movimentação não está vinculada a uma conta.");
+            }
+            porConta.computeIfAbsent(conta, c -> new ArrayList<>()).add(movimentacao);
+        }
+
+        final Map<RegistroOperacoes, Long> ultimasSequencias = new IdentityHashMap<>();
+        try {
+            porConta.forEach((conta, movimentacoes) -> {
+                final RegistroOperacoes registro = conta.getRegistro();
+                final long sequencia = conta.registraLancamentos(movimentacoes, registro);
+                if (sequencia != 0) {
+                    ultimasSequencias.merge(registro, sequencia, Math::max);
+                }
+            });
+        } finally {
+            ultimasSequencias.forEach(RegistroOperacoes::aguardaPersistencia);
+        }
     }
 
     public static ColecaoContas inicializaContas() {
@@ -62,7 +246,7 @@ public class ColecaoContas {
         // Conta 4
         Conta conta4 = new Conta(false, 500);
         String numeroConta4 = "67332-3";
-        conta3.setNumero(numeroConta3);
+        conta4.setNumero(numeroConta4);
 
         contasMap.put(numeroConta1, conta1);
         contasMap.put(numeroConta2, conta2);
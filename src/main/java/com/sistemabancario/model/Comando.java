@@ -0,0 +1,139 @@
+package com.sistemabancario.model;
+
+/**
+ * Posição do anel de um {@link PipelineComandos}, contendo uma operação a ser realizada
+ * numa conta e, após ela ser processada, o seu resultado.
+ *
+ * <p>
+ * Os comandos são criados junto com o pipeline e reutilizados a cada volta no anel,
+ * assim enviar uma operação não cria nenhum objeto. Por isso, um comando só pode ser
+ * acessado durante a chamada a {@link PipelineComandos.Resposta#responde(Comando, boolean)}:
+ * depois disso, ele pode ser sobrescrito por uma nova operação.
+ * </p>
+ *
+ * @author Manoel Campos da Silva Filho
+ */
+public final class Comando {
+    private long identificador;
+    private Operacao operacao;
+    private int chaveConta;
+    private int chaveDestino;
+    private long centavos;
+
+    /**
+     * Depósito em cheque a ser confirmado ou devolvido, ou o depósito realizado
+     * por um comando {@link Operacao#DEPOSITO_CHEQUE}.
+     */
+    private Movimentacao cheque;
+
+    private long saldoCentavos;
+    private RuntimeException erro;
+
+    /**
+     * Sequência do registro da operação no {@link RegistroOperacoes} das contas
+     * (ou 0 se a operação não foi registrada).
+     */
+    private long sequenciaRegistro;
+
+    Comando() {}
+
+    /**
+     * Define a operação a ser realizada, limpando o resultado da operação anterior.
+     */
+    void define(
+        final long identificador, final Operacao operacao, final int chaveConta,
+        final int chaveDestino, final long centavos, final Movimentacao cheque)
+    {
+        this.identificador = identificador;
+        this.operacao = operacao;
+        this.chaveConta = chaveConta;
+        this.chaveDestino = chaveDestino;
+        this.centavos = centavos;
+        this.cheque = cheque;
+        this.saldoCentavos = 0;
+        this.erro = null;
+        this.sequenciaRegistro = 0;
+    }
+
+    void conclui(final long saldoCentavos, final long sequenciaRegistro) {
+        this.saldoCentavos = saldoCentavos;
+        this.sequenciaRegistro = sequenciaRegistro;
+    }
+
+    void setCheque(final Movimentacao cheque) {
+        this.cheque = cheque;
+    }
+
+    void setErro(final RuntimeException erro) {
+        this.erro = erro;
+    }
+
+    long getSequenciaRegistro() {
+        return sequenciaRegistro;
+    }
+
+    /**
+     * Identificador informado por quem enviou a operação, como o número de uma requisição,
+     * usado para encaminhar a resposta.
+     * @return
+     */
+    public long getIdentificador() {
+        return identificador;
+    }
+
+    public Operacao getOperacao() {
+        return operacao;
+    }
+
+    /**
+     * Chave do número da conta onde a operação é realizada
+     * (na confirmação e na devolução de cheques, a chave da conta do depósito).
+     * @return
+     */
+    public int getChaveConta() {
+        return chaveConta;
+    }
+
+    /**
+     * Chave do número da conta de destino de uma transferência.
+     * @return
+     */
+    public int getChaveDestino() {
+        return chaveDestino;
+    }
+
+    public long getCentavos() {
+        return centavos;
+    }
+
+    /**
+     * Depósito em cheque confirmado ou devolvido pela operação ou, para um
+     * {@link Operacao#DEPOSITO_CHEQUE}, o depósito realizado (que pode ser confirmado
+     * posteriormente, por exemplo por meio de {@link PipelineComandos#confirmaDepositoCheque(Movimentacao, long)}).
+     * @return
+     */
+    public Movimentacao getCheque() {
+        return cheque;
+    }
+
+    /**
+     * Saldo total da conta (incluindo o limite) logo após a operação, em {@link Centavos centavos}.
+     * @return
+     */
+    public long getSaldoCentavos() {
+        return saldoCentavos;
+    }
+
+    /**
+     * Erro que impediu a operação de ser realizada (com a mesma exceção
+     * lançada pela operação em {@link Conta}) ou null se ela foi realizada.
+     * @return
+     */
+    public RuntimeException getErro() {
+        return erro;
+    }
+
+    public boolean isRealizado() {
+        return erro == null;
+    }
+}
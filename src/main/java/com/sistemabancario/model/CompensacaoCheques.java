@@ -0,0 +1,222 @@
+package com.sistemabancario.model;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * Compensação dos depósitos em cheque pendentes de todas as contas.
+ *
+ * <p>
+ * Os depósitos são indexados pela data prevista de compensação, assim uma execução
+ * percorre somente os cheques com data prevista até o dia indicado, sem percorrer
+ * o histórico de todas as contas. Para cada data, os depósitos são armazenados
+ * em vetores (a conta e a posição do depósito no histórico da conta), em vez de um objeto por cheque.
+ * Na compensação, os cheques são agrupados por conta e cada conta recebe,
+ * numa única operação atômica, a confirmação ou devolução de todos os seus cheques.
+ * As operações de todas as contas são registradas antes de se aguardar que os registros
+ * sejam armazenados, assim uma compensação aguarda uma única gravação em disco, em vez de uma por conta.
+ * </p>
+ *
+ * <p>
+ * O índice é mantido somente em memória. Depois de reiniciar o sistema,
+ * os depósitos que continuarem pendentes nas contas devem ser novamente
+ * {@link #agenda(Movimentacao, LocalDate) agendados}.
+ * </p>
+ *
+ * @author Manoel Campos da Silva Filho
+ */
+public class CompensacaoCheques {
+    /**
+     * Depósitos a serem compensados em cada data.
+     */
+    private final ConcurrentSkipListMap<LocalDate, Lote> lotes = new ConcurrentSkipListMap<>();
+
+    /**
+     * Depósitos em cheque a serem compensados numa mesma data.
+     * Quando o lote é compensado, ele é fechado e não recebe mais depósitos.
+     */
+    private static final class Lote {
+        private Conta[] contas = new Conta[16];
+        private int[] indices = new int[16];
+        private int tamanho;
+        private boolean fechado;
+
+        synchronized boolean adiciona(final Conta conta, final int indice) {
+            if (fechado) {
+                return false;
+            }
+
+            if (tamanho == indices.length) {
+                final int capacidade = tamanho + (tamanho >> 1);
+                contas = Arrays.copyOf(contas, capacidade);
+                indices = Arrays.copyOf(indices, capacidade);
+            }
+
+            contas[tamanho] = conta;
+            indices[tamanho++] = indice;
+            return true;
+        }
+
+        synchronized void fecha() {
+            fechado = true;
+        }
+
+        synchronized int size() {
+            return tamanho;
+        }
+    }
+
+    /**
+     * Realiza um depósito em cheque numa conta e o agenda para ser compensado numa determinada data.
+     *
+     * @param conta conta onde o cheque será depositado
+     * @param valor valor do cheque (deve ser um valor positivo)
+     * @param dataCompensacao data prevista para a compensação
+     * @return a movimentação do depósito, registrada no histórico da conta
+     * @see Conta#depositoCheque(double)
+     */
+    public Movimentacao depositoCheque(final Conta conta, final double valor, final LocalDate dataCompensacao) {
+        Objects.requireNonNull(conta, "Conta não pode ser nula.");
+        Objects.requireNonNull(dataCompensacao, "Data de compensação não pode ser nula.");
+        final MovimentacaoRegistrada deposito = conta.depositaCheque(valor);
+        adiciona(conta, deposito.getIndice(), dataCompensacao);
+        return deposito;
+    }
+
+    /**
+     * Agenda a compensação de um depósito em cheque já realizado.
+     *
+     * @param deposito depósito pendente obtido do histórico de uma conta
+     *                 (por meio de {@link Conta#getMovimentacoes()})
+     * @param dataCompensacao data prevista para a compensação
+     * @throws IllegalArgumentException se a movimentação não for um depósito pendente
+     *                                  armazenado no histórico de uma conta
+     */
+    public void agenda(final Movimentacao deposito, final LocalDate dataCompensacao) {
+        Objects.requireNonNull(dataCompensacao, "Data de compensação não pode ser nula.");
+        if (!(deposito instanceof MovimentacaoRegistrada)) {
+            throw new IllegalArgumentException("Movimentação não pertence ao histórico de uma conta.");
+        }
+        if (deposito.getTipo() != 'C' || deposito.isConfirmada() || deposito.isDevolvida()) {
+            throw new IllegalArgumentException("Somente depósitos pendentes podem ser compensados.");
+        }
+
+        adiciona(deposito.getConta(), ((MovimentacaoRegistrada) deposito).getIndice(), dataCompensacao);
+    }
+
+    private void adiciona(final Conta conta, final int indice, final LocalDate dataCompensacao) {
+        while (true) {
+            final Lote lote = lotes.computeIfAbsent(dataCompensacao, data -> new Lote());
+            if (lote.adiciona(conta, indice)) {
+                return;
+            }
+
+            // O lote foi fechado por uma compensação em andamento: um novo lote é criado para a data.
+            lotes.remove(dataCompensacao, lote);
+        }
+    }
+
+    /**
+     * Compensa todos os depósitos com data prevista até uma determinada data.
+     * Os cheques que já tiverem sido confirmados ou devolvidos individualmente são ignorados.
+     *
+     * @param data data da compensação (inclusive)
+     * @param aprovado indica se um depósito deve ser confirmado (true) ou devolvido (false)
+     * @return a quantidade e o valor dos cheques compensados
+     */
+    public ResultadoCompensacao compensa(final LocalDate data, final Predicate<Movimentacao> aprovado) {
+        Objects.requireNonNull(data, "Data não pode ser nula.");
+        Objects.requireNonNull(aprovado, "Critério de aprovação não pode ser nulo.");
+        final ResultadoCompensacao resultado = new ResultadoCompensacao();
+        final Map<RegistroOperacoes, Long> ultimasSequencias = new IdentityHashMap<>();
+        try {
+            Map.Entry<LocalDate, Lote> entrada;
+            while ((entrada = lotes.firstEntry()) != null && !entrada.getKey().isAfter(data)) {
+                if (lotes.remove(entrada.getKey(), entrada.getValue())) {
+                    compensa(entrada.getValue(), aprovado, resultado, ultimasSequencias);
+                }
+            }
+        } finally {
+            ultimasSequencias.forEach(RegistroOperacoes::aguardaPersistencia);
+        }
+
+        return resultado;
+    }
+
+    /**
+     * Compensa os depósitos de um lote, sem aguardar que as operações sejam armazenadas.
+     * @param ultimasSequencias onde é guardada a sequência do último registro
+     *                          de cada {@link RegistroOperacoes} das contas
+     */
+    private static void compensa(
+        final Lote lote, final Predicate<Movimentacao> aprovado,
+        final ResultadoCompensacao resultado, final Map<RegistroOperacoes, Long> ultimasSequencias)
+    {
+        lote.fecha();
+        final Map<Conta, Depositos> porConta = new IdentityHashMap<>();
+        for (int i = 0; i < lote.tamanho; i++) {
+            final Conta conta = lote.contas[i];
+            final MovimentacaoRegistrada deposito = (MovimentacaoRegistrada) conta.getMovimentacoes().get(lote.indices[i]);
+            if (deposito.isConfirmada() || deposito.isDevolvida()) {
+                continue;
+            }
+
+            final Depositos depositos = porConta.computeIfAbsent(conta, c -> new Depositos());
+            (aprovado.test(deposito) ? depositos.confirmados : depositos.devolvidos).add(deposito);
+        }
+
+        porConta.forEach((conta, depositos) -> {
+            final RegistroOperacoes registro = conta.getRegistro();
+            final long sequencia = conta.compensaCheques(depositos.confirmados, depositos.devolvidos, resultado, registro);
+            if (sequencia != 0) {
+                ultimasSequencias.merge(registro, sequencia, Math::max);
+            }
+        });
+    }
+
+    /**
+     * Depósitos de uma conta a serem confirmados e devolvidos numa compensação.
+     */
+    private static final class Depositos {
+        private final List<MovimentacaoRegistrada> confirmados = new ArrayList<>();
+        private final List<MovimentacaoRegistrada> devolvidos = new ArrayList<>();
+    }
+
+    /**
+     * Agenda a execução periódica da compensação, compensando a cada execução
+     * os depósitos com data prevista até a data atual.
+     *
+     * @param executor executor onde a compensação será executada
+     * @param periodo intervalo entre duas execuções
+     * @param unidade unidade de tempo do período
+     * @param relogio relógio usado para obter a data atual
+     * @param aprovado indica se um depósito deve ser confirmado (true) ou devolvido (false)
+     * @return o agendamento, que pode ser usado para cancelá-lo
+     */
+    public ScheduledFuture<?> agendaCompensacao(
+        final ScheduledExecutorService executor, final long periodo, final TimeUnit unidade,
+        final Clock relogio, final Predicate<Movimentacao> aprovado)
+    {
+        return executor.scheduleWithFixedDelay(
+                () -> compensa(LocalDate.now(relogio), aprovado), periodo, periodo, unidade);
+    }
+
+    /**
+     * Retorna o total de depósitos aguardando compensação.
+     * @return o total de depósitos agendados e ainda não compensados
+     */
+    public long getTotalAgendados() {
+        return lotes.values().stream().mapToLong(Lote::size).sum();
+    }
+}
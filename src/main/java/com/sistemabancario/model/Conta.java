@@ -1,7 +1,18 @@
 package com.sistemabancario.model;
 
-import java.util.List;
+import com.sistemabancario.metricas.EventoOperacao;
+import com.sistemabancario.metricas.Metricas;
+import com.sistemabancario.metricas.MetricasOperacao;
+import com.sistemabancario.metricas.MotivoRecusa;
+
+import java.time.Clock;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
 
 /**
  * Representa uma conta bancária de um determinado {@link Cliente}, tendo os
@@ -15,8 +26,39 @@ import java.util.ArrayList;
  */
 public class Conta implements Cadastro {
 
+    /**
+     * Permite atualizar o {@link #saldo} por meio de operações atômicas
+     * (compare-and-set), sem a necessidade de bloquear a conta
+     * e sem criar um objeto adicional para cada conta instanciada.
+     */
+    private static final AtomicLongFieldUpdater<Conta> SALDO =
+            AtomicLongFieldUpdater.newUpdater(Conta.class, "saldo");
+
+    /**
+     * Gera a {@link #ordem} de cada conta instanciada.
+     */
+    private static final AtomicLong SEQUENCIA = new AtomicLong();
+
+    /**
+     * Início da descrição das movimentações de uma transferência,
+     * seguido do número da conta da outra parte.
+     */
+    static final String TRANSFERENCIA_PARA = "Transferência para conta ",
+                        TRANSFERENCIA_DA = "Transferência da conta ",
+                        ESTORNO_TRANSFERENCIA = "Estorno de transferência para conta ";
+
     private long id;
 
+    /**
+     * Número único e imutável atribuído à conta quando ela é instanciada.
+     * Diferente do {@link #id}, que pode ser alterado (ou nem ser definido),
+     * é usado para definir uma ordem global entre as contas. Desta forma,
+     * operações que bloqueiam duas contas (como uma
+     * {@link #transferencia(Conta, double) transferência}) sempre as bloqueiam
+     * na mesma ordem, evitando deadlocks.
+     */
+    private final long ordem = SEQUENCIA.incrementAndGet();
+
     /**
      * Número que identifica unicamente uma conta em uma determinada agência,
      * devendo estar no formato 99999-9. Se o número não estiver no formato
@@ -26,6 +68,12 @@ public class Conta implements Cadastro {
      */
     private String numero;
 
+    /**
+     * Chave numérica do {@link #numero}, obtida por {@link Chaves#conta(CharSequence)},
+     * ou {@link Chaves#INVALIDA} se o número não foi definido.
+     */
+    private int chaveNumero = Chaves.INVALIDA;
+
     /**
      * Contas devem ser instanciadas como "Conta Corrente" e não como
      * "Poupança". (R02) O valor padrão para atributos boolean é false, assim
@@ -44,15 +92,17 @@ public class Conta implements Cadastro {
 
     /**
      * Valor que o cliente possui na conta, sem incluir o {@link #limite}.
+     * É armazenado em {@link Centavos centavos} para evitar erros de
+     * arredondamento e é alterado atomicamente por várias threads usando {@link #SALDO}.
      */
-    private double saldo;
+    private volatile long saldo;
 
     /**
-     * Limite da conta: valor que o cliente pode utilizar além do {@link #saldo}
+     * Limite da conta (em {@link Centavos centavos}): valor que o cliente pode utilizar além do {@link #saldo}
      * disponível. Somente contas especiais podem ter limite, ou seja, o limite
      * de contas "não especiais" não pode ser maior que zero (R03).
      */
-    private double limite;
+    private long limite;
 
     /**
      * Histórico de movimentações da conta. Deve ser inicializado com uma lista
@@ -60,15 +110,40 @@ public class Conta implements Cadastro {
      * NullPointerException. Um teste deve verificar se, após instanciar uma
      * conta usando qualquer um dos construtores, a lista de movimentações não é
      * nula, chamando o método {@link #getMovimentacoes()}. (R04)
+     * O histórico é sincronizado pois diferentes threads podem registrar
+     * movimentações na mesma conta ao mesmo tempo, e armazena as movimentações
+     * em colunas para reduzir o consumo de memória de históricos longos.
+     */
+    private final HistoricoMovimentacoes movimentacoes = new HistoricoMovimentacoes(this);
+
+    /**
+     * Registro onde as operações realizadas na conta são armazenadas
+     * (ou null para não registrar as operações).
+     * Quando existe um registro, as operações da conta passam a ser feitas
+     * com a conta bloqueada, para que sejam registradas na mesma
+     * ordem em que foram aplicadas.
+     */
+    private volatile RegistroOperacoes registro;
+
+    /**
+     * Número de sequência do último registro de operação desta conta,
+     * feito pelo {@link #registro}. Somente é alterado com a conta bloqueada,
+     * assim quem bloquear a conta (com {@code synchronized}) obtém o saldo e a
+     * sequência da última operação refletida nele.
+     */
+    private long ultimaSequenciaRegistrada;
+
+    /**
+     * Relógio usado para definir o instante das movimentações.
      */
-    private List<Movimentacao> movimentacoes = new ArrayList<>();
+    private Clock relogio = Clock.systemUTC();
 
     public Conta() {}
 
     public Conta(boolean especial, final double limite) {
         // Pra que serve agencia dentro deste construtor?
         this.especial = especial;
-        this.limite = limite;
+        this.limite = Centavos.deReais(limite);
     }
 
     /**
@@ -90,14 +165,145 @@ public class Conta implements Cadastro {
      * </ul>
      *
      * @param movimentacao {@link Movimentacao} a ser adicionada
+     * @see #addMovimentacoes(Collection)
      */
     public void addMovimentacao(Movimentacao movimentacao) {
+        final long inicio = Metricas.ADD_MOVIMENTACAO.inicia();
+        final EventoOperacao evento = EventoOperacao.inicia();
+        final long efeito = efeito(movimentacao);
+        final RegistroOperacoes registro = this.registro;
+        if (registro == null) {
+            if (efeito != 0) credita(efeito);
+            movimentacoes.anexa(movimentacao);
+            Metricas.ADD_MOVIMENTACAO.conclui(inicio);
+            evento.conclui(numero, Operacao.LANCAMENTO, efeito);
+            return;
+        }
+
+        final long sequencia;
+        synchronized (this) {
+            credita(efeito);
+            sequencia = registra(registro, Operacao.LANCAMENTO, movimentacao, efeito);
+            movimentacoes.anexa(movimentacao);
+        }
+        registro.aguardaPersistencia(sequencia);
+        Metricas.ADD_MOVIMENTACAO.conclui(inicio);
+        evento.conclui(numero, Operacao.LANCAMENTO, efeito);
+    }
+
+    /**
+     * Adiciona um lote de movimentações (como os créditos de uma folha de pagamento)
+     * à lista de {@link #movimentacoes}, com o mesmo efeito no saldo que
+     * {@link #addMovimentacao(Movimentacao)}. Todas as movimentações são validadas
+     * antes que qualquer uma seja adicionada; então a soma dos seus efeitos é aplicada
+     * ao saldo de uma única vez e as movimentações são adicionadas ao histórico em bloco.
+     *
+     * @param lote movimentações a serem adicionadas, todas vinculadas a esta conta
+     * @throws IllegalArgumentException se alguma movimentação for de outra conta
+     *                                  ou não tiver tipo 'C' ou 'D'
+     * @see ColecaoContas#addMovimentacoes(Collection)
+     */
+    public void addMovimentacoes(final Collection<? extends Movimentacao> lote) {
+        Objects.requireNonNull(lote, "Lote de movimentações não pode ser nulo.");
+        for (final Movimentacao movimentacao : lote) {
+            validaLancamento(movimentacao);
+            if (movimentacao.getConta() != this) {
+                throw new IllegalArgumentException("Movimentação pertence a outra conta.");
+            }
+        }
+
+        lanca(lote);
+    }
+
+    /**
+     * Verifica se uma movimentação pode ser adicionada por meio de um lote.
+     */
+    static void validaLancamento(final Movimentacao movimentacao) {
+        Objects.requireNonNull(movimentacao, "Movimentação não pode ser nula.");
+        if (movimentacao.getTipo() != 'C' && movimentacao.getTipo() != 'D') {
+            throw new IllegalArgumentException("Tipo só pode ter os valores 'C' (crédito) ou 'D' (débito).");
+        }
+    }
+
+    /**
+     * Adiciona um lote de movimentações já validadas por {@link #validaLancamento(Movimentacao)}.
+     * Se o {@link #registro} falhar, somente as movimentações registradas
+     * antes da falha permanecem no saldo e no histórico.
+     */
+    void lanca(final Collection<? extends Movimentacao> lote) {
+        final RegistroOperacoes registro = this.registro;
+        final long sequencia = registraLancamentos(lote, registro);
+        if (sequencia != 0) {
+            registro.aguardaPersistencia(sequencia);
+        }
+    }
+
+    /**
+     * Adiciona um lote de movimentações já validadas, como em {@link #lanca(Collection)},
+     * mas sem aguardar que os registros sejam armazenados. Assim, quem lança
+     * movimentações em várias contas aguarda uma única vez pelo último registro.
+     *
+     * @param registro registro onde as movimentações serão registradas
+     *                 (o {@link #registro} da conta, lido uma única vez por quem chama)
+     * @return a sequência do último registro a ser passada para
+     *         {@link RegistroOperacoes#aguardaPersistencia(long)},
+     *         ou 0 se nada foi registrado
+     */
+    long registraLancamentos(final Collection<? extends Movimentacao> lote, final RegistroOperacoes registro) {
+        if (lote.isEmpty()) {
+            return 0;
+        }
+
+        long efeitoTotal = 0;
+        for (final Movimentacao movimentacao : lote) {
+            efeitoTotal = Centavos.soma(efeitoTotal, efeito(movimentacao));
+        }
+
+        if (registro == null) {
+            credita(efeitoTotal);
+            movimentacoes.anexaTodas(lote);
+            return 0;
+        }
+
+        long sequencia = 0;
+        synchronized (this) {
+            credita(efeitoTotal);
+            long efeitoRegistrado = 0;
+            int registradas = 0;
+            try {
+                for (final Movimentacao movimentacao : lote) {
+                    sequencia = ultimaSequenciaRegistrada = registro.registra(Operacao.LANCAMENTO, movimentacao, null);
+                    efeitoRegistrado += efeito(movimentacao);
+                    registradas++;
+                }
+            } catch (RuntimeException e) {
+                credita(efeitoRegistrado - efeitoTotal);
+                final List<Movimentacao> registradasAntesDaFalha = new ArrayList<>(registradas);
+                for (final Movimentacao movimentacao : lote) {
+                    if (registradasAntesDaFalha.size() == registradas) break;
+                    registradasAntesDaFalha.add(movimentacao);
+                }
+                movimentacoes.anexaTodas(registradasAntesDaFalha);
+                throw e;
+            }
+            movimentacoes.anexaTodas(lote);
+        }
+        return sequencia;
+    }
+
+    /**
+     * Retorna o valor a ser somado ao saldo quando uma movimentação é adicionada:
+     * somente movimentações confirmadas alteram o saldo.
+     */
+    private static long efeito(final Movimentacao movimentacao) {
         if(movimentacao.isConfirmada()){
             if(movimentacao.getTipo() == 'C')
-                saldo+=movimentacao.getValor();
+                return movimentacao.getValorCentavos();
             else if(movimentacao.getTipo() == 'D')
-                saldo-=movimentacao.getValor();
+                return -movimentacao.getValorCentavos();
         }
+
+        return 0;
     }
 
     /**
@@ -107,7 +313,17 @@ public class Conta implements Cadastro {
      * @return
      */
     public double getSaldoTotal() {
-        if (especial) return limite + saldo;
+        return Centavos.paraReais(getSaldoTotalCentavos());
+    }
+
+    /**
+     * Valor total disponível na conta em {@link Centavos centavos}.
+     *
+     * @return
+     * @see #getSaldoTotal()
+     */
+    public long getSaldoTotalCentavos() {
+        if (especial) return Centavos.soma(limite, saldo);
         return saldo;
     }
 
@@ -126,21 +342,135 @@ public class Conta implements Cadastro {
      * saque em duplicidade.
      * </p>
      *
+     * <p>
+     * Para garantir isso sem bloquear a conta, a verificação do saldo e o
+     * débito são feitos numa única operação atômica por {@link #debita(long)}.
+     * </p>
+     *
      * @param valor valor a ser sacado (deve ser um valor positivo)
      */
     public void saque(final double valor) {
-        if(valor <= 0) {
+        saqueCentavos(Centavos.deReais(valor));
+    }
+
+    /**
+     * Realiza um saque, como em {@link #saque(double)}, com o valor em {@link Centavos centavos},
+     * sem convertê-lo para reais (como os valores recebidos pelo protocolo binário).
+     * @param centavos valor a ser sacado (deve ser um valor positivo)
+     */
+    public void saqueCentavos(final long centavos) {
+        final long inicio = Metricas.SAQUE.inicia();
+        final EventoOperacao evento = EventoOperacao.inicia();
+        if(centavos <= 0) {
+            recusa(Metricas.SAQUE, evento, Operacao.SAQUE, centavos, MotivoRecusa.VALOR_INVALIDO);
             throw new IllegalArgumentException("Valor para saque deve ser maior que zero!");
         }
-        if (saldo < valor) {
+        if (saldo < centavos) {
+            recusa(Metricas.SAQUE, evento, Operacao.SAQUE, centavos, MotivoRecusa.SALDO_INSUFICIENTE);
             throw new IllegalArgumentException("Saldo em conta é menor que valor para saque!");
         }
 
         Movimentacao movimentacao = new Movimentacao(this, true);
         movimentacao.setTipo('D');
-        movimentacao.setValor(valor);
-        this.saldo -= valor;
-        movimentacoes.add(movimentacao);
+        movimentacao.setValorCentavos(centavos);
+        try {
+            aplica(Operacao.SAQUE, movimentacao, -centavos);
+        } catch (IllegalArgumentException e) {
+            // Outra thread reduziu o saldo após a verificação acima
+            recusa(Metricas.SAQUE, evento, Operacao.SAQUE, centavos, MotivoRecusa.SALDO_INSUFICIENTE);
+            throw e;
+        }
+        Metricas.SAQUE.conclui(inicio);
+        evento.conclui(numero, Operacao.SAQUE, centavos);
+    }
+
+    /**
+     * Registra a recusa de uma operação nas métricas e no evento do JFR.
+     */
+    private void recusa(final MetricasOperacao metricas, final EventoOperacao evento, final Operacao operacao,
+                        final long centavos, final MotivoRecusa motivo)
+    {
+        metricas.recusa(motivo);
+        evento.recusa(numero, operacao, centavos, motivo);
+    }
+
+    /**
+     * Altera o saldo de acordo com o efeito de uma movimentação,
+     * registra a operação no {@link #registro} (se houver) e então
+     * adiciona a movimentação ao histórico.
+     *
+     * @param operacao operação realizada
+     * @param movimentacao movimentação gerada pela operação
+     * @param efeito valor a ser somado ao saldo; se for negativo,
+     *               o saldo deve ser suficiente para o débito
+     * @return a posição da movimentação no histórico
+     */
+    private int aplica(final Operacao operacao, final Movimentacao movimentacao, final long efeito) {
+        final RegistroOperacoes registro = this.registro;
+        if (registro == null) {
+            altera(efeito);
+            return movimentacoes.anexa(movimentacao);
+        }
+
+        final long sequencia;
+        final int indice;
+        synchronized (this) {
+            altera(efeito);
+            sequencia = registra(registro, operacao, movimentacao, efeito);
+            indice = movimentacoes.anexa(movimentacao);
+        }
+        registro.aguardaPersistencia(sequencia);
+        return indice;
+    }
+
+    /**
+     * Registra uma operação já aplicada ao saldo, desfazendo a alteração
+     * no saldo caso o registro falhe.
+     * @return o número de sequência do registro
+     */
+    private long registra(final RegistroOperacoes registro, final Operacao operacao, final Movimentacao movimentacao, final long efeito) {
+        try {
+            return ultimaSequenciaRegistrada = registro.registra(operacao, movimentacao, null);
+        } catch (RuntimeException e) {
+            credita(-efeito);
+            throw e;
+        }
+    }
+
+    private void altera(final long efeito) {
+        if (efeito < 0) debita(-efeito);
+        else if (efeito > 0) credita(efeito);
+    }
+
+    /**
+     * Retira um valor do {@link #saldo} somente se ele for suficiente,
+     * verificando e alterando o saldo de forma atômica.
+     * Se outra thread alterar o saldo entre a leitura e a escrita,
+     * a operação é repetida com o novo valor.
+     *
+     * @param centavos valor a ser debitado
+     * @throws IllegalArgumentException se o saldo for menor que o valor
+     */
+    private void debita(final long centavos) {
+        long atual;
+        do {
+            atual = saldo;
+            if (atual < centavos) {
+                throw new IllegalArgumentException("Saldo em conta é menor que valor para saque!");
+            }
+        } while (!SALDO.compareAndSet(this, atual, atual - centavos));
+    }
+
+    /**
+     * Soma atomicamente um valor ao {@link #saldo}.
+     * @param centavos valor a ser somado (negativo para débitos sem verificação de saldo)
+     * @throws ArithmeticException se o novo saldo não couber num long
+     */
+    private void credita(final long centavos) {
+        long atual;
+        do {
+            atual = saldo;
+        } while (!SALDO.compareAndSet(this, atual, Centavos.soma(atual, centavos)));
     }
 
     /**
@@ -152,15 +482,180 @@ public class Conta implements Cadastro {
      * @param valor valor a ser depositado (deve ser um valor positivo)
      */
     public void depositoDinheiro(final double valor) {
-        if(valor <= 0) {
+        depositoDinheiroCentavos(Centavos.deReais(valor));
+    }
+
+    /**
+     * Realiza um depósito em dinheiro, como em {@link #depositoDinheiro(double)},
+     * com o valor em {@link Centavos centavos}.
+     * @param centavos valor a ser depositado (deve ser um valor positivo)
+     */
+    public void depositoDinheiroCentavos(final long centavos) {
+        final long inicio = Metricas.DEPOSITO_DINHEIRO.inicia();
+        final EventoOperacao evento = EventoOperacao.inicia();
+        if(centavos <= 0) {
+            recusa(Metricas.DEPOSITO_DINHEIRO, evento, Operacao.DEPOSITO_DINHEIRO, centavos, MotivoRecusa.VALOR_INVALIDO);
             throw new IllegalArgumentException("O valor de depósito deve ser positivo.");
         }
 
         Movimentacao movimentacao = new Movimentacao(this, true);
         movimentacao.setTipo('C');
-        movimentacao.setValor(valor);
-        this.saldo += valor;
-        movimentacoes.add(movimentacao);
+        movimentacao.setValorCentavos(centavos);
+        aplica(Operacao.DEPOSITO_DINHEIRO, movimentacao, centavos);
+        Metricas.DEPOSITO_DINHEIRO.conclui(inicio);
+        evento.conclui(numero, Operacao.DEPOSITO_DINHEIRO, centavos);
+    }
+
+    /**
+     * Transfere um valor desta conta para uma conta de destino,
+     * registrando um débito nesta conta e um crédito na conta de destino.
+     *
+     * <p>
+     * O débito e o crédito são feitos de forma atômica: se o débito não puder
+     * ser realizado (por exemplo, por falta de saldo), nenhuma das contas é
+     * alterada; se o crédito falhar, o valor debitado é devolvido.
+     * As duas contas são bloqueadas sempre na mesma {@link #ordem}, assim
+     * transferências simultâneas em sentidos opostos entre as mesmas contas
+     * não causam deadlock.
+     * </p>
+     *
+     * @param destino conta que receberá o valor
+     * @param valor valor a ser transferido (deve ser um valor positivo)
+     */
+    public void transferencia(final Conta destino, final double valor) {
+        transferenciaCentavos(destino, Centavos.deReais(valor));
+    }
+
+    /**
+     * Transfere um valor para uma conta de destino, como em {@link #transferencia(Conta, double)},
+     * com o valor em {@link Centavos centavos}.
+     * @param destino conta que receberá o valor
+     * @param centavos valor a ser transferido (deve ser um valor positivo)
+     */
+    public void transferenciaCentavos(final Conta destino, final long centavos) {
+        final EventoOperacao evento = EventoOperacao.inicia();
+        validaTransferencia(destino, centavos, evento);
+        final Movimentacao debito = movimentacaoTransferencia(this, 'D', centavos, TRANSFERENCIA_PARA, destino);
+        final Movimentacao credito = movimentacaoTransferencia(destino, 'C', centavos, TRANSFERENCIA_DA, this);
+
+        final RegistroOperacoes registro = this.registro;
+        final Conta primeira = ordem < destino.ordem ? this : destino;
+        final Conta segunda = primeira == this ? destino : this;
+        long sequencia = 0;
+        synchronized (primeira) {
+            synchronized (segunda) {
+                try {
+                    debita(centavos);
+                } catch (IllegalArgumentException e) {
+                    // Outra thread reduziu o saldo após a verificação acima
+                    evento.recusa(numero, Operacao.TRANSFERENCIA, centavos, MotivoRecusa.SALDO_INSUFICIENTE);
+                    throw e;
+                }
+                boolean creditado = false;
+                try {
+                    destino.credita(centavos);
+                    creditado = true;
+                    if (registro != null) {
+                        sequencia = registro.registra(Operacao.TRANSFERENCIA, debito, destino);
+                        ultimaSequenciaRegistrada = destino.ultimaSequenciaRegistrada = sequencia;
+                    }
+                } catch (RuntimeException e) {
+                    if (creditado) {
+                        destino.credita(-centavos);
+                    }
+                    credita(centavos);
+                    throw e;
+                }
+                movimentacoes.anexa(debito);
+                destino.movimentacoes.anexa(credito);
+            }
+        }
+
+        if (registro != null) {
+            registro.aguardaPersistencia(sequencia);
+        }
+        evento.conclui(numero, Operacao.TRANSFERENCIA, centavos, destino.numero);
+    }
+
+    /**
+     * Realiza somente o débito de uma transferência, com as mesmas validações
+     * de {@link #transferenciaCentavos(Conta, long)}, quando o crédito é lançado depois,
+     * por outra thread (como entre as partições de um {@link RazaoParticionado}).
+     * Cada parte é registrada como um {@link Operacao#LANCAMENTO lançamento}.
+     * @param destino conta que receberá o valor
+     * @param centavos valor a ser transferido (deve ser um valor positivo)
+     * @return o crédito a ser lançado na conta de destino por {@link #creditaTransferencia(Movimentacao)}
+     */
+    Movimentacao debitaTransferencia(final Conta destino, final long centavos) {
+        final EventoOperacao evento = EventoOperacao.inicia();
+        validaTransferencia(destino, centavos, evento);
+        try {
+            aplica(Operacao.LANCAMENTO, movimentacaoTransferencia(this, 'D', centavos, TRANSFERENCIA_PARA, destino), -centavos);
+        } catch (IllegalArgumentException e) {
+            // Outra thread reduziu o saldo após a verificação
+            evento.recusa(numero, Operacao.TRANSFERENCIA, centavos, MotivoRecusa.SALDO_INSUFICIENTE);
+            throw e;
+        }
+
+        evento.conclui(numero, Operacao.TRANSFERENCIA, centavos, destino.numero);
+        return movimentacaoTransferencia(destino, 'C', centavos, TRANSFERENCIA_DA, this);
+    }
+
+    /**
+     * Lança nesta conta (a de destino) o crédito de uma transferência
+     * cujo débito foi feito por {@link #debitaTransferencia(Conta, long)}.
+     * @param credito crédito retornado pelo débito
+     */
+    void creditaTransferencia(final Movimentacao credito) {
+        aplica(Operacao.LANCAMENTO, credito, credito.getValorCentavos());
+    }
+
+    /**
+     * Devolve a esta conta (a de origem) o valor de uma transferência
+     * cujo crédito não pôde ser lançado na conta de destino.
+     * @param credito crédito retornado por {@link #debitaTransferencia(Conta, long)}
+     */
+    void estornaTransferencia(final Movimentacao credito) {
+        final long centavos = credito.getValorCentavos();
+        aplica(Operacao.LANCAMENTO, movimentacaoTransferencia(this, 'C', centavos, ESTORNO_TRANSFERENCIA, credito.getConta()), centavos);
+    }
+
+    /**
+     * Verifica se uma transferência desta conta pode ser realizada,
+     * registrando a recusa no evento caso não possa.
+     * @throws IllegalArgumentException se a transferência não puder ser realizada
+     */
+    private void validaTransferencia(final Conta destino, final long centavos, final EventoOperacao evento) {
+        if (destino == null) {
+            evento.recusa(numero, Operacao.TRANSFERENCIA, centavos, MotivoRecusa.CONTA_INVALIDA);
+            throw new IllegalArgumentException("Conta de destino não encontrada.");
+        }
+        if (destino == this) {
+            evento.recusa(numero, Operacao.TRANSFERENCIA, centavos, MotivoRecusa.CONTA_INVALIDA);
+            throw new IllegalArgumentException("Conta de destino deve ser diferente da conta de origem.");
+        }
+        if(centavos <= 0) {
+            evento.recusa(numero, Operacao.TRANSFERENCIA, centavos, MotivoRecusa.VALOR_INVALIDO);
+            throw new IllegalArgumentException("Valor para transferência deve ser maior que zero!");
+        }
+        if (saldo < centavos) {
+            evento.recusa(numero, Operacao.TRANSFERENCIA, centavos, MotivoRecusa.SALDO_INSUFICIENTE);
+            throw new IllegalArgumentException("Saldo em conta é menor que valor para transferência!");
+        }
+    }
+
+    /**
+     * Cria uma das movimentações de uma transferência, cuja descrição indica a outra conta.
+     * Os valores já foram validados por {@link #validaTransferencia(Conta, long, EventoOperacao)}.
+     */
+    private static Movimentacao movimentacaoTransferencia(final Conta conta, final char tipo, final long centavos,
+                                                          final String prefixo, final Conta outra)
+    {
+        return new Movimentacao(conta, 0, descricaoTransferencia(prefixo, outra), tipo, centavos, true, 0);
+    }
+
+    static String descricaoTransferencia(final String prefixo, final Conta conta) {
+        return conta.numero == null ? prefixo.trim() : prefixo + conta.numero;
     }
 
     /**
@@ -168,15 +663,297 @@ public class Conta implements Cadastro {
      * confirmada posteriormente por um funcionário do banco).
      *
      * @param valor valor a ser depositado (deve ser um valor positivo)
+     * @see CompensacaoCheques#depositoCheque(Conta, double, java.time.LocalDate)
      */
     public void depositoCheque(final double valor) {
-        if(valor <= 0) {
+        depositaCheque(valor);
+    }
+
+    /**
+     * Adiciona uma movimentação de depósito em cheque, como em {@link #depositoCheque(double)}.
+     * @param valor valor a ser depositado (deve ser um valor positivo)
+     * @return a movimentação registrada no histórico
+     */
+    MovimentacaoRegistrada depositaCheque(final double valor) {
+        final long inicio = Metricas.DEPOSITO_CHEQUE.inicia();
+        final EventoOperacao evento = EventoOperacao.inicia();
+        final long centavos = Centavos.deReais(valor);
+        if(centavos <= 0) {
+            recusa(Metricas.DEPOSITO_CHEQUE, evento, Operacao.DEPOSITO_CHEQUE, centavos, MotivoRecusa.VALOR_INVALIDO);
             throw new IllegalArgumentException("O valor de depósito deve ser positivo.");
         }
 
         Movimentacao movimentacao = new Movimentacao(this, false);
-        movimentacao.setTipo('D');
-        movimentacoes.add(movimentacao);
+        movimentacao.setTipo('C');
+        movimentacao.setValorCentavos(centavos);
+        final int indice = aplica(Operacao.DEPOSITO_CHEQUE, movimentacao, 0);
+        Metricas.DEPOSITO_CHEQUE.conclui(inicio);
+        evento.conclui(numero, Operacao.DEPOSITO_CHEQUE, centavos);
+        return (MovimentacaoRegistrada) movimentacoes.get(indice);
+    }
+
+    /**
+     * Confirma um depósito em cheque do histórico da conta,
+     * somando seu valor ao saldo (R99 de {@link Movimentacao}).
+     * A confirmação é atômica: se dois funcionários tentarem confirmar
+     * o mesmo cheque ao mesmo tempo, somente um deles conseguirá.
+     *
+     * @param movimentacao movimentação obtida do histórico da conta
+     *                     (por meio de {@link #getMovimentacoes()})
+     * @throws IllegalArgumentException se a movimentação não pertencer ao histórico
+     *                                  da conta ou não for um crédito
+     * @throws IllegalStateException se a movimentação já estiver confirmada ou tiver sido devolvida
+     */
+    public void confirmaDepositoCheque(final Movimentacao movimentacao) {
+        final MovimentacaoRegistrada registrada = depositoRegistrado(movimentacao, "confirmados");
+        final long centavos = registrada.getValorCentavos();
+        final RegistroOperacoes registro = this.registro;
+        long sequencia = 0;
+        synchronized (this) {
+            if (!movimentacoes.confirma(registrada.getIndice(), true)) {
+                throw new IllegalStateException(
+                        movimentacoes.isDevolvida(registrada.getIndice()) ?
+                        "Depósito em cheque foi devolvido." : "Movimentação já confirmada.");
+            }
+            credita(centavos);
+            if (registro != null) {
+                try {
+                    sequencia = ultimaSequenciaRegistrada = registro.registra(Operacao.CONFIRMACAO_CHEQUE, registrada, null);
+                } catch (RuntimeException e) {
+                    credita(-centavos);
+                    movimentacoes.confirma(registrada.getIndice(), false);
+                    throw e;
+                }
+            }
+            movimentacoes.ajusta(centavos);
+        }
+
+        registrada.marcaConfirmada();
+        if (registro != null) {
+            registro.aguardaPersistencia(sequencia);
+        }
+    }
+
+    /**
+     * Devolve um depósito em cheque pendente do histórico da conta (por exemplo,
+     * por falta de fundos na conta do emitente). O cheque deixa de estar pendente
+     * e seu valor não é somado ao saldo.
+     *
+     * @param movimentacao movimentação obtida do histórico da conta
+     *                     (por meio de {@link #getMovimentacoes()})
+     * @throws IllegalArgumentException se a movimentação não pertencer ao histórico
+     *                                  da conta ou não for um crédito
+     * @throws IllegalStateException se a movimentação não estiver pendente
+     */
+    public void devolveDepositoCheque(final Movimentacao movimentacao) {
+        final MovimentacaoRegistrada registrada = depositoRegistrado(movimentacao, "devolvidos");
+        final RegistroOperacoes registro = this.registro;
+        long sequencia = 0;
+        synchronized (this) {
+            if (!movimentacoes.devolve(registrada.getIndice(), true)) {
+                throw new IllegalStateException("Depósito em cheque não está pendente.");
+            }
+            if (registro != null) {
+                try {
+                    sequencia = ultimaSequenciaRegistrada = registro.registra(Operacao.DEVOLUCAO_CHEQUE, registrada, null);
+                } catch (RuntimeException e) {
+                    movimentacoes.devolve(registrada.getIndice(), false);
+                    throw e;
+                }
+            }
+        }
+
+        registrada.marcaDevolvida(true);
+        if (registro != null) {
+            registro.aguardaPersistencia(sequencia);
+        }
+    }
+
+    /**
+     * Confirma e devolve, de uma única vez, depósitos em cheque desta conta,
+     * somando ao saldo o valor total dos cheques confirmados numa única operação.
+     * Cheques que não estiverem mais pendentes são ignorados.
+     * Se o registro falhar, somente os cheques registrados antes da falha
+     * permanecem compensados.
+     * Não aguarda que as operações sejam armazenadas, assim quem compensa os cheques
+     * de várias contas aguarda uma única vez pelo último registro.
+     *
+     * @param confirmados depósitos a serem confirmados
+     * @param devolvidos depósitos a serem devolvidos
+     * @param resultado onde a quantidade e o valor dos cheques compensados são somados
+     * @param registro registro onde as operações serão registradas
+     *                 (o {@link #registro} da conta, lido uma única vez por quem chama)
+     * @return a sequência do último registro a ser passada para
+     *         {@link RegistroOperacoes#aguardaPersistencia(long)},
+     *         ou 0 se nada foi registrado
+     */
+    long compensaCheques(
+        final List<MovimentacaoRegistrada> confirmados, final List<MovimentacaoRegistrada> devolvidos,
+        final ResultadoCompensacao resultado, final RegistroOperacoes registro)
+    {
+        final List<MovimentacaoRegistrada> compensados = new ArrayList<>(confirmados.size() + devolvidos.size());
+        long sequencia = 0, valorConfirmado = 0;
+        int totalConfirmados = 0, registrados = 0;
+        synchronized (this) {
+            for (final MovimentacaoRegistrada deposito : confirmados) {
+                if (movimentacoes.confirma(deposito.getIndice(), true)) {
+                    compensados.add(deposito);
+                    valorConfirmado = Centavos.soma(valorConfirmado, deposito.getValorCentavos());
+                    totalConfirmados++;
+                }
+            }
+            for (final MovimentacaoRegistrada deposito : devolvidos) {
+                if (movimentacoes.devolve(deposito.getIndice(), true)) {
+                    compensados.add(deposito);
+                }
+            }
+
+            credita(valorConfirmado);
+            try {
+                if (registro != null) {
+                    for (final MovimentacaoRegistrada deposito : compensados) {
+                        final Operacao operacao = registrados < totalConfirmados ? Operacao.CONFIRMACAO_CHEQUE : Operacao.DEVOLUCAO_CHEQUE;
+                        sequencia = ultimaSequenciaRegistrada = registro.registra(operacao, deposito, null);
+                        registrados++;
+                    }
+                } else {
+                    registrados = compensados.size();
+                }
+            } finally {
+                valorConfirmado -= desfazCompensacao(compensados, registrados, totalConfirmados);
+                movimentacoes.ajusta(valorConfirmado);
+            }
+        }
+
+        for (int i = 0; i < compensados.size(); i++) {
+            if (i < totalConfirmados) compensados.get(i).marcaConfirmada();
+            else compensados.get(i).marcaDevolvida(true);
+        }
+        resultado.soma(totalConfirmados, compensados.size() - totalConfirmados, valorConfirmado);
+        return registro != null && registrados > 0 ? sequencia : 0;
+    }
+
+    /**
+     * Desfaz a compensação dos cheques que não foram registrados.
+     * @param compensados cheques confirmados seguidos dos devolvidos
+     * @param registrados quantidade de cheques registrados, que não devem ser desfeitos
+     * @param totalConfirmados quantidade de cheques confirmados no início da lista
+     * @return o valor confirmado que foi desfeito
+     */
+    private long desfazCompensacao(final List<MovimentacaoRegistrada> compensados, final int registrados, final int totalConfirmados) {
+        long valorDesfeito = 0;
+        for (int i = compensados.size() - 1; i >= registrados; i--) {
+            final MovimentacaoRegistrada deposito = compensados.remove(i);
+            if (i < totalConfirmados) {
+                movimentacoes.confirma(deposito.getIndice(), false);
+                valorDesfeito += deposito.getValorCentavos();
+            } else {
+                movimentacoes.devolve(deposito.getIndice(), false);
+            }
+        }
+
+        credita(-valorDesfeito);
+        return valorDesfeito;
+    }
+
+    /**
+     * Verifica se uma movimentação é um depósito do histórico desta conta.
+     * @param acao o que se pretende fazer com o depósito, para a mensagem de erro
+     */
+    private MovimentacaoRegistrada depositoRegistrado(final Movimentacao movimentacao, final String acao) {
+        if (!(movimentacao instanceof MovimentacaoRegistrada) ||
+            ((MovimentacaoRegistrada) movimentacao).getHistorico() != movimentacoes)
+        {
+            throw new IllegalArgumentException("Movimentação não pertence ao histórico da conta.");
+        }
+        if (movimentacao.getTipo() != 'C') {
+            throw new IllegalArgumentException("Somente depósitos podem ser " + acao + ".");
+        }
+
+        return (MovimentacaoRegistrada) movimentacao;
+    }
+
+    /**
+     * Retorna o número de sequência do último registro de operação desta conta.
+     * Para obtê-lo juntamente com o saldo refletindo tal operação,
+     * deve-se bloquear a conta (com {@code synchronized}).
+     * @return
+     * @see RegistroOperacoes#registra(Operacao, Movimentacao, Conta)
+     */
+    public long getUltimaSequenciaRegistrada() {
+        return ultimaSequenciaRegistrada;
+    }
+
+    /**
+     * Restaura o saldo da conta e a sequência do último registro de operação,
+     * a partir de uma cópia gravada anteriormente (como um instantâneo em disco),
+     * sem gerar movimentações.
+     * @param saldo saldo em centavos (que pode ser negativo, caso
+     *              movimentações de débito tenham sido adicionadas diretamente)
+     * @param ultimaSequenciaRegistrada sequência do último registro refletido no saldo
+     */
+    public synchronized void restaura(final long saldo, final long ultimaSequenciaRegistrada) {
+        movimentacoes.ajusta(saldo - SALDO.getAndSet(this, saldo));
+        this.ultimaSequenciaRegistrada = ultimaSequenciaRegistrada;
+    }
+
+    /**
+     * Adiciona ao histórico uma movimentação lida de uma cópia gravada anteriormente
+     * (como um diário de operações), alterando o saldo de acordo com o seu efeito.
+     * Diferente de {@link #addMovimentacao(Movimentacao)}, a movimentação não é validada
+     * nem registrada, pois já foi validada quando a operação foi realizada:
+     * um débito pode ser maior que o saldo atual, por exemplo, se o limite da conta foi reduzido
+     * depois do débito.
+     * @param tipo tipo da movimentação ('C' ou 'D')
+     * @param centavos valor em centavos
+     * @param confirmada se a movimentação está confirmada
+     */
+    public void restauraLancamento(final char tipo, final long centavos, final boolean confirmada) {
+        restauraMovimentacao(new Movimentacao(this, 0, null, tipo, centavos, confirmada, 0));
+    }
+
+    /**
+     * Adiciona aos históricos as movimentações de uma transferência lida de uma cópia gravada
+     * anteriormente, sem validá-las, como em {@link #restauraLancamento(char, long, boolean)}.
+     * Como uma transferência pode já estar refletida numa das contas, pode-se restaurar
+     * somente o débito ou o crédito.
+     * @param destino conta que recebeu a transferência
+     * @param centavos valor transferido em centavos
+     * @param debito se o débito nesta conta deve ser restaurado
+     * @param credito se o crédito na conta de destino deve ser restaurado
+     */
+    public void restauraTransferencia(final Conta destino, final long centavos, final boolean debito, final boolean credito) {
+        if (debito) {
+            restauraMovimentacao(movimentacaoTransferencia(this, 'D', centavos, TRANSFERENCIA_PARA, destino));
+        }
+        if (credito) {
+            destino.restauraMovimentacao(movimentacaoTransferencia(destino, 'C', centavos, TRANSFERENCIA_DA, this));
+        }
+    }
+
+    private synchronized void restauraMovimentacao(final Movimentacao movimentacao) {
+        credita(efeito(movimentacao));
+        movimentacoes.anexa(movimentacao);
+    }
+
+    /**
+     * Retorna o total de depósitos em cheque que aguardam confirmação.
+     * @return
+     */
+    public int getTotalDepositosPendentes() {
+        return movimentacoes.getPendentes();
+    }
+
+    public RegistroOperacoes getRegistro() {
+        return registro;
+    }
+
+    /**
+     * Define onde as operações realizadas na conta serão registradas.
+     * @param registro registro das operações ou null para não registrá-las
+     */
+    public void setRegistro(RegistroOperacoes registro) {
+        this.registro = registro;
     }
 
     @Override
@@ -194,13 +971,25 @@ public class Conta implements Cadastro {
     }
     //verificar se aceita null
     public void setNumero(String numero) {
-        if(!numero.matches("\\d{5}-\\d")){
+        final int chave = Chaves.conta(numero);
+        if(chave < 0){
             throw new IllegalArgumentException("Numero invalido. Deve estar no formato 99999-9");
         }
 
+        this.chaveNumero = chave;
         this.numero = numero;
     }
 
+    /**
+     * Obtém a chave numérica do número da conta.
+     * @return a chave (no formato 999999) ou {@link Chaves#INVALIDA}
+     *         se o número não foi definido
+     * @see Chaves#conta(CharSequence)
+     */
+    public int getChaveNumero() {
+        return chaveNumero;
+    }
+
     public boolean isPoupanca() {
         return poupanca;
     }
@@ -218,6 +1007,10 @@ public class Conta implements Cadastro {
     }
 
     public double getSaldo() {
+        return Centavos.paraReais(saldo);
+    }
+
+    public long getSaldoCentavos() {
         return saldo;
     }
 
@@ -226,10 +1019,74 @@ public class Conta implements Cadastro {
             throw new IllegalArgumentException("Numero invalido. Deve ser positivo");
         }
 
-        this.saldo = valor;
+        final long centavos = Centavos.deReais(valor);
+        movimentacoes.ajusta(centavos - SALDO.getAndSet(this, centavos));
+    }
+
+    /**
+     * Obtém o saldo que a conta tinha ao final de um determinado instante,
+     * considerando todas as alterações de saldo feitas desde que a conta foi instanciada.
+     * O tempo da consulta não depende do tamanho do histórico de movimentações.
+     *
+     * @param instante instante desejado
+     * @return o saldo no instante indicado
+     */
+    public double getSaldoEm(final Instant instante) {
+        return Centavos.paraReais(getSaldoEmCentavos(instante));
+    }
+
+    /**
+     * Obtém o saldo (em {@link Centavos centavos}) que a conta tinha ao final de um determinado instante.
+     * @param instante instante desejado
+     * @return o saldo no instante indicado
+     * @see #getSaldoEm(Instant)
+     */
+    public long getSaldoEmCentavos(final Instant instante) {
+        Objects.requireNonNull(instante, "Instante não pode ser nulo.");
+        return movimentacoes.saldoEm(instante);
+    }
+
+    /**
+     * Obtém uma página do extrato da conta, com as movimentações de um período
+     * que atendam a um filtro, em ordem cronológica.
+     * As movimentações do período são localizadas por meio dos instantes armazenados
+     * no histórico, assim o custo de uma página depende do tamanho da página,
+     * e não do tamanho do histórico.
+     *
+     * @param filtro filtro das movimentações
+     * @param cursor 0 para obter a primeira página ou o {@link PaginaExtrato#getProximoCursor() cursor}
+     *               retornado na página anterior
+     * @param tamanhoPagina quantidade máxima de movimentações na página
+     * @return a página do extrato
+     */
+    public PaginaExtrato getExtrato(final FiltroExtrato filtro, final long cursor, final int tamanhoPagina) {
+        Objects.requireNonNull(filtro, "Filtro não pode ser nulo.");
+        if (tamanhoPagina <= 0) {
+            throw new IllegalArgumentException("Tamanho da página deve ser maior que zero.");
+        }
+
+        final List<Movimentacao> pagina = new ArrayList<>(Math.min(tamanhoPagina, 64));
+        final long proximoCursor = movimentacoes.pagina(filtro, cursor, tamanhoPagina, pagina);
+        return new PaginaExtrato(pagina, proximoCursor);
+    }
+
+    public Clock getRelogio() {
+        return relogio;
+    }
+
+    /**
+     * Define o relógio usado para obter o instante das movimentações.
+     * @param relogio relógio a ser utilizado
+     */
+    public void setRelogio(Clock relogio) {
+        this.relogio = Objects.requireNonNull(relogio, "Relógio não pode ser nulo.");
     }
 
     public double getLimite() {
+        return Centavos.paraReais(limite);
+    }
+
+    public long getLimiteCentavos() {
         return limite;
     }
 
@@ -237,6 +1094,6 @@ public class Conta implements Cadastro {
         if(!especial && limite > 0){
             throw new IllegalStateException("Somente contas especiais podem ter limite");
         }
-        this.limite = limite;
+        this.limite = Centavos.deReais(limite);
     }
 }
@@ -0,0 +1,88 @@
+package com.sistemabancario.model;
+
+import java.time.Instant;
+import java.util.Objects;
+
+/**
+ * Filtro das movimentações a serem exibidas num extrato, obtido por
+ * {@link Conta#getExtrato(FiltroExtrato, long, int)}.
+ *
+ * @author Manoel Campos da Silva Filho
+ */
+public class FiltroExtrato {
+    /**
+     * Início do período do extrato (inclusive).
+     */
+    private final Instant inicio;
+
+    /**
+     * Fim do período do extrato (exclusive).
+     */
+    private final Instant fim;
+
+    /**
+     * Tipo das movimentações a serem exibidas ('C' ou 'D'),
+     * ou 0 para exibir movimentações de qualquer tipo.
+     */
+    private char tipo;
+
+    /**
+     * Indica se devem ser exibidas somente movimentações confirmadas (true),
+     * somente pendentes (false) ou ambas (null).
+     */
+    private Boolean confirmada;
+
+    /**
+     * Instancia um filtro para as movimentações de um período,
+     * de qualquer tipo e confirmadas ou não.
+     * @param inicio início do período (inclusive)
+     * @param fim fim do período (exclusive)
+     */
+    public FiltroExtrato(final Instant inicio, final Instant fim) {
+        Objects.requireNonNull(inicio, "Início do período não pode ser nulo.");
+        Objects.requireNonNull(fim, "Fim do período não pode ser nulo.");
+        if (fim.isBefore(inicio)) {
+            throw new IllegalArgumentException("Fim do período não pode ser anterior ao início.");
+        }
+
+        this.inicio = inicio;
+        this.fim = fim;
+    }
+
+    public Instant getInicio() {
+        return inicio;
+    }
+
+    public Instant getFim() {
+        return fim;
+    }
+
+    public char getTipo() {
+        return tipo;
+    }
+
+    /**
+     * Define o tipo das movimentações a serem exibidas.
+     * @param tipo 'C' para créditos, 'D' para débitos ou 0 para ambos
+     */
+    public void setTipo(final char tipo) {
+        if (tipo != 0 && tipo != 'C' && tipo != 'D') {
+            throw new IllegalArgumentException("Tipo só pode ter os valores 'C' (crédito) ou 'D' (débito).");
+        }
+
+        this.tipo = tipo;
+    }
+
+    public Boolean getConfirmada() {
+        return confirmada;
+    }
+
+    /**
+     * Define se devem ser exibidas somente movimentações confirmadas ou pendentes.
+     * @param confirmada true para exibir somente as confirmadas, false para
+     *                   somente as pendentes ou null para ambas
+     */
+    public void setConfirmada(final Boolean confirmada) {
+        this.confirmada = confirmada;
+    }
+}
@@ -0,0 +1,633 @@
+package com.sistemabancario.model;
+
+import java.time.Instant;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Histórico de {@link Movimentacao movimentações} de uma {@link Conta},
+ * armazenado em colunas: cada atributo de uma movimentação é guardado
+ * num vetor de tipo primitivo, na mesma posição (índice) da movimentação.
+ *
+ * <p>
+ * Armazenar cada movimentação como um objeto exige, além dos seus atributos,
+ * o cabeçalho do objeto, a referência para a conta e uma posição na lista.
+ * Em colunas, uma movimentação sem descrição ocupa apenas 17 bytes
+ * (8 do valor, 8 do instante e 1 do tipo e da confirmação), em vez de cerca de 52 bytes
+ * (cerca de 3 vezes menos).
+ * A descrição de uma transferência não é armazenada como texto: guarda-se apenas
+ * a chave da conta da outra parte (4 bytes) e o tipo da descrição (nos bits livres do tipo),
+ * e o texto é montado quando lido. Assim, uma transferência ocupa 21 bytes, em vez de
+ * cerca de 124 bytes (o objeto e a sua String de descrição), cerca de 6 vezes menos.
+ * As colunas de descrição, da outra parte e de id somente são criadas quando alguma
+ * movimentação tiver tais valores, e movimentações consecutivas com a mesma descrição
+ * (como os lançamentos de um lote) referenciam uma única String.
+ * </p>
+ *
+ * <p>
+ * Para que o código existente continue funcionando, o histórico é uma {@link List}:
+ * {@link #get(int)} retorna uma {@link MovimentacaoRegistrada visão} da movimentação,
+ * cujas alterações do id e da descrição são gravadas de volta nas colunas
+ * (o tipo, o valor e a confirmação somente podem ser alterados pela {@link Conta}).
+ * O histórico não pode ser alterado diretamente: {@link #add(Movimentacao)},
+ * {@link #addAll(Collection)}, {@link #set(int, Movimentacao)},
+ * {@link #remove(int)} e {@link #clear()} lançam {@link UnsupportedOperationException},
+ * pois alterar as movimentações mudaria o saldo em cada instante sem alterar o saldo da {@link Conta}
+ * (nem passar pelo seu registro de operações), e remover movimentações mudaria a posição
+ * das seguintes, usada para confirmar depósitos em cheque.
+ * As movimentações são adicionadas somente pela {@link Conta}.
+ * </p>
+ *
+ * <p>
+ * Para obter o {@link #saldoEm(Instant) saldo num determinado instante} sem somar
+ * todo o histórico, a cada {@link #INTERVALO_PONTOS_CONTROLE} movimentações é armazenado
+ * um ponto de controle com a soma dos efeitos de todas as movimentações anteriores.
+ * Como as movimentações são registradas em ordem cronológica, uma consulta faz uma
+ * busca binária pelo instante, parte do ponto de controle anterior e soma no máximo
+ * {@link #INTERVALO_PONTOS_CONTROLE} movimentações, independentemente do tamanho do histórico.
+ * Alterações do saldo que não geram movimentações (como a confirmação de um depósito
+ * em cheque, que altera o saldo depois do depósito) são armazenadas como ajustes,
+ * junto com a soma acumulada dos ajustes anteriores.
+ * </p>
+ *
+ * @author Manoel Campos da Silva Filho
+ */
+class HistoricoMovimentacoes extends AbstractList<Movimentacao> {
+    /**
+     * Bits usados para armazenar o tipo da movimentação no vetor de {@link #flags}.
+     */
+    private static final byte CREDITO = 1, DEBITO = 2, MASCARA_TIPO = 3;
+
+    /**
+     * Bit usado para indicar se a movimentação está confirmada no vetor de {@link #flags}.
+     */
+    private static final byte CONFIRMADA = 4;
+
+    /**
+     * Bit usado para indicar, no vetor de {@link #flags}, que um crédito foi confirmado
+     * depois de registrado. Seu valor foi somado ao saldo somente quando foi confirmado,
+     * por meio de um {@link #ajusta(long) ajuste}, e não no instante da movimentação.
+     */
+    private static final byte CONFIRMADA_DEPOIS = 8;
+
+    /**
+     * Bit usado para indicar, no vetor de {@link #flags}, que um depósito em cheque
+     * foi devolvido (rejeitado na compensação), não estando mais pendente.
+     */
+    private static final byte DEVOLVIDA = 16;
+
+    /**
+     * Bits usados para armazenar, no vetor de {@link #flags}, o tipo da descrição
+     * de uma transferência, cujo texto é montado a partir da chave da conta
+     * armazenada no vetor de {@link #contrapartes}.
+     * Quando nenhum destes bits está ligado, a descrição está no vetor de {@link #descricoes}.
+     */
+    private static final byte TRANSFERENCIA_PARA = 32, TRANSFERENCIA_DA = 64, ESTORNO_TRANSFERENCIA = 96,
+                              MASCARA_DESCRICAO = 96;
+
+    /**
+     * Início do texto da descrição de cada tipo de descrição de transferência,
+     * indexado pelos bits {@link #MASCARA_DESCRICAO} deslocados para a direita.
+     */
+    private static final String[] PREFIXOS_TRANSFERENCIA = {
+            null, Conta.TRANSFERENCIA_PARA, Conta.TRANSFERENCIA_DA, Conta.ESTORNO_TRANSFERENCIA
+    };
+
+    /**
+     * Quantidade de movimentações entre dois pontos de controle.
+     */
+    static final int INTERVALO_PONTOS_CONTROLE = 64;
+
+    private static final int CAPACIDADE_INICIAL = 8;
+
+    private static final long[] VAZIO_LONG = {};
+    private static final byte[] VAZIO_BYTE = {};
+
+    /**
+     * Conta à qual o histórico pertence.
+     */
+    private final Conta conta;
+
+    private int tamanho;
+
+    /**
+     * Total de créditos não confirmados (depósitos em cheque pendentes),
+     * permitindo saber se há pendências sem percorrer todo o histórico.
+     */
+    private int pendentes;
+    private long[] valores = VAZIO_LONG;
+    private byte[] flags = VAZIO_BYTE;
+
+    /**
+     * Instante (em milissegundos desde 1970-01-01T00:00:00Z) em que cada movimentação
+     * foi registrada. Os instantes nunca diminuem, mesmo que o relógio da conta seja atrasado.
+     */
+    private long[] instantes = VAZIO_LONG;
+
+    /**
+     * Soma dos efeitos no saldo das movimentações de cada bloco de
+     * {@link #INTERVALO_PONTOS_CONTROLE} movimentações e de todos os blocos anteriores.
+     * Somente blocos completos têm ponto de controle.
+     */
+    private long[] pontosControle = VAZIO_LONG;
+
+    /**
+     * Soma dos efeitos de todas as movimentações do histórico.
+     */
+    private long efeitoTotal;
+
+    private int totalAjustes;
+    private long[] instantesAjustes = VAZIO_LONG;
+
+    /**
+     * Soma de cada ajuste com todos os ajustes anteriores.
+     */
+    private long[] ajustesAcumulados = VAZIO_LONG;
+
+    /**
+     * Último instante registrado para uma movimentação ou ajuste.
+     */
+    private long ultimoInstante;
+
+    /**
+     * Descrição de cada movimentação, que é criado somente quando for adicionada
+     * a primeira movimentação que tenha uma descrição.
+     */
+    private String[] descricoes;
+
+    /**
+     * Chave da conta da outra parte de cada transferência, usada para montar a sua descrição.
+     * É criado somente quando for adicionada a primeira transferência.
+     */
+    private int[] contrapartes;
+
+    /**
+     * Id de cada movimentação, que é criado somente quando for adicionada
+     * a primeira movimentação que tenha um id.
+     */
+    private long[] ids;
+
+    HistoricoMovimentacoes(final Conta conta) {
+        this.conta = conta;
+    }
+
+    @Override
+    public synchronized int size() {
+        return tamanho;
+    }
+
+    @Override
+    public synchronized Movimentacao get(final int indice) {
+        if (indice < 0 || indice >= tamanho) {
+            throw new IndexOutOfBoundsException("Índice: " + indice + ", Tamanho: " + tamanho);
+        }
+
+        final MovimentacaoRegistrada movimentacao = new MovimentacaoRegistrada(
+                this, indice, ids == null ? 0 : ids[indice], descricao(indice),
+                tipo(flags[indice]), valores[indice], (flags[indice] & CONFIRMADA) != 0, instantes[indice]);
+        movimentacao.marcaDevolvida((flags[indice] & DEVOLVIDA) != 0);
+        return movimentacao;
+    }
+
+    /**
+     * Não suportado: movimentações devem ser adicionadas por meio da {@link Conta},
+     * que altera o saldo e registra a operação.
+     * @throws UnsupportedOperationException sempre
+     * @see Conta#addMovimentacao(Movimentacao)
+     */
+    @Override
+    public boolean add(final Movimentacao movimentacao) {
+        throw new UnsupportedOperationException("Movimentações devem ser adicionadas pela conta.");
+    }
+
+    /**
+     * Não suportado: movimentações devem ser adicionadas por meio da {@link Conta},
+     * que altera o saldo e registra a operação.
+     * @throws UnsupportedOperationException sempre
+     * @see Conta#addMovimentacoes(Collection)
+     */
+    @Override
+    public boolean addAll(final Collection<? extends Movimentacao> lote) {
+        throw new UnsupportedOperationException("Movimentações devem ser adicionadas pela conta.");
+    }
+
+    /**
+     * Não suportado: movimentações não podem ser substituídas.
+     * @throws UnsupportedOperationException sempre
+     */
+    @Override
+    public Movimentacao set(final int indice, final Movimentacao movimentacao) {
+        throw new UnsupportedOperationException("Movimentações do histórico não podem ser substituídas.");
+    }
+
+    /**
+     * Não suportado: movimentações não podem ser removidas.
+     * @throws UnsupportedOperationException sempre
+     */
+    @Override
+    public Movimentacao remove(final int indice) {
+        throw new UnsupportedOperationException("Movimentações do histórico não podem ser removidas.");
+    }
+
+    /**
+     * Não suportado: movimentações não podem ser removidas.
+     * @throws UnsupportedOperationException sempre
+     */
+    @Override
+    public void clear() {
+        throw new UnsupportedOperationException("Movimentações do histórico não podem ser removidas.");
+    }
+
+    /**
+     * Adiciona uma movimentação ao final do histórico, copiando seus atributos
+     * para as colunas. Alterações posteriores no objeto passado não
+     * são refletidas no histórico (somente aquelas feitas nos objetos
+     * retornados por {@link #get(int)}).
+     * O instante da movimentação é definido como o instante atual,
+     * de acordo com o {@link Conta#getRelogio() relógio da conta}.
+     * Somente a {@link Conta} adiciona movimentações, depois de alterar o saldo.
+     * @param movimentacao movimentação a ser adicionada
+     * @return a posição da movimentação no histórico
+     */
+    synchronized int anexa(final Movimentacao movimentacao) {
+        if (tamanho == valores.length) {
+            aumentaCapacidade(tamanho + 1);
+        }
+
+        modCount++;
+        return adiciona(movimentacao, proximoInstante());
+    }
+
+    /**
+     * Adiciona várias movimentações ao final do histórico, aumentando
+     * a capacidade das colunas uma única vez. Todas as movimentações
+     * recebem o mesmo instante.
+     * @param lote movimentações a serem adicionadas
+     * @see #anexa(Movimentacao)
+     */
+    synchronized void anexaTodas(final Collection<? extends Movimentacao> lote) {
+        if (lote.isEmpty()) {
+            return;
+        }
+
+        if (tamanho + lote.size() > valores.length) {
+            aumentaCapacidade(tamanho + lote.size());
+        }
+
+        modCount++;
+        final long instante = proximoInstante();
+        for (final Movimentacao movimentacao : lote) {
+            adiciona(movimentacao, instante);
+        }
+    }
+
+    private int adiciona(final Movimentacao movimentacao, final long instante) {
+        final int indice = tamanho++;
+        instantes[indice] = instante;
+        movimentacao.setInstante(instante);
+        grava(indice, movimentacao);
+        if (tamanho % INTERVALO_PONTOS_CONTROLE == 0) {
+            pontosControle[tamanho / INTERVALO_PONTOS_CONTROLE - 1] = efeitoTotal;
+        }
+        return indice;
+    }
+
+    /**
+     * Grava os atributos de uma movimentação nas colunas de uma determinada posição.
+     * @param indice posição das colunas
+     * @param movimentacao movimentação a ser gravada
+     */
+    synchronized void grava(final int indice, final Movimentacao movimentacao) {
+        final long efeitoAnterior = efeito(indice);
+        if (isPendente(flags[indice])) {
+            pendentes--;
+        }
+        valores[indice] = movimentacao.getValorCentavos();
+        final byte anteriores = flags[indice];
+        flags[indice] = flags(movimentacao.getTipo(), movimentacao.isConfirmada());
+        if ((flags[indice] & (MASCARA_TIPO | CONFIRMADA)) == (CREDITO | CONFIRMADA)) {
+            flags[indice] |= anteriores & CONFIRMADA_DEPOIS;
+        } else if ((flags[indice] & MASCARA_TIPO) == CREDITO) {
+            flags[indice] |= anteriores & DEVOLVIDA;
+        }
+        if (isPendente(flags[indice])) {
+            pendentes++;
+        }
+        atualizaPontosControle(indice, efeito(indice) - efeitoAnterior);
+
+        final String descricao = movimentacao.getDescricao();
+        final int contraparte = gravaTransferencia(indice, descricao);
+        if (contraparte != Chaves.INVALIDA) {
+            if (descricoes != null) {
+                descricoes[indice] = null;
+            }
+        } else if (descricao != null && descricoes == null) {
+            descricoes = new String[valores.length];
+        }
+        if (contraparte == Chaves.INVALIDA && descricoes != null) {
+            final String anterior = indice == 0 ? null : descricoes[indice - 1];
+            descricoes[indice] = descricao != null && descricao.equals(anterior) ? anterior : descricao;
+        }
+
+        if (movimentacao.getId() != 0 && ids == null) {
+            ids = new long[valores.length];
+        }
+        if (ids != null) {
+            ids[indice] = movimentacao.getId();
+        }
+    }
+
+    /**
+     * Altera atomicamente a confirmação de uma movimentação.
+     * Quando um crédito é confirmado por este método, considera-se que seu valor
+     * foi somado ao saldo somente agora, o que deve ser indicado por um {@link #ajusta(long) ajuste}.
+     * @param indice posição da movimentação
+     * @param confirmada novo valor da confirmação
+     * @return true se a confirmação foi alterada, false se ela já tinha o valor indicado
+     */
+    synchronized boolean confirma(final int indice, final boolean confirmada) {
+        final boolean atual = (flags[indice] & CONFIRMADA) != 0;
+        if (atual == confirmada || (flags[indice] & DEVOLVIDA) != 0) {
+            return false;
+        }
+
+        final long efeitoAnterior = efeito(indice);
+        flags[indice] = (byte) (confirmada ?
+                flags[indice] | CONFIRMADA | CONFIRMADA_DEPOIS :
+                flags[indice] & ~(CONFIRMADA | CONFIRMADA_DEPOIS));
+        atualizaPontosControle(indice, efeito(indice) - efeitoAnterior);
+        if ((flags[indice] & MASCARA_TIPO) == CREDITO) {
+            pendentes += confirmada ? -1 : 1;
+        }
+        return true;
+    }
+
+    /**
+     * Altera atomicamente a devolução de um depósito em cheque pendente.
+     * Um cheque devolvido deixa de estar pendente e não altera o saldo.
+     * @param indice posição da movimentação
+     * @param devolvida true para devolver o cheque, false para desfazer a devolução
+     * @return true se a devolução foi alterada, false se a movimentação não
+     *         é um crédito pendente (ao devolver) ou não foi devolvida (ao desfazer)
+     */
+    synchronized boolean devolve(final int indice, final boolean devolvida) {
+        final int esperado = devolvida ? CREDITO : CREDITO | DEVOLVIDA;
+        if ((flags[indice] & (MASCARA_TIPO | CONFIRMADA | DEVOLVIDA)) != esperado) {
+            return false;
+        }
+
+        flags[indice] ^= DEVOLVIDA;
+        pendentes += devolvida ? -1 : 1;
+        return true;
+    }
+
+    /**
+     * Verifica se um depósito em cheque foi devolvido.
+     * @param indice posição da movimentação
+     * @return true se o cheque foi devolvido, false caso contrário
+     */
+    synchronized boolean isDevolvida(final int indice) {
+        return (flags[indice] & DEVOLVIDA) != 0;
+    }
+
+    /**
+     * Retorna o total de créditos não confirmados (depósitos em cheque pendentes).
+     */
+    synchronized int getPendentes() {
+        return pendentes;
+    }
+
+    /**
+     * Registra, no instante atual, uma alteração do saldo que não gera uma movimentação,
+     * como a confirmação de um depósito em cheque ou a definição direta do saldo.
+     * @param efeito valor somado ao saldo (negativo se o saldo foi reduzido)
+     */
+    synchronized void ajusta(final long efeito) {
+        if (efeito == 0) {
+            return;
+        }
+
+        if (totalAjustes == instantesAjustes.length) {
+            final int capacidade = totalAjustes == 0 ? CAPACIDADE_INICIAL : totalAjustes + (totalAjustes >> 1);
+            instantesAjustes = Arrays.copyOf(instantesAjustes, capacidade);
+            ajustesAcumulados = Arrays.copyOf(ajustesAcumulados, capacidade);
+        }
+
+        instantesAjustes[totalAjustes] = proximoInstante();
+        ajustesAcumulados[totalAjustes] = totalAjustes == 0 ? efeito : Centavos.soma(ajustesAcumulados[totalAjustes - 1], efeito);
+        totalAjustes++;
+    }
+
+    /**
+     * Calcula o saldo da conta num determinado instante, considerando que ela
+     * foi criada com saldo zero. O tempo da consulta não depende do tamanho do histórico:
+     * são feitas buscas binárias nas movimentações e nos ajustes e somadas
+     * no máximo {@link #INTERVALO_PONTOS_CONTROLE} movimentações.
+     *
+     * @param instante instante desejado
+     * @return o saldo (em centavos) ao final do instante indicado
+     */
+    synchronized long saldoEm(final Instant instante) {
+        final long milissegundos = instante.toEpochMilli();
+        final int movimentacoesAte = totalAte(instantes, tamanho, milissegundos);
+        final int bloco = movimentacoesAte / INTERVALO_PONTOS_CONTROLE;
+        long saldo = bloco == 0 ? 0 : pontosControle[bloco - 1];
+        for (int i = bloco * INTERVALO_PONTOS_CONTROLE; i < movimentacoesAte; i++) {
+            saldo += efeito(i);
+        }
+
+        final int ajustesAte = totalAte(instantesAjustes, totalAjustes, milissegundos);
+        return ajustesAte == 0 ? saldo : Centavos.soma(saldo, ajustesAcumulados[ajustesAte - 1]);
+    }
+
+    /**
+     * Copia para uma lista as movimentações que atendem a um filtro, a partir de uma determinada posição.
+     * As movimentações do período são localizadas por busca binária nos instantes,
+     * assim o custo depende apenas da quantidade de movimentações percorridas, e não do tamanho do histórico.
+     *
+     * @param filtro filtro das movimentações
+     * @param cursor posição da primeira movimentação a ser verificada
+     *               (ou 0 para iniciar no começo do período do filtro)
+     * @param tamanhoPagina quantidade máxima de movimentações a serem copiadas
+     * @param destino lista onde as cópias das movimentações serão adicionadas
+     * @return a posição onde a próxima página começa ou -1 se não houver mais movimentações no período
+     */
+    synchronized long pagina(final FiltroExtrato filtro, final long cursor, final int tamanhoPagina, final List<Movimentacao> destino) {
+        if (cursor < 0 || cursor > tamanho) {
+            throw new IllegalArgumentException("Cursor inválido: " + cursor);
+        }
+
+        final int fim = totalAte(instantes, tamanho, filtro.getFim().toEpochMilli() - 1);
+        int indice = Math.max((int) cursor, totalAte(instantes, tamanho, filtro.getInicio().toEpochMilli() - 1));
+        for (; indice < fim && destino.size() < tamanhoPagina; indice++) {
+            if (atende(indice, filtro)) {
+                destino.add(copia(indice));
+            }
+        }
+
+        return indice < fim ? indice : -1;
+    }
+
+    private boolean atende(final int indice, final FiltroExtrato filtro) {
+        if (filtro.getTipo() != 0 && tipo(flags[indice]) != filtro.getTipo()) {
+            return false;
+        }
+
+        final Boolean confirmada = filtro.getConfirmada();
+        if (confirmada == null) {
+            return true;
+        }
+        return confirmada ? (flags[indice] & CONFIRMADA) != 0 : (flags[indice] & (CONFIRMADA | DEVOLVIDA)) == 0;
+    }
+
+    /**
+     * Cria uma cópia de uma movimentação, desvinculada do histórico.
+     */
+    private Movimentacao copia(final int indice) {
+        final Movimentacao movimentacao = new Movimentacao(
+                conta, ids == null ? 0 : ids[indice], descricao(indice),
+                tipo(flags[indice]), valores[indice], (flags[indice] & CONFIRMADA) != 0, instantes[indice]);
+        movimentacao.setDevolvida((flags[indice] & DEVOLVIDA) != 0);
+        return movimentacao;
+    }
+
+    /**
+     * Retorna a quantidade de elementos de um vetor ordenado de instantes
+     * que são menores ou iguais a um determinado instante.
+     */
+    private static int totalAte(final long[] instantes, final int tamanho, final long instante) {
+        int inicio = 0, fim = tamanho;
+        while (inicio < fim) {
+            final int meio = (inicio + fim) >>> 1;
+            if (instantes[meio] <= instante) {
+                inicio = meio + 1;
+            } else {
+                fim = meio;
+            }
+        }
+
+        return inicio;
+    }
+
+    Conta getConta() {
+        return conta;
+    }
+
+    /**
+     * Obtém o instante atual do relógio da conta, sem permitir que ele seja
+     * anterior ao último instante registrado, mantendo o histórico em ordem cronológica.
+     */
+    private long proximoInstante() {
+        ultimoInstante = Math.max(ultimoInstante, conta.getRelogio().millis());
+        return ultimoInstante;
+    }
+
+    /**
+     * Retorna o valor somado ao saldo no instante em que uma movimentação foi registrada.
+     * Créditos não confirmados ou {@link #CONFIRMADA_DEPOIS confirmados depois}
+     * não alteraram o saldo naquele instante.
+     */
+    private long efeito(final int indice) {
+        switch (flags[indice] & (MASCARA_TIPO | CONFIRMADA | CONFIRMADA_DEPOIS | DEVOLVIDA)) {
+            case CREDITO | CONFIRMADA: return valores[indice];
+            case DEBITO | CONFIRMADA: return -valores[indice];
+            default: return 0;
+        }
+    }
+
+    /**
+     * Soma a diferença no efeito de uma movimentação ao {@link #efeitoTotal}
+     * e aos pontos de controle dos blocos que a incluem.
+     */
+    private void atualizaPontosControle(final int indice, final long diferenca) {
+        if (diferenca == 0) {
+            return;
+        }
+
+        efeitoTotal = Centavos.soma(efeitoTotal, diferenca);
+        final int blocosCompletos = tamanho / INTERVALO_PONTOS_CONTROLE;
+        for (int bloco = indice / INTERVALO_PONTOS_CONTROLE; bloco < blocosCompletos; bloco++) {
+            pontosControle[bloco] += diferenca;
+        }
+    }
+
+    /**
+     * Aumenta a capacidade das colunas em 50% (ou mais, se necessário).
+     * @param minima capacidade mínima necessária
+     */
+    private void aumentaCapacidade(final int minima) {
+        final int capacidade = Math.max(minima, valores.length == 0 ? CAPACIDADE_INICIAL : valores.length + (valores.length >> 1));
+        valores = Arrays.copyOf(valores, capacidade);
+        flags = Arrays.copyOf(flags, capacidade);
+        instantes = Arrays.copyOf(instantes, capacidade);
+        pontosControle = Arrays.copyOf(pontosControle, capacidade / INTERVALO_PONTOS_CONTROLE + 1);
+        if (descricoes != null) {
+            descricoes = Arrays.copyOf(descricoes, capacidade);
+        }
+        if (contrapartes != null) {
+            contrapartes = Arrays.copyOf(contrapartes, capacidade);
+        }
+        if (ids != null) {
+            ids = Arrays.copyOf(ids, capacidade);
+        }
+    }
+
+    private static boolean isPendente(final byte flags) {
+        return (flags & (MASCARA_TIPO | CONFIRMADA | DEVOLVIDA)) == CREDITO;
+    }
+
+    private static byte flags(final char tipo, final boolean confirmada) {
+        final byte bitsTipo = tipo == 'C' ? CREDITO : tipo == 'D' ? DEBITO : 0;
+        return (byte) (confirmada ? bitsTipo | CONFIRMADA : bitsTipo);
+    }
+
+    private static char tipo(final byte flags) {
+        switch (flags & MASCARA_TIPO) {
+            case CREDITO: return 'C';
+            case DEBITO: return 'D';
+            default: return 0;
+        }
+    }
+
+    /**
+     * Verifica se a descrição de uma movimentação é a de uma transferência
+     * e, neste caso, grava somente a chave da conta da outra parte e o tipo da descrição.
+     * @param indice posição das colunas
+     * @param descricao descrição da movimentação
+     * @return a chave da conta da outra parte ou {@link Chaves#INVALIDA}
+     *         se a descrição não for a de uma transferência
+     */
+    private int gravaTransferencia(final int indice, final String descricao) {
+        if (descricao == null) {
+            return Chaves.INVALIDA;
+        }
+
+        for (int tipo = 1; tipo < PREFIXOS_TRANSFERENCIA.length; tipo++) {
+            final String prefixo = PREFIXOS_TRANSFERENCIA[tipo];
+            if (descricao.startsWith(prefixo)) {
+                final int chave = Chaves.conta(descricao.substring(prefixo.length()));
+                if (chave == Chaves.INVALIDA) {
+                    return Chaves.INVALIDA;
+                }
+                if (contrapartes == null) {
+                    contrapartes = new int[valores.length];
+                }
+                contrapartes[indice] = chave;
+                flags[indice] |= tipo << 5;
+                return chave;
+            }
+        }
+
+        return Chaves.INVALIDA;
+    }
+
+    private String descricao(final int indice) {
+        final int tipo = (flags[indice] & MASCARA_DESCRICAO) >> 5;
+        if (tipo != 0) {
+            return PREFIXOS_TRANSFERENCIA[tipo] + Chaves.formataConta(contrapartes[indice]);
+        }
+        return descricoes == null ? null : descricoes[indice];
+    }
+}
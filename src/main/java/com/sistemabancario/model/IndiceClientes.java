@@ -0,0 +1,255 @@
+package com.sistemabancario.model;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.util.AbstractCollection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Índice que localiza os {@link Cliente clientes} pelo CPF,
+ * representado como um long (obtido por {@link Chaves#cpf(CharSequence)}).
+ *
+ * <p>
+ * Os clientes são armazenados em sequência num vetor (cada um numa posição),
+ * e uma tabela hash de endereçamento aberto (com sondagem linear)
+ * relaciona cada CPF à posição do seu cliente. A tabela é alocada
+ * fora do heap (em {@link ByteBuffer#allocateDirect(int) buffers diretos}),
+ * assim o índice de milhões de clientes não é percorrido pelo coletor de lixo
+ * nem aumenta as suas pausas. No heap ficam apenas os próprios clientes,
+ * num único vetor.
+ * </p>
+ *
+ * <p>
+ * Como em {@link IndiceContas}, as pesquisas não bloqueiam: elas leem
+ * a tabela e o vetor de clientes atuais, publicados em atributos volatile.
+ * As inserções são feitas por uma thread de cada vez e, quando a tabela
+ * ou o vetor precisam crescer, novas cópias são preenchidas e então publicadas.
+ * Não há remoção de clientes. Assim como as contas em {@link IndiceContas},
+ * cada cliente é gravado no vetor com {@link VarHandle#setRelease}
+ * e lido pelas pesquisas com {@link VarHandle#getAcquire}.
+ * </p>
+ *
+ * @author Manoel Campos da Silva Filho
+ */
+final class IndiceClientes {
+    /**
+     * Valor armazenado na tabela para indicar uma posição livre.
+     * Os CPFs e as posições dos clientes são armazenados somados de 1,
+     * assim uma tabela recém-alocada (preenchida com zeros) já está vazia.
+     */
+    private static final int LIVRE = 0;
+
+    private static final int CAPACIDADE_MINIMA = 16;
+
+    /**
+     * Capacidade máxima da tabela, limitada pelo tamanho máximo
+     * de um {@link ByteBuffer} (que é indexado por um int).
+     */
+    private static final int CAPACIDADE_MAXIMA = 1 << 27;
+
+    /**
+     * Constante usada para espalhar os CPFs pela tabela
+     * (<a href="https://en.wikipedia.org/wiki/Hash_function#Fibonacci_hashing">hash de Fibonacci</a>).
+     */
+    private static final long FIBONACCI = 0x9E3779B97F4A7C15L;
+
+    private static final VarHandle CLIENTES = MethodHandles.arrayElementVarHandle(Cliente[].class);
+
+    /**
+     * Tabela com capacidade fixa, que armazena cada CPF
+     * e a posição do seu cliente em buffers paralelos.
+     */
+    private static final class Tabela {
+        private final LongBuffer cpfs;
+        private final IntBuffer posicoes;
+        private final int mascara;
+        private final int deslocamento;
+
+        Tabela(final int capacidade) {
+            this.cpfs = ByteBuffer.allocateDirect(capacidade * Long.BYTES)
+                                  .order(ByteOrder.nativeOrder()).asLongBuffer();
+            this.posicoes = ByteBuffer.allocateDirect(capacidade * Integer.BYTES)
+                                      .order(ByteOrder.nativeOrder()).asIntBuffer();
+            this.mascara = capacidade - 1;
+            this.deslocamento = Long.numberOfLeadingZeros(capacidade) + 1;
+        }
+
+        /**
+         * Localiza a posição de um CPF na tabela ou a posição livre onde ele deve ser inserido.
+         */
+        int indice(final long cpf) {
+            final long armazenado = cpf + 1;
+            int i = (int) ((cpf * FIBONACCI) >>> deslocamento);
+            while (true) {
+                final long atual = cpfs.get(i);
+                if (atual == armazenado || atual == LIVRE) {
+                    return i;
+                }
+
+                i = (i + 1) & mascara;
+            }
+        }
+
+        int capacidade() {
+            return mascara + 1;
+        }
+    }
+
+    private volatile Tabela tabela;
+    private volatile Cliente[] clientes;
+    private volatile int total;
+
+    /**
+     * Instancia um índice vazio.
+     * @param capacidadeEsperada total de clientes que se espera armazenar,
+     *                           evitando que o índice precise crescer
+     *                           enquanto os clientes são adicionados
+     */
+    IndiceClientes(final int capacidadeEsperada) {
+        this.tabela = new Tabela(capacidadePara(capacidadeEsperada));
+        this.clientes = new Cliente[Math.max(CAPACIDADE_MINIMA, capacidadeEsperada)];
+    }
+
+    /**
+     * Calcula a capacidade (potência de 2) da tabela para armazenar um total de clientes,
+     * mantendo a tabela no máximo 75% ocupada.
+     */
+    private static int capacidadePara(final int total) {
+        final long minima = Math.max(CAPACIDADE_MINIMA, (long) total * 4 / 3 + 1);
+        if (minima > CAPACIDADE_MAXIMA) {
+            throw new IllegalArgumentException("Capacidade excede o máximo permitido: " + total);
+        }
+
+        return Integer.highestOneBit((int) minima - 1) << 1;
+    }
+
+    /**
+     * Pesquisa um cliente pelo CPF, sem bloquear.
+     * @param cpf CPF do cliente
+     * @return o cliente ou null se não existir
+     */
+    Cliente get(final long cpf) {
+        final Tabela atual = tabela;
+        final int i = atual.indice(cpf);
+        if (atual.cpfs.get(i) == LIVRE) {
+            return null;
+        }
+
+        /* O CPF pode se tornar visível antes da posição do cliente que está sendo
+           inserido por outra thread. Neste caso, o cliente é obtido após a inserção terminar. */
+        final int posicao = atual.posicoes.get(i) - 1;
+        final Cliente[] vetor = clientes;
+        final Cliente cliente = posicao < 0 || posicao >= vetor.length ? null : (Cliente) CLIENTES.getAcquire(vetor, posicao);
+        return cliente == null ? getBloqueando(cpf) : cliente;
+    }
+
+    private synchronized Cliente getBloqueando(final long cpf) {
+        final Tabela atual = tabela;
+        final int posicao = atual.posicoes.get(atual.indice(cpf)) - 1;
+        return posicao < 0 ? null : clientes[posicao];
+    }
+
+    /**
+     * Adiciona ou substitui o cliente de um CPF.
+     * @param cpf CPF do cliente
+     * @param cliente cliente a ser armazenado
+     * @return o cliente substituído ou null se não existia cliente com o CPF
+     */
+    synchronized Cliente put(final long cpf, final Cliente cliente) {
+        Tabela atual = tabela;
+        final int existente = atual.posicoes.get(atual.indice(cpf)) - 1;
+        if (existente >= 0) {
+            final Cliente anterior = clientes[existente];
+            CLIENTES.setRelease(clientes, existente, cliente);
+            return anterior;
+        }
+
+        final int posicao = total;
+        if ((posicao + 1) * 4L > atual.capacidade() * 3L) {
+            atual = copia(atual, capacidadePara(posicao + 1));
+            tabela = atual;
+        }
+
+        if (posicao == clientes.length) {
+            final Cliente[] maior = new Cliente[(int) Math.min(Integer.MAX_VALUE - 8, posicao * 2L)];
+            System.arraycopy(clientes, 0, maior, 0, posicao);
+            clientes = maior;
+        }
+
+        /* A gravação com liberação publica o cliente para as pesquisas que o lerem com aquisição.
+           A posição e o CPF são gravados depois, assim uma pesquisa que encontrar o CPF
+           antes do cliente obtém o cliente bloqueando o índice. */
+        CLIENTES.setRelease(clientes, posicao, cliente);
+        final int i = atual.indice(cpf);
+        atual.posicoes.put(i, posicao + 1);
+        atual.cpfs.put(i, cpf + 1);
+        total = posicao + 1;
+        return null;
+    }
+
+    private static Tabela copia(final Tabela origem, final int capacidade) {
+        final Tabela destino = new Tabela(capacidade);
+        for (int i = 0; i < origem.capacidade(); i++) {
+            final long armazenado = origem.cpfs.get(i);
+            if (armazenado != LIVRE) {
+                final int j = destino.indice(armazenado - 1);
+                destino.posicoes.put(j, origem.posicoes.get(i));
+                destino.cpfs.put(j, armazenado);
+            }
+        }
+
+        return destino;
+    }
+
+    /**
+     * Retorna o total de clientes armazenados.
+     * @return
+     */
+    int size() {
+        return total;
+    }
+
+    /**
+     * Retorna uma visão dos clientes armazenados, que pode ser percorrida
+     * enquanto outras threads adicionam clientes. Cada cliente é retornado
+     * no máximo uma vez, e clientes adicionados durante a iteração
+     * podem ou não ser incluídos.
+     * @return
+     */
+    AbstractCollection<Cliente> values() {
+        return new AbstractCollection<Cliente>() {
+            @Override
+            public Iterator<Cliente> iterator() {
+                final int quantidade = total;
+                final Cliente[] vetor = clientes;
+                return new Iterator<Cliente>() {
+                    private int proximo;
+
+                    @Override
+                    public boolean hasNext() {
+                        return proximo < quantidade;
+                    }
+
+                    @Override
+                    public Cliente next() {
+                        if (!hasNext()) {
+                            throw new NoSuchElementException();
+                        }
+
+                        return (Cliente) CLIENTES.getAcquire(vetor, proximo++);
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return total;
+            }
+        };
+    }
+}
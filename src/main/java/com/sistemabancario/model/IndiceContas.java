@@ -0,0 +1,448 @@
+package com.sistemabancario.model;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.AbstractCollection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntFunction;
+
+/**
+ * Tabela hash de endereçamento aberto (com sondagem linear) que indexa
+ * as {@link Conta contas} pela chave numérica do seu número
+ * (obtida por {@link Chaves#conta(CharSequence)}).
+ *
+ * <p>
+ * Diferente de um {@link java.util.HashMap}, as chaves são armazenadas como
+ * int num único vetor e as contas num vetor paralelo, sem criar um objeto
+ * (Node) para cada entrada nem converter as chaves para Integer.
+ * Assim, uma pesquisa percorre posições vizinhas de memória, reduzindo
+ * as falhas de cache quando a tabela armazena milhões de contas.
+ * Somente o vetor de chaves pode ser alocado fora do heap
+ * (usando um {@link ByteBuffer#allocateDirect(int) buffer direto}),
+ * reduzindo a memória que o coletor de lixo precisa percorrer.
+ * O vetor de contas, por armazenar referências para objetos, continua sempre no heap.
+ * </p>
+ *
+ * <p>
+ * As pesquisas não bloqueiam: elas leem a tabela atual, que é publicada
+ * num atributo volatile. As inserções também não bloqueiam umas às outras:
+ * cada uma reserva uma vaga na tabela e ocupa uma posição livre do vetor de chaves
+ * com uma operação atômica (compare-and-set), assim várias threads inserem contas
+ * ao mesmo tempo. Somente as inserções de uma mesma chave são feitas uma de cada vez,
+ * bloqueando uma dentre várias {@link #travas}, escolhida pela chave.
+ * Quando a tabela precisa crescer, as inserções aguardam enquanto uma nova tabela é preenchida
+ * e então publicada, sem alterar a anterior (que pode continuar
+ * sendo lida por outras threads). Não há remoção de contas.
+ * Cada conta inserida numa tabela já publicada é gravada no vetor com semântica
+ * de liberação ({@link VarHandle#setRelease}) e lida pelas pesquisas com semântica
+ * de aquisição ({@link VarHandle#getAcquire}), assim quem obtém uma conta
+ * enxerga o objeto completamente inicializado.
+ * </p>
+ *
+ * @author Manoel Campos da Silva Filho
+ */
+final class IndiceContas {
+    /**
+     * Valor armazenado no vetor de chaves para indicar uma posição livre.
+     * As chaves são armazenadas somadas de 1, assim
+     * a chave 0 (conta 00000-0) pode ser armazenada
+     * e um vetor recém-alocado (preenchido com zeros) já está vazio.
+     */
+    private static final int LIVRE = 0;
+
+    private static final int CAPACIDADE_MINIMA = 16;
+
+    /**
+     * Quantidade de {@link #travas} usadas para que inserções de uma mesma chave
+     * sejam feitas uma de cada vez (potência de 2).
+     */
+    private static final int TOTAL_TRAVAS = 64;
+
+    /**
+     * Constante usada para espalhar as chaves pela tabela
+     * (<a href="https://en.wikipedia.org/wiki/Hash_function#Fibonacci_hashing">hash de Fibonacci</a>),
+     * já que números de conta sequenciais ocupariam posições vizinhas.
+     */
+    private static final int FIBONACCI = 0x9E3779B9;
+
+    private static final VarHandle CONTAS = MethodHandles.arrayElementVarHandle(Conta[].class);
+
+    /**
+     * Permite ler e ocupar atomicamente as posições do vetor de chaves,
+     * esteja ele dentro ou fora do heap.
+     */
+    private static final VarHandle CHAVES = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.nativeOrder());
+
+    private static final AtomicIntegerFieldUpdater<IndiceContas> TOTAL =
+            AtomicIntegerFieldUpdater.newUpdater(IndiceContas.class, "total");
+
+    private static final AtomicIntegerFieldUpdater<IndiceContas> RESERVADAS =
+            AtomicIntegerFieldUpdater.newUpdater(IndiceContas.class, "reservadas");
+
+    /**
+     * Armazena as chaves e contas de uma tabela com capacidade fixa.
+     */
+    private static final class Tabela {
+        private final ByteBuffer chaves;
+        private final Conta[] contas;
+        private final int mascara;
+        private final int deslocamento;
+
+        Tabela(final int capacidade, final boolean foraDoHeap) {
+            this.chaves = foraDoHeap ?
+                            ByteBuffer.allocateDirect(capacidade * Integer.BYTES) :
+                            ByteBuffer.allocate(capacidade * Integer.BYTES);
+            this.contas = new Conta[capacidade];
+            this.mascara = capacidade - 1;
+            this.deslocamento = Integer.numberOfLeadingZeros(capacidade) + 1;
+        }
+
+        /**
+         * Localiza a posição de uma chave ou a primeira posição livre depois da posição inicial da chave,
+         * onde ela deve ser inserida.
+         */
+        int posicao(final int chave) {
+            return posicao(chave, inicio(chave));
+        }
+
+        /**
+         * Localiza a posição de uma chave ou a primeira posição livre a partir de uma posição.
+         */
+        int posicao(final int chave, int i) {
+            final int armazenada = chave + 1;
+            while (true) {
+                final int atual = chave(i);
+                if (atual == armazenada || atual == LIVRE) {
+                    return i;
+                }
+
+                i = (i + 1) & mascara;
+            }
+        }
+
+        int inicio(final int chave) {
+            return (chave * FIBONACCI) >>> deslocamento;
+        }
+
+        int chave(final int i) {
+            return (int) CHAVES.getAcquire(chaves, i * Integer.BYTES);
+        }
+
+        /**
+         * Ocupa uma posição livre com uma chave (somada de 1), se nenhuma outra thread a ocupou antes.
+         */
+        boolean ocupa(final int i, final int armazenada) {
+            return CHAVES.compareAndSet(chaves, i * Integer.BYTES, LIVRE, armazenada);
+        }
+
+        int capacidade() {
+            return contas.length;
+        }
+    }
+
+    private final boolean foraDoHeap;
+    private volatile Tabela tabela;
+
+    /**
+     * Total de contas já inseridas e visíveis para as pesquisas.
+     */
+    private volatile int total;
+
+    /**
+     * Total de posições da tabela reservadas para inserções (concluídas ou não),
+     * usado para que a tabela cresça antes de ficar mais de 75% ocupada.
+     */
+    private volatile int reservadas;
+
+    /**
+     * Travas que fazem as inserções de uma mesma chave serem feitas uma de cada vez,
+     * para que uma conta seja criada uma única vez por {@link #computeIfAbsent(int, IntFunction)}.
+     * Inserções de chaves diferentes normalmente usam travas diferentes.
+     */
+    private final Object[] travas = new Object[TOTAL_TRAVAS];
+
+    /**
+     * As inserções obtêm a trava de leitura (compartilhada), assim várias ocorrem ao mesmo tempo;
+     * o crescimento da tabela obtém a trava de escrita (exclusiva), aguardando que as inserções
+     * em andamento terminem.
+     */
+    private final ReentrantReadWriteLock crescimento = new ReentrantReadWriteLock();
+
+    /**
+     * Instancia um índice vazio.
+     * @param capacidadeEsperada total de contas que se espera armazenar,
+     *                           evitando que a tabela precise crescer
+     *                           enquanto as contas são adicionadas
+     * @param foraDoHeap indica se o vetor de chaves deve ser alocado fora do heap
+     */
+    IndiceContas(final int capacidadeEsperada, final boolean foraDoHeap) {
+        this.foraDoHeap = foraDoHeap;
+        this.tabela = new Tabela(capacidadePara(capacidadeEsperada), foraDoHeap);
+        for (int i = 0; i < travas.length; i++) {
+            travas[i] = new Object();
+        }
+    }
+
+    /**
+     * Calcula a capacidade (potência de 2) para armazenar um total de contas,
+     * mantendo a tabela no máximo 75% ocupada.
+     */
+    private static int capacidadePara(final int total) {
+        final long minima = Math.max(CAPACIDADE_MINIMA, (long) total * 4 / 3 + 1);
+        if (minima > 1 << 30) {
+            throw new IllegalArgumentException("Capacidade excede o máximo permitido: " + total);
+        }
+
+        return Integer.highestOneBit((int) minima - 1) << 1;
+    }
+
+    /**
+     * Pesquisa uma conta pela sua chave, sem bloquear.
+     * @param chave chave do número da conta
+     * @return a conta ou null se não existir
+     */
+    Conta get(final int chave) {
+        final Tabela atual = tabela;
+        final int i = atual.posicao(chave);
+        if (atual.chave(i) == LIVRE) {
+            return null;
+        }
+
+        return conta(atual, i);
+    }
+
+    /**
+     * Obtém a conta de uma posição cuja chave já está gravada.
+     * A chave se torna visível antes da conta que está sendo inserida
+     * por outra thread; neste caso, aguarda-se a inserção terminar,
+     * o que ocorre logo em seguida.
+     */
+    private static Conta conta(final Tabela tabela, final int i) {
+        Conta conta;
+        while ((conta = (Conta) CONTAS.getAcquire(tabela.contas, i)) == null) {
+            Thread.onSpinWait();
+        }
+
+        return conta;
+    }
+
+    /**
+     * Adiciona ou substitui a conta de uma chave.
+     * @param chave chave do número da conta
+     * @param conta conta a ser armazenada
+     * @return a conta substituída ou null se não existia conta com a chave
+     */
+    Conta put(final int chave, final Conta conta) {
+        synchronized (trava(chave)) {
+            final Lock leitura = crescimento.readLock();
+            leitura.lock();
+            try {
+                final Tabela atual = tabela;
+                final int i = atual.posicao(chave);
+                if (atual.chave(i) != LIVRE) {
+                    final Conta anterior = conta(atual, i);
+                    CONTAS.setRelease(atual.contas, i, conta);
+                    return anterior;
+                }
+            } finally {
+                leitura.unlock();
+            }
+
+            insere(chave, conta);
+            return null;
+        }
+    }
+
+    /**
+     * Obtém a conta de uma chave ou, se não existir, cria e adiciona uma conta
+     * atomicamente.
+     * @param chave chave do número da conta
+     * @param criaConta função que cria a conta, chamada somente se ela não existir
+     * @return a conta existente ou a que acabou de ser adicionada
+     */
+    Conta computeIfAbsent(final int chave, final IntFunction<Conta> criaConta) {
+        final Conta existente = get(chave);
+        if (existente != null) {
+            return existente;
+        }
+
+        synchronized (trava(chave)) {
+            final Conta conta = get(chave);
+            if (conta != null) {
+                return conta;
+            }
+
+            final Conta nova = criaConta.apply(chave);
+            insere(chave, nova);
+            return nova;
+        }
+    }
+
+    private Object trava(final int chave) {
+        return travas[(chave * FIBONACCI) >>> (Integer.SIZE - Integer.numberOfTrailingZeros(TOTAL_TRAVAS))];
+    }
+
+    /**
+     * Insere uma chave que ainda não existe na tabela.
+     * Deve ser chamado somente pela thread que detém a {@link #trava(int) trava da chave},
+     * assim nenhuma outra thread insere a mesma chave ao mesmo tempo.
+     */
+    private void insere(final int chave, final Conta conta) {
+        while (true) {
+            final Lock leitura = crescimento.readLock();
+            leitura.lock();
+            try {
+                final Tabela atual = tabela;
+                if (reserva(atual)) {
+                    ocupa(atual, chave, conta);
+                    return;
+                }
+            } finally {
+                leitura.unlock();
+            }
+
+            cresce();
+        }
+    }
+
+    /**
+     * Reserva uma posição da tabela para uma inserção,
+     * se a tabela não ficar mais de 75% ocupada.
+     * @return true se a posição foi reservada, false se a tabela precisa crescer
+     */
+    private boolean reserva(final Tabela atual) {
+        int anteriores;
+        do {
+            anteriores = reservadas;
+            if ((anteriores + 1) * 4L > atual.capacidade() * 3L) {
+                return false;
+            }
+        } while (!RESERVADAS.compareAndSet(this, anteriores, anteriores + 1));
+
+        return true;
+    }
+
+    /**
+     * Ocupa a primeira posição livre para a chave, disputando-a atomicamente
+     * com outras threads que inserem chaves diferentes.
+     * Como a posição foi {@link #reserva(Tabela) reservada}, sempre há uma posição livre.
+     */
+    private void ocupa(final Tabela atual, final int chave, final Conta conta) {
+        final int armazenada = chave + 1;
+        int i = atual.inicio(chave);
+        while (true) {
+            i = atual.posicao(chave, i);
+            if (atual.ocupa(i, armazenada)) {
+                break;
+            }
+
+            // Outra thread ocupou a posição com outra chave: continua a partir da próxima
+            i = (i + 1) & atual.mascara;
+        }
+
+        /* A gravação com liberação publica a conta para as pesquisas que a lerem com aquisição.
+           Uma pesquisa que encontrar a chave antes da conta aguarda a gravação abaixo. */
+        CONTAS.setRelease(atual.contas, i, conta);
+        TOTAL.incrementAndGet(this);
+    }
+
+    /**
+     * Substitui a tabela por uma maior, aguardando as inserções em andamento terminarem,
+     * caso outra thread ainda não tenha feito isso.
+     */
+    private void cresce() {
+        final Lock escrita = crescimento.writeLock();
+        escrita.lock();
+        try {
+            final Tabela atual = tabela;
+            if ((reservadas + 1) * 4L > atual.capacidade() * 3L) {
+                tabela = copia(atual, capacidadePara(reservadas + 1));
+            }
+        } finally {
+            escrita.unlock();
+        }
+    }
+
+    private Tabela copia(final Tabela origem, final int capacidade) {
+        final Tabela destino = new Tabela(capacidade, foraDoHeap);
+        for (int i = 0; i < origem.capacidade(); i++) {
+            final int armazenada = origem.chave(i);
+            if (armazenada != LIVRE) {
+                final int j = destino.posicao(armazenada - 1);
+                destino.contas[j] = origem.contas[i];
+                CHAVES.set(destino.chaves, j * Integer.BYTES, armazenada);
+            }
+        }
+
+        return destino;
+    }
+
+    /**
+     * Retorna o total de contas armazenadas.
+     * @return
+     */
+    int size() {
+        return total;
+    }
+
+    /**
+     * Retorna uma visão das contas armazenadas, que pode ser percorrida
+     * enquanto outras threads adicionam contas. Cada conta é retornada no máximo
+     * uma vez, e contas adicionadas durante a iteração podem ou não ser incluídas.
+     * @return
+     */
+    AbstractCollection<Conta> values() {
+        return new AbstractCollection<Conta>() {
+            @Override
+            public Iterator<Conta> iterator() {
+                return new Contas(tabela);
+            }
+
+            @Override
+            public int size() {
+                return total;
+            }
+        };
+    }
+
+    /**
+     * Percorre as contas de uma única tabela, que nunca tem uma chave repetida.
+     */
+    private static final class Contas implements Iterator<Conta> {
+        private final Conta[] contas;
+        private int proxima = -1;
+
+        Contas(final Tabela tabela) {
+            this.contas = tabela.contas;
+            avanca();
+        }
+
+        private void avanca() {
+            do {
+                proxima++;
+            } while (proxima < contas.length && CONTAS.getAcquire(contas, proxima) == null);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return proxima < contas.length;
+        }
+
+        @Override
+        public Conta next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            final Conta conta = (Conta) CONTAS.getAcquire(contas, proxima);
+            avanca();
+            return conta;
+        }
+    }
+}
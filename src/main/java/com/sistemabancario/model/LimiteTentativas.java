@@ -0,0 +1,194 @@
+package com.sistemabancario.model;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Limita as tentativas de login por CPF e no total, para conter ataques de força bruta
+ * (como o teste de senhas vazadas em massa) sem afetar os logins legítimos.
+ *
+ * <p>
+ * Há três limites:
+ * <ul>
+ *  <li>cada CPF cadastrado tem um balde próprio, que limita as tentativas de adivinhar a sua senha;</li>
+ *  <li>um balde global de verificações consome uma ficha de toda tentativa que chegará
+ *  a conferir a senha (com um CPF cadastrado), antes de calcular o hash.
+ *  Como o hash da senha é propositalmente lento, este balde limita o processamento
+ *  gasto com logins, mesmo num ataque que use milhares de CPFs cadastrados;</li>
+ *  <li>um balde global de falhas consome fichas somente das tentativas que falharam
+ *  ({@link #registraFalha()}) e rejeita as tentativas com CPFs não cadastrados quando se esgota.
+ *  Tais tentativas não conferem senha alguma e, assim, não consomem fichas dos demais baldes:
+ *  um ataque com milhares de CPFs inexistentes não impede o login de um cliente cadastrado.</li>
+ * </ul>
+ * Uma tentativa rejeitada pelo balde de verificações não consome a ficha do CPF.
+ * </p>
+ *
+ * <p>
+ * Cada limite funciona como um <a href="https://en.wikipedia.org/wiki/Token_bucket">balde de fichas</a>:
+ * cada tentativa consome uma ficha, e as fichas são repostas a uma taxa constante
+ * até a capacidade do balde. As fichas são repostas de forma preguiçosa,
+ * calculadas a partir do tempo decorrido quando há uma tentativa
+ * (usando o <a href="https://en.wikipedia.org/wiki/Generic_cell_rate_algorithm">GCRA</a>),
+ * assim nenhuma thread precisa repor as fichas periodicamente.
+ * O estado de cada balde é um único long (o instante em que ele estaria cheio
+ * novamente), atualizado com compare-and-set, sem bloqueios.
+ * Uma tentativa rejeitada apenas lê esse valor, sem alterá-lo.
+ * </p>
+ *
+ * <p>
+ * Os baldes por CPF são indexados pelo próprio CPF, assim dois clientes nunca
+ * compartilham um balde e um ataque a um CPF não restringe os demais.
+ * Somente CPFs cadastrados têm balde, portanto a memória usada é limitada
+ * pela quantidade de clientes, mesmo num ataque com milhões de CPFs diferentes.
+ * </p>
+ *
+ * @author Manoel Campos da Silva Filho
+ */
+public class LimiteTentativas {
+    /**
+     * Instante (em nanossegundos desde a criação do limite) em que o balde
+     * de cada CPF cadastrado estaria cheio novamente, indexado pela chave do CPF
+     * (obtida por {@link Chaves#cpf(CharSequence)}).
+     */
+    private final ConcurrentHashMap<Long, AtomicLong> baldesCpf = new ConcurrentHashMap<>();
+    private final long intervaloCpf, toleranciaCpf;
+
+    /**
+     * Instante (em nanossegundos desde a criação do limite) em que o balde global
+     * de verificações de senha estaria cheio novamente.
+     */
+    private final AtomicLong baldeVerificacoes = new AtomicLong();
+    private final long intervaloVerificacoes, toleranciaVerificacoes;
+
+    /**
+     * Instante (em nanossegundos desde a criação do limite) em que o balde global
+     * de falhas estaria cheio novamente.
+     */
+    private final AtomicLong baldeFalhas = new AtomicLong();
+    private final long intervaloFalhas, toleranciaFalhas;
+
+    private final LongSupplier relogio;
+    private final long origem;
+
+    /**
+     * Instancia um limite de tentativas.
+     * @param tentativasPorCpf total de tentativas seguidas permitidas para um CPF
+     * @param falhasGlobais total de falhas seguidas permitidas no total,
+     *                      a partir do qual tentativas com CPFs não cadastrados são rejeitadas
+     * @param verificacoesGlobais total de senhas seguidas que podem ser conferidas no total
+     * @param periodo período em que todos os limites são repostos por completo
+     * @param unidade unidade de tempo do período
+     * @throws IllegalArgumentException se algum valor não for positivo
+     */
+    public LimiteTentativas(final int tentativasPorCpf, final int falhasGlobais, final int verificacoesGlobais,
+                            final long periodo, final TimeUnit unidade)
+    {
+        this(tentativasPorCpf, falhasGlobais, verificacoesGlobais, unidade.toNanos(periodo), System::nanoTime);
+    }
+
+    /**
+     * Instancia um limite de tentativas.
+     * @param tentativasPorCpf total de tentativas seguidas permitidas para um CPF
+     * @param falhasGlobais total de falhas seguidas permitidas no total
+     * @param verificacoesGlobais total de senhas seguidas que podem ser conferidas no total
+     * @param periodoNanos período (em nanossegundos) em que todos os limites são repostos por completo
+     * @param relogio fornece o instante atual em nanossegundos
+     * @throws IllegalArgumentException se algum valor não for positivo
+     */
+    LimiteTentativas(final int tentativasPorCpf, final int falhasGlobais, final int verificacoesGlobais,
+                     final long periodoNanos, final LongSupplier relogio)
+    {
+        if (tentativasPorCpf <= 0 || falhasGlobais <= 0 || verificacoesGlobais <= 0) {
+            throw new IllegalArgumentException("Total de tentativas deve ser maior que zero.");
+        }
+        if (periodoNanos <= 0) {
+            throw new IllegalArgumentException("Período deve ser maior que zero.");
+        }
+
+        this.intervaloCpf = Math.max(1, periodoNanos / tentativasPorCpf);
+        this.toleranciaCpf = intervaloCpf * (tentativasPorCpf - 1);
+        this.intervaloVerificacoes = Math.max(1, periodoNanos / verificacoesGlobais);
+        this.toleranciaVerificacoes = intervaloVerificacoes * (verificacoesGlobais - 1);
+        this.intervaloFalhas = Math.max(1, periodoNanos / falhasGlobais);
+        this.toleranciaFalhas = intervaloFalhas * (falhasGlobais - 1);
+
+        this.relogio = relogio;
+        this.origem = relogio.getAsLong();
+    }
+
+    /**
+     * Verifica se uma tentativa de login para um CPF é permitida.
+     * Deve ser chamado antes de conferir a senha.
+     * <ul>
+     *  <li>Se o CPF estiver cadastrado, a senha será conferida: a tentativa consome uma ficha
+     *  do balde global de verificações e uma do balde do CPF.</li>
+     *  <li>Se o CPF não estiver cadastrado, nenhuma senha será conferida: a tentativa
+     *  somente é rejeitada se o balde global de falhas estiver esgotado.</li>
+     * </ul>
+     * @param cpf CPF informado no login
+     * @param cadastrado indica se existe um cliente com o CPF
+     * @return true se a tentativa é permitida, false se ela deve ser rejeitada
+     * @see #registraFalha()
+     */
+    public boolean permite(final String cpf, final boolean cadastrado) {
+        return permite(cpf == null ? Chaves.INVALIDA : Chaves.cpf(cpf), cadastrado);
+    }
+
+    /**
+     * Verifica se uma tentativa de login é permitida, como em {@link #permite(String, boolean)},
+     * a partir da chave numérica do CPF.
+     * @param chave chave do CPF informado no login (obtida por {@link Chaves#cpf(CharSequence)})
+     * @param cadastrado indica se existe um cliente com o CPF
+     * @return true se a tentativa é permitida, false se ela deve ser rejeitada
+     */
+    public boolean permite(final long chave, final boolean cadastrado) {
+        final long agora = relogio.getAsLong() - origem;
+        if (!cadastrado || chave < 0) {
+            return disponivel(baldeFalhas.get(), agora, toleranciaFalhas);
+        }
+
+        AtomicLong baldeCpf = baldesCpf.get(chave);
+        if (baldeCpf == null) {
+            baldeCpf = baldesCpf.computeIfAbsent(chave, c -> new AtomicLong());
+        }
+
+        /* A ficha do CPF é conferida antes e consumida depois da ficha global,
+           assim uma tentativa rejeitada pelo balde global não consome a ficha do CPF. */
+        return disponivel(baldeCpf.get(), agora, toleranciaCpf) &&
+               consome(baldeVerificacoes, agora, intervaloVerificacoes, toleranciaVerificacoes) &&
+               consome(baldeCpf, agora, intervaloCpf, toleranciaCpf);
+    }
+
+    /**
+     * Registra uma tentativa de login permitida que falhou (por um CPF não cadastrado
+     * ou uma senha errada), consumindo uma ficha do balde global de falhas.
+     */
+    public void registraFalha() {
+        consome(baldeFalhas, relogio.getAsLong() - origem, intervaloFalhas, toleranciaFalhas);
+    }
+
+    /**
+     * Verifica se um balde tem alguma ficha.
+     * @param cheio instante em que o balde estaria cheio novamente
+     */
+    private static boolean disponivel(final long cheio, final long agora, final long tolerancia) {
+        return Math.max(cheio, agora) - agora <= tolerancia;
+    }
+
+    private static boolean consome(final AtomicLong balde, final long agora,
+                                   final long intervalo, final long tolerancia)
+    {
+        while (true) {
+            final long cheio = balde.get();
+            if (!disponivel(cheio, agora, tolerancia)) {
+                return false;
+            }
+
+            if (balde.compareAndSet(cheio, Math.max(cheio, agora) + intervalo)) {
+                return true;
+            }
+        }
+    }
+}
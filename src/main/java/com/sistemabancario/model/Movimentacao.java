@@ -1,5 +1,6 @@
 package com.sistemabancario.model;
 
+import java.time.Instant;
 import java.util.Objects;
 
 /**
@@ -11,6 +12,9 @@ import java.util.Objects;
  * calcular o saldo pode se tornar uma operação extremamente lenta.
  * Isto normalmente ocorrer quando o histórico de movimentações se torna longo
  * (principalmente depois de alguns anos).
+ * Por isso, o saldo num determinado instante deve ser obtido por
+ * {@link Conta#getSaldoEm(Instant)}, que utiliza os pontos de controle
+ * armazenados junto ao histórico.
  * </p>
  * 
  * @author Manoel Campos da Silva Filho
@@ -35,11 +39,11 @@ public class Movimentacao implements Cadastro {
     private char tipo;
 
     /**
-     * Valor monetário da movimentação.
+     * Valor monetário da movimentação, em {@link Centavos centavos}.
      * O valor não deve ser negativo, uma vez que existe o atributo {@link #tipo} (R02).
      * Se o tipo for débito, o valor da movimentação não pode ser superior ao saldo total da {@link Conta} (R03).
      */
-    private double valor;
+    private long valor;
 
     /**
      * Indica se a movimentação foi confirmada, neste caso, devendo ser registrada no saldo da
@@ -60,6 +64,23 @@ public class Movimentacao implements Cadastro {
      */
     private boolean confirmada;
 
+    /**
+     * Instante em que a movimentação foi registrada no histórico da conta,
+     * em milissegundos desde 1970-01-01T00:00:00Z (ou zero se ainda não foi registrada).
+     * É armazenado como um número para não criar um objeto {@link Instant}
+     * para cada movimentação.
+     */
+    private long instante;
+
+    /**
+     * Indica se a movimentação é um depósito em cheque que foi devolvido
+     * (rejeitado na compensação). Um cheque devolvido não é confirmado
+     * e seu valor nunca é somado ao saldo.
+     *
+     * @see CompensacaoCheques
+     */
+    private boolean devolvida;
+
     /**
      * Instancia uma movimentação para uma determinada {@link Conta} bancária,
      * onde a conta passada deve ser armazenada no atributo {@link #conta} (R05).
@@ -75,6 +96,20 @@ public class Movimentacao implements Cadastro {
         this.confirmada = confirmada;
     }
 
+    /**
+     * Instancia uma movimentação com atributos já validados, como as
+     * lidas de um {@link HistoricoMovimentacoes}.
+     */
+    Movimentacao(Conta conta, long id, String descricao, char tipo, long valor, boolean confirmada, long instante){
+        this.conta = conta;
+        this.instante = instante;
+        this.id = id;
+        this.descricao = descricao;
+        this.tipo = tipo;
+        this.valor = valor;
+        this.confirmada = confirmada;
+    }
+
     @Override
     public long getId() {
         return id;
@@ -85,6 +120,10 @@ public class Movimentacao implements Cadastro {
         this.id = id;
     }
 
+    public Conta getConta() {
+        return conta;
+    }
+
     public char getTipo(){
         return tipo;
     }
@@ -114,21 +153,53 @@ public class Movimentacao implements Cadastro {
     }
 
     public double getValor() {
+        return Centavos.paraReais(valor);
+    }
+
+    public long getValorCentavos() {
         return valor;
     }
 
     public void setValor(double valor) {
+        setValorCentavos(Centavos.deReais(valor));
+    }
+
+    public void setValorCentavos(long valor) {
         if (!Objects.isNull(tipo) && valor < 0) {
             throw new IllegalArgumentException("Valor não pode ser negativo.");
         }
         
-        if (!Objects.isNull(conta) && !Objects.isNull(tipo) && tipo == 'D' && valor > conta.getSaldoTotal()) {
+        if (!Objects.isNull(conta) && !Objects.isNull(tipo) && tipo == 'D' && valor > conta.getSaldoTotalCentavos()) {
             throw new IllegalArgumentException("Valor não pode ser maior que o saldo total no débito.");
         }
 
         this.valor = valor;
     }
 
+    /**
+     * Retorna o instante em que a movimentação foi registrada no histórico da conta.
+     * @return o instante ou null se a movimentação ainda não foi registrada
+     */
+    public Instant getInstante() {
+        return instante == 0 ? null : Instant.ofEpochMilli(instante);
+    }
+
+    /**
+     * Define o instante em que a movimentação foi registrada no histórico.
+     * @param instante milissegundos desde 1970-01-01T00:00:00Z
+     */
+    void setInstante(long instante) {
+        this.instante = instante;
+    }
+
+    public boolean isDevolvida() {
+        return devolvida;
+    }
+
+    void setDevolvida(boolean devolvida) {
+        this.devolvida = devolvida;
+    }
+
     public boolean isConfirmada() {
         return confirmada;
     }
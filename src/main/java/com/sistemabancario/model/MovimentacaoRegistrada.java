@@ -0,0 +1,95 @@
+package com.sistemabancario.model;
+
+/**
+ * Visão de uma {@link Movimentacao} armazenada num {@link HistoricoMovimentacoes}.
+ * É criada somente quando uma movimentação é lida do histórico e
+ * grava de volta nas colunas do histórico as alterações do id e da descrição.
+ *
+ * <p>
+ * O tipo, o valor e a confirmação não podem ser alterados pela visão, pois alterariam
+ * o saldo sem passar pela {@link Conta} (que atualiza seu saldo e registra a operação).
+ * Um depósito em cheque deve ser confirmado ou devolvido por meio de
+ * {@link Conta#confirmaDepositoCheque(Movimentacao)} e {@link Conta#devolveDepositoCheque(Movimentacao)}.
+ * </p>
+ *
+ * @author Manoel Campos da Silva Filho
+ */
+final class MovimentacaoRegistrada extends Movimentacao {
+    private final HistoricoMovimentacoes historico;
+
+    /**
+     * Posição da movimentação nas colunas do {@link #historico}.
+     */
+    private final int indice;
+
+    MovimentacaoRegistrada(
+        final HistoricoMovimentacoes historico, final int indice, final long id,
+        final String descricao, final char tipo, final long valor, final boolean confirmada, final long instante)
+    {
+        super(historico.getConta(), id, descricao, tipo, valor, confirmada, instante);
+        this.historico = historico;
+        this.indice = indice;
+    }
+
+    HistoricoMovimentacoes getHistorico() {
+        return historico;
+    }
+
+    int getIndice() {
+        return indice;
+    }
+
+    /**
+     * Indica que a movimentação foi confirmada no {@link #historico},
+     * atualizando somente esta visão.
+     */
+    void marcaConfirmada() {
+        super.setConfirmada(true);
+    }
+
+    /**
+     * Indica se o depósito em cheque foi devolvido no {@link #historico},
+     * atualizando somente esta visão.
+     */
+    void marcaDevolvida(final boolean devolvida) {
+        super.setDevolvida(devolvida);
+    }
+
+    @Override
+    public void setId(long id) {
+        super.setId(id);
+        historico.grava(indice, this);
+    }
+
+    /**
+     * @throws UnsupportedOperationException sempre, pois o tipo de uma movimentação registrada não pode ser alterado
+     */
+    @Override
+    public void setTipo(char tipo) {
+        throw new UnsupportedOperationException("O tipo de uma movimentação registrada não pode ser alterado.");
+    }
+
+    @Override
+    public void setDescricao(String descricao) {
+        super.setDescricao(descricao);
+        historico.grava(indice, this);
+    }
+
+    /**
+     * @throws UnsupportedOperationException sempre, pois o valor de uma movimentação registrada não pode ser alterado
+     */
+    @Override
+    public void setValorCentavos(long valor) {
+        throw new UnsupportedOperationException("O valor de uma movimentação registrada não pode ser alterado.");
+    }
+
+    /**
+     * @throws UnsupportedOperationException sempre, pois um depósito registrado deve ser confirmado
+     *         por meio de {@link Conta#confirmaDepositoCheque(Movimentacao)}
+     */
+    @Override
+    public void setConfirmada(boolean confirmada) {
+        throw new UnsupportedOperationException(
+            "A confirmação de uma movimentação registrada deve ser feita pela conta (Conta.confirmaDepositoCheque).");
+    }
+}
@@ -0,0 +1,50 @@
+package com.sistemabancario.model;
+
+/**
+ * Operações que alteram uma {@link Conta} e que podem ser
+ * registradas por um {@link RegistroOperacoes}.
+ *
+ * <p>
+ * <b>NOTA</b>: A posição de cada operação pode ser gravada em disco
+ * para identificá-la. Assim, novas operações devem ser
+ * incluídas sempre ao final.
+ * </p>
+ *
+ * @author Manoel Campos da Silva Filho
+ */
+public enum Operacao {
+    /**
+     * @see Conta#saque(double)
+     */
+    SAQUE,
+
+    /**
+     * @see Conta#depositoDinheiro(double)
+     */
+    DEPOSITO_DINHEIRO,
+
+    /**
+     * @see Conta#depositoCheque(double)
+     */
+    DEPOSITO_CHEQUE,
+
+    /**
+     * @see Conta#addMovimentacao(Movimentacao)
+     */
+    LANCAMENTO,
+
+    /**
+     * @see Conta#transferencia(Conta, double)
+     */
+    TRANSFERENCIA,
+
+    /**
+     * @see Conta#confirmaDepositoCheque(Movimentacao)
+     */
+    CONFIRMACAO_CHEQUE,
+
+    /**
+     * @see Conta#devolveDepositoCheque(Movimentacao)
+     */
+    DEVOLUCAO_CHEQUE
+}
@@ -0,0 +1,42 @@
+package com.sistemabancario.model;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Uma página de um extrato, obtida por {@link Conta#getExtrato(FiltroExtrato, long, int)}.
+ * As movimentações são cópias das armazenadas no histórico da conta,
+ * em ordem cronológica, assim alterá-las não altera o histórico.
+ *
+ * @author Manoel Campos da Silva Filho
+ */
+public class PaginaExtrato {
+    private final List<Movimentacao> movimentacoes;
+
+    /**
+     * Cursor a ser informado para obter a próxima página
+     * ou -1 se esta for a última página.
+     */
+    private final long proximoCursor;
+
+    PaginaExtrato(final List<Movimentacao> movimentacoes, final long proximoCursor) {
+        this.movimentacoes = Collections.unmodifiableList(movimentacoes);
+        this.proximoCursor = proximoCursor;
+    }
+
+    public List<Movimentacao> getMovimentacoes() {
+        return movimentacoes;
+    }
+
+    public long getProximoCursor() {
+        return proximoCursor;
+    }
+
+    /**
+     * Indica se há uma próxima página, que pode ser obtida informando o {@link #getProximoCursor()}.
+     * @return true se há uma próxima página, false caso contrário
+     */
+    public boolean hasProximaPagina() {
+        return proximoCursor >= 0;
+    }
+}
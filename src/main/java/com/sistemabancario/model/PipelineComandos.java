@@ -0,0 +1,502 @@
+package com.sistemabancario.model;
+
+import java.io.Closeable;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Pipeline que realiza as operações das contas de uma {@link ColecaoContas} passando-as,
+ * como {@link Comando comandos}, por um anel de tamanho fixo (no estilo do LMAX Disruptor).
+ *
+ * <p>
+ * Cada comando enviado ocupa a próxima posição do anel e é processado, em ordem,
+ * por três estágios, cada um executado por uma única thread:
+ * </p>
+ * <ol>
+ *     <li><b>negócio</b>: realiza a operação na {@link Conta} (como {@link Conta#saque(double)}),
+ *     adicionando-a ao {@link RegistroOperacoes} das contas, se houver;</li>
+ *     <li><b>diário</b>: aguarda que as operações registradas sejam armazenadas de forma durável
+ *     (somente quando as contas possuem um registro);</li>
+ *     <li><b>resposta</b>: entrega cada comando concluído à {@link Resposta} informada na criação.</li>
+ * </ol>
+ *
+ * <p>
+ * Cada estágio anota no seu {@link Sequencia número de sequência} a última posição processada
+ * e só avança até a sequência do estágio anterior, sem filas nem bloqueios entre eles.
+ * Ao encontrar várias posições disponíveis, um estágio processa todas de uma vez,
+ * formando lotes naturalmente: o diário aguarda a persistência de um lote inteiro de uma
+ * só vez (veja {@link com.sistemabancario.persistencia.DiarioOperacoes#aguardaPersistencia(long)}),
+ * em vez de uma vez por operação. Quem envia comandos só reutiliza uma posição após
+ * ela ser respondida e, enquanto o anel estiver cheio, aguarda.
+ * </p>
+ *
+ * <p>
+ * Os comandos são criados junto com o anel e reutilizados, assim o pipeline não cria
+ * nenhum objeto para enviar, processar ou responder uma operação (as operações de
+ * {@link Conta} ainda criam as suas movimentações). Enquanto o pipeline estiver aberto,
+ * as contas da coleção só devem ser alteradas por meio dele, pois ele substitui o registro
+ * das contas por um que não aguarda a persistência de cada operação.
+ * </p>
+ *
+ * @author Manoel Campos da Silva Filho
+ */
+public class PipelineComandos implements Closeable {
+    /**
+     * Recebe os comandos processados pelo pipeline, na ordem em que foram enviados,
+     * sempre pela mesma thread.
+     */
+    @FunctionalInterface
+    public interface Resposta {
+        /**
+         * Responde um comando processado.
+         * @param comando comando processado, que só pode ser acessado durante esta chamada
+         * @param fimDoLote indica se é o último comando do lote processado de uma vez pelo estágio,
+         *                  permitindo, por exemplo, enviar várias respostas pela rede de uma só vez
+         */
+        void responde(Comando comando, boolean fimDoLote);
+    }
+
+    private static final VarHandle PUBLICADAS = MethodHandles.arrayElementVarHandle(int[].class);
+
+    /**
+     * Quantidade de tentativas em que uma thread aguarda uma posição sem liberar o processador.
+     */
+    private static final int TENTATIVAS_ATIVAS = 100;
+
+    /**
+     * Quantidade de tentativas (após as {@link #TENTATIVAS_ATIVAS}) em que uma thread aguarda
+     * uma posição cedendo o processador para outras threads, antes de passar a ser suspensa.
+     */
+    private static final int TENTATIVAS_CEDENDO = 200;
+
+    /**
+     * Tempo durante o qual uma thread que não encontra posições disponíveis fica suspensa.
+     */
+    private static final long PAUSA_NANOS = 50_000;
+
+    private final Comando[] comandos;
+    private final int mascara;
+    private final int deslocamentoVolta;
+
+    /**
+     * Volta do anel da última publicação em cada posição (ou -1 se a posição nunca foi publicada).
+     * Como várias threads podem enviar comandos, elas podem concluir as suas posições
+     * fora de ordem; o estágio de negócio só processa as posições publicadas em sequência.
+     */
+    private final int[] publicadas;
+
+    /**
+     * Próxima sequência a ser reservada. O bit mais significativo indica que o pipeline
+     * foi fechado, assim fechar e reservar uma posição nunca ocorrem ao mesmo tempo.
+     */
+    private final AtomicLong proxima = new AtomicLong();
+
+    private final ColecaoContas contas;
+    private final Resposta resposta;
+
+    /**
+     * Registro original das contas (ou null se elas não são registradas).
+     */
+    private final RegistroOperacoes registro;
+
+    /**
+     * Sequência do último registro feito pelo estágio de negócio.
+     * Somente acessada pela thread do estágio.
+     */
+    private long ultimoRegistro;
+
+    private final Estagio negocio, diario, respostas;
+
+    /**
+     * Estágio que processa as posições do anel depois que elas forem
+     * processadas pelo estágio anterior (ou publicadas, para o primeiro estágio).
+     */
+    private abstract class Estagio implements Runnable {
+        private final Sequencia sequencia = new Sequencia();
+        private final Estagio anterior;
+        private final Thread thread;
+        private volatile boolean parar;
+
+        Estagio(final String nome, final Estagio anterior) {
+            this.anterior = anterior;
+            this.thread = new Thread(this, "pipeline-" + nome);
+        }
+
+        @Override
+        public void run() {
+            long seguinte = 0;
+            int tentativas = 0;
+            while (true) {
+                final long disponivel = anterior == null ? ultimaPublicada(seguinte) : anterior.sequencia.get();
+                if (disponivel < seguinte) {
+                    if (parar) {
+                        return;
+                    }
+                    tentativas = aguarda(tentativas);
+                    continue;
+                }
+
+                tentativas = 0;
+                processa(seguinte, disponivel);
+                sequencia.set(disponivel);
+                seguinte = disponivel + 1;
+            }
+        }
+
+        /**
+         * Processa um lote de posições do anel.
+         * @param inicio sequência da primeira posição do lote
+         * @param fim sequência da última posição do lote (inclusive)
+         */
+        abstract void processa(long inicio, long fim);
+    }
+
+    /**
+     * Instancia um pipeline e inicia as threads dos seus estágios.
+     * @param contas contas onde as operações serão realizadas
+     * @param capacidade quantidade de posições do anel, que deve ser uma potência de 2
+     * @param resposta onde os comandos processados serão entregues
+     * @throws IllegalArgumentException se a capacidade não for uma potência de 2
+     */
+    public PipelineComandos(final ColecaoContas contas, final int capacidade, final Resposta resposta) {
+        if (capacidade <= 0 || Integer.bitCount(capacidade) != 1) {
+            throw new IllegalArgumentException("Capacidade deve ser uma potência de 2.");
+        }
+
+        this.contas = Objects.requireNonNull(contas, "Coleção de contas não pode ser nula.");
+        this.resposta = Objects.requireNonNull(resposta, "Resposta não pode ser nula.");
+        this.comandos = new Comando[capacidade];
+        for (int i = 0; i < capacidade; i++) {
+            comandos[i] = new Comando();
+        }
+        this.mascara = capacidade - 1;
+        this.deslocamentoVolta = Integer.numberOfTrailingZeros(capacidade);
+        this.publicadas = new int[capacidade];
+        Arrays.fill(publicadas, -1);
+
+        this.registro = contas.getRegistro();
+        if (registro != null) {
+            contas.setRegistro(new RegistroOperacoes() {
+                @Override
+                public long registra(final Operacao operacao, final Movimentacao movimentacao, final Conta destino) {
+                    return ultimoRegistro = registro.registra(operacao, movimentacao, destino);
+                }
+
+                @Override
+                public void aguardaPersistencia(final long sequencia) {
+                    // A persistência é aguardada pelo estágio do diário, uma vez por lote
+                }
+            });
+        }
+
+        negocio = new Estagio("negocio", null) {
+            @Override
+            void processa(final long inicio, final long fim) {
+                for (long posicao = inicio; posicao <= fim; posicao++) {
+                    realiza(comando(posicao));
+                }
+            }
+        };
+        diario = registro == null ? null : new Estagio("diario", negocio) {
+            @Override
+            void processa(final long inicio, final long fim) {
+                persiste(inicio, fim);
+            }
+        };
+        respostas = new Estagio("resposta", diario == null ? negocio : diario) {
+            @Override
+            void processa(final long inicio, final long fim) {
+                for (long posicao = inicio; posicao <= fim; posicao++) {
+                    responde(comando(posicao), posicao == fim);
+                }
+            }
+        };
+
+        negocio.thread.start();
+        if (diario != null) {
+            diario.thread.start();
+        }
+        respostas.thread.start();
+    }
+
+    /**
+     * Envia um saque.
+     * @param identificador identificador da operação, informado na resposta
+     * @param chave chave do número da conta
+     * @param centavos valor a ser sacado
+     * @throws IllegalStateException se o pipeline já foi fechado
+     * @see Conta#saque(double)
+     */
+    public void saque(final long identificador, final int chave, final long centavos) {
+        envia(identificador, Operacao.SAQUE, chave, Chaves.INVALIDA, centavos, null);
+    }
+
+    /**
+     * Envia um depósito em dinheiro.
+     * @param identificador identificador da operação, informado na resposta
+     * @param chave chave do número da conta
+     * @param centavos valor a ser depositado
+     * @throws IllegalStateException se o pipeline já foi fechado
+     * @see Conta#depositoDinheiro(double)
+     */
+    public void depositoDinheiro(final long identificador, final int chave, final long centavos) {
+        envia(identificador, Operacao.DEPOSITO_DINHEIRO, chave, Chaves.INVALIDA, centavos, null);
+    }
+
+    /**
+     * Envia um depósito em cheque. O depósito realizado é informado
+     * na resposta por {@link Comando#getCheque()}.
+     * @param identificador identificador da operação, informado na resposta
+     * @param chave chave do número da conta
+     * @param centavos valor a ser depositado
+     * @throws IllegalStateException se o pipeline já foi fechado
+     * @see Conta#depositoCheque(double)
+     */
+    public void depositoCheque(final long identificador, final int chave, final long centavos) {
+        envia(identificador, Operacao.DEPOSITO_CHEQUE, chave, Chaves.INVALIDA, centavos, null);
+    }
+
+    /**
+     * Envia uma transferência.
+     * @param identificador identificador da operação, informado na resposta
+     * @param origem chave do número da conta de origem
+     * @param destino chave do número da conta de destino
+     * @param centavos valor a ser transferido
+     * @throws IllegalStateException se o pipeline já foi fechado
+     * @see Conta#transferencia(Conta, double)
+     */
+    public void transferencia(final long identificador, final int origem, final int destino, final long centavos) {
+        envia(identificador, Operacao.TRANSFERENCIA, origem, destino, centavos, null);
+    }
+
+    /**
+     * Envia a confirmação de um depósito em cheque.
+     * @param cheque depósito obtido do histórico da conta ou da resposta ao depósito
+     * @param identificador identificador da operação, informado na resposta
+     * @throws IllegalStateException se o pipeline já foi fechado
+     * @see Conta#confirmaDepositoCheque(Movimentacao)
+     */
+    public void confirmaDepositoCheque(final Movimentacao cheque, final long identificador) {
+        envia(identificador, Operacao.CONFIRMACAO_CHEQUE, chave(cheque), Chaves.INVALIDA, cheque.getValorCentavos(), cheque);
+    }
+
+    /**
+     * Envia a devolução de um depósito em cheque.
+     * @param cheque depósito obtido do histórico da conta ou da resposta ao depósito
+     * @param identificador identificador da operação, informado na resposta
+     * @throws IllegalStateException se o pipeline já foi fechado
+     * @see Conta#devolveDepositoCheque(Movimentacao)
+     */
+    public void devolveDepositoCheque(final Movimentacao cheque, final long identificador) {
+        envia(identificador, Operacao.DEVOLUCAO_CHEQUE, chave(cheque), Chaves.INVALIDA, cheque.getValorCentavos(), cheque);
+    }
+
+    private static int chave(final Movimentacao cheque) {
+        Objects.requireNonNull(cheque, "Depósito em cheque não pode ser nulo.");
+        return cheque.getConta() == null ? Chaves.INVALIDA : cheque.getConta().getChaveNumero();
+    }
+
+    /**
+     * Reserva a próxima posição do anel (aguardando enquanto ela não tiver sido respondida),
+     * copia a operação para o comando da posição e a publica para o estágio de negócio.
+     */
+    private void envia(
+        final long identificador, final Operacao operacao, final int chaveConta,
+        final int chaveDestino, final long centavos, final Movimentacao cheque)
+    {
+        final long sequencia = reserva();
+        int tentativas = 0;
+        while (sequencia - comandos.length > respostas.sequencia.get()) {
+            tentativas = aguarda(tentativas);
+        }
+
+        final int indice = (int) sequencia & mascara;
+        comandos[indice].define(identificador, operacao, chaveConta, chaveDestino, centavos, cheque);
+        PUBLICADAS.setRelease(publicadas, indice, volta(sequencia));
+    }
+
+    private long reserva() {
+        while (true) {
+            final long sequencia = proxima.get();
+            if (sequencia < 0) {
+                throw new IllegalStateException("Pipeline de comandos fechado.");
+            }
+            if (proxima.compareAndSet(sequencia, sequencia + 1)) {
+                return sequencia;
+            }
+        }
+    }
+
+    private Comando comando(final long sequencia) {
+        return comandos[(int) sequencia & mascara];
+    }
+
+    private int volta(final long sequencia) {
+        return (int) (sequencia >>> deslocamentoVolta);
+    }
+
+    /**
+     * Obtém a maior sequência publicada tal que todas as anteriores também foram publicadas.
+     * @param inicio primeira sequência a ser verificada
+     * @return a sequência encontrada ou {@code inicio - 1} se a primeira não foi publicada
+     */
+    private long ultimaPublicada(final long inicio) {
+        long sequencia = inicio;
+        while ((int) PUBLICADAS.getAcquire(publicadas, (int) sequencia & mascara) == volta(sequencia)) {
+            sequencia++;
+        }
+        return sequencia - 1;
+    }
+
+    /**
+     * Realiza a operação de um comando, executado somente pela thread do estágio de negócio.
+     */
+    private void realiza(final Comando comando) {
+        ultimoRegistro = 0;
+        try {
+            final double valor = Centavos.paraReais(comando.getCentavos());
+            final Conta conta = conta(comando.getChaveConta());
+            switch (comando.getOperacao()) {
+                case SAQUE:
+                    conta.saque(valor);
+                    break;
+                case DEPOSITO_DINHEIRO:
+                    conta.depositoDinheiro(valor);
+                    break;
+                case DEPOSITO_CHEQUE:
+                    comando.setCheque(conta.depositaCheque(valor));
+                    break;
+                case TRANSFERENCIA:
+                    conta.transferencia(contas.getConta(comando.getChaveDestino()), valor);
+                    break;
+                case CONFIRMACAO_CHEQUE:
+                    conta.confirmaDepositoCheque(comando.getCheque());
+                    break;
+                case DEVOLUCAO_CHEQUE:
+                    conta.devolveDepositoCheque(comando.getCheque());
+                    break;
+                default:
+                    throw new IllegalArgumentException("Operação não suportada: " + comando.getOperacao());
+            }
+            comando.conclui(conta.getSaldoTotalCentavos(), ultimoRegistro);
+        } catch (RuntimeException e) {
+            comando.setErro(e);
+        }
+    }
+
+    private Conta conta(final int chave) {
+        final Conta conta = contas.getConta(chave);
+        if (conta == null) {
+            throw new IllegalArgumentException("Conta não encontrada.");
+        }
+
+        return conta;
+    }
+
+    /**
+     * Aguarda a persistência das operações registradas num lote, executado somente
+     * pela thread do estágio do diário. Se a persistência falhar, os comandos
+     * do lote que foram registrados são respondidos com o erro.
+     */
+    private void persiste(final long inicio, final long fim) {
+        long maiorRegistro = 0;
+        for (long posicao = inicio; posicao <= fim; posicao++) {
+            maiorRegistro = Math.max(maiorRegistro, comando(posicao).getSequenciaRegistro());
+        }
+        if (maiorRegistro == 0) {
+            return;
+        }
+
+        try {
+            registro.aguardaPersistencia(maiorRegistro);
+        } catch (RuntimeException e) {
+            for (long posicao = inicio; posicao <= fim; posicao++) {
+                final Comando comando = comando(posicao);
+                if (comando.getSequenciaRegistro() > 0) {
+                    comando.setErro(e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Entrega um comando processado à {@link #resposta}, executado somente pela thread do estágio de resposta.
+     */
+    private void responde(final Comando comando, final boolean fimDoLote) {
+        try {
+            resposta.responde(comando, fimDoLote);
+        } catch (RuntimeException e) {
+            // Uma falha ao responder um comando não pode interromper o pipeline
+            final Thread thread = Thread.currentThread();
+            thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+        }
+    }
+
+    /**
+     * Aguarda uma posição do anel ficar disponível, inicialmente sem liberar o processador
+     * (para responder rapidamente quando as operações chegam continuamente),
+     * depois cedendo-o e, por fim, suspendendo a thread.
+     * @param tentativas quantidade de vezes que a thread já aguardou
+     * @return a nova quantidade de tentativas
+     */
+    private static int aguarda(final int tentativas) {
+        if (tentativas < TENTATIVAS_ATIVAS) {
+            Thread.onSpinWait();
+        } else if (tentativas < TENTATIVAS_CEDENDO) {
+            Thread.yield();
+        } else {
+            LockSupport.parkNanos(PAUSA_NANOS);
+            return tentativas;
+        }
+
+        return tentativas + 1;
+    }
+
+    public int getCapacidade() {
+        return comandos.length;
+    }
+
+    /**
+     * Impede o envio de novos comandos, aguarda todos os comandos enviados serem respondidos,
+     * encerra as threads dos estágios e restaura o registro original das contas.
+     */
+    @Override
+    public void close() {
+        long sequencia;
+        do {
+            sequencia = proxima.get();
+            if (sequencia < 0) {
+                return;
+            }
+        } while (!proxima.compareAndSet(sequencia, sequencia | Long.MIN_VALUE));
+
+        int tentativas = 0;
+        while (respostas.sequencia.get() < sequencia - 1) {
+            tentativas = aguarda(tentativas);
+        }
+
+        boolean interrompida = false;
+        for (final Estagio estagio : new Estagio[]{negocio, diario, respostas}) {
+            if (estagio == null) {
+                continue;
+            }
+            estagio.parar = true;
+            try {
+                estagio.thread.join();
+            } catch (InterruptedException e) {
+                interrompida = true;
+            }
+        }
+
+        if (registro != null) {
+            contas.setRegistro(registro);
+        }
+        if (interrompida) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
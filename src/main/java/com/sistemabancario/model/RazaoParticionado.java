@@ -0,0 +1,321 @@
+package com.sistemabancario.model;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToLongFunction;
+
+/**
+ * Livro-razão com as contas divididas em partições, cada uma alterada por uma única thread.
+ *
+ * <p>
+ * A partição de uma conta é definida pelo hash da chave do seu número
+ * (veja {@link Chaves#conta(CharSequence)}), e cada partição armazena as suas contas
+ * numa {@link ColecaoContas} própria. As operações são enviadas como comandos para a fila
+ * da partição da conta e executadas, em ordem, pela thread da partição, que atende
+ * todos os comandos disponíveis na fila de uma só vez. Como somente essa thread altera
+ * as contas da partição, as operações nunca disputam uma conta com outras threads,
+ * e a vazão cresce com a quantidade de partições (até a quantidade de processadores).
+ * </p>
+ *
+ * <p>
+ * Uma transferência entre contas de partições diferentes é feita em duas etapas:
+ * a partição de origem debita o valor e envia o crédito como um comando para a partição
+ * de destino. Assim, nenhuma thread altera contas de outra partição. Enquanto o crédito
+ * aguarda na fila do destino, o valor não está em nenhuma das contas; a soma dos saldos
+ * só é exata quando não há operações em andamento (como após {@link #close()}).
+ * </p>
+ *
+ * <p>
+ * As contas adicionadas ao livro-razão só devem ser alteradas por meio dele.
+ * Cada operação retorna um {@link CompletableFuture} concluído com o saldo total
+ * da conta após a operação, ou com uma {@link IllegalArgumentException}
+ * se a operação for recusada (com a mesma mensagem da operação em {@link Conta}).
+ * </p>
+ *
+ * @author Manoel Campos da Silva Filho
+ */
+public class RazaoParticionado implements Closeable {
+    /**
+     * Quantidade máxima de comandos retirados da fila de uma vez.
+     */
+    private static final int TAMANHO_LOTE = 256;
+
+    /**
+     * Comando que encerra a thread de uma partição.
+     */
+    private static final Runnable PARAR = () -> {};
+
+    /**
+     * Partição das contas, com a fila de comandos e a thread que os executa.
+     */
+    private static final class Particao {
+        private final ColecaoContas contas;
+        private final BlockingQueue<Runnable> fila = new LinkedBlockingQueue<>();
+        private final Thread escritora;
+
+        Particao(final int indice, final int capacidadeEsperada) {
+            contas = new ColecaoContas(capacidadeEsperada);
+            escritora = new Thread(this::executa, "razao-particao-" + indice);
+        }
+
+        private void executa() {
+            final List<Runnable> lote = new ArrayList<>(TAMANHO_LOTE);
+            try {
+                while (true) {
+                    lote.add(fila.take());
+                    fila.drainTo(lote, TAMANHO_LOTE - 1);
+                    for (final Runnable comando : lote) {
+                        if (comando == PARAR) {
+                            return;
+                        }
+                        comando.run();
+                    }
+                    lote.clear();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private final Particao[] particoes;
+
+    /**
+     * Quantidade de operações enviadas e ainda não concluídas
+     * (incluindo os créditos das transferências que aguardam na fila do destino).
+     */
+    private final LongAdder emAndamento = new LongAdder();
+
+    private volatile boolean fechado;
+
+    /**
+     * Instancia um livro-razão vazio e inicia as threads das partições.
+     * @param totalParticoes quantidade de partições (e de threads)
+     * @param capacidadeEsperada total de contas que se espera armazenar
+     * @throws IllegalArgumentException se a quantidade de partições não for positiva
+     */
+    public RazaoParticionado(final int totalParticoes, final int capacidadeEsperada) {
+        if (totalParticoes <= 0) {
+            throw new IllegalArgumentException("Quantidade de partições deve ser maior que zero.");
+        }
+
+        particoes = new Particao[totalParticoes];
+        for (int i = 0; i < totalParticoes; i++) {
+            particoes[i] = new Particao(i, Math.max(1, capacidadeEsperada / totalParticoes));
+            particoes[i].escritora.start();
+        }
+    }
+
+    /**
+     * Obtém a partição de uma conta, espalhando as chaves consecutivas entre as partições
+     * por meio do hashing de Fibonacci.
+     * @param chave chave do número da conta
+     * @return o índice da partição
+     */
+    int particao(final int chave) {
+        final long hash = (chave * 0x9E3779B9L) & 0xFFFFFFFFL;
+        return (int) ((hash * particoes.length) >>> 32);
+    }
+
+    public int getTotalParticoes() {
+        return particoes.length;
+    }
+
+    /**
+     * Adiciona uma conta à partição do seu número.
+     * @param conta conta a ser adicionada, com o número já definido
+     * @throws IllegalArgumentException se o número da conta não estiver no formato 99999-9
+     */
+    public void putConta(final Conta conta) {
+        final int chave = conta.getChaveNumero();
+        if (chave < 0) {
+            throw new IllegalArgumentException("Numero invalido. Deve estar no formato 99999-9");
+        }
+
+        particoes[particao(chave)].contas.putConta(conta, conta.getNumero());
+    }
+
+    /**
+     * Pesquisa uma conta pela chave do seu número.
+     * @param chave chave obtida por {@link Chaves#conta(CharSequence)} ou {@link Conta#getChaveNumero()}
+     * @return a conta ou null se ela não existir
+     */
+    public Conta getConta(final int chave) {
+        return chave < 0 ? null : particoes[particao(chave)].contas.getConta(chave);
+    }
+
+    /**
+     * Realiza um saque.
+     * @param chave chave do número da conta
+     * @param valor valor a ser sacado
+     * @return o saldo total da conta após o saque
+     * @throws IllegalStateException se o livro-razão já foi fechado
+     * @see Conta#saque(double)
+     */
+    public CompletableFuture<Long> saque(final int chave, final double valor) {
+        return envia(chave, conta -> {
+            conta.saque(valor);
+            return conta.getSaldoTotalCentavos();
+        });
+    }
+
+    /**
+     * Realiza um depósito em dinheiro.
+     * @param chave chave do número da conta
+     * @param valor valor a ser depositado
+     * @return o saldo total da conta após o depósito
+     * @throws IllegalStateException se o livro-razão já foi fechado
+     * @see Conta#depositoDinheiro(double)
+     */
+    public CompletableFuture<Long> depositoDinheiro(final int chave, final double valor) {
+        return envia(chave, conta -> {
+            conta.depositoDinheiro(valor);
+            return conta.getSaldoTotalCentavos();
+        });
+    }
+
+    /**
+     * Transfere um valor entre duas contas. Se as contas estiverem na mesma partição,
+     * a transferência é feita como em {@link Conta#transferencia(Conta, double)};
+     * senão, o crédito é enviado para a partição de destino após o débito.
+     * @param origem chave do número da conta de origem
+     * @param destino chave do número da conta de destino
+     * @param valor valor a ser transferido
+     * @return o saldo total da conta de origem após o débito, concluído somente após o crédito
+     * @throws IllegalStateException se o livro-razão já foi fechado
+     */
+    public CompletableFuture<Long> transferencia(final int origem, final int destino, final double valor) {
+        final Particao particaoDestino = destino < 0 ? null : particoes[particao(destino)];
+        if (particaoDestino == null || particaoDestino == particoes[particao(origem)]) {
+            return envia(origem, conta -> {
+                conta.transferencia(particaoDestino == null ? null : particaoDestino.contas.getConta(destino), valor);
+                return conta.getSaldoTotalCentavos();
+            });
+        }
+
+        final CompletableFuture<Long> resultado = new CompletableFuture<>();
+        final Particao particaoOrigem = inicia(origem);
+        particaoOrigem.fila.add(() -> {
+            try {
+                final Conta conta = conta(particaoOrigem, origem);
+                final Conta contaDestino = particaoDestino.contas.getConta(destino);
+                // Como somente a thread da partição altera a conta, o saldo não muda entre a verificação e o débito
+                final Movimentacao credito = conta.debitaTransferencia(contaDestino, Centavos.deReais(valor));
+                final long saldo = conta.getSaldoTotalCentavos();
+                particaoDestino.fila.add(() -> credita(particaoOrigem, conta, credito, saldo, resultado));
+            } catch (RuntimeException e) {
+                falha(resultado, e);
+            }
+        });
+        return resultado;
+    }
+
+    /**
+     * Lança o crédito de uma transferência, executado pela thread da partição de destino.
+     * Se o crédito falhar, o valor é devolvido à conta de origem pela partição de origem.
+     */
+    private void credita(final Particao particaoOrigem, final Conta origem, final Movimentacao credito,
+                         final long saldoOrigem, final CompletableFuture<Long> resultado)
+    {
+        try {
+            credito.getConta().creditaTransferencia(credito);
+            conclui(resultado, saldoOrigem);
+        } catch (RuntimeException e) {
+            particaoOrigem.fila.add(() -> {
+                origem.estornaTransferencia(credito);
+                falha(resultado, e);
+            });
+        }
+    }
+
+    /**
+     * Envia uma operação para a partição de uma conta.
+     * @param chave chave do número da conta
+     * @param operacao operação executada pela thread da partição, que retorna o saldo da conta
+     */
+    private CompletableFuture<Long> envia(final int chave, final ToLongFunction<Conta> operacao) {
+        final CompletableFuture<Long> resultado = new CompletableFuture<>();
+        final Particao particao = inicia(chave);
+        particao.fila.add(() -> {
+            try {
+                conclui(resultado, operacao.applyAsLong(conta(particao, chave)));
+            } catch (RuntimeException e) {
+                falha(resultado, e);
+            }
+        });
+        return resultado;
+    }
+
+    /**
+     * Registra o início de uma operação.
+     * @return a partição da conta
+     * @throws IllegalStateException se o livro-razão já foi fechado
+     */
+    private Particao inicia(final int chave) {
+        emAndamento.increment();
+        if (fechado) {
+            emAndamento.decrement();
+            throw new IllegalStateException("Livro-razão já foi fechado.");
+        }
+
+        return particoes[chave < 0 ? 0 : particao(chave)];
+    }
+
+    private static Conta conta(final Particao particao, final int chave) {
+        final Conta conta = chave < 0 ? null : particao.contas.getConta(chave);
+        if (conta == null) {
+            throw new IllegalArgumentException("Conta não encontrada.");
+        }
+
+        return conta;
+    }
+
+    private void conclui(final CompletableFuture<Long> resultado, final long saldo) {
+        emAndamento.decrement();
+        resultado.complete(saldo);
+    }
+
+    private void falha(final CompletableFuture<Long> resultado, final RuntimeException e) {
+        emAndamento.decrement();
+        resultado.completeExceptionally(e);
+    }
+
+    /**
+     * Fecha o livro-razão: novas operações são rejeitadas, as operações em andamento
+     * (incluindo os créditos de transferências) são concluídas e as threads das partições
+     * são encerradas.
+     */
+    @Override
+    public void close() {
+        fechado = true;
+        boolean interrompida = false;
+        while (emAndamento.sum() > 0) {
+            try {
+                TimeUnit.MILLISECONDS.sleep(1);
+            } catch (InterruptedException e) {
+                interrompida = true;
+            }
+        }
+
+        for (final Particao particao : particoes) {
+            particao.fila.add(PARAR);
+        }
+        for (final Particao particao : particoes) {
+            try {
+                particao.escritora.join();
+            } catch (InterruptedException e) {
+                interrompida = true;
+            }
+        }
+
+        if (interrompida) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
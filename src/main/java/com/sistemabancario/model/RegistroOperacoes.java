@@ -0,0 +1,40 @@
+package com.sistemabancario.model;
+
+/**
+ * Registra as {@link Operacao operações} realizadas nas contas,
+ * por exemplo, para que elas possam ser refeitas depois que o
+ * sistema for reiniciado.
+ *
+ * <p>
+ * Uma {@link Conta} que possui um registro chama {@link #registra(Operacao, Movimentacao, Conta)}
+ * enquanto mantém a conta bloqueada, logo após alterar o saldo.
+ * Assim, as operações de uma mesma conta são registradas na mesma ordem
+ * em que foram aplicadas. Depois de liberar a conta, ela chama
+ * {@link #aguardaPersistencia(long)} para somente então concluir a operação.
+ * </p>
+ *
+ * @author Manoel Campos da Silva Filho
+ */
+public interface RegistroOperacoes {
+    /**
+     * Registra uma operação realizada numa conta.
+     * Se o registro falhar, a operação é desfeita na conta.
+     *
+     * @param operacao operação realizada
+     * @param movimentacao movimentação gerada pela operação na conta
+     *                     (em uma transferência, o débito na conta de origem)
+     * @param destino conta de destino de uma transferência ou null para as demais operações
+     * @return o número de sequência do registro, a ser passado para {@link #aguardaPersistencia(long)}
+     * @throws java.io.UncheckedIOException se a operação não puder ser registrada
+     */
+    long registra(Operacao operacao, Movimentacao movimentacao, Conta destino);
+
+    /**
+     * Aguarda até que um registro (e todos os anteriores a ele) esteja
+     * armazenado de forma durável.
+     *
+     * @param sequencia número de sequência retornado por {@link #registra(Operacao, Movimentacao, Conta)}
+     * @throws java.io.UncheckedIOException se o registro não puder ser armazenado
+     */
+    void aguardaPersistencia(long sequencia);
+}
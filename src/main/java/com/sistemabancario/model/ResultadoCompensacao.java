@@ -0,0 +1,38 @@
+package com.sistemabancario.model;
+
+/**
+ * Resultado de uma execução da {@link CompensacaoCheques compensação de cheques}.
+ *
+ * @author Manoel Campos da Silva Filho
+ */
+public class ResultadoCompensacao {
+    private int confirmados;
+    private int devolvidos;
+
+    /**
+     * Valor total dos cheques confirmados, em {@link Centavos centavos}.
+     */
+    private long valorConfirmado;
+
+    void soma(final int confirmados, final int devolvidos, final long valorConfirmado) {
+        this.confirmados += confirmados;
+        this.devolvidos += devolvidos;
+        this.valorConfirmado = Centavos.soma(this.valorConfirmado, valorConfirmado);
+    }
+
+    public int getConfirmados() {
+        return confirmados;
+    }
+
+    public int getDevolvidos() {
+        return devolvidos;
+    }
+
+    public double getValorConfirmado() {
+        return Centavos.paraReais(valorConfirmado);
+    }
+
+    public long getValorConfirmadoCentavos() {
+        return valorConfirmado;
+    }
+}
@@ -0,0 +1,137 @@
+package com.sistemabancario.model;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+/**
+ * Funções para armazenar senhas de forma segura, usando o algoritmo
+ * <a href="https://en.wikipedia.org/wiki/PBKDF2">PBKDF2</a> (com HMAC-SHA256)
+ * e um sal aleatório para cada senha.
+ *
+ * <p>
+ * O PBKDF2 é propositalmente lento: o hash é calculado aplicando o HMAC
+ * milhares de vezes (o fator de trabalho), dificultando que senhas vazadas
+ * sejam descobertas por força bruta. Por isso, o hash só deve ser conferido
+ * no login. As requisições seguintes devem usar uma {@link Sessoes sessão}.
+ * </p>
+ *
+ * <p>
+ * O hash gerado inclui o algoritmo, o fator de trabalho e o sal, no formato
+ * {@code pbkdf2-sha256:iteracoes:sal:hash} (com sal e hash em Base64).
+ * Assim, o fator de trabalho pode ser aumentado sem invalidar os hashes já gravados.
+ * </p>
+ *
+ * @author Manoel Campos da Silva Filho
+ */
+public final class Senhas {
+    /**
+     * Fator de trabalho (total de iterações do PBKDF2) usado para gerar novos hashes,
+     * conforme recomendado pela OWASP para o PBKDF2 com HMAC-SHA256.
+     */
+    public static final int ITERACOES = 600_000;
+
+    private static final String ALGORITMO = "PBKDF2WithHmacSHA256";
+    private static final String PREFIXO = "pbkdf2-sha256";
+    private static final char SEPARADOR = ':';
+    private static final int BYTES_SAL = 16;
+    private static final int BITS_HASH = 256;
+
+    private static final SecureRandom ALEATORIO = new SecureRandom();
+
+    /**
+     * Construtor privado para evitar que a classe seja instanciada,
+     * uma vez que ela não possui atributos e todos os métodos são estáticos.
+     */
+    private Senhas(){/**/}
+
+    /**
+     * Gera o hash de uma senha com um sal aleatório e o fator de trabalho padrão.
+     * @param senha senha a ser protegida
+     * @return o hash da senha no formato {@code pbkdf2-sha256:iteracoes:sal:hash}
+     */
+    public static String gera(final String senha) {
+        return gera(senha, ITERACOES);
+    }
+
+    /**
+     * Gera o hash de uma senha com um sal aleatório.
+     * @param senha senha a ser protegida
+     * @param iteracoes fator de trabalho (total de iterações do PBKDF2)
+     * @return o hash da senha no formato {@code pbkdf2-sha256:iteracoes:sal:hash}
+     * @throws IllegalArgumentException se a senha for vazia ou o fator de trabalho não for positivo
+     */
+    public static String gera(final String senha, final int iteracoes) {
+        if (senha.isEmpty()) {
+            throw new IllegalArgumentException("Senha não pode ser vazia.");
+        }
+        if (iteracoes <= 0) {
+            throw new IllegalArgumentException("Total de iterações deve ser maior que zero.");
+        }
+
+        final byte[] sal = new byte[BYTES_SAL];
+        ALEATORIO.nextBytes(sal);
+        final Base64.Encoder base64 = Base64.getEncoder().withoutPadding();
+        return PREFIXO + SEPARADOR + iteracoes + SEPARADOR +
+               base64.encodeToString(sal) + SEPARADOR +
+               base64.encodeToString(pbkdf2(senha, sal, iteracoes));
+    }
+
+    /**
+     * Verifica se uma senha corresponde a um hash gerado por {@link #gera(String)}.
+     * A comparação leva o mesmo tempo independente de quantos bytes coincidem,
+     * para não dar pistas sobre o hash.
+     * @param senha senha informada
+     * @param hash hash armazenado
+     * @return true se a senha corresponder ao hash, false caso contrário
+     *         (inclusive se o hash não estiver num formato válido)
+     */
+    public static boolean confere(final String senha, final String hash) {
+        if (senha == null || senha.isEmpty() || !isHashValido(hash)) {
+            return false;
+        }
+
+        final String[] partes = hash.split(String.valueOf(SEPARADOR));
+        final Base64.Decoder base64 = Base64.getDecoder();
+        final byte[] esperado = base64.decode(partes[3]);
+        final byte[] calculado = pbkdf2(senha, base64.decode(partes[2]), Integer.parseInt(partes[1]));
+        return MessageDigest.isEqual(esperado, calculado);
+    }
+
+    /**
+     * Verifica se uma String está no formato de um hash gerado por {@link #gera(String)}.
+     * @param hash String a ser verificada
+     * @return true se estiver no formato {@code pbkdf2-sha256:iteracoes:sal:hash}, false caso contrário
+     */
+    public static boolean isHashValido(final String hash) {
+        if (hash == null) {
+            return false;
+        }
+
+        final String[] partes = hash.split(String.valueOf(SEPARADOR), -1);
+        if (partes.length != 4 || !PREFIXO.equals(partes[0]) || !partes[1].matches("[1-9]\\d{0,8}")) {
+            return false;
+        }
+
+        try {
+            final Base64.Decoder base64 = Base64.getDecoder();
+            return base64.decode(partes[2]).length > 0 && base64.decode(partes[3]).length == BITS_HASH / 8;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private static byte[] pbkdf2(final String senha, final byte[] sal, final int iteracoes) {
+        final PBEKeySpec especificacao = new PBEKeySpec(senha.toCharArray(), sal, iteracoes, BITS_HASH);
+        try {
+            return SecretKeyFactory.getInstance(ALGORITMO).generateSecret(especificacao).getEncoded();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Algoritmo " + ALGORITMO + " não disponível", e);
+        } finally {
+            especificacao.clearPassword();
+        }
+    }
+}
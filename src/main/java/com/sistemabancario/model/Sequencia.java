@@ -0,0 +1,45 @@
+package com.sistemabancario.model;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * Número de sequência da última posição de um {@link PipelineComandos} processada por um estágio.
+ * É alterado somente pela thread do estágio e lido pelas threads que dependem dele.
+ *
+ * <p>
+ * O valor é cercado por campos não utilizados (que a JVM armazena junto a ele, por serem
+ * todos do mesmo tipo), assim ele fica sozinho na sua linha de cache e a alteração
+ * da sequência de um estágio não invalida a cache das threads que leem a sequência
+ * de outro estágio (falso compartilhamento).
+ * </p>
+ *
+ * @author Manoel Campos da Silva Filho
+ */
+final class Sequencia {
+    private static final VarHandle VALOR;
+
+    static {
+        try {
+            VALOR = MethodHandles.lookup().findVarHandle(Sequencia.class, "valor", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private long p1, p2, p3, p4, p5, p6, p7;
+    private volatile long valor = -1;
+    private long p9, p10, p11, p12, p13, p14, p15;
+
+    long get() {
+        return (long) VALOR.getAcquire(this);
+    }
+
+    /**
+     * Define a sequência, publicando para as demais threads
+     * todas as alterações feitas nas posições até ela.
+     */
+    void set(final long valor) {
+        VALOR.setRelease(this, valor);
+    }
+}
@@ -0,0 +1,255 @@
+package com.sistemabancario.model;
+
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.util.Base64;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sessões de clientes já autenticados, identificadas por um token aleatório.
+ *
+ * <p>
+ * Conferir a senha de um cliente é propositalmente lento
+ * (veja {@link Senhas}). Assim, a senha é conferida somente ao
+ * {@link #abre(Cliente, String, String) abrir a sessão}, e as requisições
+ * seguintes apenas {@link #getCliente(String) pesquisam o token},
+ * sem calcular nenhum hash.
+ * </p>
+ *
+ * <p>
+ * Cada sessão expira após um tempo fixo desde que foi aberta, e há um limite
+ * de sessões abertas ao mesmo tempo. Como todas as sessões têm a mesma duração,
+ * elas expiram na ordem em que foram abertas. Desta forma, uma fila
+ * com as sessões em ordem de abertura permite remover tanto as expiradas
+ * quanto as mais antigas (quando o limite é atingido) sem percorrer todas elas.
+ * </p>
+ *
+ * @author Manoel Campos da Silva Filho
+ */
+public class Sessoes {
+    private static final int BYTES_TOKEN = 16;
+
+    /**
+     * Sessão aberta para um cliente.
+     */
+    private static final class Sessao {
+        private final String token;
+        private final Cliente cliente;
+        private final long expiracao;
+
+        Sessao(final String token, final Cliente cliente, final long expiracao) {
+            this.token = token;
+            this.cliente = cliente;
+            this.expiracao = expiracao;
+        }
+    }
+
+    private final ConcurrentHashMap<String, Sessao> sessoes;
+
+    /**
+     * Sessões na ordem em que foram abertas (e, portanto, em que vão expirar).
+     * Pode conter sessões já encerradas, que são ignoradas ao serem removidas.
+     */
+    private final Queue<Sessao> ordemAbertura = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Total de sessões abertas. Difere do tamanho de {@link #ordemAbertura},
+     * que pode conter sessões já encerradas.
+     */
+    private final AtomicInteger total = new AtomicInteger();
+
+    private final SecureRandom aleatorio = new SecureRandom();
+    private final int capacidade;
+    private final long duracaoMillis;
+    private final Clock relogio;
+
+    /**
+     * Limite das tentativas de login feitas por {@link #abre(ColecaoClientes, String, String)}
+     * (ou null para não limitar).
+     */
+    private volatile LimiteTentativas limite;
+
+    /**
+     * Instancia uma coleção de sessões vazia.
+     * @param capacidade total máximo de sessões abertas ao mesmo tempo.
+     *                   Ao abrir uma sessão quando o limite for atingido,
+     *                   a sessão mais antiga é encerrada.
+     * @param duracao tempo que cada sessão permanece aberta
+     * @param unidade unidade de tempo da duração
+     * @throws IllegalArgumentException se a capacidade ou a duração não forem positivas
+     */
+    public Sessoes(final int capacidade, final long duracao, final TimeUnit unidade) {
+        this(capacidade, duracao, unidade, Clock.systemUTC());
+    }
+
+    /**
+     * Instancia uma coleção de sessões vazia.
+     * @param capacidade total máximo de sessões abertas ao mesmo tempo.
+     *                   Ao abrir uma sessão quando o limite for atingido,
+     *                   a sessão mais antiga é encerrada.
+     * @param duracao tempo que cada sessão permanece aberta
+     * @param unidade unidade de tempo da duração
+     * @param relogio relógio usado para verificar se as sessões expiraram
+     * @throws IllegalArgumentException se a capacidade ou a duração não forem positivas
+     */
+    public Sessoes(final int capacidade, final long duracao, final TimeUnit unidade, final Clock relogio) {
+        if (capacidade <= 0) {
+            throw new IllegalArgumentException("Capacidade deve ser maior que zero.");
+        }
+        if (duracao <= 0) {
+            throw new IllegalArgumentException("Duração da sessão deve ser maior que zero.");
+        }
+
+        this.capacidade = capacidade;
+        this.duracaoMillis = unidade.toMillis(duracao);
+        this.relogio = Objects.requireNonNull(relogio, "Relógio não pode ser nulo.");
+        this.sessoes = new ConcurrentHashMap<>(capacidade);
+    }
+
+    /**
+     * Pesquisa um cliente pelo CPF, o autentica e abre uma sessão para ele.
+     * Se houver um {@link #setLimite(LimiteTentativas) limite de tentativas},
+     * uma tentativa que exceda o limite é rejeitada antes de a senha ser conferida,
+     * e as tentativas que falharem são {@link LimiteTentativas#registraFalha() registradas} no limite.
+     * @param clientes clientes onde o cliente será pesquisado
+     * @param cpf CPF informado
+     * @param senha senha informada
+     * @return o token da sessão aberta ou null se as informações de login
+     *         estiverem incorretas ou a tentativa exceder o limite
+     */
+    public String abre(final ColecaoClientes clientes, final String cpf, final String senha) {
+        return abre(clientes, cpf == null ? Chaves.INVALIDA : Chaves.cpf(cpf), senha);
+    }
+
+    /**
+     * Pesquisa um cliente pela chave numérica do CPF, o autentica e abre uma sessão para ele,
+     * como em {@link #abre(ColecaoClientes, String, String)}, sem converter o CPF para texto
+     * (como os CPFs recebidos pelo protocolo binário).
+     * @param clientes clientes onde o cliente será pesquisado
+     * @param cpf chave do CPF informado (obtida por {@link Chaves#cpf(CharSequence)})
+     * @param senha senha informada
+     * @return o token da sessão aberta ou null se as informações de login
+     *         estiverem incorretas ou a tentativa exceder o limite
+     */
+    public String abre(final ColecaoClientes clientes, final long cpf, final String senha) {
+        final LimiteTentativas limite = this.limite;
+        final Cliente cliente = clientes.getCliente(cpf);
+        if (limite != null && !limite.permite(cpf, cliente != null)) {
+            return null;
+        }
+
+        final String token = abre(cliente, cliente == null ? null : cliente.getCpf(), senha);
+        if (token == null && limite != null) {
+            limite.registraFalha();
+        }
+        return token;
+    }
+
+    /**
+     * Autentica um cliente e abre uma sessão para ele.
+     * @param cliente cliente que está se autenticando
+     * @param cpf CPF informado
+     * @param senha senha informada
+     * @return o token da sessão aberta ou null se as informações de login
+     *         estiverem incorretas
+     * @see Cliente#autentica(Cliente, String, String)
+     */
+    public String abre(final Cliente cliente, final String cpf, final String senha) {
+        if (!Cliente.autentica(cliente, cpf, senha)) {
+            return null;
+        }
+
+        final byte[] bytes = new byte[BYTES_TOKEN];
+        aleatorio.nextBytes(bytes);
+        final String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        final long agora = relogio.millis();
+        final Sessao sessao = new Sessao(token, cliente, agora + duracaoMillis);
+        sessoes.put(token, sessao);
+        ordemAbertura.add(sessao);
+        total.incrementAndGet();
+        removeExcedentes(agora);
+        return token;
+    }
+
+    /**
+     * Obtém o cliente de uma sessão aberta, sem conferir a sua senha novamente.
+     * @param token token retornado ao {@link #abre(Cliente, String, String) abrir a sessão}
+     * @return o cliente da sessão ou null se a sessão não existir,
+     *         tiver expirado ou tiver sido encerrada
+     */
+    public Cliente getCliente(final String token) {
+        final Sessao sessao = token == null ? null : sessoes.get(token);
+        if (sessao == null) {
+            return null;
+        }
+
+        if (sessao.expiracao <= relogio.millis()) {
+            remove(sessao);
+            return null;
+        }
+
+        return sessao.cliente;
+    }
+
+    /**
+     * Encerra uma sessão.
+     * @param token token da sessão
+     * @return true se a sessão estava aberta, false caso contrário
+     */
+    public boolean encerra(final String token) {
+        final Sessao sessao = token == null ? null : sessoes.get(token);
+        return sessao != null && remove(sessao);
+    }
+
+    public LimiteTentativas getLimite() {
+        return limite;
+    }
+
+    /**
+     * Define o limite das tentativas de login feitas por
+     * {@link #abre(ColecaoClientes, String, String)}.
+     * @param limite limite das tentativas ou null para não limitar
+     */
+    public void setLimite(final LimiteTentativas limite) {
+        this.limite = limite;
+    }
+
+    /**
+     * Retorna o total de sessões abertas (incluindo as que já expiraram,
+     * mas ainda não foram removidas).
+     * @return
+     */
+    public int getTotal() {
+        return total.get();
+    }
+
+    /**
+     * Remove as sessões expiradas e, se o limite de sessões for excedido,
+     * as mais antigas.
+     */
+    private void removeExcedentes(final long agora) {
+        Sessao maisAntiga;
+        while ((maisAntiga = ordemAbertura.peek()) != null &&
+               (total.get() > capacidade || maisAntiga.expiracao <= agora ||
+                !sessoes.containsKey(maisAntiga.token)))
+        {
+            if (ordemAbertura.remove(maisAntiga)) {
+                remove(maisAntiga);
+            }
+        }
+    }
+
+    private boolean remove(final Sessao sessao) {
+        if (sessoes.remove(sessao.token, sessao)) {
+            total.decrementAndGet();
+            return true;
+        }
+
+        return false;
+    }
+}
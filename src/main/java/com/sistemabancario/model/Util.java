@@ -11,6 +11,12 @@ public final class Util {
      */
     private Util(){/**/}
 
+    /**
+     * Representação de cada algarismo como String, para que os dígitos
+     * verificadores não precisem ser convertidos a cada cálculo.
+     */
+    private static final String[] ALGARISMOS = {"0", "1", "2", "3", "4", "5", "6", "7", "8", "9"};
+
     /**
      * Calcula um dígito verificador utilizando o algoritmo <a href="https://pt.wikipedia.org/wiki/Dígito_verificador#Módulo_11">modulo 11</a>.
      * @param numero número para calcular o dígito verificador (em formato como, por exemplo, dddd-d)
@@ -31,17 +37,39 @@ public final class Util {
      * @return o dígito verificador calculado
      */
     public static String calculaDigitoModulo11(final String numero, final int totalAlgarismos) {
-        //Copia todos os algarismos até o total indicado
-        final char[] vetor = numero.substring(0, totalAlgarismos).toCharArray();
+        return ALGARISMOS[digitoModulo11(numero, totalAlgarismos)];
+    }
+
+    /**
+     * Calcula um dígito verificador utilizando o algoritmo <a href="https://pt.wikipedia.org/wiki/Dígito_verificador#Módulo_11">modulo 11</a>,
+     * percorrendo os algarismos diretamente, sem criar nenhum objeto.
+     * @param numero número para calcular o dígito verificador (em formato como, por exemplo, dddd-d)
+     * @param totalAlgarismos número de algarismos a serem usados para calcular o dígito verificador
+     * @return o dígito verificador calculado (entre 0 e 9)
+     */
+    public static int digitoModulo11(final CharSequence numero, final int totalAlgarismos) {
+        if (totalAlgarismos > numero.length()) {
+            throw new StringIndexOutOfBoundsException(totalAlgarismos);
+        }
 
         int soma = 0;
-        for (int i = 0; i < vetor.length; i++) {
-            //Uma forma simples de converter int para char
-            final int algarismo = vetor[i] - 48;
-            soma += (vetor.length + 1 - i) * algarismo;
+        for (int i = 0; i < totalAlgarismos; i++) {
+            //Uma forma simples de converter char para int
+            final int algarismo = numero.charAt(i) - '0';
+            soma += (totalAlgarismos + 1 - i) * algarismo;
         }
 
+        return digitoModulo11(soma);
+    }
+
+    /**
+     * Calcula um dígito verificador modulo 11 a partir da soma dos algarismos
+     * multiplicados pelos seus pesos.
+     * @param soma soma ponderada dos algarismos
+     * @return o dígito verificador (entre 0 e 9)
+     */
+    static int digitoModulo11(final int soma) {
         final int dig = 11 - (soma % 11);
-        return dig > 9 ? "0" : Integer.toString(dig);
+        return dig > 9 ? 0 : dig;
     }
 }
@@ -0,0 +1,676 @@
+package com.sistemabancario.persistencia;
+
+import com.sistemabancario.model.Centavos;
+import com.sistemabancario.model.Chaves;
+import com.sistemabancario.model.ColecaoClientes;
+import com.sistemabancario.model.ColecaoContas;
+import com.sistemabancario.model.Conta;
+import com.sistemabancario.model.Movimentacao;
+import com.sistemabancario.model.Operacao;
+import com.sistemabancario.model.RegistroOperacoes;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Diário (write-ahead log) que armazena em disco, de forma binária, as {@link Operacao operações}
+ * realizadas nas contas de uma {@link ColecaoContas}, permitindo refazê-las quando o sistema
+ * for reiniciado.
+ *
+ * <p>
+ * Cada operação é gravada como um registro de tamanho fixo no final de um arquivo (segmento)
+ * e somente é concluída depois que o registro estiver armazenado de forma durável
+ * (com {@link FileChannel#force(boolean)}). Para não precisar forçar a gravação em disco
+ * a cada operação, é utilizada a técnica de <i>group commit</i>: enquanto uma thread grava
+ * um lote de registros, as demais continuam adicionando registros num segundo buffer,
+ * que será gravado por completo no próximo lote. Assim, o custo de uma gravação
+ * em disco é dividido por todas as operações de um lote.
+ * </p>
+ *
+ * <p>
+ * Cada registro possui um código de verificação (CRC32). Se o sistema for interrompido
+ * durante uma gravação, o registro incompleto no final do último segmento é descartado
+ * ao reabrir o diário. Como as operações somente são concluídas depois de gravadas,
+ * nenhuma operação concluída é perdida.
+ * </p>
+ *
+ * <p>
+ * Para que não seja preciso refazer todas as operações desde a abertura das contas,
+ * pode-se {@link #criaInstantaneo(ColecaoContas, ColecaoClientes) criar um instantâneo}
+ * do estado de todas as contas e clientes. Ao criá-lo, o diário passa a gravar
+ * os registros num novo segmento; depois que o instantâneo estiver gravado,
+ * os segmentos anteriores são excluídos (compactação do diário). Ao reabrir
+ * o diário, o instantâneo mais recente é carregado e somente as operações
+ * registradas depois dele são refeitas.
+ * </p>
+ *
+ * <p>
+ * Os saldos e limites definidos diretamente (por {@link Conta#setSaldo(double)}
+ * e {@link Conta#setLimite(double)}) não são operações e, portanto, não são registrados,
+ * sendo armazenados somente nos instantâneos. Enquanto não houver um instantâneo,
+ * as contas passadas para {@link #abre(Path, ColecaoContas)} devem estar no mesmo
+ * estado em que estavam quando o diário foi aberto pela primeira vez.
+ * </p>
+ *
+ * @author Manoel Campos da Silva Filho
+ */
+public class DiarioOperacoes implements RegistroOperacoes, Closeable {
+    /**
+     * Número que identifica o início de um segmento do diário ("DIAR").
+     */
+    static final int MAGICO = 0x44494152;
+    static final int VERSAO = 1;
+    static final int TAMANHO_CABECALHO = 8;
+
+    /**
+     * Tamanho de um registro: sequência (8 bytes), operação (1), tipo da movimentação (1),
+     * confirmação (1), reservado (1), número da conta (4), número da conta de destino (4),
+     * valor em centavos (8) e CRC32 dos bytes anteriores (4).
+     */
+    static final int TAMANHO_REGISTRO = 32;
+    private static final int TAMANHO_DADOS = TAMANHO_REGISTRO - 4;
+
+    /**
+     * Valor gravado no lugar do número da conta de destino
+     * em operações que não são transferências.
+     */
+    private static final int SEM_CONTA = -1;
+
+    private static final int CAPACIDADE_INICIAL = TAMANHO_REGISTRO * 2048;
+    private static final Operacao[] OPERACOES = Operacao.values();
+    private static final String PREFIXO = "diario-", EXTENSAO = ".log";
+
+    private final Path diretorio;
+
+    /**
+     * Objeto usado para bloquear o acesso aos buffers e demais atributos
+     * alterados pelas threads que registram operações.
+     */
+    private final Object trava = new Object();
+
+    /**
+     * Objeto usado para impedir que dois instantâneos sejam criados ao mesmo tempo.
+     */
+    private final Object travaInstantaneo = new Object();
+    private final CRC32 crc = new CRC32();
+    private FileChannel canal;
+
+    /**
+     * Buffer onde são adicionados os registros que ainda não começaram a ser gravados.
+     */
+    private ByteBuffer pendente;
+
+    /**
+     * Buffer que será usado como {@link #pendente} quando a gravação de um lote
+     * começar (ou null enquanto ele estiver sendo gravado).
+     */
+    private ByteBuffer livre;
+
+    private long proximaSequencia;
+
+    /**
+     * Sequência do último registro armazenado de forma durável.
+     */
+    private long sequenciaPersistida;
+
+    /**
+     * Indica se alguma thread está gravando um lote de registros.
+     */
+    private boolean gravando;
+
+    /**
+     * Erro que impede a gravação de novos registros
+     * (ou null enquanto o diário estiver funcionando).
+     */
+    private IOException falha;
+
+    private DiarioOperacoes(final Path diretorio, final long proximaSequencia) throws IOException {
+        this.diretorio = diretorio;
+        this.proximaSequencia = proximaSequencia;
+        this.sequenciaPersistida = proximaSequencia - 1;
+        this.pendente = ByteBuffer.allocateDirect(CAPACIDADE_INICIAL);
+        this.livre = ByteBuffer.allocateDirect(CAPACIDADE_INICIAL);
+        this.canal = criaSegmento(diretorio, proximaSequencia);
+    }
+
+    /**
+     * Abre o diário armazenado num diretório, refazendo nas contas todas as operações
+     * registradas nele. Em seguida, define o diário como o {@link RegistroOperacoes}
+     * de todas as contas da coleção, para que as próximas operações sejam registradas.
+     *
+     * @param diretorio diretório onde os segmentos do diário são armazenados
+     *                  (criado se não existir)
+     * @param contas contas nas quais as operações serão refeitas e registradas
+     * @return o diário aberto
+     * @throws IOException se o diário não puder ser lido ou estiver corrompido
+     */
+    public static DiarioOperacoes abre(final Path diretorio, final ColecaoContas contas) throws IOException {
+        return abre(diretorio, contas, null);
+    }
+
+    /**
+     * Abre o diário armazenado num diretório, carregando o instantâneo mais recente
+     * (se houver) e refazendo nas contas as operações registradas depois dele.
+     * Em seguida, define o diário como o {@link RegistroOperacoes}
+     * de todas as contas da coleção, para que as próximas operações sejam registradas.
+     *
+     * @param diretorio diretório onde os segmentos do diário e os instantâneos são armazenados
+     *                  (criado se não existir)
+     * @param contas contas nas quais o instantâneo será carregado e as operações refeitas
+     * @param clientes coleção onde os clientes do instantâneo serão carregados
+     *                 (ou null para ignorá-los)
+     * @return o diário aberto
+     * @throws IOException se o diário ou o instantâneo não puderem ser lidos ou estiverem corrompidos
+     */
+    public static DiarioOperacoes abre(
+        final Path diretorio, final ColecaoContas contas, final ColecaoClientes clientes) throws IOException
+    {
+        Files.createDirectories(diretorio);
+        contas.setRegistro(null);
+
+        final long sequenciaInicial = Instantaneo.carrega(diretorio, contas, clientes);
+        final List<Path> segmentos = segmentos(diretorio);
+        segmentos.removeIf(segmento -> primeiraSequencia(segmento) < sequenciaInicial);
+        long ultimaSequencia = Math.max(sequenciaInicial - 1, 0);
+        for (int i = 0; i < segmentos.size(); i++) {
+            ultimaSequencia = recupera(segmentos.get(i), contas, ultimaSequencia, i == segmentos.size() - 1);
+        }
+
+        /* As próximas operações devem ter sequências maiores que as de todas as contas,
+           caso contrário, seriam ignoradas ao refazer as operações a partir do instantâneo. */
+        for (final Conta conta : contas.getContas()) {
+            ultimaSequencia = Math.max(ultimaSequencia, conta.getUltimaSequenciaRegistrada());
+        }
+
+        final DiarioOperacoes diario = new DiarioOperacoes(diretorio, ultimaSequencia + 1);
+        contas.setRegistro(diario);
+        return diario;
+    }
+
+    @Override
+    public long registra(final Operacao operacao, final Movimentacao movimentacao, final Conta destino) {
+        final int conta = codificaNumero(movimentacao.getConta());
+        final int numeroDestino = destino == null ? SEM_CONTA : codificaNumero(destino);
+        synchronized (trava) {
+            if (falha != null) {
+                throw new UncheckedIOException("Diário indisponível", falha);
+            }
+            if (pendente.remaining() < TAMANHO_REGISTRO) {
+                pendente = aumentaCapacidade(pendente);
+            }
+
+            final long sequencia = proximaSequencia++;
+            final int inicio = pendente.position();
+            pendente.putLong(sequencia);
+            pendente.put((byte) operacao.ordinal());
+            pendente.put((byte) movimentacao.getTipo());
+            pendente.put((byte) (movimentacao.isConfirmada() ? 1 : 0));
+            pendente.put((byte) 0);
+            pendente.putInt(conta);
+            pendente.putInt(numeroDestino);
+            pendente.putLong(movimentacao.getValorCentavos());
+            pendente.putInt(calculaCrc(pendente, inicio));
+            return sequencia;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>
+     * Se nenhuma thread estiver gravando um lote, a thread atual grava todos os registros
+     * pendentes (inclusive os de outras threads). Caso contrário, ela aguarda
+     * o lote atual terminar e, se o seu registro ainda não tiver sido gravado,
+     * grava o próximo lote.
+     * </p>
+     */
+    @Override
+    public void aguardaPersistencia(final long sequencia) {
+        final ByteBuffer lote;
+        final FileChannel canal;
+        final long ultimaSequenciaLote;
+        synchronized (trava) {
+            while (sequenciaPersistida < sequencia && gravando) {
+                aguarda();
+            }
+            if (sequenciaPersistida >= sequencia) {
+                return;
+            }
+            if (falha != null) {
+                throw new UncheckedIOException("Diário indisponível", falha);
+            }
+
+            gravando = true;
+            canal = this.canal;
+            lote = pendente;
+            pendente = livre;
+            livre = null;
+            ultimaSequenciaLote = proximaSequencia - 1;
+        }
+
+        IOException erro = null;
+        try {
+            lote.flip();
+            while (lote.hasRemaining()) {
+                canal.write(lote);
+            }
+            canal.force(false);
+        } catch (IOException e) {
+            erro = e;
+        } finally {
+            synchronized (trava) {
+                lote.clear();
+                livre = lote;
+                gravando = false;
+                if (erro == null) {
+                    sequenciaPersistida = ultimaSequenciaLote;
+                } else if (falha == null) {
+                    falha = erro;
+                }
+                trava.notifyAll();
+            }
+        }
+
+        if (erro != null) {
+            throw new UncheckedIOException("Erro ao gravar o diário", erro);
+        }
+    }
+
+    /**
+     * Grava os registros pendentes e fecha o diário.
+     * Depois disso, nenhuma operação pode ser registrada.
+     * @throws IOException se o diário não puder ser fechado
+     */
+    @Override
+    public void close() throws IOException {
+        final long ultimaSequencia;
+        synchronized (trava) {
+            ultimaSequencia = proximaSequencia - 1;
+        }
+        try {
+            aguardaPersistencia(ultimaSequencia);
+        } finally {
+            synchronized (trava) {
+                while (gravando) {
+                    aguarda();
+                }
+                if (falha == null) {
+                    falha = new IOException("Diário fechado");
+                }
+                canal.close();
+            }
+        }
+    }
+
+    /**
+     * Cria um instantâneo de todas as contas e clientes sem interromper as operações
+     * e exclui os segmentos do diário e os instantâneos que deixaram de ser necessários.
+     *
+     * @param contas contas a serem gravadas (as mesmas cujas operações são registradas neste diário)
+     * @param clientes clientes a serem gravados (ou null para não gravar clientes)
+     * @return o arquivo do instantâneo criado
+     * @throws IOException se o instantâneo não puder ser gravado
+     */
+    public Path criaInstantaneo(final ColecaoContas contas, final ColecaoClientes clientes) throws IOException {
+        synchronized (travaInstantaneo) {
+            final long sequenciaInicial = iniciaNovoSegmento();
+            final Path instantaneo = Instantaneo.grava(diretorio, sequenciaInicial, contas, clientes, this);
+            for (final Path segmento : segmentos(diretorio)) {
+                if (primeiraSequencia(segmento) < sequenciaInicial) {
+                    Files.deleteIfExists(segmento);
+                }
+            }
+            Instantaneo.excluiAnteriores(diretorio, instantaneo);
+            return instantaneo;
+        }
+    }
+
+    /**
+     * Agenda a criação periódica de instantâneos.
+     *
+     * @param executor executor onde os instantâneos serão criados
+     * @param periodo intervalo entre dois instantâneos
+     * @param unidade unidade de tempo do período
+     * @param contas contas a serem gravadas
+     * @param clientes clientes a serem gravados (ou null para não gravar clientes)
+     * @return o agendamento, que pode ser usado para cancelá-lo.
+     *         Se um instantâneo falhar, o agendamento é encerrado com o erro.
+     * @see #criaInstantaneo(ColecaoContas, ColecaoClientes)
+     */
+    public ScheduledFuture<?> agendaInstantaneos(
+        final ScheduledExecutorService executor, final long periodo, final TimeUnit unidade,
+        final ColecaoContas contas, final ColecaoClientes clientes)
+    {
+        return executor.scheduleWithFixedDelay(() -> {
+            try {
+                criaInstantaneo(contas, clientes);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Erro ao criar instantâneo", e);
+            }
+        }, periodo, periodo, unidade);
+    }
+
+    /**
+     * Grava os registros pendentes no segmento atual e passa a gravar
+     * os próximos registros num novo segmento.
+     *
+     * <p>
+     * Assim como em {@link #aguardaPersistencia(long)}, a {@link #trava} somente é mantida
+     * enquanto os buffers são trocados, para que as demais threads continuem registrando
+     * operações enquanto o segmento atual é gravado em disco e o novo é criado.
+     * Os registros adicionados neste intervalo já pertencem ao novo segmento
+     * e são gravados nele no próximo lote.
+     * </p>
+     *
+     * @return a sequência do primeiro registro do novo segmento
+     */
+    private long iniciaNovoSegmento() throws IOException {
+        final ByteBuffer lote;
+        final FileChannel anterior;
+        final long sequenciaInicial;
+        synchronized (trava) {
+            while (gravando) {
+                aguarda();
+            }
+            if (falha != null) {
+                throw new IOException("Diário indisponível", falha);
+            }
+
+            gravando = true;
+            anterior = canal;
+            lote = pendente;
+            pendente = livre;
+            livre = null;
+            sequenciaInicial = proximaSequencia;
+        }
+
+        FileChannel novo = null;
+        IOException erro = null;
+        try {
+            lote.flip();
+            while (lote.hasRemaining()) {
+                anterior.write(lote);
+            }
+            anterior.force(false);
+            anterior.close();
+            novo = criaSegmento(diretorio, sequenciaInicial);
+            Instantaneo.sincronizaDiretorio(diretorio);
+        } catch (IOException e) {
+            erro = e;
+        } finally {
+            synchronized (trava) {
+                lote.clear();
+                livre = lote;
+                gravando = false;
+                if (erro == null) {
+                    canal = novo;
+                    sequenciaPersistida = sequenciaInicial - 1;
+                } else if (falha == null) {
+                    falha = erro;
+                }
+                trava.notifyAll();
+            }
+        }
+
+        if (erro != null) {
+            throw erro;
+        }
+        return sequenciaInicial;
+    }
+
+    public Path getDiretorio() {
+        return diretorio;
+    }
+
+    private void aguarda() {
+        try {
+            trava.wait();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new UncheckedIOException(new InterruptedIOException("Interrompido aguardando a gravação do diário"));
+        }
+    }
+
+    private int calculaCrc(final ByteBuffer buffer, final int inicio) {
+        final int posicao = buffer.position(), limite = buffer.limit();
+        buffer.limit(inicio + TAMANHO_DADOS);
+        buffer.position(inicio);
+        crc.reset();
+        crc.update(buffer);
+        buffer.limit(limite);
+        buffer.position(posicao);
+        return (int) crc.getValue();
+    }
+
+    private static ByteBuffer aumentaCapacidade(final ByteBuffer buffer) {
+        final ByteBuffer maior = ByteBuffer.allocateDirect(buffer.capacity() * 2);
+        buffer.flip();
+        maior.put(buffer);
+        return maior;
+    }
+
+    private static FileChannel criaSegmento(final Path diretorio, final long primeiraSequencia) throws IOException {
+        final Path arquivo = diretorio.resolve(String.format("%s%020d%s", PREFIXO, primeiraSequencia, EXTENSAO));
+        final FileChannel canal = FileChannel.open(
+                arquivo, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        final ByteBuffer cabecalho = ByteBuffer.allocate(TAMANHO_CABECALHO);
+        cabecalho.putInt(MAGICO).putInt(VERSAO).flip();
+        while (cabecalho.hasRemaining()) {
+            canal.write(cabecalho);
+        }
+        canal.force(true);
+        return canal;
+    }
+
+    private static long primeiraSequencia(final Path segmento) {
+        final String nome = segmento.getFileName().toString();
+        return Long.parseLong(nome.substring(PREFIXO.length(), nome.length() - EXTENSAO.length()));
+    }
+
+    /**
+     * Lista os segmentos de um diário, ordenados pela sequência do primeiro registro.
+     */
+    static List<Path> segmentos(final Path diretorio) throws IOException {
+        final List<Path> segmentos = new ArrayList<>();
+        try (DirectoryStream<Path> arquivos = Files.newDirectoryStream(diretorio, PREFIXO + "*" + EXTENSAO)) {
+            arquivos.forEach(segmentos::add);
+        }
+        Collections.sort(segmentos);
+        return segmentos;
+    }
+
+    /**
+     * Refaz as operações de um segmento nas contas.
+     *
+     * @param segmento arquivo do segmento
+     * @param contas contas onde as operações serão refeitas
+     * @param ultimaSequencia sequência do último registro refeito até agora
+     * @param ultimoSegmento indica se é o último segmento do diário, no qual
+     *                       um registro incompleto pode ser descartado
+     * @return a sequência do último registro refeito
+     */
+    private static long recupera(
+        final Path segmento, final ColecaoContas contas,
+        long ultimaSequencia, final boolean ultimoSegmento) throws IOException
+    {
+        try (FileChannel canal = FileChannel.open(segmento, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            final ByteBuffer buffer = ByteBuffer.allocateDirect(CAPACIDADE_INICIAL);
+            final CRC32 crc = new CRC32();
+            while (buffer.position() < TAMANHO_CABECALHO && canal.read(buffer) > 0) {
+                // lê até obter o cabeçalho completo
+            }
+            buffer.flip();
+            if (buffer.remaining() < TAMANHO_CABECALHO || buffer.getInt() != MAGICO || buffer.getInt() != VERSAO) {
+                return descarta(canal, segmento, 0, ultimoSegmento, ultimaSequencia);
+            }
+
+            long posicao = TAMANHO_CABECALHO;
+            while (true) {
+                while (buffer.remaining() >= TAMANHO_REGISTRO) {
+                    final int inicio = buffer.position(), limite = buffer.limit();
+                    buffer.limit(inicio + TAMANHO_DADOS);
+                    crc.reset();
+                    crc.update(buffer);
+                    buffer.limit(limite);
+                    final long sequencia = buffer.getLong(inicio);
+                    if (buffer.getInt(inicio + TAMANHO_DADOS) != (int) crc.getValue() || sequencia <= ultimaSequencia) {
+                        return descarta(canal, segmento, posicao, ultimoSegmento, ultimaSequencia);
+                    }
+
+                    try {
+                        refaz(buffer, inicio, sequencia, contas);
+                    } catch (RuntimeException e) {
+                        throw new IOException("Não foi possível refazer a operação do registro " + sequencia + " em " + segmento, e);
+                    }
+                    ultimaSequencia = sequencia;
+                    buffer.position(inicio + TAMANHO_REGISTRO);
+                    posicao += TAMANHO_REGISTRO;
+                }
+
+                buffer.compact();
+                if (canal.read(buffer) <= 0) {
+                    buffer.flip();
+                    break;
+                }
+                buffer.flip();
+            }
+
+            if (buffer.hasRemaining()) {
+                return descarta(canal, segmento, posicao, ultimoSegmento, ultimaSequencia);
+            }
+            return ultimaSequencia;
+        }
+    }
+
+    /**
+     * Descarta um registro incompleto ou inválido e todos os bytes seguintes,
+     * caso estejam no final do último segmento (onde uma gravação pode ter sido interrompida).
+     */
+    private static long descarta(
+        final FileChannel canal, final Path segmento, final long posicao,
+        final boolean ultimoSegmento, final long ultimaSequencia) throws IOException
+    {
+        if (!ultimoSegmento) {
+            throw new IOException("Diário corrompido: registro inválido em " + segmento + " na posição " + posicao);
+        }
+
+        canal.truncate(posicao);
+        canal.force(true);
+        return ultimaSequencia;
+    }
+
+    /**
+     * Refaz numa conta a operação armazenada num registro, caso ela ainda
+     * não esteja refletida na conta (por ter sido registrada depois
+     * que a conta foi gravada no instantâneo).
+     */
+    private static void refaz(final ByteBuffer buffer, final int inicio, final long sequencia, final ColecaoContas contas) {
+        final Operacao operacao = OPERACOES[buffer.get(inicio + 8)];
+        final char tipo = (char) buffer.get(inicio + 9);
+        final boolean confirmada = buffer.get(inicio + 10) != 0;
+        final Conta conta = conta(contas, buffer.getInt(inicio + 12));
+        final long centavos = buffer.getLong(inicio + 20);
+        final double valor = Centavos.paraReais(centavos);
+
+        if (operacao == Operacao.TRANSFERENCIA) {
+            refazTransferencia(conta, conta(contas, buffer.getInt(inicio + 16)), centavos, sequencia);
+            return;
+        }
+        if (sequencia <= conta.getUltimaSequenciaRegistrada()) {
+            return;
+        }
+
+        switch (operacao) {
+            case SAQUE:
+                conta.saque(valor);
+                break;
+            case DEPOSITO_DINHEIRO:
+                conta.depositoDinheiro(valor);
+                break;
+            case DEPOSITO_CHEQUE:
+                conta.depositoCheque(valor);
+                break;
+            case LANCAMENTO:
+                conta.restauraLancamento(tipo, centavos, confirmada);
+                break;
+            case CONFIRMACAO_CHEQUE:
+                conta.confirmaDepositoCheque(chequePendente(conta, centavos));
+                break;
+            case DEVOLUCAO_CHEQUE:
+                conta.devolveDepositoCheque(chequePendente(conta, centavos));
+                break;
+            default:
+                throw new IllegalStateException("Operação desconhecida: " + operacao);
+        }
+        conta.restaura(conta.getSaldoCentavos(), sequencia);
+    }
+
+    /**
+     * Refaz uma transferência. Como as contas são gravadas no instantâneo uma de cada vez,
+     * uma transferência pode estar refletida somente numa das contas. Neste caso,
+     * somente o débito ou o crédito é refeito.
+     * Assim como os lançamentos, as movimentações são refeitas sem validação:
+     * um débito refeito antes do crédito correspondente pode deixar o saldo negativo.
+     */
+    private static void refazTransferencia(final Conta origem, final Conta destino, final long centavos, final long sequencia) {
+        final boolean refazDebito = sequencia > origem.getUltimaSequenciaRegistrada();
+        final boolean refazCredito = sequencia > destino.getUltimaSequenciaRegistrada();
+        origem.restauraTransferencia(destino, centavos, refazDebito, refazCredito);
+        if (refazDebito) origem.restaura(origem.getSaldoCentavos(), sequencia);
+        if (refazCredito) destino.restaura(destino.getSaldoCentavos(), sequencia);
+    }
+
+    /**
+     * Obtém o depósito em cheque pendente mais antigo da conta que tenha um determinado valor.
+     * Depósitos pendentes com o mesmo valor são equivalentes para o saldo da conta.
+     */
+    private static Movimentacao chequePendente(final Conta conta, final long centavos) {
+        for (final Movimentacao movimentacao : conta.getMovimentacoes()) {
+            if (!movimentacao.isConfirmada() && !movimentacao.isDevolvida() &&
+                movimentacao.getTipo() == 'C' && movimentacao.getValorCentavos() == centavos)
+            {
+                return movimentacao;
+            }
+        }
+
+        throw new IllegalStateException("Depósito em cheque não encontrado na conta " + conta.getNumero());
+    }
+
+    private static Conta conta(final ColecaoContas contas, final int codigo) {
+        final Conta conta = contas.getConta(codigo);
+        if (conta == null) {
+            throw new IllegalStateException("Conta " + Chaves.formataConta(codigo) + " registrada no diário não foi encontrada");
+        }
+
+        return conta;
+    }
+
+    /**
+     * Obtém a chave numérica do número de uma conta (no formato 999999),
+     * usada para identificar a conta nos registros gravados.
+     * @see Chaves#conta(CharSequence)
+     */
+    static int codificaNumero(final Conta conta) {
+        final int chave = conta.getChaveNumero();
+        if (chave < 0) {
+            throw new IllegalStateException("Somente operações de contas com número podem ser registradas");
+        }
+
+        return chave;
+    }
+}
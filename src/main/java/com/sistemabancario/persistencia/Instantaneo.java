@@ -0,0 +1,346 @@
+package com.sistemabancario.persistencia;
+
+import com.sistemabancario.model.Centavos;
+import com.sistemabancario.model.Chaves;
+import com.sistemabancario.model.Cliente;
+import com.sistemabancario.model.ColecaoClientes;
+import com.sistemabancario.model.ColecaoContas;
+import com.sistemabancario.model.Conta;
+import com.sistemabancario.model.Movimentacao;
+import com.sistemabancario.model.RegistroOperacoes;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Grava e carrega instantâneos (snapshots) binários do estado de todas as contas e clientes,
+ * permitindo que o {@link DiarioOperacoes} refaça somente as operações registradas
+ * depois do início do instantâneo, em vez de todas as operações desde a abertura das contas.
+ *
+ * <p>
+ * O instantâneo é gravado sem interromper as operações: cada conta é bloqueada
+ * apenas enquanto seu estado é copiado, juntamente com a sequência do último registro
+ * de operação refletido nele ({@link Conta#getUltimaSequenciaRegistrada()}).
+ * Ao refazer as operações, somente aquelas com sequência maior que a da conta
+ * no instantâneo são aplicadas.
+ * </p>
+ *
+ * <p>
+ * O arquivo é gravado com outro nome e somente renomeado depois de estar completo
+ * e armazenado de forma durável. Ao final, é gravado um CRC32 de todo o conteúdo.
+ * Como uma conta pode ser copiada depois de uma operação ser registrada, mas antes
+ * de o registro ser armazenado em disco, o instantâneo somente é renomeado depois
+ * que todos os registros refletidos nele estiverem armazenados. Caso contrário,
+ * se o sistema fosse interrompido, o instantâneo conteria operações ausentes do diário.
+ * </p>
+ *
+ * @author Manoel Campos da Silva Filho
+ */
+final class Instantaneo {
+    /**
+     * Número que identifica o início de um instantâneo ("INST").
+     */
+    static final int MAGICO = 0x494E5354;
+    /**
+     * Versão do formato do instantâneo. A partir da versão 2, é gravado
+     * o hash da senha de cada cliente (na versão 1, era gravada a própria senha).
+     */
+    static final int VERSAO = 2;
+    private static final int VERSAO_SENHA_ABERTA = 1;
+
+    private static final String PREFIXO = "instantaneo-", EXTENSAO = ".bin", TEMPORARIO = ".tmp";
+    private static final int TAMANHO_BUFFER = 1 << 20;
+    private static final int SEM_CONTA = -1;
+
+    /**
+     * Valor gravado antes de cada conta ou cliente, para indicar
+     * que ainda há itens a serem lidos.
+     */
+    private static final byte HA_ITEM = 1, FIM = 0;
+
+    /**
+     * Construtor privado para evitar que a classe seja instanciada,
+     * uma vez que ela não possui atributos e todos os métodos são estáticos.
+     */
+    private Instantaneo(){/**/}
+
+    /**
+     * Grava um instantâneo das contas e clientes.
+     *
+     * @param diretorio diretório onde o instantâneo será gravado
+     * @param sequenciaInicial sequência a partir da qual as operações devem ser refeitas
+     *                         depois de carregar o instantâneo (todas as operações anteriores
+     *                         já estão refletidas nas contas)
+     * @param contas contas a serem gravadas
+     * @param clientes clientes a serem gravados (ou null para não gravar clientes)
+     * @param registro registro das operações das contas, usado para aguardar que todas as
+     *                 operações refletidas no instantâneo estejam armazenadas antes de renomeá-lo
+     * @return o arquivo do instantâneo
+     */
+    static Path grava(
+        final Path diretorio, final long sequenciaInicial,
+        final ColecaoContas contas, final ColecaoClientes clientes,
+        final RegistroOperacoes registro) throws IOException
+    {
+        long ultimaSequencia = 0;
+        final Path temporario = diretorio.resolve(nome(sequenciaInicial) + TEMPORARIO);
+        try (FileChannel canal = FileChannel.open(
+                temporario, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE))
+        {
+            final CheckedOutputStream verificada = new CheckedOutputStream(
+                    new BufferedOutputStream(Channels.newOutputStream(canal), TAMANHO_BUFFER), new CRC32());
+            final DataOutputStream saida = new DataOutputStream(verificada);
+            saida.writeInt(MAGICO);
+            saida.writeInt(VERSAO);
+            saida.writeLong(sequenciaInicial);
+
+            for (final Conta conta : contas.getContas()) {
+                saida.writeByte(HA_ITEM);
+                ultimaSequencia = Math.max(ultimaSequencia, gravaConta(saida, conta));
+            }
+            saida.writeByte(FIM);
+
+            if (clientes != null) {
+                for (final Cliente cliente : clientes.getClientes()) {
+                    saida.writeByte(HA_ITEM);
+                    gravaCliente(saida, cliente);
+                }
+            }
+            saida.writeByte(FIM);
+
+            saida.writeInt((int) verificada.getChecksum().getValue());
+            saida.flush();
+            canal.force(true);
+        }
+
+        registro.aguardaPersistencia(ultimaSequencia);
+        final Path arquivo = diretorio.resolve(nome(sequenciaInicial));
+        Files.move(temporario, arquivo, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        sincronizaDiretorio(diretorio);
+        return arquivo;
+    }
+
+    /**
+     * Carrega o instantâneo mais recente de um diretório (se houver), criando as contas e clientes
+     * que não existirem nas coleções e atualizando os que já existirem.
+     *
+     * @param diretorio diretório onde os instantâneos são gravados
+     * @param contas coleção onde as contas serão carregadas
+     * @param clientes coleção onde os clientes serão carregados (ou null para ignorar os clientes)
+     * @return a sequência a partir da qual as operações devem ser refeitas,
+     *         ou 0 se não houver instantâneo
+     */
+    static long carrega(final Path diretorio, final ColecaoContas contas, final ColecaoClientes clientes) throws IOException {
+        final List<Path> instantaneos = lista(diretorio);
+        if (instantaneos.isEmpty()) {
+            return 0;
+        }
+
+        final Path arquivo = instantaneos.get(instantaneos.size() - 1);
+        try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.READ)) {
+            final CheckedInputStream verificada = new CheckedInputStream(
+                    new BufferedInputStream(Channels.newInputStream(canal), TAMANHO_BUFFER), new CRC32());
+            final DataInputStream entrada = new DataInputStream(verificada);
+            final int versao;
+            if (entrada.readInt() != MAGICO || (versao = entrada.readInt()) > VERSAO || versao < VERSAO_SENHA_ABERTA) {
+                throw new IOException("Arquivo não é um instantâneo válido: " + arquivo);
+            }
+
+            final long sequenciaInicial = entrada.readLong();
+            while (entrada.readByte() == HA_ITEM) {
+                carregaConta(entrada, contas);
+            }
+            while (entrada.readByte() == HA_ITEM) {
+                final Cliente cliente = carregaCliente(entrada, contas, versao);
+                if (clientes != null) {
+                    clientes.putCliente(cliente, cliente.getCpf());
+                }
+            }
+
+            final int crcCalculado = (int) verificada.getChecksum().getValue();
+            if (entrada.readInt() != crcCalculado) {
+                throw new IOException("Instantâneo corrompido: " + arquivo);
+            }
+
+            return sequenciaInicial;
+        }
+    }
+
+    /**
+     * Exclui os instantâneos anteriores a um determinado instantâneo
+     * (além de arquivos temporários de gravações interrompidas).
+     * @param diretorio diretório onde os instantâneos são gravados
+     * @param atual instantâneo que deve ser mantido
+     */
+    static void excluiAnteriores(final Path diretorio, final Path atual) throws IOException {
+        for (final Path instantaneo : lista(diretorio)) {
+            if (instantaneo.compareTo(atual) < 0) {
+                Files.deleteIfExists(instantaneo);
+            }
+        }
+
+        try (DirectoryStream<Path> temporarios = Files.newDirectoryStream(diretorio, PREFIXO + "*" + TEMPORARIO)) {
+            for (final Path temporario : temporarios) {
+                if (!temporario.getFileName().toString().startsWith(atual.getFileName().toString())) {
+                    Files.deleteIfExists(temporario);
+                }
+            }
+        }
+    }
+
+    /**
+     * Grava uma conta no instantâneo.
+     * @return a sequência do último registro de operação refletido no estado gravado
+     */
+    private static long gravaConta(final DataOutputStream saida, final Conta conta) throws IOException {
+        if (conta.getNumero() == null) {
+            throw new IllegalStateException("Somente contas com número podem ser gravadas num instantâneo");
+        }
+
+        final long saldo, ultimaSequencia;
+        long[] pendentes = null;
+        synchronized (conta) {
+            saldo = conta.getSaldoCentavos();
+            ultimaSequencia = conta.getUltimaSequenciaRegistrada();
+            if (conta.getTotalDepositosPendentes() > 0) {
+                pendentes = valoresPendentes(conta);
+            }
+        }
+
+        saida.writeInt(DiarioOperacoes.codificaNumero(conta));
+        saida.writeLong(conta.getId());
+        saida.writeBoolean(conta.isEspecial());
+        saida.writeBoolean(conta.isPoupanca());
+        saida.writeLong(conta.getLimiteCentavos());
+        saida.writeLong(saldo);
+        saida.writeLong(ultimaSequencia);
+        saida.writeInt(pendentes == null ? 0 : pendentes.length);
+        if (pendentes != null) {
+            for (final long valor : pendentes) {
+                saida.writeLong(valor);
+            }
+        }
+
+        return ultimaSequencia;
+    }
+
+    private static long[] valoresPendentes(final Conta conta) {
+        final long[] valores = new long[conta.getTotalDepositosPendentes()];
+        int i = 0;
+        for (final Movimentacao movimentacao : conta.getMovimentacoes()) {
+            if (!movimentacao.isConfirmada() && !movimentacao.isDevolvida() && movimentacao.getTipo() == 'C') {
+                valores[i++] = movimentacao.getValorCentavos();
+            }
+        }
+
+        return valores;
+    }
+
+    private static void carregaConta(final DataInputStream entrada, final ColecaoContas contas) throws IOException {
+        final int chave = entrada.readInt();
+        Conta conta = contas.getConta(chave);
+        if (conta == null) {
+            final String numero = Chaves.formataConta(chave);
+            conta = new Conta();
+            conta.setNumero(numero);
+            contas.putConta(conta, numero);
+        }
+
+        conta.setId(entrada.readLong());
+        final boolean especial = entrada.readBoolean();
+        conta.setPoupanca(entrada.readBoolean());
+        /* O construtor Conta(boolean, double) permite definir limite para contas
+           não especiais, assim, o limite gravado é restaurado como numa conta especial. */
+        conta.setEspecial(true);
+        conta.setLimite(Centavos.paraReais(entrada.readLong()));
+        conta.setEspecial(especial);
+        final long saldo = entrada.readLong();
+        conta.restaura(saldo, entrada.readLong());
+
+        final int pendentes = entrada.readInt();
+        for (int i = 0; i < pendentes; i++) {
+            conta.depositoCheque(Centavos.paraReais(entrada.readLong()));
+        }
+    }
+
+    private static void gravaCliente(final DataOutputStream saida, final Cliente cliente) throws IOException {
+        saida.writeLong(cliente.getId());
+        gravaTexto(saida, cliente.getCpf());
+        gravaTexto(saida, cliente.getNome());
+        gravaTexto(saida, cliente.getSenha());
+        final Conta conta = cliente.getConta();
+        saida.writeInt(conta == null || conta.getNumero() == null ? SEM_CONTA : DiarioOperacoes.codificaNumero(conta));
+    }
+
+    private static Cliente carregaCliente(final DataInputStream entrada, final ColecaoContas contas, final int versao) throws IOException {
+        final Cliente cliente = new Cliente();
+        cliente.setId(entrada.readLong());
+        final String cpf = leTexto(entrada), nome = leTexto(entrada), senha = leTexto(entrada);
+        if (cpf != null) cliente.setCpf(cpf);
+        if (nome != null) cliente.setNome(nome);
+        if (senha != null && versao == VERSAO_SENHA_ABERTA) cliente.setSenha(senha);
+        else if (senha != null) cliente.setHashSenha(senha);
+
+        final int numeroConta = entrada.readInt();
+        if (numeroConta != SEM_CONTA) {
+            cliente.setConta(contas.getConta(numeroConta));
+        }
+
+        return cliente;
+    }
+
+    private static void gravaTexto(final DataOutputStream saida, final String texto) throws IOException {
+        saida.writeBoolean(texto != null);
+        if (texto != null) {
+            saida.writeUTF(texto);
+        }
+    }
+
+    private static String leTexto(final DataInputStream entrada) throws IOException {
+        return entrada.readBoolean() ? entrada.readUTF() : null;
+    }
+
+    private static String nome(final long sequenciaInicial) {
+        return String.format("%s%020d%s", PREFIXO, sequenciaInicial, EXTENSAO);
+    }
+
+    /**
+     * Lista os instantâneos de um diretório, do mais antigo para o mais recente.
+     */
+    private static List<Path> lista(final Path diretorio) throws IOException {
+        final List<Path> instantaneos = new ArrayList<>();
+        try (DirectoryStream<Path> arquivos = Files.newDirectoryStream(diretorio, PREFIXO + "*" + EXTENSAO)) {
+            arquivos.forEach(instantaneos::add);
+        }
+        Collections.sort(instantaneos);
+        return instantaneos;
+    }
+
+    /**
+     * Força a gravação do diretório em disco, para que a renomeação de um arquivo seja durável.
+     * Nem todos os sistemas operacionais permitem isso, assim, erros são ignorados.
+     */
+    static void sincronizaDiretorio(final Path diretorio) {
+        try (FileChannel canal = FileChannel.open(diretorio, StandardOpenOption.READ)) {
+            canal.force(true);
+        } catch (IOException e) {
+            // o sistema não permite sincronizar diretórios
+        }
+    }
+}
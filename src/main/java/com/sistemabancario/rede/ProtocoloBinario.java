@@ -0,0 +1,159 @@
+package com.sistemabancario.rede;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Formato das mensagens binárias trocadas entre os caixas eletrônicos
+ * e o {@link ServidorBinario}.
+ *
+ * <p>
+ * Cada requisição tem um tamanho fixo, definido pela sua operação, e os números
+ * (CPF, conta e valores) são enviados como inteiros (em big-endian), sem conversão
+ * para texto. Assim, o servidor não precisa procurar separadores nem converter
+ * texto em números. Toda requisição começa pela operação (1 byte) e por um
+ * identificador escolhido pelo caixa (int), que é devolvido na resposta.
+ * Isto permite que o caixa envie várias requisições sem aguardar as respostas
+ * (pipelining), que são enviadas na mesma ordem das requisições.
+ * </p>
+ *
+ * <pre>
+ * LOGIN:         operação | id | CPF (long) | tamanho da senha (byte) | senha em UTF-8 (32 bytes, completada com zeros)
+ * SAQUE:         operação | id | valor em centavos (long)
+ * DEPÓSITO:      operação | id | valor em centavos (long)
+ * TRANSFERÊNCIA: operação | id | chave da conta de destino (int) | valor em centavos (long)
+ * SALDO:         operação | id
+ * SAIR:          operação | id
+ * </pre>
+ *
+ * <p>
+ * Toda resposta tem {@value #TAMANHO_RESPOSTA} bytes:
+ * id (int) | situação (byte) | saldo total da conta em centavos (long).
+ * </p>
+ *
+ * @author Manoel Campos da Silva Filho
+ * @see com.sistemabancario.model.Chaves
+ */
+public final class ProtocoloBinario {
+    /**
+     * Operações que podem ser requisitadas.
+     */
+    public static final byte LOGIN = 1, SAQUE = 2, DEPOSITO = 3, TRANSFERENCIA = 4, SALDO = 5, SAIR = 6;
+
+    /**
+     * Situação da resposta: operação realizada.
+     */
+    public static final byte OK = 0;
+
+    /**
+     * Situação da resposta: login negado (CPF ou senha incorretos, ou excesso de tentativas).
+     */
+    public static final byte NEGADO = 1;
+
+    /**
+     * Situação da resposta: operação requisitada antes do login ou após a sessão expirar.
+     */
+    public static final byte NAO_AUTENTICADO = 2;
+
+    /**
+     * Situação da resposta: operação recusada pela conta
+     * (como valor inválido, saldo insuficiente ou conta de destino inexistente).
+     */
+    public static final byte RECUSADA = 3;
+
+    /**
+     * Tamanho máximo da senha em bytes (em UTF-8).
+     */
+    public static final int TAMANHO_SENHA = 32;
+
+    /**
+     * Tamanho do cabeçalho de toda requisição: operação e id.
+     */
+    static final int TAMANHO_CABECALHO = Byte.BYTES + Integer.BYTES;
+
+    /**
+     * Tamanho de toda resposta: id, situação e saldo total.
+     */
+    public static final int TAMANHO_RESPOSTA = Integer.BYTES + Byte.BYTES + Long.BYTES;
+
+    /**
+     * Tamanho das requisições, indexado pela operação.
+     */
+    private static final int[] TAMANHOS = {
+        -1,
+        TAMANHO_CABECALHO + Long.BYTES + Byte.BYTES + TAMANHO_SENHA,
+        TAMANHO_CABECALHO + Long.BYTES,
+        TAMANHO_CABECALHO + Long.BYTES,
+        TAMANHO_CABECALHO + Integer.BYTES + Long.BYTES,
+        TAMANHO_CABECALHO,
+        TAMANHO_CABECALHO
+    };
+
+    /**
+     * Construtor privado para evitar que a classe seja instanciada,
+     * uma vez que ela não possui atributos e todos os métodos são estáticos.
+     */
+    private ProtocoloBinario(){/**/}
+
+    /**
+     * Obtém o tamanho de uma requisição.
+     * @param operacao operação requisitada
+     * @return o tamanho em bytes ou -1 se a operação não existir
+     */
+    public static int tamanho(final byte operacao) {
+        return operacao > 0 && operacao < TAMANHOS.length ? TAMANHOS[operacao] : -1;
+    }
+
+    /**
+     * Escreve uma requisição de login.
+     * @param destino buffer onde a requisição será escrita
+     * @param id identificador da requisição
+     * @param cpf CPF do cliente (como obtido por {@link com.sistemabancario.model.Chaves#cpf(CharSequence)})
+     * @param senha senha do cliente
+     * @throws IllegalArgumentException se a senha tiver mais de {@value #TAMANHO_SENHA} bytes
+     */
+    public static void escreveLogin(final ByteBuffer destino, final int id, final long cpf, final String senha) {
+        final byte[] bytes = senha.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > TAMANHO_SENHA) {
+            throw new IllegalArgumentException("Senha deve ter no máximo " + TAMANHO_SENHA + " bytes.");
+        }
+
+        destino.put(LOGIN).putInt(id).putLong(cpf).put((byte) bytes.length).put(bytes);
+        for (int i = bytes.length; i < TAMANHO_SENHA; i++) {
+            destino.put((byte) 0);
+        }
+    }
+
+    /**
+     * Escreve uma requisição de saque ou depósito.
+     * @param destino buffer onde a requisição será escrita
+     * @param operacao {@link #SAQUE} ou {@link #DEPOSITO}
+     * @param id identificador da requisição
+     * @param centavos valor em centavos
+     */
+    public static void escreveValor(final ByteBuffer destino, final byte operacao, final int id, final long centavos) {
+        destino.put(operacao).putInt(id).putLong(centavos);
+    }
+
+    /**
+     * Escreve uma requisição de transferência.
+     * @param destino buffer onde a requisição será escrita
+     * @param id identificador da requisição
+     * @param contaDestino chave da conta de destino (como obtida por
+     *                     {@link com.sistemabancario.model.Chaves#conta(CharSequence)})
+     * @param centavos valor em centavos
+     */
+    public static void escreveTransferencia(final ByteBuffer destino, final int id, final int contaDestino, final long centavos) {
+        destino.put(TRANSFERENCIA).putInt(id).putInt(contaDestino).putLong(centavos);
+    }
+
+    /**
+     * Escreve uma requisição que não tem parâmetros ({@link #SALDO} ou {@link #SAIR}).
+     * @param destino buffer onde a requisição será escrita
+     * @param operacao operação requisitada
+     * @param id identificador da requisição
+     */
+    public static void escreveSemParametros(final ByteBuffer destino, final byte operacao, final int id) {
+        destino.put(operacao).putInt(id);
+    }
+}
@@ -0,0 +1,430 @@
+package com.sistemabancario.rede;
+
+import com.sistemabancario.model.Cliente;
+import com.sistemabancario.model.ColecaoClientes;
+import com.sistemabancario.model.ColecaoContas;
+import com.sistemabancario.model.Conta;
+import com.sistemabancario.model.Sessoes;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+import static com.sistemabancario.rede.ProtocoloBinario.*;
+
+/**
+ * Servidor que atende os caixas eletrônicos usando o {@link ProtocoloBinario protocolo binário},
+ * com uma única thread que atende todas as conexões por meio de um {@link Selector}
+ * (sem bloquear enquanto aguarda os dados de uma conexão).
+ *
+ * <p>
+ * Cada conexão tem um buffer direto de entrada e um de saída, alocados uma única vez
+ * e reaproveitados por outras conexões quando ela é encerrada. Todas as requisições
+ * completas recebidas numa leitura são atendidas em sequência (permitindo que o caixa
+ * envie várias requisições sem aguardar as respostas), e as respostas são acumuladas
+ * no buffer de saída e enviadas de uma só vez. Desta forma, atender uma requisição
+ * de saque, depósito, transferência ou saldo não cria nenhum objeto no servidor
+ * (somente as operações da própria {@link Conta}).
+ * </p>
+ *
+ * <p>
+ * Como conferir a senha é propositalmente lento (veja {@link com.sistemabancario.model.Senhas}),
+ * os logins são feitos por outras threads, para não atrasar as demais conexões.
+ * Enquanto o login de uma conexão não termina, as requisições seguintes dela aguardam no buffer.
+ * </p>
+ *
+ * @author Manoel Campos da Silva Filho
+ */
+public class ServidorBinario implements Closeable {
+    private static final int TAMANHO_BUFFER = 64 * 1024;
+
+    /**
+     * Estado de uma conexão, acessado somente pela thread do servidor
+     * (exceto {@link #tokenLogin}, definido pela thread que fez o login).
+     */
+    private static final class Conexao {
+        private final SocketChannel canal;
+        private final ByteBuffer entrada, saida;
+        private SelectionKey chave;
+        private String token;
+        private boolean aguardandoLogin, encerrar;
+        private int idLogin;
+        private volatile String tokenLogin;
+
+        /**
+         * CPF e senha do login em andamento, preenchidos pela thread do servidor
+         * antes de o {@link #login} ser executado numa das threads de login.
+         */
+        private long cpfLogin;
+        private final byte[] senhaLogin = new byte[TAMANHO_SENHA];
+        private int tamanhoSenhaLogin;
+
+        /**
+         * Tarefa que confere a senha do login em andamento, criada uma única vez por conexão.
+         */
+        private Runnable login;
+
+        Conexao(final SocketChannel canal, final ByteBuffer entrada, final ByteBuffer saida) {
+            this.canal = canal;
+            this.entrada = entrada;
+            this.saida = saida;
+        }
+    }
+
+    private final ColecaoClientes clientes;
+    private final ColecaoContas contas;
+    private final Sessoes sessoes;
+    private final ExecutorService logins;
+
+    /**
+     * Buffers de conexões encerradas, que podem ser reaproveitados.
+     */
+    private final Queue<ByteBuffer> buffersLivres = new ArrayDeque<>();
+
+    /**
+     * Conexões cujo login já terminou, aguardando a resposta ser enviada
+     * pela thread do servidor.
+     */
+    private final Queue<Conexao> loginsConcluidos = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Trata as conexões prontas, criado uma única vez para não criar um objeto a cada seleção.
+     */
+    private final Consumer<SelectionKey> tratamento = this::trata;
+
+    private Selector seletor;
+    private ServerSocketChannel canalServidor;
+    private Thread thread;
+    private volatile boolean executando;
+
+    /**
+     * Instancia um servidor que faz os logins em tantas threads quanto forem os processadores.
+     * @param clientes clientes que podem se autenticar
+     * @param contas contas que podem receber transferências
+     * @param sessoes sessões dos clientes autenticados (que podem ter um limite de tentativas de login)
+     */
+    public ServidorBinario(final ColecaoClientes clientes, final ColecaoContas contas, final Sessoes sessoes) {
+        this(clientes, contas, sessoes, Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors()));
+    }
+
+    /**
+     * Instancia um servidor.
+     * @param clientes clientes que podem se autenticar
+     * @param contas contas que podem receber transferências
+     * @param sessoes sessões dos clientes autenticados (que podem ter um limite de tentativas de login)
+     * @param logins executa os logins (conferindo as senhas). É encerrado junto com o servidor.
+     */
+    public ServidorBinario(final ColecaoClientes clientes, final ColecaoContas contas,
+                           final Sessoes sessoes, final ExecutorService logins)
+    {
+        this.clientes = Objects.requireNonNull(clientes);
+        this.contas = Objects.requireNonNull(contas);
+        this.sessoes = Objects.requireNonNull(sessoes);
+        this.logins = Objects.requireNonNull(logins);
+    }
+
+    /**
+     * Inicia o servidor, aceitando conexões somente da própria máquina (localhost).
+     * @param porta porta em que o servidor aguardará as conexões (ou 0 para escolher uma porta livre)
+     * @throws IOException se não for possível abrir a porta
+     * @see #getPorta()
+     */
+    public void inicia(final int porta) throws IOException {
+        inicia(new InetSocketAddress(InetAddress.getLoopbackAddress(), porta));
+    }
+
+    /**
+     * Inicia o servidor.
+     * @param endereco endereço e porta em que o servidor aguardará as conexões
+     * @throws IOException se não for possível abrir a porta
+     * @throws IllegalStateException se o servidor já foi iniciado
+     */
+    public synchronized void inicia(final InetSocketAddress endereco) throws IOException {
+        if (seletor != null) {
+            throw new IllegalStateException("Servidor já foi iniciado.");
+        }
+
+        seletor = Selector.open();
+        canalServidor = ServerSocketChannel.open();
+        canalServidor.bind(endereco, 1024);
+        canalServidor.configureBlocking(false);
+        canalServidor.register(seletor, SelectionKey.OP_ACCEPT);
+        executando = true;
+        thread = new Thread(this::executa, "servidor-binario");
+        thread.start();
+    }
+
+    /**
+     * Retorna a porta em que o servidor aguarda as conexões.
+     * @return
+     */
+    public int getPorta() {
+        return canalServidor.socket().getLocalPort();
+    }
+
+    private void executa() {
+        while (executando) {
+            try {
+                seletor.select(tratamento);
+                concluiLogins();
+            } catch (IOException | RuntimeException e) {
+                //Um erro inesperado não pode encerrar a única thread que atende todas as conexões
+                System.err.println("Erro no servidor binário: " + e);
+            }
+        }
+    }
+
+    private void trata(final SelectionKey chave) {
+        if (chave.isAcceptable()) {
+            aceita();
+            return;
+        }
+
+        final Conexao conexao = (Conexao) chave.attachment();
+        try {
+            if (chave.isReadable() && conexao.canal.read(conexao.entrada) < 0) {
+                fecha(conexao);
+                return;
+            }
+
+            atualiza(conexao);
+        } catch (IOException | RuntimeException e) {
+            fecha(conexao);
+        }
+    }
+
+    private void aceita() {
+        try {
+            final SocketChannel canal = canalServidor.accept();
+            if (canal == null) {
+                return;
+            }
+
+            canal.configureBlocking(false);
+            canal.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            final Conexao conexao = new Conexao(canal, buffer(), buffer());
+            conexao.login = () -> fazLogin(conexao);
+            conexao.chave = canal.register(seletor, SelectionKey.OP_READ, conexao);
+        } catch (IOException e) {
+            System.err.println("Erro ao aceitar conexão: " + e.getMessage());
+        }
+    }
+
+    private ByteBuffer buffer() {
+        final ByteBuffer livre = buffersLivres.poll();
+        return livre == null ? ByteBuffer.allocateDirect(TAMANHO_BUFFER) : livre;
+    }
+
+    /**
+     * Atende as requisições completas recebidas, envia as respostas
+     * e define quais eventos da conexão devem ser aguardados.
+     */
+    private void atualiza(final Conexao conexao) throws IOException {
+        atendeRequisicoes(conexao);
+        final ByteBuffer saida = conexao.saida;
+        saida.flip();
+        conexao.canal.write(saida);
+        saida.compact();
+
+        if (conexao.encerrar && saida.position() == 0) {
+            fecha(conexao);
+            return;
+        }
+
+        /* Só lê mais dados se houver espaço para recebê-los e para as respostas.
+           Senão, aguarda as respostas serem enviadas. */
+        int interesse = saida.position() > 0 ? SelectionKey.OP_WRITE : 0;
+        if (!conexao.aguardandoLogin && !conexao.encerrar && conexao.entrada.hasRemaining() &&
+            saida.remaining() >= TAMANHO_RESPOSTA)
+        {
+            interesse |= SelectionKey.OP_READ;
+        }
+        conexao.chave.interestOps(interesse);
+    }
+
+    private void atendeRequisicoes(final Conexao conexao) {
+        final ByteBuffer entrada = conexao.entrada;
+        entrada.flip();
+        while (!conexao.aguardandoLogin && !conexao.encerrar && entrada.hasRemaining() &&
+               conexao.saida.remaining() >= TAMANHO_RESPOSTA)
+        {
+            final byte operacao = entrada.get(entrada.position());
+            final int tamanho = tamanho(operacao);
+            if (tamanho < 0) {
+                //Operação desconhecida: os dados seguintes não podem ser interpretados
+                conexao.encerrar = true;
+                break;
+            }
+            if (entrada.remaining() < tamanho) {
+                break;
+            }
+
+            atende(conexao, operacao, entrada.position() + tamanho);
+        }
+        entrada.compact();
+    }
+
+    /**
+     * Atende uma requisição, cujos bytes terminam numa determinada posição do buffer de entrada.
+     */
+    private void atende(final Conexao conexao, final byte operacao, final int fim) {
+        final ByteBuffer entrada = conexao.entrada;
+        entrada.get();
+        final int id = entrada.getInt();
+        if (operacao == LOGIN) {
+            iniciaLogin(conexao, id, entrada.getLong(), entrada);
+            entrada.position(fim);
+            return;
+        }
+
+        final Cliente cliente = conexao.token == null ? null : sessoes.getCliente(conexao.token);
+        final Conta conta = cliente == null ? null : cliente.getConta();
+        if (operacao == SAIR) {
+            conexao.encerrar = true;
+            responde(conexao, id, OK, conta);
+            return;
+        }
+        if (conta == null) {
+            entrada.position(fim);
+            responde(conexao, id, NAO_AUTENTICADO, null);
+            return;
+        }
+
+        byte situacao = OK;
+        try {
+            if (operacao == SAQUE) {
+                conta.saqueCentavos(entrada.getLong());
+            } else if (operacao == DEPOSITO) {
+                conta.depositoDinheiroCentavos(entrada.getLong());
+            } else if (operacao == TRANSFERENCIA) {
+                final Conta destino = contas.getConta(entrada.getInt());
+                conta.transferenciaCentavos(destino, entrada.getLong());
+            }
+        } catch (RuntimeException e) {
+            //Inclui ArithmeticException, quando o saldo excederia o valor máximo
+            situacao = RECUSADA;
+        }
+
+        entrada.position(fim);
+        responde(conexao, id, situacao, conta);
+    }
+
+    private static void responde(final Conexao conexao, final int id, final byte situacao, final Conta conta) {
+        conexao.saida.putInt(id).put(situacao).putLong(conta == null ? 0 : conta.getSaldoTotalCentavos());
+    }
+
+    /**
+     * Confere a senha numa das threads de login. As requisições seguintes
+     * da conexão só são atendidas depois que o login terminar.
+     * O CPF e a senha são copiados para a conexão, que reaproveita a sua tarefa de login.
+     */
+    private void iniciaLogin(final Conexao conexao, final int id, final long cpf, final ByteBuffer entrada) {
+        conexao.tamanhoSenhaLogin = Math.min(entrada.get() & 0xFF, TAMANHO_SENHA);
+        entrada.get(conexao.senhaLogin, 0, conexao.tamanhoSenhaLogin);
+        conexao.cpfLogin = cpf;
+
+        sessoes.encerra(conexao.token);
+        conexao.token = null;
+        conexao.aguardandoLogin = true;
+        conexao.idLogin = id;
+        logins.execute(conexao.login);
+    }
+
+    /**
+     * Faz o login em andamento numa conexão, executado numa das threads de login.
+     * O cliente é pesquisado pela chave numérica do CPF, sem convertê-lo para texto.
+     */
+    private void fazLogin(final Conexao conexao) {
+        String token = null;
+        try {
+            final String senha = new String(conexao.senhaLogin, 0, conexao.tamanhoSenhaLogin, StandardCharsets.UTF_8);
+            token = sessoes.abre(clientes, conexao.cpfLogin, senha);
+        } finally {
+            conexao.tokenLogin = token;
+            loginsConcluidos.add(conexao);
+            seletor.wakeup();
+        }
+    }
+
+    private void concluiLogins() {
+        Conexao conexao;
+        while ((conexao = loginsConcluidos.poll()) != null) {
+            final String token = conexao.tokenLogin;
+            if (!conexao.canal.isOpen()) {
+                sessoes.encerra(token);
+                continue;
+            }
+
+            conexao.aguardandoLogin = false;
+            conexao.token = token;
+            final Cliente cliente = token == null ? null : sessoes.getCliente(token);
+            responde(conexao, conexao.idLogin, cliente == null ? NEGADO : OK, cliente == null ? null : cliente.getConta());
+            try {
+                atualiza(conexao);
+            } catch (IOException e) {
+                fecha(conexao);
+            }
+        }
+    }
+
+    private void fecha(final Conexao conexao) {
+        conexao.chave.cancel();
+        try {
+            conexao.canal.close();
+        } catch (IOException e) {
+            //A conexão já está sendo encerrada
+        }
+
+        sessoes.encerra(conexao.token);
+        conexao.token = null;
+        if (!conexao.aguardandoLogin) {
+            conexao.entrada.clear();
+            conexao.saida.clear();
+            buffersLivres.add(conexao.entrada);
+            buffersLivres.add(conexao.saida);
+        }
+    }
+
+    /**
+     * Encerra o servidor e todas as conexões abertas.
+     * @throws IOException se ocorrer um erro ao fechar a porta do servidor
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (seletor == null || !executando) {
+            return;
+        }
+
+        executando = false;
+        seletor.wakeup();
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        logins.shutdownNow();
+        for (final SelectionKey chave : seletor.keys()) {
+            if (chave.attachment() instanceof Conexao) {
+                fecha((Conexao) chave.attachment());
+            }
+        }
+        canalServidor.close();
+        seletor.close();
+    }
+}
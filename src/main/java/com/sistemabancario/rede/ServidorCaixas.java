@@ -0,0 +1,309 @@
+package com.sistemabancario.rede;
+
+import com.sistemabancario.model.Cliente;
+import com.sistemabancario.model.ColecaoClientes;
+import com.sistemabancario.model.ColecaoContas;
+import com.sistemabancario.model.Conta;
+import com.sistemabancario.model.Sessoes;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Servidor TCP que atende os caixas eletrônicos e os caixas das agências,
+ * oferecendo as mesmas opções do menu do {@link com.sistemabancario.Main}
+ * (saque, depósito, transferência e sair) sobre as coleções de clientes e contas
+ * compartilhadas por todas as sessões.
+ *
+ * <p>
+ * Cada conexão é uma sessão atendida por uma thread própria, que lê os comandos
+ * de forma bloqueante. Para permitir milhares de sessões simultâneas, as sessões são
+ * executadas em threads virtuais (quando a aplicação é executada num JDK 21 ou superior),
+ * que não ocupam uma thread do sistema operacional enquanto aguardam o próximo comando
+ * (veja {@link #executorPorSessao()}).
+ * </p>
+ *
+ * <p>
+ * O protocolo é baseado em linhas de texto (em UTF-8). Cada comando recebe uma única linha
+ * como resposta, iniciada por {@code OK} ou {@code ERRO}:
+ * </p>
+ * <ul>
+ *     <li>{@code LOGIN cpf senha}: autentica o cliente, respondendo {@code OK} ou {@code NEGADO};</li>
+ *     <li>{@code SAQUE valor} ou {@code 1 valor};</li>
+ *     <li>{@code DEPÓSITO valor} (ou {@code DEPOSITO}) ou {@code 2 valor};</li>
+ *     <li>{@code TRANSFERÊNCIA conta valor} (ou {@code TRANSFERENCIA}) ou {@code 3 conta valor};</li>
+ *     <li>{@code SAIR} ou {@code 4}: encerra a sessão, respondendo {@code BYE}.</li>
+ * </ul>
+ * <p>
+ * As operações bem-sucedidas respondem {@code OK} seguido do saldo total atual da conta
+ * (os valores usam ponto como separador decimal).
+ * </p>
+ *
+ * @author Manoel Campos da Silva Filho
+ */
+public class ServidorCaixas implements Closeable {
+    static final String OK = "OK", ERRO = "ERRO", NEGADO = "NEGADO", BYE = "BYE";
+
+    /**
+     * Opções do menu, identificadas pelo nome ou pelo número.
+     */
+    private enum Opcao {
+        SAQUE("1", "SAQUE"),
+        DEPOSITO("2", "DEPÓSITO", "DEPOSITO"),
+        TRANSFERENCIA("3", "TRANSFERÊNCIA", "TRANSFERENCIA"),
+        SAIR("4", "SAIR");
+
+        private final String[] nomes;
+
+        Opcao(final String... nomes) {
+            this.nomes = nomes;
+        }
+
+        static Opcao de(final String comando) {
+            final String nome = comando.toUpperCase(Locale.ROOT);
+            for (final Opcao opcao : values()) {
+                for (final String possivel : opcao.nomes) {
+                    if (possivel.equals(nome)) {
+                        return opcao;
+                    }
+                }
+            }
+
+            return null;
+        }
+    }
+
+    private final ColecaoClientes clientes;
+    private final ColecaoContas contas;
+    private final Sessoes sessoes;
+    private final ExecutorService executor;
+
+    /**
+     * Conexões abertas, que são fechadas ao encerrar o servidor
+     * (desbloqueando as sessões que aguardam um comando).
+     */
+    private final Set<Socket> conexoes = ConcurrentHashMap.newKeySet();
+
+    private ServerSocket servidor;
+    private Thread aceitacao;
+
+    /**
+     * Instancia um servidor que atende cada sessão numa thread virtual
+     * (ou numa thread de plataforma, se threads virtuais não estiverem disponíveis).
+     * @param clientes clientes que podem se autenticar
+     * @param contas contas que podem receber transferências
+     * @param sessoes sessões dos clientes autenticados (que podem ter um limite de tentativas de login)
+     */
+    public ServidorCaixas(final ColecaoClientes clientes, final ColecaoContas contas, final Sessoes sessoes) {
+        this(clientes, contas, sessoes, executorPorSessao());
+    }
+
+    /**
+     * Instancia um servidor.
+     * @param clientes clientes que podem se autenticar
+     * @param contas contas que podem receber transferências
+     * @param sessoes sessões dos clientes autenticados (que podem ter um limite de tentativas de login)
+     * @param executor executa cada sessão; deve criar uma thread para cada sessão
+     *                 (como {@link #executorPorSessao()} ou {@link #executorPlataforma()}),
+     *                 pois uma sessão ocupa a thread até ser encerrada.
+     *                 É encerrado junto com o servidor.
+     */
+    public ServidorCaixas(final ColecaoClientes clientes, final ColecaoContas contas,
+                          final Sessoes sessoes, final ExecutorService executor)
+    {
+        this.clientes = Objects.requireNonNull(clientes);
+        this.contas = Objects.requireNonNull(contas);
+        this.sessoes = Objects.requireNonNull(sessoes);
+        this.executor = Objects.requireNonNull(executor);
+    }
+
+    /**
+     * Cria um executor que inicia uma thread virtual para cada sessão.
+     * Threads virtuais estão disponíveis a partir do Java 21; como o projeto
+     * é compilado para o Java 17, o executor é obtido por reflexão.
+     * Se a aplicação for executada num JDK sem threads virtuais,
+     * é retornado o {@link #executorPlataforma()}.
+     * @return o executor de sessões
+     */
+    public static ExecutorService executorPorSessao() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+            return executorPlataforma();
+        }
+    }
+
+    /**
+     * Cria um executor que inicia uma thread de plataforma (do sistema operacional)
+     * para cada sessão, reaproveitando as threads das sessões já encerradas.
+     * @return o executor de sessões
+     */
+    public static ExecutorService executorPlataforma() {
+        return Executors.newCachedThreadPool();
+    }
+
+    /**
+     * Inicia o servidor, aceitando conexões somente da própria máquina (localhost).
+     * @param porta porta em que o servidor aguardará as conexões (ou 0 para escolher uma porta livre)
+     * @throws IOException se não for possível abrir a porta
+     * @see #getPorta()
+     */
+    public void inicia(final int porta) throws IOException {
+        inicia(new InetSocketAddress(InetAddress.getLoopbackAddress(), porta));
+    }
+
+    /**
+     * Inicia o servidor.
+     * @param endereco endereço e porta em que o servidor aguardará as conexões
+     * @throws IOException se não for possível abrir a porta
+     * @throws IllegalStateException se o servidor já foi iniciado
+     */
+    public synchronized void inicia(final InetSocketAddress endereco) throws IOException {
+        if (servidor != null) {
+            throw new IllegalStateException("Servidor já foi iniciado.");
+        }
+
+        servidor = new ServerSocket();
+        servidor.bind(endereco, 1024);
+        aceitacao = new Thread(this::aceitaConexoes, "servidor-caixas");
+        aceitacao.start();
+    }
+
+    /**
+     * Retorna a porta em que o servidor aguarda as conexões.
+     * @return
+     */
+    public int getPorta() {
+        return servidor.getLocalPort();
+    }
+
+    private void aceitaConexoes() {
+        while (!servidor.isClosed()) {
+            try {
+                final Socket conexao = servidor.accept();
+                conexao.setTcpNoDelay(true);
+                conexoes.add(conexao);
+                executor.execute(() -> atende(conexao));
+            } catch (IOException e) {
+                if (!servidor.isClosed()) {
+                    System.err.println("Erro ao aceitar conexão: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Atende os comandos de uma sessão até que ela seja encerrada.
+     */
+    private void atende(final Socket conexao) {
+        String token = null;
+        try (Socket socket = conexao;
+             BufferedReader entrada = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+             BufferedWriter saida = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8)))
+        {
+            String linha;
+            while ((linha = entrada.readLine()) != null) {
+                final String[] partes = linha.trim().split("\\s+");
+                final String resposta;
+                if (token == null) {
+                    token = login(partes);
+                    resposta = token == null ? NEGADO : OK;
+                } else if (Opcao.de(partes[0]) == Opcao.SAIR) {
+                    responde(saida, BYE);
+                    return;
+                } else {
+                    final Cliente cliente = sessoes.getCliente(token);
+                    if (cliente == null) {
+                        token = null;
+                        resposta = ERRO + " Sessão expirada";
+                    } else {
+                        resposta = executa(cliente.getConta(), partes);
+                    }
+                }
+
+                responde(saida, resposta);
+            }
+        } catch (IOException e) {
+            //Conexão encerrada pelo caixa ou pelo servidor
+        } finally {
+            conexoes.remove(conexao);
+            sessoes.encerra(token);
+        }
+    }
+
+    private String login(final String[] partes) {
+        if (partes.length != 3 || !"LOGIN".equalsIgnoreCase(partes[0])) {
+            return null;
+        }
+
+        return sessoes.abre(clientes, partes[1], partes[2]);
+    }
+
+    /**
+     * Executa uma opção do menu.
+     * @return a resposta a ser enviada ao caixa
+     */
+    private String executa(final Conta conta, final String[] partes) {
+        final Opcao opcao = Opcao.de(partes[0]);
+        try {
+            if (opcao == Opcao.SAQUE && partes.length == 2) {
+                conta.saque(Double.parseDouble(partes[1]));
+            } else if (opcao == Opcao.DEPOSITO && partes.length == 2) {
+                conta.depositoDinheiro(Double.parseDouble(partes[1]));
+            } else if (opcao == Opcao.TRANSFERENCIA && partes.length == 3) {
+                conta.transferencia(contas.getConta(partes[1]), Double.parseDouble(partes[2]));
+            } else {
+                return ERRO + " Opção não suportada!";
+            }
+        } catch (RuntimeException e) {
+            /* Inclui NumberFormatException, quando o valor não é um número, e ArithmeticException,
+               quando o saldo excederia o valor máximo. Uma operação recusada não encerra a sessão. */
+            return ERRO + ' ' + e.getMessage();
+        }
+
+        return OK + ' ' + conta.getSaldoTotal();
+    }
+
+    private static void responde(final BufferedWriter saida, final String resposta) throws IOException {
+        saida.write(resposta);
+        saida.write('\n');
+        saida.flush();
+    }
+
+    /**
+     * Encerra o servidor e todas as sessões abertas.
+     * @throws IOException se ocorrer um erro ao fechar a porta do servidor
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (servidor == null) {
+            return;
+        }
+
+        servidor.close();
+        for (final Socket conexao : conexoes) {
+            conexao.close();
+        }
+        executor.shutdownNow();
+        try {
+            aceitacao.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,7 @@
+/**
+ * Pacote contendo o servidor que permite aos caixas eletrônicos e aos caixas
+ * das agências acessarem o sistema pela rede, com milhares de sessões simultâneas.
+ *
+ * @author Manoel Campos da Silva Filho
+ */
+package com.sistemabancario.rede;
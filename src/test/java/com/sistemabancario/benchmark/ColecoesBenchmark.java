@@ -0,0 +1,194 @@
+package com.sistemabancario.benchmark;
+
+import com.sistemabancario.model.Cliente;
+import com.sistemabancario.model.ColecaoClientes;
+import com.sistemabancario.model.ColecaoContas;
+import com.sistemabancario.model.Conta;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mede a pesquisa de contas e clientes pelo número e pelo CPF,
+ * com uma e com várias threads, e o preenchimento de uma coleção de contas
+ * (inserindo uma a uma, abrindo contas e inserindo em bloco).
+ * As mesmas operações num {@link HashMap} servem como referência para o custo das coleções.
+ * O maior total é 1 milhão, a quantidade de números de conta diferentes no formato 99999-9.
+ *
+ * @author Manoel Campos da Silva Filho
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+@State(Scope.Benchmark)
+public class ColecoesBenchmark {
+    @Param({"100000", "1000000"})
+    private int total;
+
+    /**
+     * Indica se o índice das contas é alocado fora do heap.
+     */
+    @Param({"false", "true"})
+    private boolean foraDoHeap;
+
+    private ColecaoContas contas;
+    private ColecaoClientes clientes;
+    private Map<String, Conta> mapaContas;
+    private Conta[] vetorContas;
+    private String[] numeros;
+    private String[] cpfs;
+
+    /**
+     * Posição da próxima chave a ser pesquisada por cada thread.
+     */
+    @State(Scope.Thread)
+    public static class Cursor {
+        private int posicao;
+
+        int proxima(final int total) {
+            posicao = posicao + 1 == total ? 0 : posicao + 1;
+            return posicao;
+        }
+    }
+
+    @Setup
+    public void criaColecoes() {
+        contas = new ColecaoContas(total, foraDoHeap);
+        clientes = new ColecaoClientes(new HashMap<>());
+        mapaContas = new HashMap<>();
+        vetorContas = new Conta[total];
+        numeros = new String[total];
+        cpfs = new String[total];
+        for (int i = 0; i < total; i++) {
+            numeros[i] = Dados.numeroConta(i);
+            cpfs[i] = Dados.cpf(i);
+
+            final Conta conta = new Conta();
+            conta.setNumero(numeros[i]);
+            contas.putConta(conta, numeros[i]);
+            mapaContas.put(numeros[i], conta);
+            vetorContas[i] = conta;
+
+            final Cliente cliente = new Cliente();
+            cliente.setCpf(cpfs[i]);
+            cliente.setConta(conta);
+            clientes.putCliente(cliente, cpfs[i]);
+        }
+    }
+
+    @Benchmark
+    public Conta getConta(final Cursor cursor) {
+        return contas.getConta(numeros[cursor.proxima(total)]);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Conta getContaConcorrente(final Cursor cursor) {
+        return contas.getConta(numeros[cursor.proxima(total)]);
+    }
+
+    @Benchmark
+    public Conta getContaHashMap(final Cursor cursor) {
+        return mapaContas.get(numeros[cursor.proxima(total)]);
+    }
+
+    @Benchmark
+    public Cliente getCliente(final Cursor cursor) {
+        return clientes.getCliente(cpfs[cursor.proxima(total)]);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Cliente getClienteConcorrente(final Cursor cursor) {
+        return clientes.getCliente(cpfs[cursor.proxima(total)]);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 3)
+    @Measurement(iterations = 10)
+    public ColecaoContas putConta() {
+        final ColecaoContas novas = new ColecaoContas(total, foraDoHeap);
+        for (int i = 0; i < total; i++) {
+            novas.putConta(vetorContas[i], numeros[i]);
+        }
+        return novas;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 3)
+    @Measurement(iterations = 10)
+    public Map<String, Conta> putContaHashMap() {
+        final Map<String, Conta> novas = new HashMap<>();
+        for (int i = 0; i < total; i++) {
+            novas.put(numeros[i], vetorContas[i]);
+        }
+        return novas;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 3)
+    @Measurement(iterations = 10)
+    public ColecaoContas abreConta() {
+        final ColecaoContas novas = new ColecaoContas(total, foraDoHeap);
+        for (final Conta conta : vetorContas) {
+            novas.abreConta(conta.getNumero(), numero -> conta);
+        }
+        return novas;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 3)
+    @Measurement(iterations = 10)
+    public Map<String, Conta> computeIfAbsentHashMap() {
+        final Map<String, Conta> novas = new HashMap<>();
+        for (final Conta conta : vetorContas) {
+            novas.computeIfAbsent(conta.getNumero(), numero -> conta);
+        }
+        return novas;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 3)
+    @Measurement(iterations = 10)
+    public ColecaoContas putContas() {
+        final ColecaoContas novas = new ColecaoContas(total, foraDoHeap);
+        novas.putContas(mapaContas);
+        return novas;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 3)
+    @Measurement(iterations = 10)
+    public Map<String, Conta> putAllHashMap() {
+        final Map<String, Conta> novas = new HashMap<>();
+        novas.putAll(mapaContas);
+        return novas;
+    }
+}
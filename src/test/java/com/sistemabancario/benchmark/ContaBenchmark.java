@@ -0,0 +1,136 @@
+package com.sistemabancario.benchmark;
+
+import com.sistemabancario.metricas.Metricas;
+import com.sistemabancario.model.Conta;
+import com.sistemabancario.model.Movimentacao;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mede as operações de uma {@link Conta}, com uma e com várias threads
+ * operando a mesma conta (medindo assim a disputa pelo saldo).
+ * Os benchmarks "ContaPorThread" operam, com 1 a 8 threads, uma conta diferente
+ * em cada thread: como as threads não disputam nenhuma conta, a vazão deve crescer
+ * quase linearmente com o número de threads (até o número de processadores).
+ * As contas são recriadas a cada iteração, para que o histórico não cresça indefinidamente.
+ * Cada operação é medida com as {@link Metricas métricas} desabilitadas e habilitadas.
+ *
+ * @author Manoel Campos da Silva Filho
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class ContaBenchmark {
+    @Param({"false", "true"})
+    private boolean metricas;
+
+    private Conta conta;
+
+    /**
+     * Conta operada somente por uma thread.
+     */
+    @State(Scope.Thread)
+    public static class ContaThread {
+        private Conta conta;
+
+        @Setup(Level.Iteration)
+        public void criaConta() {
+            conta = novaConta();
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void configuraMetricas() {
+        Metricas.getInstancia().setHabilitadas(metricas);
+    }
+
+    @Setup(Level.Iteration)
+    public void criaConta() {
+        conta = novaConta();
+    }
+
+    private static Conta novaConta() {
+        final Conta conta = new Conta();
+        conta.setSaldo(1_000_000_000);
+        return conta;
+    }
+
+    @Benchmark
+    public void saque() {
+        conta.saque(0.01);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void saqueConcorrente() {
+        conta.saque(0.01);
+    }
+
+    @Benchmark
+    public void saqueContaPorThread(final ContaThread thread) {
+        thread.conta.saque(0.01);
+    }
+
+    @Benchmark
+    @Threads(2)
+    public void saqueContaPorThread2Threads(final ContaThread thread) {
+        thread.conta.saque(0.01);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void saqueContaPorThread4Threads(final ContaThread thread) {
+        thread.conta.saque(0.01);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void saqueContaPorThread8Threads(final ContaThread thread) {
+        thread.conta.saque(0.01);
+    }
+
+    @Benchmark
+    public void depositoDinheiro() {
+        conta.depositoDinheiro(1);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void depositoDinheiroConcorrente() {
+        conta.depositoDinheiro(1);
+    }
+
+    @Benchmark
+    public void addMovimentacao() {
+        conta.addMovimentacao(credito());
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void addMovimentacaoConcorrente() {
+        conta.addMovimentacao(credito());
+    }
+
+    private Movimentacao credito() {
+        final Movimentacao movimentacao = new Movimentacao(conta);
+        movimentacao.setTipo('C');
+        movimentacao.setValorCentavos(1);
+        return movimentacao;
+    }
+}
@@ -0,0 +1,88 @@
+package com.sistemabancario.benchmark;
+
+import com.sistemabancario.model.Cliente;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compara a validação de CPF feita por {@link Cliente#setCpf(String)}
+ * com a validação anterior, baseada em expressões regulares e em Strings
+ * intermediárias (reproduzida em {@link #validaCpfAnterior(String)}).
+ *
+ * @author Manoel Campos da Silva Filho
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CpfBenchmark {
+    private static final int TOTAL = 1024;
+
+    private final String[] cpfs = new String[TOTAL];
+    private final Cliente cliente = new Cliente();
+    private int posicao;
+
+    @Setup
+    public void geraCpfs() {
+        for (int i = 0; i < TOTAL; i++) {
+            cpfs[i] = Dados.cpf(i * 7919);
+        }
+    }
+
+    private String proximoCpf() {
+        posicao = (posicao + 1) & (TOTAL - 1);
+        return cpfs[posicao];
+    }
+
+    @Benchmark
+    public Cliente setCpf() {
+        cliente.setCpf(proximoCpf());
+        return cliente;
+    }
+
+    @Benchmark
+    public boolean validaCpfAnterior() {
+        return validaCpfAnterior(proximoCpf());
+    }
+
+    /**
+     * Validação de CPF feita antes por {@link Cliente#setCpf(String)} e {@link Cliente#isCpfValido(String)}.
+     */
+    private static boolean validaCpfAnterior(String cpf) {
+        if (cpf.trim().isEmpty() || !cpf.matches("\\d{11}") || cpf.matches("^([0-9])\\1*$")) {
+            return false;
+        }
+
+        cpf = cpf.replaceAll("\\D", "");
+        if (cpf.length() != 11) {
+            return false;
+        }
+
+        final String d1 = digitoAnterior(cpf, 9);
+        final String d2 = digitoAnterior(cpf, 10);
+        return cpf.substring(cpf.length() - 2).equals(d1 + d2);
+    }
+
+    private static String digitoAnterior(final String numero, final int totalAlgarismos) {
+        final char[] vetor = numero.substring(0, totalAlgarismos).toCharArray();
+        int soma = 0;
+        for (int i = 0; i < vetor.length; i++) {
+            soma += (vetor.length + 1 - i) * (vetor[i] - 48);
+        }
+
+        final int dig = 11 - (soma % 11);
+        return dig > 9 ? "0" : Integer.toString(dig);
+    }
+}
@@ -0,0 +1,37 @@
+package com.sistemabancario.benchmark;
+
+import com.sistemabancario.model.Util;
+
+/**
+ * Funções para gerar dados válidos usados nos benchmarks e na
+ * {@link com.sistemabancario.simulacao.SimulacaoCarga simulação de carga}.
+ *
+ * @author Manoel Campos da Silva Filho
+ */
+public final class Dados {
+    /**
+     * Construtor privado para evitar que a classe seja instanciada,
+     * uma vez que ela não possui atributos e todos os métodos são estáticos.
+     */
+    private Dados(){/**/}
+
+    /**
+     * Gera um CPF válido e diferente para cada número.
+     * @param i número entre 0 e 899.999.999
+     * @return o CPF, com os dígitos verificadores
+     */
+    public static String cpf(final int i) {
+        final String base = Integer.toString(100_000_000 + i);
+        final String primeiroDigito = Util.calculaDigitoModulo11(base, 9);
+        return base + primeiroDigito + Util.calculaDigitoModulo11(base + primeiroDigito, 10);
+    }
+
+    /**
+     * Gera um número de conta no formato 99999-9, diferente para cada número.
+     * @param i número entre 0 e 999.999
+     * @return o número da conta
+     */
+    public static String numeroConta(final int i) {
+        return String.format("%05d-%d", i / 10, i % 10);
+    }
+}
@@ -0,0 +1,100 @@
+package com.sistemabancario.benchmark;
+
+import com.sistemabancario.model.ColecaoContas;
+import com.sistemabancario.model.Conta;
+import com.sistemabancario.persistencia.DiarioOperacoes;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Mede depósitos registrados no {@link DiarioOperacoes}. Com mais threads,
+ * mais registros são gravados em cada gravação em disco (group commit),
+ * assim a vazão deve aumentar com o número de threads.
+ * Cada thread opera uma conta diferente, para que a disputa pela conta não interfira.
+ *
+ * @author Manoel Campos da Silva Filho
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class DiarioOperacoesBenchmark {
+    private static final int TOTAL_CONTAS = 64;
+
+    private Path diretorio;
+    private ColecaoContas contas;
+    private DiarioOperacoes diario;
+    private final AtomicInteger proximaConta = new AtomicInteger();
+
+    /**
+     * Conta operada por cada thread.
+     */
+    @State(Scope.Thread)
+    public static class ContaThread {
+        private Conta conta;
+
+        @Setup
+        public void obtemConta(final DiarioOperacoesBenchmark benchmark) {
+            final int i = benchmark.proximaConta.getAndIncrement() % TOTAL_CONTAS;
+            conta = benchmark.contas.getConta(Dados.numeroConta(i));
+        }
+    }
+
+    @Setup
+    public void abreDiario() throws IOException {
+        diretorio = Files.createTempDirectory("diario-benchmark");
+        contas = new ColecaoContas(TOTAL_CONTAS);
+        for (int i = 0; i < TOTAL_CONTAS; i++) {
+            final Conta conta = new Conta();
+            final String numero = Dados.numeroConta(i);
+            conta.setNumero(numero);
+            contas.putConta(conta, numero);
+        }
+        diario = DiarioOperacoes.abre(diretorio, contas);
+    }
+
+    @TearDown
+    public void fechaDiario() throws IOException {
+        diario.close();
+        try (Stream<Path> arquivos = Files.walk(diretorio)) {
+            arquivos.sorted(Comparator.reverseOrder()).forEach(arquivo -> arquivo.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public void depositoDinheiro(final ContaThread thread) {
+        thread.conta.depositoDinheiro(1);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void depositoDinheiro8Threads(final ContaThread thread) {
+        thread.conta.depositoDinheiro(1);
+    }
+
+    @Benchmark
+    @Threads(32)
+    public void depositoDinheiro32Threads(final ContaThread thread) {
+        thread.conta.depositoDinheiro(1);
+    }
+}
@@ -0,0 +1,84 @@
+package com.sistemabancario.benchmark;
+
+import com.sistemabancario.model.Cliente;
+import com.sistemabancario.model.LimiteTentativas;
+import com.sistemabancario.model.Sessoes;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mede os logins por segundo quando a senha precisa ser conferida
+ * (sessão ainda não aberta, calculando o hash com o fator de trabalho padrão)
+ * e quando o cliente já tem uma {@link Sessoes sessão} aberta.
+ * Também mede a rejeição de uma tentativa que excede o {@link LimiteTentativas limite}.
+ *
+ * @author Manoel Campos da Silva Filho
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LoginBenchmark {
+    private static final String SENHA = "1234";
+
+    private Cliente cliente;
+    private String cpf;
+    private Sessoes sessoes;
+    private String token;
+
+    /**
+     * Limite que já rejeita as tentativas do CPF, como durante um ataque.
+     */
+    private LimiteTentativas limiteEsgotado;
+
+    @Setup
+    public void abreSessao() {
+        cpf = Dados.cpf(0);
+        cliente = new Cliente();
+        cliente.setCpf(cpf);
+        cliente.setSenha(SENHA);
+        sessoes = new Sessoes(1024, 1, TimeUnit.HOURS);
+        token = sessoes.abre(cliente, cpf, SENHA);
+        limiteEsgotado = new LimiteTentativas(1, Integer.MAX_VALUE, Integer.MAX_VALUE, 1, TimeUnit.HOURS);
+        limiteEsgotado.permite(cpf, true);
+    }
+
+    /**
+     * Login sem sessão aberta: a senha é conferida pelo hash.
+     */
+    @Benchmark
+    public String loginSemSessao() {
+        final String novo = sessoes.abre(cliente, cpf, SENHA);
+        sessoes.encerra(novo);
+        return novo;
+    }
+
+    /**
+     * Tentativa de login rejeitada pelo limite de tentativas,
+     * antes de conferir a senha.
+     */
+    @Benchmark
+    public boolean tentativaRejeitada() {
+        return limiteEsgotado.permite(cpf, true);
+    }
+
+    /**
+     * Requisição de um cliente com sessão aberta: apenas o token é pesquisado.
+     */
+    @Benchmark
+    public Cliente loginComSessao() {
+        return sessoes.getCliente(token);
+    }
+}
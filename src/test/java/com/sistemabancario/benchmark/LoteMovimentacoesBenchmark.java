@@ -0,0 +1,105 @@
+package com.sistemabancario.benchmark;
+
+import com.sistemabancario.model.ColecaoContas;
+import com.sistemabancario.model.Conta;
+import com.sistemabancario.model.Movimentacao;
+import com.sistemabancario.persistencia.DiarioOperacoes;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Compara uma folha de pagamento (um crédito para cada conta, várias vezes)
+ * lançada com {@link ColecaoContas#addMovimentacoes(java.util.Collection)}
+ * e com uma chamada de {@link Conta#addMovimentacao(Movimentacao)} para cada crédito.
+ * Com o parâmetro {@code diario}, as operações são registradas num {@link DiarioOperacoes},
+ * mostrando o custo das gravações em disco: o lote aguarda uma única gravação,
+ * enquanto cada crédito lançado um a um aguarda a sua.
+ *
+ * @author Manoel Campos da Silva Filho
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class LoteMovimentacoesBenchmark {
+    @Param({"100"})
+    private int totalContas;
+
+    @Param({"50"})
+    private int creditosPorConta;
+
+    @Param({"false", "true"})
+    private boolean diario;
+
+    private ColecaoContas contas;
+    private List<Movimentacao> folha;
+    private Path diretorio;
+    private DiarioOperacoes diarioOperacoes;
+
+    @Setup(Level.Iteration)
+    public void criaFolha() throws IOException {
+        contas = new ColecaoContas(totalContas);
+        folha = new ArrayList<>(totalContas * creditosPorConta);
+        for (int i = 0; i < totalContas; i++) {
+            final Conta conta = new Conta();
+            conta.setNumero(Dados.numeroConta(i));
+            contas.putConta(conta, conta.getNumero());
+            for (int j = 0; j < creditosPorConta; j++) {
+                final Movimentacao credito = new Movimentacao(conta);
+                credito.setTipo('C');
+                credito.setValor(1500);
+                credito.setDescricao("Salário");
+                folha.add(credito);
+            }
+        }
+
+        if (diario) {
+            diretorio = Files.createTempDirectory("lote-benchmark");
+            diarioOperacoes = DiarioOperacoes.abre(diretorio, contas);
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void fechaDiario() throws IOException {
+        if (diario) {
+            diarioOperacoes.close();
+            try (Stream<Path> arquivos = Files.walk(diretorio)) {
+                arquivos.sorted(Comparator.reverseOrder()).forEach(arquivo -> arquivo.toFile().delete());
+            }
+        }
+    }
+
+    @Benchmark
+    public void addMovimentacoesEmLote() {
+        contas.addMovimentacoes(folha);
+    }
+
+    @Benchmark
+    public void addMovimentacaoUmaAUma() {
+        for (final Movimentacao credito : folha) {
+            credito.getConta().addMovimentacao(credito);
+        }
+    }
+}
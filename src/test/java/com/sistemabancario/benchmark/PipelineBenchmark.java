@@ -0,0 +1,113 @@
+package com.sistemabancario.benchmark;
+
+import com.sistemabancario.model.Chaves;
+import com.sistemabancario.model.ColecaoContas;
+import com.sistemabancario.model.Conta;
+import com.sistemabancario.model.PipelineComandos;
+import com.sistemabancario.persistencia.DiarioOperacoes;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Mede a vazão do {@link PipelineComandos}: cada chamada envia um lote de depósitos
+ * e transferências e aguarda a resposta do último, como em {@link RazaoBenchmark}.
+ * Com o {@link DiarioOperacoes}, a persistência é aguardada uma única vez para todas
+ * as operações que o estágio do diário encontrar disponíveis (compare com
+ * {@link DiarioOperacoesBenchmark}, onde cada operação aguarda a sua).
+ *
+ * @author Manoel Campos da Silva Filho
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class PipelineBenchmark {
+    private static final int TOTAL_CONTAS = 4096;
+    private static final int LOTE = 256;
+
+    @Param({"false", "true"})
+    private boolean diario;
+
+    private Path diretorio;
+    private DiarioOperacoes diarioOperacoes;
+    private PipelineComandos pipeline;
+    private final int[] chaves = new int[TOTAL_CONTAS];
+    private final SplittableRandom aleatorio = new SplittableRandom(42);
+    private long enviados;
+
+    /**
+     * Quantidade de comandos respondidos, alterada somente pela thread do estágio de resposta.
+     */
+    private volatile long respondidos;
+
+    @Setup(Level.Iteration)
+    public void criaPipeline() throws IOException {
+        final ColecaoContas contas = new ColecaoContas(TOTAL_CONTAS);
+        for (int i = 0; i < TOTAL_CONTAS; i++) {
+            final Conta conta = new Conta();
+            conta.setNumero(Dados.numeroConta(i));
+            conta.setSaldo(1_000_000_000);
+            contas.putConta(conta, conta.getNumero());
+            chaves[i] = Chaves.conta(conta.getNumero());
+        }
+
+        if (diario) {
+            diretorio = Files.createTempDirectory("pipeline-benchmark");
+            diarioOperacoes = DiarioOperacoes.abre(diretorio, contas);
+        }
+
+        enviados = respondidos = 0;
+        pipeline = new PipelineComandos(contas, 4096, (comando, fimDoLote) -> respondidos++);
+    }
+
+    @TearDown(Level.Iteration)
+    public void fechaPipeline() throws IOException {
+        pipeline.close();
+        if (diario) {
+            diarioOperacoes.close();
+            try (Stream<Path> arquivos = Files.walk(diretorio)) {
+                arquivos.sorted(Comparator.reverseOrder()).forEach(arquivo -> arquivo.toFile().delete());
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOTE)
+    public void operacoes() {
+        for (int i = 0; i < LOTE; i++) {
+            final int origem = aleatorio.nextInt(TOTAL_CONTAS);
+            if (i % 2 == 0) {
+                pipeline.depositoDinheiro(enviados++, chaves[origem], 1);
+            } else {
+                final int destino = (origem + 1 + aleatorio.nextInt(TOTAL_CONTAS - 1)) % TOTAL_CONTAS;
+                pipeline.transferencia(enviados++, chaves[origem], chaves[destino], 1);
+            }
+        }
+
+        while (respondidos < enviados) {
+            Thread.yield();
+        }
+    }
+}
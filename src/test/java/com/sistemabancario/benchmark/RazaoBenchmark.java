@@ -0,0 +1,104 @@
+package com.sistemabancario.benchmark;
+
+import com.sistemabancario.model.Chaves;
+import com.sistemabancario.model.Conta;
+import com.sistemabancario.model.RazaoParticionado;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mede a vazão do {@link RazaoParticionado} com diferentes quantidades de partições.
+ * Cada chamada envia um lote de depósitos e transferências (metade delas entre partições
+ * diferentes, quando há mais de uma) e aguarda a conclusão de todas, como faria um
+ * servidor que responde aos caixas somente após cada operação ser aplicada.
+ *
+ * @author Manoel Campos da Silva Filho
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class RazaoBenchmark {
+    private static final int TOTAL_CONTAS = 4096;
+    private static final int LOTE = 256;
+
+    @Param({"1", "2", "4", "8", "16", "32"})
+    private int particoes;
+
+    private RazaoParticionado razao;
+    private final int[] chaves = new int[TOTAL_CONTAS];
+
+    /**
+     * Gerador das contas e do lote de operações de cada thread.
+     */
+    @State(Scope.Thread)
+    public static class Lote {
+        private final SplittableRandom aleatorio = new SplittableRandom(42);
+        private final CompletableFuture<?>[] resultados = new CompletableFuture<?>[LOTE];
+    }
+
+    @Setup(Level.Iteration)
+    public void criaRazao() {
+        razao = new RazaoParticionado(particoes, TOTAL_CONTAS);
+        for (int i = 0; i < TOTAL_CONTAS; i++) {
+            final Conta conta = new Conta();
+            conta.setNumero(Dados.numeroConta(i));
+            conta.setSaldo(1_000_000_000);
+            razao.putConta(conta);
+            chaves[i] = Chaves.conta(conta.getNumero());
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void fechaRazao() {
+        razao.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOTE)
+    public void operacoes(final Lote lote) {
+        envia(lote);
+    }
+
+    @Benchmark
+    @Threads(4)
+    @OperationsPerInvocation(LOTE)
+    public void operacoesConcorrentes(final Lote lote) {
+        envia(lote);
+    }
+
+    private void envia(final Lote lote) {
+        for (int i = 0; i < LOTE; i++) {
+            final int origem = lote.aleatorio.nextInt(TOTAL_CONTAS);
+            if (i % 2 == 0) {
+                lote.resultados[i] = razao.depositoDinheiro(chaves[origem], 0.01);
+            } else {
+                final int destino = (origem + 1 + lote.aleatorio.nextInt(TOTAL_CONTAS - 1)) % TOTAL_CONTAS;
+                lote.resultados[i] = razao.transferencia(chaves[origem], chaves[destino], 0.01);
+            }
+        }
+
+        for (final CompletableFuture<?> resultado : lote.resultados) {
+            resultado.join();
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.sistemabancario.benchmark;
+
+import com.sistemabancario.model.Cliente;
+import com.sistemabancario.model.ColecaoClientes;
+import com.sistemabancario.model.ColecaoContas;
+import com.sistemabancario.model.Conta;
+import com.sistemabancario.model.Senhas;
+import com.sistemabancario.model.Sessoes;
+import com.sistemabancario.rede.ServidorCaixas;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Mede a vazão e a latência das requisições feitas ao {@link ServidorCaixas},
+ * comparando as sessões executadas em threads virtuais com uma thread
+ * de plataforma por sessão. Além dos caixas que fazem requisições (uma por thread do JMH),
+ * o servidor mantém várias sessões ociosas abertas, como caixas aguardando clientes.
+ *
+ * <p>
+ * Threads virtuais só estão disponíveis num JDK 21 ou superior. Em JDKs anteriores,
+ * {@link ServidorCaixas#executorPorSessao()} usa threads de plataforma e as duas
+ * configurações medem o mesmo executor.
+ * </p>
+ *
+ * @author Manoel Campos da Silva Filho
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+@State(Scope.Benchmark)
+public class ServidorBenchmark {
+    private static final String SENHA = "1234";
+    private static final int MAXIMO_CAIXAS = 1024;
+
+    @Param({"virtual", "plataforma"})
+    private String threads;
+
+    @Param({"0", "2000"})
+    private int sessoesOciosas;
+
+    private ColecaoClientes clientes;
+    private ServidorCaixas servidor;
+    private final List<Socket> ociosas = new ArrayList<>();
+    private final AtomicInteger proximoCaixa = new AtomicInteger();
+
+    /**
+     * Conexão de um caixa que faz requisições ao servidor.
+     */
+    @State(Scope.Thread)
+    public static class Caixa {
+        private Socket socket;
+        private BufferedReader entrada;
+        private OutputStream saida;
+        private final byte[] deposito = "DEPOSITO 1\n".getBytes(StandardCharsets.UTF_8);
+
+        @Setup
+        public void conecta(final ServidorBenchmark benchmark) throws IOException {
+            final String cpf = Dados.cpf(benchmark.proximoCaixa.getAndIncrement());
+            socket = benchmark.conecta();
+            entrada = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            saida = socket.getOutputStream();
+            saida.write(("LOGIN " + cpf + ' ' + SENHA + '\n').getBytes(StandardCharsets.UTF_8));
+            if (!"OK".equals(entrada.readLine())) {
+                throw new IllegalStateException("Login do caixa recusado");
+            }
+        }
+
+        String deposita() throws IOException {
+            saida.write(deposito);
+            return entrada.readLine();
+        }
+
+        @TearDown
+        public void desconecta() throws IOException {
+            socket.close();
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void iniciaServidor() throws IOException {
+        final ColecaoContas contas = new ColecaoContas(MAXIMO_CAIXAS);
+        clientes = new ColecaoClientes(MAXIMO_CAIXAS);
+        /* O fator de trabalho do hash é reduzido, pois os logins são feitos
+           somente na preparação e não são medidos. */
+        final String hash = Senhas.gera(SENHA, 1000);
+        for (int i = 0; i < MAXIMO_CAIXAS; i++) {
+            final Conta conta = new Conta();
+            conta.setNumero(Dados.numeroConta(i));
+            contas.putConta(conta, conta.getNumero());
+
+            final Cliente cliente = new Cliente();
+            cliente.setCpf(Dados.cpf(i));
+            cliente.setHashSenha(hash);
+            cliente.setConta(conta);
+            clientes.putCliente(cliente, cliente.getCpf());
+        }
+
+        final ExecutorService executor = "virtual".equals(threads) ?
+                                            ServidorCaixas.executorPorSessao() :
+                                            ServidorCaixas.executorPlataforma();
+        servidor = new ServidorCaixas(clientes, contas, new Sessoes(MAXIMO_CAIXAS, 1, TimeUnit.HOURS), executor);
+        servidor.inicia(0);
+        for (int i = 0; i < sessoesOciosas; i++) {
+            ociosas.add(conecta());
+        }
+    }
+
+    private Socket conecta() throws IOException {
+        final Socket socket = new Socket(InetAddress.getLoopbackAddress(), servidor.getPorta());
+        socket.setTcpNoDelay(true);
+        return socket;
+    }
+
+    @TearDown(Level.Trial)
+    public void encerraServidor() throws IOException {
+        for (final Socket socket : ociosas) {
+            socket.close();
+        }
+        servidor.close();
+    }
+
+    /**
+     * Um depósito feito por um caixa: envia o comando e aguarda a resposta.
+     */
+    @Benchmark
+    public String deposito(final Caixa caixa) throws IOException {
+        return caixa.deposita();
+    }
+}
@@ -0,0 +1,144 @@
+package com.sistemabancario.benchmark;
+
+import com.sistemabancario.model.Chaves;
+import com.sistemabancario.model.Cliente;
+import com.sistemabancario.model.ColecaoClientes;
+import com.sistemabancario.model.ColecaoContas;
+import com.sistemabancario.model.Conta;
+import com.sistemabancario.model.Senhas;
+import com.sistemabancario.model.Sessoes;
+import com.sistemabancario.rede.ProtocoloBinario;
+import com.sistemabancario.rede.ServidorBinario;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Mede a vazão das requisições feitas ao {@link ServidorBinario}, para comparar
+ * com o protocolo de texto do {@link com.sistemabancario.rede.ServidorCaixas}
+ * (veja {@link ServidorBenchmark}). Cada caixa envia um lote de depósitos
+ * sem aguardar as respostas e depois lê todas elas.
+ *
+ * @author Manoel Campos da Silva Filho
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+@State(Scope.Benchmark)
+public class ServidorBinarioBenchmark {
+    private static final String SENHA = "1234";
+    private static final int MAXIMO_CAIXAS = 1024;
+    private static final int LOTE = 64;
+
+    private ServidorBinario servidor;
+    private final AtomicInteger proximoCaixa = new AtomicInteger();
+
+    /**
+     * Conexão de um caixa que faz requisições ao servidor.
+     */
+    @State(Scope.Thread)
+    public static class Caixa {
+        private SocketChannel canal;
+        private final ByteBuffer depositos = ByteBuffer.allocateDirect(LOTE * ProtocoloBinario.tamanho(ProtocoloBinario.DEPOSITO));
+        private final ByteBuffer respostas = ByteBuffer.allocateDirect(LOTE * ProtocoloBinario.TAMANHO_RESPOSTA);
+
+        @Setup
+        public void conecta(final ServidorBinarioBenchmark benchmark) throws IOException {
+            final String cpf = Dados.cpf(benchmark.proximoCaixa.getAndIncrement());
+            canal = SocketChannel.open(new InetSocketAddress(InetAddress.getLoopbackAddress(), benchmark.servidor.getPorta()));
+            final ByteBuffer login = ByteBuffer.allocate(ProtocoloBinario.tamanho(ProtocoloBinario.LOGIN));
+            ProtocoloBinario.escreveLogin(login, 0, Chaves.cpf(cpf), SENHA);
+            final ByteBuffer resposta = ByteBuffer.allocate(ProtocoloBinario.TAMANHO_RESPOSTA);
+            envia(login.flip(), resposta);
+            if (resposta.get(Integer.BYTES) != ProtocoloBinario.OK) {
+                throw new IllegalStateException("Login do caixa recusado");
+            }
+
+            for (int i = 0; i < LOTE; i++) {
+                ProtocoloBinario.escreveValor(depositos, ProtocoloBinario.DEPOSITO, i, 1);
+            }
+        }
+
+        private void envia(final ByteBuffer requisicoes, final ByteBuffer respostas) throws IOException {
+            while (requisicoes.hasRemaining()) {
+                canal.write(requisicoes);
+            }
+            respostas.clear();
+            while (respostas.hasRemaining()) {
+                if (canal.read(respostas) < 0) {
+                    throw new IOException("Conexão encerrada pelo servidor");
+                }
+            }
+        }
+
+        long depositaLote() throws IOException {
+            envia(depositos.rewind(), respostas);
+            return respostas.getLong(respostas.limit() - Long.BYTES);
+        }
+
+        @TearDown
+        public void desconecta() throws IOException {
+            canal.close();
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void iniciaServidor() throws IOException {
+        final ColecaoContas contas = new ColecaoContas(MAXIMO_CAIXAS);
+        final ColecaoClientes clientes = new ColecaoClientes(MAXIMO_CAIXAS);
+        /* O fator de trabalho do hash é reduzido, pois os logins são feitos
+           somente na preparação e não são medidos. */
+        final String hash = Senhas.gera(SENHA, 1000);
+        for (int i = 0; i < MAXIMO_CAIXAS; i++) {
+            final Conta conta = new Conta();
+            conta.setNumero(Dados.numeroConta(i));
+            contas.putConta(conta, conta.getNumero());
+
+            final Cliente cliente = new Cliente();
+            cliente.setCpf(Dados.cpf(i));
+            cliente.setHashSenha(hash);
+            cliente.setConta(conta);
+            clientes.putCliente(cliente, cliente.getCpf());
+        }
+
+        servidor = new ServidorBinario(clientes, contas, new Sessoes(MAXIMO_CAIXAS, 1, TimeUnit.HOURS));
+        servidor.inicia(0);
+    }
+
+    @TearDown(Level.Trial)
+    public void encerraServidor() throws IOException {
+        servidor.close();
+    }
+
+    /**
+     * Um lote de depósitos feitos por um caixa: envia todas as requisições
+     * e aguarda todas as respostas. O resultado é dado por depósito.
+     */
+    @Benchmark
+    @OperationsPerInvocation(LOTE)
+    public long deposito(final Caixa caixa) throws IOException {
+        return caixa.depositaLote();
+    }
+}
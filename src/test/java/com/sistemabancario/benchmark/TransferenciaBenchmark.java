@@ -0,0 +1,91 @@
+package com.sistemabancario.benchmark;
+
+import com.sistemabancario.model.Cliente;
+import com.sistemabancario.model.ColecaoClientes;
+import com.sistemabancario.model.ColecaoContas;
+import com.sistemabancario.model.Conta;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mede a sequência de uma transferência feita pelo {@link com.sistemabancario.Main}:
+ * pesquisar o cliente pelo CPF, pesquisar a conta de destino pelo número
+ * e transferir entre as contas. Com várias threads, transferências em sentidos
+ * opostos entre as mesmas contas disputam o bloqueio das duas contas.
+ *
+ * @author Manoel Campos da Silva Filho
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class TransferenciaBenchmark {
+    private static final int TOTAL_CONTAS = 64;
+
+    private ColecaoContas contas;
+    private ColecaoClientes clientes;
+    private final String[] numeros = new String[TOTAL_CONTAS];
+    private final String[] cpfs = new String[TOTAL_CONTAS];
+
+    /**
+     * Gerador dos pares de contas de cada thread.
+     */
+    @State(Scope.Thread)
+    public static class Sorteio {
+        private final SplittableRandom aleatorio = new SplittableRandom(42);
+    }
+
+    @Setup(Level.Iteration)
+    public void criaContas() {
+        contas = new ColecaoContas(TOTAL_CONTAS);
+        clientes = new ColecaoClientes(new HashMap<>());
+        for (int i = 0; i < TOTAL_CONTAS; i++) {
+            numeros[i] = Dados.numeroConta(i);
+            cpfs[i] = Dados.cpf(i);
+
+            final Conta conta = new Conta();
+            conta.setNumero(numeros[i]);
+            conta.setSaldo(1_000_000_000);
+            contas.putConta(conta, numeros[i]);
+
+            final Cliente cliente = new Cliente();
+            cliente.setCpf(cpfs[i]);
+            cliente.setConta(conta);
+            clientes.putCliente(cliente, cpfs[i]);
+        }
+    }
+
+    @Benchmark
+    public void transferencia(final Sorteio sorteio) {
+        transfere(sorteio);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void transferenciaConcorrente(final Sorteio sorteio) {
+        transfere(sorteio);
+    }
+
+    private void transfere(final Sorteio sorteio) {
+        final int origem = sorteio.aleatorio.nextInt(TOTAL_CONTAS);
+        final int destino = (origem + 1 + sorteio.aleatorio.nextInt(TOTAL_CONTAS - 1)) % TOTAL_CONTAS;
+        final Cliente cliente = clientes.getCliente(cpfs[origem]);
+        cliente.getConta().transferencia(contas.getConta(numeros[destino]), 0.01);
+    }
+}
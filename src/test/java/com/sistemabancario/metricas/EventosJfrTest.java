@@ -0,0 +1,101 @@
+package com.sistemabancario.metricas;
+
+import com.sistemabancario.model.Cliente;
+import com.sistemabancario.model.ColecaoContas;
+import com.sistemabancario.model.Conta;
+import com.sistemabancario.model.Senhas;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EventosJfrTest {
+    @TempDir
+    Path diretorio;
+
+    @Test
+    void testConfiguracaoJfc() throws IOException, ParseException {
+        try (Reader leitor = new InputStreamReader(
+                getClass().getResourceAsStream("/jfr/sistemabancario.jfc"), StandardCharsets.UTF_8))
+        {
+            final Map<String, String> configuracoes = Configuration.create(leitor).getSettings();
+            for (final String evento : List.of(EventoOperacao.NOME, EventoAutenticacao.NOME, EventoPesquisa.NOME)) {
+                assertEquals("true", configuracoes.get(evento + "#enabled"), evento);
+                assertEquals("false", configuracoes.get(evento + "#stackTrace"), evento);
+            }
+        }
+    }
+
+    @Test
+    void testEventosEmitidos() throws IOException {
+        final Conta origem = new Conta();
+        origem.setNumero("12345-6");
+        origem.setSaldo(100);
+        final Conta destino = new Conta();
+        destino.setNumero("65432-1");
+        final ColecaoContas contas = new ColecaoContas(4);
+        contas.putConta(origem, origem.getNumero());
+        final Cliente cliente = new Cliente();
+        cliente.setHashSenha(Senhas.gera("1234", 1000));
+        cliente.setConta(origem);
+
+        final List<RecordedEvent> eventos;
+        try (Recording gravacao = new Recording()) {
+            for (final String evento : List.of(EventoOperacao.NOME, EventoAutenticacao.NOME, EventoPesquisa.NOME)) {
+                gravacao.enable(evento).withThreshold(Duration.ZERO).withoutStackTrace();
+            }
+            gravacao.start();
+            origem.saque(10);
+            assertThrows(IllegalArgumentException.class, () -> origem.saque(1000));
+            origem.transferencia(destino, 20);
+            assertTrue(Cliente.autentica(cliente, "", "1234"));
+            assertNull(contas.getConta("99999-9"));
+            gravacao.stop();
+
+            final Path arquivo = diretorio.resolve("gravacao.jfr");
+            gravacao.dump(arquivo);
+            eventos = RecordingFile.readAllEvents(arquivo);
+        }
+
+        final Map<String, List<RecordedEvent>> porTipo =
+                eventos.stream().collect(Collectors.groupingBy(evento -> evento.getEventType().getName()));
+
+        final List<RecordedEvent> operacoes = porTipo.get(EventoOperacao.NOME);
+        assertEquals(3, operacoes.size());
+        assertOperacao(operacoes.get(0), "SAQUE", 1000, EventoOperacao.REALIZADA);
+        assertOperacao(operacoes.get(1), "SAQUE", 100_000, MotivoRecusa.SALDO_INSUFICIENTE.name());
+        assertOperacao(operacoes.get(2), "TRANSFERENCIA", 2000, EventoOperacao.REALIZADA);
+        assertEquals("65432-1", operacoes.get(2).getString("contaDestino"));
+
+        final RecordedEvent autenticacao = porTipo.get(EventoAutenticacao.NOME).get(0);
+        assertEquals("12345-6", autenticacao.getString("conta"));
+        assertEquals(EventoOperacao.REALIZADA, autenticacao.getString("resultado"));
+
+        final RecordedEvent pesquisa = porTipo.get(EventoPesquisa.NOME).get(0);
+        assertEquals("contas", pesquisa.getString("colecao"));
+        assertEquals("99999-9", pesquisa.getString("conta"));
+        assertFalse(pesquisa.getBoolean("encontrado"));
+    }
+
+    private static void assertOperacao(final RecordedEvent evento, final String operacao, final long valor, final String resultado) {
+        assertEquals("12345-6", evento.getString("conta"));
+        assertEquals(operacao, evento.getString("operacao"));
+        assertEquals(valor, evento.getLong("valor"));
+        assertEquals(resultado, evento.getString("resultado"));
+    }
+}
@@ -0,0 +1,49 @@
+package com.sistemabancario.metricas;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HistogramaLatenciasTest {
+    @Test
+    void testIntervalosContiguos() {
+        //Cada valor deve estar no primeiro intervalo cujo maior valor não é menor que ele
+        for (int i = 1; i < HistogramaLatencias.INTERVALOS; i++) {
+            assertEquals(HistogramaLatencias.maiorValor(i - 1) + 1, menorValor(i), "Intervalo " + i);
+        }
+    }
+
+    private static long menorValor(final int indice) {
+        final HistogramaLatencias histograma = new HistogramaLatencias();
+        final long menor = HistogramaLatencias.maiorValor(indice - 1) + 1;
+        histograma.registra(menor);
+        assertEquals(HistogramaLatencias.maiorValor(indice), histograma.percentil(100));
+        return menor;
+    }
+
+    @Test
+    void testPercentisComVariasThreads() throws InterruptedException {
+        final HistogramaLatencias histograma = new HistogramaLatencias();
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        for (int t = 0; t < 4; t++) {
+            executor.execute(() -> {
+                for (long i = 1; i <= 10_000; i++) {
+                    histograma.registra(i * 100);
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(40_000, histograma.getTotal());
+        assertEquals(500_050, histograma.media());
+        assertEquals(500_000, histograma.percentil(50), 500_000 / 4.0);
+        assertEquals(990_000, histograma.percentil(99), 990_000 / 4.0);
+        histograma.reinicia();
+        assertEquals(0, histograma.percentil(50));
+    }
+}
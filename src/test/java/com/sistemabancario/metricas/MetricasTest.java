@@ -0,0 +1,101 @@
+package com.sistemabancario.metricas;
+
+import com.sistemabancario.model.Cliente;
+import com.sistemabancario.model.Conta;
+import com.sistemabancario.model.Senhas;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.management.Attribute;
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MetricasTest {
+    private final Metricas metricas = Metricas.getInstancia();
+
+    @BeforeEach
+    void habilita() {
+        metricas.reinicia();
+        metricas.setAmostragem(1);
+        metricas.setHabilitadas(true);
+    }
+
+    @AfterEach
+    void desabilita() {
+        metricas.setHabilitadas(false);
+        metricas.setAmostragem(Metricas.AMOSTRAGEM_PADRAO);
+        metricas.reinicia();
+    }
+
+    @Test
+    void testOperacoesERecusasDaConta() {
+        final Conta conta = new Conta();
+        conta.setSaldo(100);
+        conta.saque(10);
+        conta.saque(20);
+        assertThrows(IllegalArgumentException.class, () -> conta.saque(1000));
+        assertThrows(IllegalArgumentException.class, () -> conta.saque(0));
+        conta.depositoDinheiro(5);
+        assertThrows(IllegalArgumentException.class, () -> conta.depositoDinheiro(-1));
+        conta.depositoCheque(5);
+
+        assertEquals(2, Metricas.SAQUE.getTotal());
+        assertEquals(1, Metricas.SAQUE.getRecusasSaldoInsuficiente());
+        assertEquals(1, Metricas.SAQUE.getRecusasValorInvalido());
+        assertTrue(Metricas.SAQUE.getLatenciaP50() > 0);
+        assertTrue(Metricas.SAQUE.getLatenciaP999() >= Metricas.SAQUE.getLatenciaP50());
+        assertEquals(1, Metricas.DEPOSITO_DINHEIRO.getTotal());
+        assertEquals(1, Metricas.DEPOSITO_DINHEIRO.getRecusasValorInvalido());
+        assertEquals(1, Metricas.DEPOSITO_CHEQUE.getTotal());
+    }
+
+    @Test
+    void testRecusasDaAutenticacao() {
+        final Cliente cliente = new Cliente();
+        cliente.setHashSenha(Senhas.gera("1234", 1000));
+
+        assertTrue(Cliente.autentica(cliente, "", "1234"));
+        assertFalse(Cliente.autentica(cliente, "", "4321"));
+        assertFalse(Cliente.autentica(null, "", "1234"));
+        assertEquals(1, Metricas.AUTENTICACAO.getTotal());
+        assertEquals(1, Metricas.AUTENTICACAO.getRecusasSenhaIncorreta());
+        assertEquals(1, Metricas.AUTENTICACAO.getRecusasCpfInvalido());
+    }
+
+    @Test
+    void testDesabilitadasNaoContam() {
+        metricas.setHabilitadas(false);
+        final Conta conta = new Conta();
+        conta.depositoDinheiro(5);
+        assertThrows(IllegalArgumentException.class, () -> conta.saque(1000));
+
+        assertEquals(0, Metricas.DEPOSITO_DINHEIRO.getTotal());
+        assertEquals(0, Metricas.SAQUE.getRecusasSaldoInsuficiente());
+        assertEquals(0, Metricas.DEPOSITO_DINHEIRO.getLatenciaMedia());
+    }
+
+    @Test
+    void testAmostragemInvalida() {
+        assertThrows(IllegalArgumentException.class, () -> metricas.setAmostragem(0));
+        assertThrows(IllegalArgumentException.class, () -> metricas.setAmostragem(3));
+    }
+
+    @Test
+    void testPublicacaoJmx() throws Exception {
+        final MBeanServer servidor = MBeanServerFactory.newMBeanServer();
+        Metricas.registra(servidor);
+        final ObjectName controle = new ObjectName(Metricas.DOMINIO + ":type=Metricas");
+        servidor.setAttribute(controle, new Attribute("Habilitadas", false));
+        assertFalse(metricas.isHabilitadas());
+        servidor.setAttribute(controle, new Attribute("Habilitadas", true));
+
+        new Conta().depositoDinheiro(1);
+        assertEquals(1L, servidor.getAttribute(Metricas.nome(Metricas.DEPOSITO_DINHEIRO), "Total"));
+        servidor.invoke(controle, "reinicia", null, null);
+        assertEquals(0L, servidor.getAttribute(Metricas.nome(Metricas.DEPOSITO_DINHEIRO), "Total"));
+    }
+}
@@ -0,0 +1,30 @@
+package com.sistemabancario.model;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CentavosTest {
+    @Test
+    void testDeReaisArredondaParaCentavoMaisProximo() {
+        assertEquals(30, Centavos.deReais(0.1 + 0.2));
+        assertEquals(100140, Centavos.deReais(1001.4));
+        assertEquals(-450, Centavos.deReais(-4.5));
+    }
+
+    @Test
+    void testParaReais() {
+        assertEquals(1001.4, Centavos.paraReais(100140));
+    }
+
+    @Test
+    void testDeReaisInvalido() {
+        assertThrows(IllegalArgumentException.class, () -> Centavos.deReais(Double.NaN));
+        assertThrows(IllegalArgumentException.class, () -> Centavos.deReais(Double.POSITIVE_INFINITY));
+    }
+
+    @Test
+    void testSomaComEstouro() {
+        assertThrows(ArithmeticException.class, () -> Centavos.soma(Long.MAX_VALUE, 1));
+        assertThrows(ArithmeticException.class, () -> Centavos.subtrai(Long.MIN_VALUE, 1));
+    }
+}
@@ -0,0 +1,54 @@
+package com.sistemabancario.model;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ChavesTest {
+    @Test
+    void testConta() {
+        assertEquals(123456, Chaves.conta("12345-6"));
+        assertEquals(0, Chaves.conta("00000-0"));
+        assertEquals("00042-7", Chaves.formataConta(Chaves.conta("00042-7")));
+    }
+
+    @Test
+    void testContaInvalida() {
+        assertEquals(Chaves.INVALIDA, Chaves.conta("123"));
+        assertEquals(Chaves.INVALIDA, Chaves.conta("12345_6"));
+        assertEquals(Chaves.INVALIDA, Chaves.conta("1234a-6"));
+        assertEquals(Chaves.INVALIDA, Chaves.conta("12345-66"));
+        assertThrows(NullPointerException.class, () -> Chaves.conta(null));
+    }
+
+    @Test
+    void testAgenciaConfereComModulo11() {
+        for (int i = 0; i < 10000; i++) {
+            final String base = String.format("%04d-", i);
+            final String numero = base + Util.calculaDigitoModulo11(base);
+            assertEquals(Integer.parseInt(numero.replace("-", "")), Chaves.agencia(numero), numero);
+            assertEquals(numero, Chaves.formataAgencia(Chaves.agencia(numero)));
+        }
+    }
+
+    @Test
+    void testAgenciaInvalida() {
+        assertEquals(Chaves.DIGITO_INVALIDO, Chaves.agencia("1867-7"));
+        assertEquals(Chaves.INVALIDA, Chaves.agencia("06385-6"));
+        assertEquals(Chaves.INVALIDA, Chaves.agencia("0638-x"));
+    }
+
+    @Test
+    void testBanco() {
+        assertEquals(1, Chaves.banco("001"));
+        assertEquals("001", Chaves.formataBanco(1));
+        assertEquals(Chaves.INVALIDA, Chaves.banco("AAA"));
+        assertEquals(Chaves.INVALIDA, Chaves.banco("4344"));
+    }
+
+    @Test
+    void testCpf() {
+        assertEquals(23906078027L, Chaves.cpf("23906078027"));
+        assertEquals(Chaves.INVALIDA, Chaves.cpf("239.060.780-27"));
+        assertEquals(Chaves.INVALIDA, Chaves.cpf("2390607802"));
+    }
+}
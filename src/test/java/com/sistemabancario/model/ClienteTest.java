@@ -95,4 +95,37 @@ public class ClienteTest {
         instance.setNome(nome);
         assertEquals(instance.getNome(), nome);
     }
+
+    @Test
+    void testIsCpfValidoIgnoraFormatacao() {
+        final Cliente instance = new Cliente();
+        assertTrue(instance.isCpfValido("075.140.334-24"));
+        assertFalse(instance.isCpfValido("075.140.334-25"));
+        assertFalse(instance.isCpfValido("075.140.334-241"));
+    }
+
+    @Test
+    void testSetCpfMantemMensagens() {
+        final Cliente instance = new Cliente();
+        assertEquals("Cpf não pode ser vazio.",
+                assertThrows(IllegalArgumentException.class, () -> instance.setCpf("   ")).getMessage());
+        assertEquals("CPF inválido - Quantidade de caracteres",
+                assertThrows(IllegalArgumentException.class, () -> instance.setCpf("0751403342a")).getMessage());
+        assertEquals("CPF inválido - Números repetidos",
+                assertThrows(IllegalArgumentException.class, () -> instance.setCpf("11111111111")).getMessage());
+        assertEquals("CPF inválido",
+                assertThrows(IllegalArgumentException.class, () -> instance.setCpf("07514033425")).getMessage());
+    }
+
+    @Test
+    void testSetSenhaArmazenaSomenteHash() {
+        final Cliente instance = new Cliente();
+        instance.setCpf("23906078027");
+        instance.setSenha("1234");
+        assertNotEquals("1234", instance.getSenha());
+        assertTrue(Senhas.isHashValido(instance.getSenha()));
+        assertTrue(Cliente.autentica(instance, "23906078027", "1234"));
+        assertFalse(Cliente.autentica(instance, "23906078027", "1231"));
+        assertThrows(IllegalArgumentException.class, () -> instance.setSenha(" "));
+    }
 }
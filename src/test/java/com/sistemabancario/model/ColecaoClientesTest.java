@@ -0,0 +1,31 @@
+package com.sistemabancario.model;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ColecaoClientesTest {
+    @Test
+    void testGetClienteCpfNuloOuInvalido() {
+        final ColecaoClientes instance = new ColecaoClientes(16);
+        final Cliente cliente = new Cliente();
+        cliente.setCpf("23906078027");
+        instance.putCliente(cliente, "23906078027");
+
+        assertSame(cliente, instance.getCliente("23906078027"));
+        assertNull(instance.getCliente(null));
+        assertNull(instance.getCliente("1234567890"));
+        assertNull(instance.getCliente("30612517071"));
+    }
+
+    @Test
+    void testGetClientePelaChaveDoCpf() {
+        final ColecaoClientes instance = new ColecaoClientes(16);
+        final Cliente cliente = new Cliente();
+        cliente.setCpf("02390607845");
+        instance.putCliente(cliente, "02390607845");
+
+        assertSame(cliente, instance.getCliente(Chaves.cpf("02390607845")));
+        assertSame(cliente, instance.getCliente(2390607845L));
+        assertNull(instance.getCliente(-1L));
+    }
+}
@@ -0,0 +1,138 @@
+package com.sistemabancario.model;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ColecaoContasTest {
+    @Test
+    void testPutContas() {
+        final ColecaoContas instance = new ColecaoContas(16);
+        final Map<String, Conta> novas = new HashMap<>();
+        novas.put("11111-1", new Conta());
+        novas.put("22222-2", new Conta());
+        instance.putContas(novas);
+        assertEquals(2, instance.getTotal());
+        assertSame(novas.get("22222-2"), instance.getConta("22222-2"));
+    }
+
+    @Test
+    void testGetContaNumeroNuloOuInvalido() {
+        final ColecaoContas instance = new ColecaoContas(16);
+        instance.putConta(new Conta(), "11111-1");
+        assertNull(instance.getConta((String) null));
+        assertNull(instance.getConta("1111-1"));
+        assertNull(instance.getConta("33333-3"));
+    }
+
+    /**
+     * Vários caixas abrindo a mesma conta ao mesmo tempo devem obter
+     * o mesmo objeto, que deve ser criado uma única vez.
+     */
+    @Test
+    void testAbreContaConcorrente() throws InterruptedException {
+        final ColecaoContas instance = new ColecaoContas(16);
+        final AtomicInteger criadas = new AtomicInteger();
+        final Conta[] obtidas = new Conta[8];
+        final ExecutorService executor = Executors.newFixedThreadPool(obtidas.length);
+        for (int i = 0; i < obtidas.length; i++) {
+            final int caixa = i;
+            executor.execute(() -> obtidas[caixa] = instance.abreConta("12345-6", numero -> {
+                criadas.incrementAndGet();
+                final Conta conta = new Conta();
+                conta.setNumero(numero);
+                return conta;
+            }));
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+
+        assertEquals(1, criadas.get());
+        for (Conta conta : obtidas) {
+            assertSame(instance.getConta("12345-6"), conta);
+        }
+    }
+
+    @Test
+    void testGetContasDuranteInsercoes() {
+        final ColecaoContas instance = new ColecaoContas(16);
+        instance.putConta(new Conta(), "00000-0");
+        int percorridas = 0;
+        for (Conta conta : instance.getContas()) {
+            assertNotNull(conta);
+            instance.putConta(new Conta(), String.format("%05d-0", ++percorridas));
+            if (percorridas == 100) break;
+        }
+        assertTrue(percorridas > 0);
+        assertThrows(UnsupportedOperationException.class, () -> instance.getContas().clear());
+    }
+
+    @Test
+    void testAddMovimentacoesAgrupaPorConta() {
+        final ColecaoContas instance = new ColecaoContas(2);
+        final Conta conta1 = new Conta(), conta2 = new Conta();
+        instance.putConta(conta1, "12345-6");
+        instance.putConta(conta2, "65432-1");
+
+        final List<Movimentacao> lote = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            final Movimentacao movimentacao = new Movimentacao(i % 2 == 0 ? conta1 : conta2);
+            movimentacao.setTipo('C');
+            movimentacao.setValor(i % 2 == 0 ? 1 : 3);
+            lote.add(movimentacao);
+        }
+        instance.addMovimentacoes(lote);
+
+        assertEquals(50, conta1.getSaldo());
+        assertEquals(150, conta2.getSaldo());
+        assertEquals(50, conta2.getMovimentacoes().size());
+    }
+
+    /**
+     * As movimentações de todas as contas devem ser registradas antes de se aguardar
+     * a gravação, que deve ocorrer uma única vez para o lote inteiro.
+     */
+    @Test
+    void testAddMovimentacoesAguardaPersistenciaUmaVez() {
+        final ColecaoContas instance = new ColecaoContas(4);
+        final List<Long> aguardadas = new ArrayList<>();
+        final AtomicInteger registradas = new AtomicInteger();
+        instance.setRegistro(new RegistroOperacoes() {
+            @Override
+            public long registra(final Operacao operacao, final Movimentacao movimentacao, final Conta destino) {
+                return registradas.incrementAndGet();
+            }
+
+            @Override
+            public void aguardaPersistencia(final long sequencia) {
+                aguardadas.add(sequencia);
+            }
+        });
+
+        final List<Movimentacao> lote = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            final Conta conta = new Conta();
+            instance.putConta(conta, String.format("%05d-%d", i, i));
+            for (int j = 0; j < 3; j++) {
+                final Movimentacao movimentacao = new Movimentacao(conta);
+                movimentacao.setTipo('C');
+                movimentacao.setValor(1);
+                lote.add(movimentacao);
+            }
+        }
+        instance.addMovimentacoes(lote);
+
+        assertEquals(List.of(12L), aguardadas);
+        for (final Conta conta : instance.getContas()) {
+            assertEquals(3, conta.getSaldo());
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.sistemabancario.model;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class CompensacaoChequesTest {
+    private static final LocalDate HOJE = LocalDate.of(2024, 3, 10);
+
+    @Test
+    void testCompensaSomenteAteData() {
+        final CompensacaoCheques instance = new CompensacaoCheques();
+        final Conta conta = new Conta();
+        instance.depositoCheque(conta, 100, HOJE);
+        instance.depositoCheque(conta, 50, HOJE.minusDays(1));
+        instance.depositoCheque(conta, 30, HOJE.plusDays(1));
+
+        final ResultadoCompensacao resultado = instance.compensa(HOJE, deposito -> true);
+        assertEquals(2, resultado.getConfirmados());
+        assertEquals(150, resultado.getValorConfirmado());
+        assertEquals(150, conta.getSaldo());
+        assertEquals(1, conta.getTotalDepositosPendentes());
+        assertEquals(1, instance.getTotalAgendados());
+    }
+
+    @Test
+    void testDevolveChequesRejeitados() {
+        final CompensacaoCheques instance = new CompensacaoCheques();
+        final Conta conta1 = new Conta(), conta2 = new Conta();
+        for (int i = 1; i <= 100; i++) {
+            instance.depositoCheque(i % 2 == 0 ? conta1 : conta2, i, HOJE);
+        }
+
+        final ResultadoCompensacao resultado = instance.compensa(HOJE, deposito -> deposito.getValor() <= 50);
+        assertEquals(50, resultado.getConfirmados());
+        assertEquals(50, resultado.getDevolvidos());
+        assertEquals(650, conta1.getSaldo());
+        assertEquals(625, conta2.getSaldo());
+        assertEquals(0, conta1.getTotalDepositosPendentes());
+        assertTrue(conta1.getMovimentacoes().get(99 / 2).isDevolvida());
+        assertEquals(0, instance.getTotalAgendados());
+    }
+
+    @Test
+    void testIgnoraChequeConfirmadoIndividualmente() {
+        final CompensacaoCheques instance = new CompensacaoCheques();
+        final Conta conta = new Conta();
+        final Movimentacao deposito = instance.depositoCheque(conta, 100, HOJE);
+        conta.confirmaDepositoCheque(deposito);
+
+        final ResultadoCompensacao resultado = instance.compensa(HOJE, d -> true);
+        assertEquals(0, resultado.getConfirmados());
+        assertEquals(100, conta.getSaldo());
+    }
+
+    @Test
+    void testChequeDevolvidoNaoPodeSerConfirmado() {
+        final Conta conta = new Conta();
+        conta.depositoCheque(100);
+        conta.devolveDepositoCheque(conta.getMovimentacoes().get(0));
+
+        assertThrows(IllegalStateException.class, () -> conta.confirmaDepositoCheque(conta.getMovimentacoes().get(0)));
+        assertEquals(0, conta.getSaldo());
+        assertEquals(0, conta.getTotalDepositosPendentes());
+    }
+
+    /**
+     * As operações de todas as contas devem ser registradas antes de se aguardar
+     * a gravação, que deve ocorrer uma única vez para a compensação inteira.
+     */
+    @Test
+    void testAguardaPersistenciaUmaVez() {
+        final CompensacaoCheques instance = new CompensacaoCheques();
+        final List<Long> aguardadas = new ArrayList<>();
+        final AtomicLong registradas = new AtomicLong();
+        final RegistroOperacoes registro = new RegistroOperacoes() {
+            @Override
+            public long registra(final Operacao operacao, final Movimentacao movimentacao, final Conta destino) {
+                return registradas.incrementAndGet();
+            }
+
+            @Override
+            public void aguardaPersistencia(final long sequencia) {
+                aguardadas.add(sequencia);
+            }
+        };
+
+        final Conta[] contas = {new Conta(), new Conta(), new Conta()};
+        for (final Conta conta : contas) {
+            conta.setRegistro(registro);
+            instance.depositoCheque(conta, 10, HOJE);
+            instance.depositoCheque(conta, 20, HOJE.minusDays(1));
+        }
+
+        aguardadas.clear();
+        final ResultadoCompensacao resultado = instance.compensa(HOJE, deposito -> deposito.getValor() == 10);
+        assertEquals(3, resultado.getConfirmados());
+        assertEquals(3, resultado.getDevolvidos());
+        assertEquals(List.of(12L), aguardadas);
+        for (final Conta conta : contas) {
+            assertEquals(10, conta.getSaldo());
+        }
+    }
+}
@@ -3,7 +3,17 @@ package com.sistemabancario.model;
 import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class ContaTest {
 
@@ -212,10 +222,282 @@ public class ContaTest {
         assertEquals(esperado, obtido);
     }
 
+    @Test
+    void depositosSemErroDeArredondamento() {
+        final Conta instance = new Conta();
+        for (int i = 0; i < 10; i++) {
+            instance.depositoDinheiro(0.1);
+        }
+        assertEquals(1.0, instance.getSaldo());
+        assertEquals(100, instance.getSaldoCentavos());
+    }
+
     @Test
     void depositoDinheiroValorNegativo(){
         final Conta instance = new Conta();
         assertThrows(IllegalArgumentException.class,()-> instance.depositoDinheiro(-400));
     }
     
+    /**
+     * Dois saques simultâneos com valor igual ao saldo total:
+     * somente o primeiro deve ser permitido.
+     */
+    @Test
+    void saquesSimultaneosDoSaldoTotal() throws InterruptedException {
+        final int tentativas = 200;
+        for (int t = 0; t < tentativas; t++) {
+            final Conta instance = new Conta();
+            instance.depositoDinheiro(100);
+            final AtomicInteger sucessos = new AtomicInteger();
+            final CountDownLatch largada = new CountDownLatch(1);
+            final Runnable saque = () -> {
+                try {
+                    largada.await();
+                    instance.saque(100);
+                    sucessos.incrementAndGet();
+                } catch (IllegalArgumentException | InterruptedException e) {
+                    // saque recusado por falta de saldo
+                }
+            };
+
+            final Thread caixa1 = new Thread(saque), caixa2 = new Thread(saque);
+            caixa1.start();
+            caixa2.start();
+            largada.countDown();
+            caixa1.join();
+            caixa2.join();
+
+            assertEquals(1, sucessos.get());
+            assertEquals(0, instance.getSaldo());
+            assertEquals(2, instance.getMovimentacoes().size());
+        }
+    }
+
+    @Test
+    void depositosConcorrentesNaoPerdemValores() throws InterruptedException {
+        final int threads = 8, depositos = 1000;
+        final Conta instance = new Conta();
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        for (int t = 0; t < threads; t++) {
+            executor.execute(() -> {
+                for (int i = 0; i < depositos; i++) {
+                    instance.depositoDinheiro(1);
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+
+        assertEquals(threads * depositos, instance.getSaldo());
+        assertEquals(threads * depositos, instance.getMovimentacoes().size());
+    }
+
+    @Test
+    void transferencia() {
+        final Conta origem = new Conta(), destino = new Conta();
+        origem.depositoDinheiro(300);
+        destino.setNumero("12345-6");
+        origem.transferencia(destino, 120.5);
+
+        assertEquals(179.5, origem.getSaldo());
+        assertEquals(120.5, destino.getSaldo());
+        final Movimentacao debito = origem.getMovimentacoes().get(1);
+        assertEquals('D', debito.getTipo());
+        assertEquals("Transferência para conta 12345-6", debito.getDescricao());
+        assertEquals('C', destino.getMovimentacoes().get(0).getTipo());
+    }
+
+    @Test
+    void transferenciaSaldoInsuficienteNaoAlteraContas() {
+        final Conta origem = new Conta(), destino = new Conta();
+        origem.depositoDinheiro(100);
+        assertThrows(IllegalArgumentException.class, () -> origem.transferencia(destino, 100.01));
+        assertEquals(100, origem.getSaldo());
+        assertEquals(0, destino.getSaldo());
+        assertEquals(1, origem.getMovimentacoes().size());
+        assertTrue(destino.getMovimentacoes().isEmpty());
+    }
+
+    @Test
+    void transferenciaContaDestinoInexistente() {
+        final Conta origem = new Conta();
+        origem.depositoDinheiro(100);
+        assertThrows(IllegalArgumentException.class, () -> origem.transferencia(null, 10));
+        assertThrows(IllegalArgumentException.class, () -> origem.transferencia(origem, 10));
+        assertEquals(100, origem.getSaldo());
+    }
+
+    /**
+     * Transferências simultâneas em sentidos opostos entre as mesmas contas
+     * não podem causar deadlock nem criar ou perder dinheiro.
+     */
+    @Test
+    void transferenciasConcorrentesEmSentidosOpostos() throws InterruptedException {
+        final Conta a = new Conta(), b = new Conta();
+        a.depositoDinheiro(1000);
+        b.depositoDinheiro(1000);
+        final int threads = 8, transferencias = 2000;
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        for (int t = 0; t < threads; t++) {
+            final Conta origem = t % 2 == 0 ? a : b, destino = origem == a ? b : a;
+            executor.execute(() -> {
+                for (int i = 0; i < transferencias; i++) {
+                    try {
+                        origem.transferencia(destino, 1);
+                    } catch (IllegalArgumentException e) {
+                        // saldo insuficiente naquele instante
+                    }
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+
+        assertEquals(2000, a.getSaldo() + b.getSaldo());
+    }
+
+    private static void defineInstante(final Conta conta, final long segundos) {
+        conta.setRelogio(Clock.fixed(Instant.ofEpochSecond(segundos), ZoneOffset.UTC));
+    }
+
+    @Test
+    void testSaldoEmInstanteAnterior() {
+        final Conta instance = new Conta();
+        defineInstante(instance, 1000);
+        instance.setSaldo(50);
+        for (int i = 1; i <= 1000; i++) {
+            defineInstante(instance, 1000 + i);
+            instance.depositoDinheiro(1);
+        }
+        defineInstante(instance, 3000);
+        instance.saque(30);
+
+        assertEquals(0, instance.getSaldoEm(Instant.ofEpochSecond(999)));
+        assertEquals(50, instance.getSaldoEm(Instant.ofEpochSecond(1000)));
+        assertEquals(550, instance.getSaldoEm(Instant.ofEpochSecond(1500)));
+        assertEquals(1050, instance.getSaldoEm(Instant.ofEpochSecond(2999)));
+        assertEquals(1020, instance.getSaldoEm(Instant.ofEpochSecond(3000)));
+        assertEquals(Instant.ofEpochSecond(3000), instance.getMovimentacoes().get(1000).getInstante());
+    }
+
+    @Test
+    void testSaldoEmConsideraConfirmacaoDoCheque() {
+        final Conta instance = new Conta();
+        defineInstante(instance, 10);
+        instance.depositoCheque(100);
+        defineInstante(instance, 20);
+        instance.confirmaDepositoCheque(instance.getMovimentacoes().get(0));
+
+        assertEquals(0, instance.getSaldoEm(Instant.ofEpochSecond(15)));
+        assertEquals(100, instance.getSaldoEm(Instant.ofEpochSecond(20)));
+    }
+
+    @Test
+    void testInstanteDasMovimentacoesNaoDiminui() {
+        final Conta instance = new Conta();
+        defineInstante(instance, 100);
+        instance.depositoDinheiro(10);
+        defineInstante(instance, 50);
+        instance.depositoDinheiro(10);
+
+        assertEquals(Instant.ofEpochSecond(100), instance.getMovimentacoes().get(1).getInstante());
+        assertEquals(20, instance.getSaldoEm(Instant.ofEpochSecond(100)));
+    }
+
+    @Test
+    void testExtratoPaginado() {
+        final Conta instance = new Conta();
+        for (int i = 1; i <= 100; i++) {
+            defineInstante(instance, i);
+            if (i % 10 == 0) instance.depositoCheque(i);
+            else instance.depositoDinheiro(i);
+        }
+
+        final FiltroExtrato filtro = new FiltroExtrato(Instant.ofEpochSecond(21), Instant.ofEpochSecond(61));
+        final PaginaExtrato primeira = instance.getExtrato(filtro, 0, 25);
+        assertEquals(25, primeira.getMovimentacoes().size());
+        assertEquals(21, primeira.getMovimentacoes().get(0).getValor());
+        assertTrue(primeira.hasProximaPagina());
+
+        final PaginaExtrato segunda = instance.getExtrato(filtro, primeira.getProximoCursor(), 25);
+        assertEquals(15, segunda.getMovimentacoes().size());
+        assertEquals(60, segunda.getMovimentacoes().get(14).getValor());
+        assertFalse(segunda.hasProximaPagina());
+    }
+
+    @Test
+    void testExtratoFiltraPendentes() {
+        final Conta instance = new Conta();
+        for (int i = 1; i <= 100; i++) {
+            defineInstante(instance, i);
+            if (i % 10 == 0) instance.depositoCheque(i);
+            else instance.depositoDinheiro(i);
+        }
+
+        final FiltroExtrato filtro = new FiltroExtrato(Instant.EPOCH, Instant.ofEpochSecond(1000));
+        filtro.setTipo('C');
+        filtro.setConfirmada(false);
+        final PaginaExtrato pagina = instance.getExtrato(filtro, 0, 50);
+        assertEquals(10, pagina.getMovimentacoes().size());
+        assertEquals(Instant.ofEpochSecond(100), pagina.getMovimentacoes().get(9).getInstante());
+        assertFalse(pagina.hasProximaPagina());
+    }
+
+    @Test
+    void testAddMovimentacaoAdicionaAoHistorico() {
+        final Conta instance = new Conta();
+        final Movimentacao movimentacao = new Movimentacao(instance);
+        movimentacao.setTipo('C');
+        movimentacao.setValor(10);
+        instance.addMovimentacao(movimentacao);
+
+        assertEquals(10, instance.getSaldo());
+        assertEquals(1, instance.getMovimentacoes().size());
+        assertNotNull(movimentacao.getInstante());
+    }
+
+    @Test
+    void testAddMovimentacoesEmLote() {
+        final Conta instance = new Conta();
+        final List<Movimentacao> lote = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            final Movimentacao movimentacao = new Movimentacao(instance, i % 100 != 0);
+            movimentacao.setTipo('C');
+            movimentacao.setValor(2.5);
+            lote.add(movimentacao);
+        }
+        instance.addMovimentacoes(lote);
+
+        assertEquals(990 * 2.5, instance.getSaldo());
+        assertEquals(1000, instance.getMovimentacoes().size());
+        assertEquals(10, instance.getTotalDepositosPendentes());
+    }
+
+    @Test
+    void testAddMovimentacoesValidaLoteAntes() {
+        final Conta instance = new Conta();
+        final Movimentacao valida = new Movimentacao(instance);
+        valida.setTipo('C');
+        valida.setValor(1);
+        final Movimentacao semTipo = new Movimentacao(instance);
+
+        assertThrows(IllegalArgumentException.class, () -> instance.addMovimentacoes(Arrays.asList(valida, semTipo)));
+        assertEquals(0, instance.getSaldo());
+        assertTrue(instance.getMovimentacoes().isEmpty());
+    }
+
+    @Test
+    void testOperacoesEmCentavos() {
+        final Conta instance = new Conta(), destino = new Conta();
+        instance.depositoDinheiroCentavos(10_001);
+        instance.saqueCentavos(2_000);
+        instance.transferenciaCentavos(destino, 3_001);
+
+        assertEquals(5_000, instance.getSaldoCentavos());
+        assertEquals(3_001, destino.getSaldoCentavos());
+        assertThrows(IllegalArgumentException.class, () -> instance.saqueCentavos(5_001));
+        assertThrows(IllegalArgumentException.class, () -> instance.depositoDinheiroCentavos(0));
+        assertThrows(IllegalArgumentException.class, () -> instance.transferenciaCentavos(destino, -1));
+        assertEquals(3, instance.getMovimentacoes().size());
+    }
 }
@@ -0,0 +1,153 @@
+package com.sistemabancario.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HistoricoMovimentacoesTest {
+    @Test
+    void testAddCopiaAtributos() {
+        final Conta conta = new Conta();
+        final HistoricoMovimentacoes instance = new HistoricoMovimentacoes(conta);
+        final Movimentacao movimentacao = new Movimentacao(conta, false);
+        movimentacao.setId(7);
+        movimentacao.setTipo('C');
+        movimentacao.setValor(12.34);
+        movimentacao.setDescricao("Depósito em cheque");
+        instance.anexa(movimentacao);
+
+        final Movimentacao obtida = instance.get(0);
+        assertEquals(7, obtida.getId());
+        assertEquals('C', obtida.getTipo());
+        assertEquals(1234, obtida.getValorCentavos());
+        assertEquals("Depósito em cheque", obtida.getDescricao());
+        assertFalse(obtida.isConfirmada());
+    }
+
+    @Test
+    void testAlteracaoNaVisaoEhGravadaNoHistorico() {
+        final Conta conta = new Conta();
+        final HistoricoMovimentacoes instance = new HistoricoMovimentacoes(conta);
+        final Movimentacao movimentacao = new Movimentacao(conta, false);
+        movimentacao.setTipo('C');
+        instance.anexa(movimentacao);
+
+        instance.get(0).setDescricao("Depósito em cheque");
+        instance.get(0).setId(3);
+        assertEquals("Depósito em cheque", instance.get(0).getDescricao());
+        assertEquals(3, instance.get(0).getId());
+    }
+
+    @Test
+    void testVisaoNaoAlteraSaldo() {
+        final Conta conta = new Conta();
+        conta.depositoCheque(40);
+        final Movimentacao deposito = conta.getMovimentacoes().get(0);
+
+        assertThrows(UnsupportedOperationException.class, () -> deposito.setConfirmada(true));
+        assertThrows(UnsupportedOperationException.class, () -> deposito.setValorCentavos(1));
+        assertThrows(UnsupportedOperationException.class, () -> deposito.setTipo('D'));
+        assertEquals(1, conta.getTotalDepositosPendentes());
+
+        conta.confirmaDepositoCheque(deposito);
+        assertEquals(40, conta.getSaldo());
+        assertEquals(conta.getSaldoCentavos(), conta.getSaldoEmCentavos(Instant.now().plusSeconds(1)));
+    }
+
+    @Test
+    void testCapacidadeAumentaAutomaticamente() {
+        final Conta conta = new Conta();
+        final HistoricoMovimentacoes instance = new HistoricoMovimentacoes(conta);
+        for (int i = 1; i <= 1000; i++) {
+            final Movimentacao movimentacao = new Movimentacao(conta);
+            movimentacao.setTipo('C');
+            movimentacao.setValorCentavos(i);
+            if (i == 500) movimentacao.setDescricao("Salário");
+            instance.anexa(movimentacao);
+        }
+
+        assertEquals(1000, instance.size());
+        assertEquals(1000, instance.get(999).getValorCentavos());
+        assertEquals("Salário", instance.get(499).getDescricao());
+        assertNull(instance.get(0).getDescricao());
+        assertThrows(IndexOutOfBoundsException.class, () -> instance.get(1000));
+    }
+
+    @Test
+    void testAlteracaoNaVisaoAtualizaPontosControle() {
+        final Conta conta = new Conta();
+        final HistoricoMovimentacoes instance = new HistoricoMovimentacoes(conta);
+        for (int i = 0; i < HistoricoMovimentacoes.INTERVALO_PONTOS_CONTROLE * 3; i++) {
+            final Movimentacao movimentacao = new Movimentacao(conta);
+            movimentacao.setTipo('C');
+            movimentacao.setValorCentavos(1);
+            instance.anexa(movimentacao);
+        }
+
+        assertTrue(instance.confirma(0, false));
+        final Instant agora = Instant.now().plusSeconds(1);
+        assertEquals(HistoricoMovimentacoes.INTERVALO_PONTOS_CONTROLE * 3 - 1, instance.saldoEm(agora));
+    }
+
+    @Test
+    void testHistoricoSomentePermiteAdicionar() {
+        final Conta conta = new Conta();
+        final HistoricoMovimentacoes instance = new HistoricoMovimentacoes(conta);
+        final Movimentacao movimentacao = new Movimentacao(conta, true);
+        movimentacao.setTipo('C');
+        instance.anexa(movimentacao);
+
+        assertThrows(UnsupportedOperationException.class, () -> instance.add(movimentacao));
+        assertThrows(UnsupportedOperationException.class, () -> instance.addAll(List.of(movimentacao)));
+        assertThrows(UnsupportedOperationException.class, () -> conta.getMovimentacoes().add(movimentacao));
+        assertThrows(UnsupportedOperationException.class, () -> instance.set(0, movimentacao));
+        assertThrows(UnsupportedOperationException.class, () -> instance.remove(0));
+        assertThrows(UnsupportedOperationException.class, instance::clear);
+        assertEquals(1, instance.size());
+    }
+
+    @Test
+    void testDescricoesConsecutivasIguaisCompartilhamString() {
+        final Conta conta = new Conta();
+        final HistoricoMovimentacoes instance = new HistoricoMovimentacoes(conta);
+        for (final String descricao : new String[]{"Salário", new String("Salário"), "Transferência para conta 12345-6", null}) {
+            final Movimentacao movimentacao = new Movimentacao(conta, true);
+            movimentacao.setTipo('C');
+            if (descricao != null) {
+                movimentacao.setDescricao(descricao);
+            }
+            instance.anexa(movimentacao);
+        }
+
+        assertSame(instance.get(0).getDescricao(), instance.get(1).getDescricao());
+        assertEquals("Transferência para conta 12345-6", instance.get(2).getDescricao());
+        assertNull(instance.get(3).getDescricao());
+    }
+
+    @Test
+    void testDescricaoTransferenciaMontadaPelaChaveDaConta() {
+        final Conta conta = new Conta();
+        final HistoricoMovimentacoes instance = new HistoricoMovimentacoes(conta);
+        final String[] descricoes = {
+                "Transferência para conta 12345-6", "Transferência da conta 00001-0",
+                "Estorno de transferência para conta 99999-9", "Transferência para conta 1234-5"
+        };
+        for (final String descricao : descricoes) {
+            final Movimentacao movimentacao = new Movimentacao(conta, true);
+            movimentacao.setTipo('C');
+            movimentacao.setDescricao(descricao);
+            instance.anexa(movimentacao);
+        }
+
+        for (int i = 0; i < descricoes.length; i++) {
+            assertEquals(descricoes[i], instance.get(i).getDescricao());
+        }
+
+        instance.get(0).setDescricao("Salário");
+        assertEquals("Salário", instance.get(0).getDescricao());
+        instance.get(3).setDescricao("Transferência da conta 54321-0");
+        assertEquals("Transferência da conta 54321-0", instance.get(3).getDescricao());
+    }
+}
@@ -0,0 +1,50 @@
+package com.sistemabancario.model;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+public class IndiceClientesTest {
+    @Test
+    void testCresceMantendoClientes() {
+        final IndiceClientes instance = new IndiceClientes(0);
+        final Cliente[] clientes = new Cliente[10000];
+        for (int i = 0; i < clientes.length; i++) {
+            clientes[i] = new Cliente();
+            assertNull(instance.put(99_999_999_999L - i * 7L, clientes[i]));
+        }
+
+        assertEquals(clientes.length, instance.size());
+        for (int i = 0; i < clientes.length; i++) {
+            assertSame(clientes[i], instance.get(99_999_999_999L - i * 7L));
+        }
+        assertNull(instance.get(1));
+    }
+
+    @Test
+    void testCpfZeroEPutSubstitui() {
+        final IndiceClientes instance = new IndiceClientes(4);
+        final Cliente anterior = new Cliente(), novo = new Cliente();
+        assertNull(instance.get(0));
+        instance.put(0, anterior);
+        assertSame(anterior, instance.put(0, novo));
+        assertSame(novo, instance.get(0));
+        assertEquals(1, instance.size());
+    }
+
+    @Test
+    void testValuesRetornaCadaClienteUmaVez() {
+        final IndiceClientes instance = new IndiceClientes(4);
+        for (int i = 0; i < 100; i++) {
+            instance.put(i, new Cliente());
+        }
+
+        final Map<Cliente, Boolean> percorridos = new IdentityHashMap<>();
+        for (final Cliente cliente : instance.values()) {
+            assertNull(percorridos.put(cliente, true));
+        }
+        assertEquals(100, percorridos.size());
+    }
+}
@@ -0,0 +1,118 @@
+package com.sistemabancario.model;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class IndiceContasTest {
+    @Test
+    void testCresceMantendoContas() {
+        for (final boolean foraDoHeap : new boolean[]{false, true}) {
+            final IndiceContas instance = new IndiceContas(0, foraDoHeap);
+            final Conta[] contas = new Conta[10000];
+            for (int chave = 0; chave < contas.length; chave++) {
+                contas[chave] = new Conta();
+                assertNull(instance.put(chave * 10, contas[chave]));
+            }
+
+            assertEquals(contas.length, instance.size());
+            for (int chave = 0; chave < contas.length; chave++) {
+                assertSame(contas[chave], instance.get(chave * 10));
+                assertNull(instance.get(chave * 10 + 1));
+            }
+        }
+    }
+
+    @Test
+    void testPutSubstitui() {
+        final IndiceContas instance = new IndiceContas(4, false);
+        final Conta anterior = new Conta(), nova = new Conta();
+        instance.put(0, anterior);
+        assertSame(anterior, instance.put(0, nova));
+        assertSame(nova, instance.get(0));
+        assertEquals(1, instance.size());
+    }
+
+    @Test
+    void testValuesRetornaCadaContaUmaVez() {
+        final IndiceContas instance = new IndiceContas(4, true);
+        for (int chave = 0; chave < 100; chave++) {
+            instance.computeIfAbsent(chave, c -> new Conta());
+        }
+
+        final Map<Conta, Boolean> percorridas = new IdentityHashMap<>();
+        for (final Conta conta : instance.values()) {
+            assertNull(percorridas.put(conta, true));
+        }
+        assertEquals(100, percorridas.size());
+    }
+
+    /**
+     * Uma pesquisa feita enquanto outra thread insere contas (e a tabela cresce)
+     * deve encontrar todas as contas que já foram inseridas.
+     */
+    @Test
+    void testPesquisaDuranteInsercoes() throws InterruptedException {
+        final IndiceContas instance = new IndiceContas(0, false);
+        final int total = 200_000;
+        final AtomicBoolean falhou = new AtomicBoolean();
+        final Thread leitor = new Thread(() -> {
+            while (instance.size() < total) {
+                final int inseridas = instance.size();
+                if (inseridas > 0 && instance.get(inseridas - 1) == null) {
+                    falhou.set(true);
+                }
+            }
+        });
+        leitor.start();
+        for (int chave = 0; chave < total; chave++) {
+            instance.put(chave, new Conta());
+        }
+        leitor.join();
+        assertFalse(falhou.get());
+    }
+
+    /**
+     * Várias threads inserindo chaves diferentes (e a mesma chave) ao mesmo tempo,
+     * enquanto a tabela cresce, não devem perder nenhuma conta nem criar uma conta duas vezes.
+     */
+    @Test
+    void testInsercoesConcorrentes() throws InterruptedException {
+        for (final boolean foraDoHeap : new boolean[]{false, true}) {
+            final IndiceContas instance = new IndiceContas(0, foraDoHeap);
+            final int threads = 8, porThread = 20_000, compartilhadas = 500_000;
+            final AtomicInteger criadas = new AtomicInteger();
+            final ExecutorService executor = Executors.newFixedThreadPool(threads);
+            for (int t = 0; t < threads; t++) {
+                final int primeira = t * porThread;
+                executor.execute(() -> {
+                    for (int chave = primeira; chave < primeira + porThread; chave++) {
+                        instance.put(chave, new Conta());
+                        instance.computeIfAbsent(compartilhadas + chave - primeira, c -> {
+                            criadas.incrementAndGet();
+                            return new Conta();
+                        });
+                    }
+                });
+            }
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+
+            assertEquals(threads * porThread + porThread, instance.size());
+            assertEquals(porThread, criadas.get());
+            for (int chave = 0; chave < threads * porThread; chave++) {
+                assertNotNull(instance.get(chave));
+            }
+            for (int chave = compartilhadas; chave < compartilhadas + porThread; chave++) {
+                assertNotNull(instance.get(chave));
+            }
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.sistemabancario.model;
+
+import com.sistemabancario.benchmark.Dados;
+import com.sistemabancario.metricas.Metricas;
+import com.sistemabancario.metricas.MotivoRecusa;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class LimiteTentativasTest {
+    private static final String CPF = "23906078027", OUTRO_CPF = "30612517071", TERCEIRO_CPF = "11144477735";
+    private static final long MINUTO = TimeUnit.MINUTES.toNanos(1);
+
+    /**
+     * Relógio que só avança quando o teste define.
+     */
+    private final AtomicLong agora = new AtomicLong(-MINUTO);
+
+    @Test
+    void testRejeitaExcessoPorCpfEReponheComOTempo() {
+        final LimiteTentativas instance = new LimiteTentativas(3, 1000, 1000, MINUTO, agora::get);
+        for (int i = 0; i < 3; i++) {
+            assertTrue(instance.permite(CPF, true));
+        }
+        assertFalse(instance.permite(CPF, true));
+        assertTrue(instance.permite(OUTRO_CPF, true));
+
+        // Uma tentativa é reposta a cada 20 segundos
+        agora.addAndGet(MINUTO / 3);
+        assertTrue(instance.permite(CPF, true));
+        assertFalse(instance.permite(CPF, true));
+
+        agora.addAndGet(MINUTO);
+        for (int i = 0; i < 3; i++) {
+            assertTrue(instance.permite(CPF, true));
+        }
+        assertFalse(instance.permite(CPF, true));
+    }
+
+    @Test
+    void testLimiteGlobalSomenteParaFalhas() {
+        final LimiteTentativas instance = new LimiteTentativas(10, 2, 1000, MINUTO, agora::get);
+        for (int i = 0; i < 5; i++) {
+            assertTrue(instance.permite(CPF, true));
+        }
+        assertTrue(instance.permite(OUTRO_CPF, false));
+
+        instance.registraFalha();
+        instance.registraFalha();
+        assertFalse(instance.permite(OUTRO_CPF, false));
+        assertTrue(instance.permite(CPF, true));
+    }
+
+    /**
+     * Uma tentativa rejeitada pelo limite global de verificações não deve consumir a ficha do CPF.
+     */
+    @Test
+    void testRejeicaoGlobalNaoConsomeFichaDoCpf() {
+        final LimiteTentativas instance = new LimiteTentativas(1, 1000, 2, MINUTO, agora::get);
+        assertTrue(instance.permite(CPF, true));
+        assertTrue(instance.permite(TERCEIRO_CPF, true));
+        for (int i = 0; i < 10; i++) {
+            assertFalse(instance.permite(OUTRO_CPF, true));
+        }
+
+        // Uma verificação é reposta a cada 30 segundos, e a ficha do CPF continua disponível
+        agora.addAndGet(MINUTO / 2);
+        assertTrue(instance.permite(OUTRO_CPF, true));
+    }
+
+    @Test
+    void testCpfsNaoCadastradosLimitadosSomentePelasFalhas() {
+        final LimiteTentativas instance = new LimiteTentativas(1, 2, 1, MINUTO, agora::get);
+        for (int i = 0; i < 5; i++) {
+            assertTrue(instance.permite("123", false));
+            assertTrue(instance.permite(null, false));
+        }
+
+        instance.registraFalha();
+        instance.registraFalha();
+        assertFalse(instance.permite("abc", false));
+        assertFalse(instance.permite(OUTRO_CPF, false));
+        assertTrue(instance.permite(CPF, true));
+    }
+
+    @Test
+    void testSessoesRejeitaAntesDeConferirSenha() {
+        final Cliente cliente = new Cliente();
+        cliente.setCpf(CPF);
+        cliente.setHashSenha(Senhas.gera("1234", 1000));
+        final ColecaoClientes clientes = new ColecaoClientes(4);
+        clientes.putCliente(cliente, CPF);
+
+        final Sessoes sessoes = new Sessoes(10, 1, TimeUnit.MINUTES);
+        sessoes.setLimite(new LimiteTentativas(2, 1000, 1000, MINUTO, agora::get));
+        assertNull(sessoes.abre(clientes, CPF, "1231"));
+        assertNotNull(sessoes.abre(clientes, CPF, "1234"));
+        assertNull(sessoes.abre(clientes, CPF, "1234"));
+    }
+
+    /**
+     * Durante um ataque com CPFs inexistentes, que esgota o limite global,
+     * um cliente cadastrado continua conseguindo entrar.
+     */
+    @Test
+    void testClienteCadastradoEntraDuranteAtaque() {
+        final Cliente cliente = new Cliente();
+        cliente.setCpf(CPF);
+        cliente.setHashSenha(Senhas.gera("1234", 1000));
+        final ColecaoClientes clientes = new ColecaoClientes(4);
+        clientes.putCliente(cliente, CPF);
+
+        final Sessoes sessoes = new Sessoes(10, 1, TimeUnit.MINUTES);
+        sessoes.setLimite(new LimiteTentativas(5, 100, 1000, MINUTO, agora::get));
+        for (int i = 0; i < 10_000; i++) {
+            assertNull(sessoes.abre(clientes, String.format("%011d", i), "1234"));
+        }
+
+        assertNotNull(sessoes.abre(clientes, CPF, "1234"));
+    }
+
+    /**
+     * Um ataque que distribui as tentativas entre muitos CPFs cadastrados
+     * (sem exceder o limite de cada CPF) só pode conferir, e calcular o hash de,
+     * tantas senhas quanto o limite global de verificações permite.
+     */
+    @Test
+    void testAtaqueComCpfsCadastradosLimitaVerificacoes() {
+        final int totalClientes = 50, verificacoes = 10;
+        final ColecaoClientes clientes = new ColecaoClientes(totalClientes);
+        for (int i = 0; i < totalClientes; i++) {
+            final Cliente cliente = new Cliente();
+            cliente.setCpf(Dados.cpf(i));
+            cliente.setHashSenha(Senhas.gera("1234", 1000));
+            clientes.putCliente(cliente, cliente.getCpf());
+        }
+
+        final Sessoes sessoes = new Sessoes(10, 1, TimeUnit.MINUTES);
+        sessoes.setLimite(new LimiteTentativas(5, 1000, verificacoes, MINUTO, agora::get));
+        final Metricas metricas = Metricas.getInstancia();
+        metricas.setHabilitadas(true);
+        try {
+            final long antes = Metricas.AUTENTICACAO.getRecusas(MotivoRecusa.SENHA_INCORRETA);
+            for (int tentativa = 0; tentativa < 5; tentativa++) {
+                for (int i = 0; i < totalClientes; i++) {
+                    assertNull(sessoes.abre(clientes, Dados.cpf(i), "0000"));
+                }
+            }
+
+            assertEquals(verificacoes, Metricas.AUTENTICACAO.getRecusas(MotivoRecusa.SENHA_INCORRETA) - antes);
+        } finally {
+            metricas.setHabilitadas(false);
+        }
+
+        // Quando as verificações são repostas, o cliente volta a conseguir entrar
+        agora.addAndGet(MINUTO);
+        assertNotNull(sessoes.abre(clientes, Dados.cpf(totalClientes - 1), "1234"));
+    }
+}
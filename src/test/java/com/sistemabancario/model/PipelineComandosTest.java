@@ -0,0 +1,216 @@
+package com.sistemabancario.model;
+
+import com.sistemabancario.persistencia.DiarioOperacoes;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PipelineComandosTest {
+    private static final int TOTAL_CONTAS = 16;
+
+    @TempDir
+    Path diretorio;
+
+    /**
+     * Cópia do resultado de um comando, pois o comando é reutilizado após a resposta.
+     */
+    private static final class Resultado {
+        private final long identificador;
+        private final long saldoCentavos;
+        private final RuntimeException erro;
+        private final Movimentacao cheque;
+
+        Resultado(final Comando comando) {
+            identificador = comando.getIdentificador();
+            saldoCentavos = comando.getSaldoCentavos();
+            erro = comando.getErro();
+            cheque = comando.getCheque();
+        }
+    }
+
+    private static ColecaoContas novasContas() {
+        final ColecaoContas contas = new ColecaoContas(TOTAL_CONTAS);
+        for (int i = 0; i < TOTAL_CONTAS; i++) {
+            final Conta conta = new Conta();
+            conta.setNumero(numero(i));
+            conta.setSaldo(100);
+            contas.putConta(conta, conta.getNumero());
+        }
+        return contas;
+    }
+
+    private static String numero(final int i) {
+        return String.format("%05d-%d", i, i % 10);
+    }
+
+    private static int chave(final int i) {
+        return Chaves.conta(numero(i));
+    }
+
+    private static Resultado aguarda(final BlockingQueue<Resultado> respostas) throws InterruptedException {
+        final Resultado resultado = respostas.poll(10, TimeUnit.SECONDS);
+        assertNotNull(resultado, "Comando não foi respondido");
+        return resultado;
+    }
+
+    @Test
+    void testCapacidadeInvalida() {
+        assertThrows(IllegalArgumentException.class, () -> new PipelineComandos(novasContas(), 100, (comando, fim) -> {}));
+    }
+
+    @Test
+    void testOperacoes() throws InterruptedException {
+        final ColecaoContas contas = novasContas();
+        final BlockingQueue<Resultado> respostas = new LinkedBlockingQueue<>();
+        try (PipelineComandos pipeline = new PipelineComandos(contas, 8, (comando, fim) -> respostas.add(new Resultado(comando)))) {
+            pipeline.depositoDinheiro(1, chave(0), 50_00);
+            pipeline.saque(2, chave(0), 30_00);
+            pipeline.saque(3, chave(0), 1000_00);
+            pipeline.transferencia(4, chave(0), chave(1), 20_00);
+            pipeline.depositoDinheiro(5, Chaves.conta("99999-9"), 1);
+            pipeline.depositoCheque(6, chave(0), 40_00);
+
+            assertEquals(150_00, aguarda(respostas).saldoCentavos);
+            assertEquals(120_00, aguarda(respostas).saldoCentavos);
+
+            final Resultado recusado = aguarda(respostas);
+            assertEquals(3, recusado.identificador);
+            assertEquals("Saldo em conta é menor que valor para saque!", recusado.erro.getMessage());
+
+            assertEquals(100_00, aguarda(respostas).saldoCentavos);
+            assertEquals("Conta não encontrada.", aguarda(respostas).erro.getMessage());
+
+            final Resultado deposito = aguarda(respostas);
+            assertNull(deposito.erro);
+            assertFalse(deposito.cheque.isConfirmada());
+            assertEquals(100_00, deposito.saldoCentavos);
+
+            pipeline.confirmaDepositoCheque(deposito.cheque, 7);
+            pipeline.confirmaDepositoCheque(deposito.cheque, 8);
+            assertEquals(140_00, aguarda(respostas).saldoCentavos);
+            assertEquals(IllegalStateException.class, aguarda(respostas).erro.getClass());
+        }
+
+        assertEquals(140, contas.getConta(numero(0)).getSaldo());
+        assertEquals(120, contas.getConta(numero(1)).getSaldo());
+    }
+
+    @Test
+    void testVariasThreadsEnviandoComandos() throws Exception {
+        final int threads = 4, comandosPorThread = 20_000;
+        final ColecaoContas contas = novasContas();
+        final AtomicLong respondidos = new AtomicLong();
+        final long[] ultimoPorThread = new long[threads];
+        final List<String> foraDeOrdem = new ArrayList<>();
+
+        final PipelineComandos pipeline = new PipelineComandos(contas, 64, (comando, fim) -> {
+            // O identificador contém a thread (nos bits mais altos) e a ordem de envio
+            final int thread = (int) (comando.getIdentificador() >>> 32);
+            final long ordem = comando.getIdentificador() & 0xFFFFFFFFL;
+            if (ordem <= ultimoPorThread[thread]) {
+                foraDeOrdem.add(thread + ":" + ordem);
+            }
+            ultimoPorThread[thread] = ordem;
+            respondidos.incrementAndGet();
+        });
+
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        final List<Future<?>> execucoes = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            final long thread = t;
+            execucoes.add(executor.submit(() -> {
+                final ThreadLocalRandom aleatorio = ThreadLocalRandom.current();
+                for (int i = 1; i <= comandosPorThread; i++) {
+                    final int origem = aleatorio.nextInt(TOTAL_CONTAS);
+                    final int destino = (origem + 1 + aleatorio.nextInt(TOTAL_CONTAS - 1)) % TOTAL_CONTAS;
+                    pipeline.transferencia(thread << 32 | i, chave(origem), chave(destino), 1 + aleatorio.nextInt(5_00));
+                }
+            }));
+        }
+        for (final Future<?> execucao : execucoes) {
+            execucao.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+        pipeline.close();
+
+        assertEquals((long) threads * comandosPorThread, respondidos.get());
+        assertTrue(foraDeOrdem.isEmpty(), "Respostas fora da ordem de envio: " + foraDeOrdem);
+        long soma = 0;
+        for (int i = 0; i < TOTAL_CONTAS; i++) {
+            soma += contas.getConta(numero(i)).getSaldoCentavos();
+        }
+        assertEquals(100_00L * TOTAL_CONTAS, soma);
+    }
+
+    @Test
+    void testOperacoesRegistradasNoDiario() throws IOException, InterruptedException {
+        final ColecaoContas contas = novasContas();
+        final BlockingQueue<Resultado> respostas = new LinkedBlockingQueue<>();
+        try (DiarioOperacoes diario = DiarioOperacoes.abre(diretorio, contas)) {
+            try (PipelineComandos pipeline = new PipelineComandos(contas, 16, (comando, fim) -> respostas.add(new Resultado(comando)))) {
+                for (int i = 0; i < 10; i++) {
+                    pipeline.depositoDinheiro(i, chave(0), 10_00);
+                }
+                pipeline.transferencia(10, chave(0), chave(1), 50_00);
+                for (int i = 0; i <= 10; i++) {
+                    assertNull(aguarda(respostas).erro);
+                }
+            }
+
+            assertSame(diario, contas.getConta(numero(0)).getRegistro());
+        }
+
+        final ColecaoContas recuperadas = novasContas();
+        try (DiarioOperacoes diario = DiarioOperacoes.abre(diretorio, recuperadas)) {
+            assertEquals(150, recuperadas.getConta(numero(0)).getSaldo());
+            assertEquals(150, recuperadas.getConta(numero(1)).getSaldo());
+            assertSame(diario, recuperadas.getConta(numero(0)).getRegistro());
+        }
+    }
+
+    @Test
+    void testEnvioNaoCriaObjetos() {
+        final com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        final int total = 200_000;
+        final int[] chaves = new int[TOTAL_CONTAS];
+        for (int i = 0; i < TOTAL_CONTAS; i++) {
+            chaves[i] = chave(i);
+        }
+
+        try (PipelineComandos pipeline = new PipelineComandos(novasContas(), 1024, (comando, fim) -> {})) {
+            for (int i = 0; i < total; i++) {
+                pipeline.depositoDinheiro(i, chaves[i % TOTAL_CONTAS], 1);
+            }
+
+            final long antes = threads.getCurrentThreadAllocatedBytes();
+            for (int i = 0; i < total; i++) {
+                pipeline.depositoDinheiro(i, chaves[i % TOTAL_CONTAS], 1);
+            }
+            final long alocados = threads.getCurrentThreadAllocatedBytes() - antes;
+            assertTrue(alocados < total, "Bytes alocados ao enviar os comandos: " + alocados);
+        }
+    }
+
+    @Test
+    void testFechadoRejeitaComandos() {
+        final PipelineComandos pipeline = new PipelineComandos(novasContas(), 8, (comando, fim) -> {});
+        pipeline.close();
+        pipeline.close();
+        assertThrows(IllegalStateException.class, () -> pipeline.saque(1, chave(0), 1));
+    }
+}
@@ -0,0 +1,119 @@
+package com.sistemabancario.model;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RazaoParticionadoTest {
+    private static final int TOTAL_CONTAS = 100;
+
+    private RazaoParticionado razao;
+
+    @BeforeEach
+    void criaRazao() {
+        razao = new RazaoParticionado(4, TOTAL_CONTAS);
+        for (int i = 0; i < TOTAL_CONTAS; i++) {
+            final Conta conta = new Conta();
+            conta.setNumero(String.format("%05d-%d", i, i % 10));
+            conta.setSaldo(100);
+            razao.putConta(conta);
+        }
+    }
+
+    @AfterEach
+    void fechaRazao() {
+        razao.close();
+    }
+
+    private static int chave(final int i) {
+        return Chaves.conta(String.format("%05d-%d", i, i % 10));
+    }
+
+    @Test
+    void testParticoesDistribuidas() {
+        final int[] contasPorParticao = new int[razao.getTotalParticoes()];
+        for (int i = 0; i < TOTAL_CONTAS; i++) {
+            contasPorParticao[razao.particao(chave(i))]++;
+        }
+
+        for (final int total : contasPorParticao) {
+            assertTrue(total > TOTAL_CONTAS / 8, "Partições desbalanceadas");
+        }
+    }
+
+    @Test
+    void testOperacoes() {
+        assertEquals(9000, razao.saque(chave(0), 10).join());
+        assertEquals(9500, razao.depositoDinheiro(chave(0), 5).join());
+
+        final CompletionException erro = assertThrows(CompletionException.class, () -> razao.saque(chave(0), 1000).join());
+        assertEquals(IllegalArgumentException.class, erro.getCause().getClass());
+        assertThrows(CompletionException.class, () -> razao.depositoDinheiro(Chaves.conta("99999-9"), 1).join());
+    }
+
+    @Test
+    void testTransferenciasEntreParticoes() {
+        int outra = 1;
+        while (razao.particao(chave(outra)) == razao.particao(chave(0))) {
+            outra++;
+        }
+        final int destino = outra;
+
+        assertEquals(8000, razao.transferencia(chave(0), chave(destino), 20).join());
+        assertEquals(120, razao.getConta(chave(destino)).getSaldo());
+        assertEquals("Transferência da conta 00000-0",
+                     razao.getConta(chave(destino)).getMovimentacoes().get(0).getDescricao());
+
+        final CompletionException erro = assertThrows(
+                CompletionException.class, () -> razao.transferencia(chave(0), chave(destino), 1000).join());
+        assertEquals("Saldo em conta é menor que valor para transferência!", erro.getCause().getMessage());
+        assertThrows(CompletionException.class, () -> razao.transferencia(chave(0), Chaves.conta("99999-9"), 1).join());
+    }
+
+    @Test
+    void testSomaDosSaldosConservadaComVariasThreads() throws Exception {
+        final ExecutorService executor = Executors.newFixedThreadPool(8);
+        final List<Future<?>> execucoes = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            execucoes.add(executor.submit(() -> {
+                final ThreadLocalRandom aleatorio = ThreadLocalRandom.current();
+                final List<CompletableFuture<Long>> resultados = new ArrayList<>();
+                for (int i = 0; i < 2000; i++) {
+                    final int origem = aleatorio.nextInt(TOTAL_CONTAS);
+                    final int destino = (origem + 1 + aleatorio.nextInt(TOTAL_CONTAS - 1)) % TOTAL_CONTAS;
+                    resultados.add(razao.transferencia(chave(origem), chave(destino), 1 + aleatorio.nextInt(50)));
+                }
+                resultados.forEach(resultado -> resultado.handle((saldo, erro) -> saldo).join());
+            }));
+        }
+        for (final Future<?> execucao : execucoes) {
+            execucao.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+        razao.close();
+
+        double soma = 0;
+        for (int i = 0; i < TOTAL_CONTAS; i++) {
+            soma += razao.getConta(chave(i)).getSaldo();
+        }
+        assertEquals(100.0 * TOTAL_CONTAS, soma, 0.001);
+    }
+
+    @Test
+    void testFechadoRejeitaOperacoes() {
+        razao.close();
+        assertThrows(IllegalStateException.class, () -> razao.saque(chave(0), 1));
+    }
+}
@@ -0,0 +1,35 @@
+package com.sistemabancario.model;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SenhasTest {
+    /**
+     * Fator de trabalho reduzido, para que os testes não demorem.
+     */
+    private static final int ITERACOES = 1000;
+
+    @Test
+    void testConfere() {
+        final String hash = Senhas.gera("1234", ITERACOES);
+        assertTrue(Senhas.isHashValido(hash));
+        assertTrue(Senhas.confere("1234", hash));
+        assertFalse(Senhas.confere("1231", hash));
+        assertFalse(Senhas.confere(null, hash));
+        assertFalse(Senhas.confere("", hash));
+    }
+
+    @Test
+    void testSalDiferenteParaCadaHash() {
+        assertNotEquals(Senhas.gera("1234", ITERACOES), Senhas.gera("1234", ITERACOES));
+    }
+
+    @Test
+    void testHashInvalido() {
+        assertFalse(Senhas.isHashValido("1234"));
+        assertFalse(Senhas.isHashValido("pbkdf2-sha256:0:AAAA:AAAA"));
+        assertFalse(Senhas.isHashValido("pbkdf2-sha256:1000:AAAA:$$$$"));
+        assertFalse(Senhas.confere("1234", "1234"));
+        assertThrows(IllegalArgumentException.class, () -> Senhas.gera("1234", 0));
+    }
+}
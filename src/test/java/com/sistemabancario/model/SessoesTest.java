@@ -0,0 +1,93 @@
+package com.sistemabancario.model;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class SessoesTest {
+    private static final String CPF = "23906078027";
+
+    /**
+     * Relógio que só avança quando o teste define.
+     */
+    private final AtomicLong agora = new AtomicLong();
+    private final Clock relogio = new Clock() {
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(final ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(agora.get());
+        }
+    };
+
+    private Cliente cliente;
+
+    @BeforeEach
+    void criaCliente() {
+        cliente = new Cliente();
+        cliente.setCpf(CPF);
+        cliente.setHashSenha(Senhas.gera("1234", 1000));
+    }
+
+    @Test
+    void testAbreSessaoSomenteComSenhaCorreta() {
+        final Sessoes instance = new Sessoes(10, 1, TimeUnit.MINUTES, relogio);
+        assertNull(instance.abre(cliente, CPF, "1231"));
+        assertNull(instance.abre((Cliente) null, CPF, "1234"));
+
+        final String token = instance.abre(cliente, CPF, "1234");
+        assertNotNull(token);
+        assertSame(cliente, instance.getCliente(token));
+        assertNull(instance.getCliente("token-inexistente"));
+    }
+
+    @Test
+    void testSessaoExpira() {
+        final Sessoes instance = new Sessoes(10, 1, TimeUnit.MINUTES, relogio);
+        final String token = instance.abre(cliente, CPF, "1234");
+        agora.set(TimeUnit.MINUTES.toMillis(1) - 1);
+        assertSame(cliente, instance.getCliente(token));
+
+        agora.incrementAndGet();
+        assertNull(instance.getCliente(token));
+        assertEquals(0, instance.getTotal());
+    }
+
+    @Test
+    void testLimiteEncerraSessaoMaisAntiga() {
+        final Sessoes instance = new Sessoes(2, 1, TimeUnit.MINUTES, relogio);
+        final String primeira = instance.abre(cliente, CPF, "1234");
+        final String segunda = instance.abre(cliente, CPF, "1234");
+        final String terceira = instance.abre(cliente, CPF, "1234");
+
+        assertEquals(2, instance.getTotal());
+        assertNull(instance.getCliente(primeira));
+        assertSame(cliente, instance.getCliente(segunda));
+        assertSame(cliente, instance.getCliente(terceira));
+    }
+
+    @Test
+    void testEncerra() {
+        final Sessoes instance = new Sessoes(2, 1, TimeUnit.MINUTES, relogio);
+        final String token = instance.abre(cliente, CPF, "1234");
+        assertTrue(instance.encerra(token));
+        assertFalse(instance.encerra(token));
+        assertNull(instance.getCliente(token));
+        assertEquals(0, instance.getTotal());
+    }
+}
@@ -0,0 +1,333 @@
+package com.sistemabancario.persistencia;
+
+import com.sistemabancario.model.Cliente;
+import com.sistemabancario.model.ColecaoClientes;
+import com.sistemabancario.model.ColecaoContas;
+import com.sistemabancario.model.Conta;
+import com.sistemabancario.model.Movimentacao;
+import com.sistemabancario.model.Operacao;
+import com.sistemabancario.model.RegistroOperacoes;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DiarioOperacoesTest {
+    @TempDir
+    Path diretorio;
+
+    private static ColecaoContas novasContas() {
+        final ColecaoContas contas = new ColecaoContas(4);
+        for (String numero : new String[]{"12345-6", "65432-1"}) {
+            final Conta conta = new Conta();
+            conta.setNumero(numero);
+            contas.putConta(conta, numero);
+        }
+        return contas;
+    }
+
+    /**
+     * Operações realizadas enquanto o diário está aberto.
+     */
+    @FunctionalInterface
+    private interface Operacoes {
+        void executa() throws IOException, InterruptedException;
+    }
+
+    /**
+     * Abre o diário das contas, executa as operações e fecha o diário.
+     */
+    private void comDiario(final ColecaoContas contas, final Operacoes operacoes) throws IOException, InterruptedException {
+        comDiario(contas, null, operacoes);
+    }
+
+    private void comDiario(final ColecaoContas contas, final ColecaoClientes clientes, final Operacoes operacoes)
+        throws IOException, InterruptedException
+    {
+        comDiarioEm(diretorio, contas, clientes, operacoes);
+    }
+
+    /**
+     * Abre o diário armazenado num diretório, executa as operações e fecha o diário.
+     */
+    private static void comDiarioEm(
+        final Path diretorio, final ColecaoContas contas, final ColecaoClientes clientes, final Operacoes operacoes)
+        throws IOException, InterruptedException
+    {
+        final DiarioOperacoes diario = DiarioOperacoes.abre(diretorio, contas, clientes);
+        try {
+            operacoes.executa();
+        } finally {
+            diario.close();
+        }
+    }
+
+    @Test
+    void testOperacoesSaoRefeitasAoReabrir() throws IOException, InterruptedException {
+        final ColecaoContas contas = novasContas();
+        comDiario(contas, () -> {
+            final Conta conta = contas.getConta("12345-6");
+            conta.depositoDinheiro(500);
+            conta.saque(120.25);
+            conta.transferencia(contas.getConta("65432-1"), 79.75);
+            conta.depositoCheque(40);
+            conta.confirmaDepositoCheque(conta.getMovimentacoes().get(3));
+            conta.depositoCheque(10);
+        });
+
+        final ColecaoContas recuperadas = novasContas();
+        try (DiarioOperacoes diario = DiarioOperacoes.abre(diretorio, recuperadas)) {
+            final Conta conta = recuperadas.getConta("12345-6");
+            assertEquals(340, conta.getSaldo());
+            assertEquals(79.75, recuperadas.getConta("65432-1").getSaldo());
+
+            final List<Movimentacao> movimentacoes = conta.getMovimentacoes();
+            assertEquals(5, movimentacoes.size());
+            assertTrue(movimentacoes.get(3).isConfirmada());
+            assertFalse(movimentacoes.get(4).isConfirmada());
+            assertSame(diario, conta.getRegistro());
+        }
+    }
+
+    @Test
+    void testDebitoMaiorQueSaldoEhRefeito() throws IOException, InterruptedException {
+        final ColecaoContas contas = new ColecaoContas(4);
+        final Conta especial = new Conta(true, 100);
+        especial.setNumero("12345-6");
+        contas.putConta(especial, "12345-6");
+        comDiario(contas, () -> {
+            final Movimentacao debito = new Movimentacao(especial, true);
+            debito.setTipo('D');
+            debito.setValor(80);
+            especial.addMovimentacao(debito);
+        });
+
+        // O limite foi reduzido depois do débito, que deve ser refeito mesmo excedendo o saldo
+        final ColecaoContas recuperadas = new ColecaoContas(4);
+        final Conta semLimite = new Conta(true, 0);
+        semLimite.setNumero("12345-6");
+        recuperadas.putConta(semLimite, "12345-6");
+        comDiario(recuperadas, () -> {
+            assertEquals(-80, semLimite.getSaldo());
+            assertEquals(1, semLimite.getMovimentacoes().size());
+            assertEquals('D', semLimite.getMovimentacoes().get(0).getTipo());
+        });
+    }
+
+    @Test
+    void testRegistroIncompletoNoFinalEhDescartado() throws IOException, InterruptedException {
+        final ColecaoContas contas = novasContas();
+        comDiario(contas, () -> {
+            contas.getConta("12345-6").depositoDinheiro(100);
+            contas.getConta("12345-6").depositoDinheiro(200);
+        });
+
+        final Path segmento = DiarioOperacoes.segmentos(diretorio).get(0);
+        try (FileChannel canal = FileChannel.open(segmento, StandardOpenOption.WRITE)) {
+            canal.truncate(canal.size() - 5);
+        }
+
+        final ColecaoContas recuperadas = novasContas();
+        comDiario(recuperadas, () -> {
+            assertEquals(100, recuperadas.getConta("12345-6").getSaldo());
+            recuperadas.getConta("12345-6").depositoDinheiro(1);
+        });
+
+        final ColecaoContas novamente = novasContas();
+        comDiario(novamente, () -> {
+            assertEquals(101, novamente.getConta("12345-6").getSaldo());
+        });
+    }
+
+    @Test
+    void testOperacaoNaoRegistradaEhDesfeita() throws IOException {
+        final ColecaoContas contas = novasContas();
+        final DiarioOperacoes diario = DiarioOperacoes.abre(diretorio, contas);
+        diario.close();
+
+        final Conta conta = contas.getConta("12345-6");
+        assertThrows(RuntimeException.class, () -> conta.depositoDinheiro(100));
+        assertEquals(0, conta.getSaldo());
+        assertTrue(conta.getMovimentacoes().isEmpty());
+    }
+
+    @Test
+    void testEscritasConcorrentes() throws IOException, InterruptedException {
+        final int threads = 8, depositos = 250;
+        final ColecaoContas contas = novasContas();
+        comDiario(contas, () -> {
+            final ExecutorService executor = Executors.newFixedThreadPool(threads);
+            for (int t = 0; t < threads; t++) {
+                final Conta conta = contas.getConta(t % 2 == 0 ? "12345-6" : "65432-1");
+                executor.execute(() -> {
+                    for (int i = 0; i < depositos; i++) {
+                        conta.depositoDinheiro(1);
+                    }
+                });
+            }
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(60, TimeUnit.SECONDS));
+        });
+
+        final ColecaoContas recuperadas = novasContas();
+        comDiario(recuperadas, () -> {
+            assertEquals(threads / 2 * depositos, recuperadas.getConta("12345-6").getSaldo());
+            assertEquals(threads / 2 * depositos, recuperadas.getConta("65432-1").getSaldo());
+        });
+    }
+
+    @Test
+    void testInstantaneoCompactaDiario() throws IOException, InterruptedException {
+        final ColecaoContas contas = novasContas();
+        final ColecaoClientes clientes = new ColecaoClientes(new HashMap<>());
+        final Cliente cliente = new Cliente();
+        cliente.setId(1);
+        cliente.setCpf("23906078027");
+        cliente.setNome("Lis Azevedo");
+        cliente.setConta(contas.getConta("12345-6"));
+        clientes.putCliente(cliente, cliente.getCpf());
+
+        try (DiarioOperacoes diario = DiarioOperacoes.abre(diretorio, contas, clientes)) {
+            final Conta conta = contas.getConta("12345-6");
+            conta.depositoDinheiro(500);
+            conta.depositoCheque(40);
+            final Path instantaneo = diario.criaInstantaneo(contas, clientes);
+            assertTrue(Files.exists(instantaneo));
+            assertEquals(1, DiarioOperacoes.segmentos(diretorio).size());
+
+            conta.transferencia(contas.getConta("65432-1"), 100);
+            conta.depositoCheque(15);
+        }
+
+        final ColecaoContas recuperadas = novasContas();
+        final ColecaoClientes clientesRecuperados = new ColecaoClientes(new HashMap<>());
+        comDiario(recuperadas, clientesRecuperados, () -> {
+            final Conta conta = recuperadas.getConta("12345-6");
+            assertEquals(400, conta.getSaldo());
+            assertEquals(100, recuperadas.getConta("65432-1").getSaldo());
+            assertEquals(2, conta.getTotalDepositosPendentes());
+
+            final Cliente recuperado = clientesRecuperados.getCliente("23906078027");
+            assertEquals("Lis Azevedo", recuperado.getNome());
+            assertSame(conta, recuperado.getConta());
+        });
+    }
+
+    @Test
+    void testDevolucaoDeChequeEhRefeita() throws IOException, InterruptedException {
+        final ColecaoContas contas = novasContas();
+        comDiario(contas, () -> {
+            final Conta conta = contas.getConta("12345-6");
+            conta.depositoCheque(40);
+            conta.depositoCheque(40);
+            conta.devolveDepositoCheque(conta.getMovimentacoes().get(0));
+            conta.confirmaDepositoCheque(conta.getMovimentacoes().get(1));
+        });
+
+        final ColecaoContas recuperadas = novasContas();
+        comDiario(recuperadas, () -> {
+            final Conta conta = recuperadas.getConta("12345-6");
+            assertEquals(40, conta.getSaldo());
+            assertTrue(conta.getMovimentacoes().get(0).isDevolvida());
+            assertEquals(0, conta.getTotalDepositosPendentes());
+        });
+    }
+
+    /**
+     * Simula uma interrupção do sistema logo após a criação de um instantâneo que reflete
+     * uma operação registrada depois do início do novo segmento, mas que ainda não tinha
+     * sido armazenada em disco quando a conta foi copiada para o instantâneo.
+     */
+    @Test
+    void testInterrupcaoAposInstantaneoNaoPerdeOperacoes() throws Exception {
+        final ColecaoContas contas = novasContas();
+        final Path copia = diretorio.resolve("copia");
+        final DiarioOperacoes diario = DiarioOperacoes.abre(diretorio, contas);
+        final CountDownLatch registrada = new CountDownLatch(1), liberada = new CountDownLatch(1);
+        contas.setRegistro(new RegistroOperacoes() {
+            @Override
+            public long registra(final Operacao operacao, final Movimentacao movimentacao, final Conta destino) {
+                return diario.registra(operacao, movimentacao, destino);
+            }
+
+            @Override
+            public void aguardaPersistencia(final long sequencia) {
+                registrada.countDown();
+                try {
+                    liberada.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                diario.aguardaPersistencia(sequencia);
+            }
+        });
+
+        // A primeira conta gravada no instantâneo é bloqueada para que a operação seja realizada na segunda
+        final List<Conta> ordem = new ArrayList<>(contas.getContas());
+        final Conta primeira = ordem.get(0), segunda = ordem.get(1);
+        final FutureTask<Path> instantaneo = new FutureTask<>(() -> diario.criaInstantaneo(contas, null));
+        final Thread thread = new Thread(instantaneo);
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            final Future<?> deposito;
+            synchronized (primeira) {
+                thread.start();
+                final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+                while (!bloqueadaEm(threads.getThreadInfo(thread.getId()), primeira)) {
+                    Thread.sleep(1);
+                }
+                deposito = executor.submit(() -> segunda.depositoDinheiro(100));
+                assertTrue(registrada.await(10, TimeUnit.SECONDS));
+            }
+            instantaneo.get(10, TimeUnit.SECONDS);
+
+            // Copia os arquivos como estão no momento da interrupção
+            Files.createDirectories(copia);
+            try (DirectoryStream<Path> arquivos = Files.newDirectoryStream(diretorio, "*.*")) {
+                for (final Path arquivo : arquivos) {
+                    Files.copy(arquivo, copia.resolve(arquivo.getFileName()));
+                }
+            }
+
+            liberada.countDown();
+            deposito.get(10, TimeUnit.SECONDS);
+        } finally {
+            liberada.countDown();
+            executor.shutdown();
+            diario.close();
+        }
+
+        final ColecaoContas recuperadas = novasContas();
+        comDiarioEm(copia, recuperadas, null, () -> {
+            assertEquals(100, recuperadas.getConta(segunda.getNumero()).getSaldo());
+            recuperadas.getConta(segunda.getNumero()).depositoDinheiro(50);
+        });
+
+        final ColecaoContas novamente = novasContas();
+        comDiarioEm(copia, novamente, null, () -> assertEquals(150, novamente.getConta(segunda.getNumero()).getSaldo()));
+    }
+
+    private static boolean bloqueadaEm(final ThreadInfo info, final Object monitor) {
+        return info != null && info.getThreadState() == Thread.State.BLOCKED &&
+               info.getLockInfo().getIdentityHashCode() == System.identityHashCode(monitor);
+    }
+}
@@ -0,0 +1,186 @@
+package com.sistemabancario.rede;
+
+import com.sistemabancario.model.Chaves;
+import com.sistemabancario.model.Cliente;
+import com.sistemabancario.model.ColecaoClientes;
+import com.sistemabancario.model.ColecaoContas;
+import com.sistemabancario.model.Conta;
+import com.sistemabancario.model.Senhas;
+import com.sistemabancario.model.Sessoes;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static com.sistemabancario.rede.ProtocoloBinario.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ServidorBinarioTest {
+    private static final String CPF = "23906078027";
+
+    private ColecaoContas contas;
+    private ServidorBinario servidor;
+
+    /**
+     * Conexão de um caixa com o servidor.
+     */
+    private final class Caixa implements AutoCloseable {
+        private final SocketChannel canal;
+        private final ByteBuffer requisicoes = ByteBuffer.allocate(4096);
+        private final ByteBuffer respostas = ByteBuffer.allocate(4096);
+
+        Caixa() throws IOException {
+            canal = SocketChannel.open(new InetSocketAddress(InetAddress.getLoopbackAddress(), servidor.getPorta()));
+        }
+
+        ByteBuffer requisicoes() {
+            return requisicoes;
+        }
+
+        /**
+         * Envia as requisições escritas e lê uma determinada quantidade de respostas.
+         */
+        ByteBuffer envia(final int totalRespostas) throws IOException {
+            requisicoes.flip();
+            while (requisicoes.hasRemaining()) {
+                canal.write(requisicoes);
+            }
+            requisicoes.clear();
+
+            respostas.clear().limit(totalRespostas * TAMANHO_RESPOSTA);
+            while (respostas.hasRemaining()) {
+                if (canal.read(respostas) < 0) {
+                    break;
+                }
+            }
+            return respostas.flip();
+        }
+
+        @Override
+        public void close() throws IOException {
+            canal.close();
+        }
+    }
+
+    @BeforeEach
+    void iniciaServidor() throws IOException {
+        contas = new ColecaoContas(4);
+        final Conta origem = new Conta();
+        origem.setNumero("12345-6");
+        origem.setSaldo(100);
+        contas.putConta(origem, origem.getNumero());
+        final Conta destino = new Conta();
+        destino.setNumero("65432-1");
+        contas.putConta(destino, destino.getNumero());
+
+        final Cliente cliente = new Cliente();
+        cliente.setCpf(CPF);
+        cliente.setHashSenha(Senhas.gera("1234", 1000));
+        cliente.setConta(origem);
+        final ColecaoClientes clientes = new ColecaoClientes(4);
+        clientes.putCliente(cliente, CPF);
+
+        servidor = new ServidorBinario(clientes, contas, new Sessoes(100, 1, TimeUnit.MINUTES));
+        servidor.inicia(0);
+    }
+
+    @AfterEach
+    void encerraServidor() throws IOException {
+        servidor.close();
+    }
+
+    private static void assertResposta(final int id, final byte situacao, final long saldoCentavos, final ByteBuffer respostas) {
+        assertEquals(id, respostas.getInt());
+        assertEquals(situacao, respostas.get());
+        assertEquals(saldoCentavos, respostas.getLong());
+    }
+
+    @Test
+    void testLogin() throws IOException {
+        try (Caixa caixa = new Caixa()) {
+            escreveValor(caixa.requisicoes(), SAQUE, 1, 1000);
+            assertResposta(1, NAO_AUTENTICADO, 0, caixa.envia(1));
+
+            escreveLogin(caixa.requisicoes(), 2, Chaves.cpf(CPF), "1231");
+            assertResposta(2, NEGADO, 0, caixa.envia(1));
+
+            escreveLogin(caixa.requisicoes(), 3, Chaves.cpf(CPF), "1234");
+            assertResposta(3, OK, 10000, caixa.envia(1));
+        }
+    }
+
+    @Test
+    void testRequisicoesSemAguardarRespostas() throws IOException {
+        try (Caixa caixa = new Caixa()) {
+            final ByteBuffer requisicoes = caixa.requisicoes();
+            escreveLogin(requisicoes, 1, Chaves.cpf(CPF), "1234");
+            escreveValor(requisicoes, SAQUE, 2, 1000);
+            escreveValor(requisicoes, DEPOSITO, 3, 500);
+            escreveTransferencia(requisicoes, 4, Chaves.conta("65432-1"), 2000);
+            escreveTransferencia(requisicoes, 5, Chaves.conta("99999-9"), 2000);
+            escreveValor(requisicoes, SAQUE, 6, 100_000);
+            escreveSemParametros(requisicoes, SALDO, 7);
+            escreveSemParametros(requisicoes, SAIR, 8);
+
+            final ByteBuffer respostas = caixa.envia(8);
+            assertResposta(1, OK, 10000, respostas);
+            assertResposta(2, OK, 9000, respostas);
+            assertResposta(3, OK, 9500, respostas);
+            assertResposta(4, OK, 7500, respostas);
+            assertResposta(5, RECUSADA, 7500, respostas);
+            assertResposta(6, RECUSADA, 7500, respostas);
+            assertResposta(7, OK, 7500, respostas);
+            assertResposta(8, OK, 7500, respostas);
+            assertEquals(20, contas.getConta("65432-1").getSaldo());
+
+            //Após SAIR, o servidor encerra a conexão
+            assertEquals(0, caixa.envia(1).remaining());
+        }
+    }
+
+    @Test
+    void testOperacaoDesconhecidaEncerraConexao() throws IOException {
+        try (Caixa caixa = new Caixa()) {
+            caixa.requisicoes().put((byte) 99).putInt(1);
+            assertEquals(0, caixa.envia(1).remaining());
+        }
+    }
+
+    /**
+     * Uma operação que excede o saldo máximo deve ser recusada
+     * sem encerrar o servidor, que continua atendendo as conexões.
+     * Se o servidor parasse, a leitura das respostas ficaria bloqueada, por isso o tempo é limitado.
+     */
+    @Test
+    void testEstouroDeSaldoNaoEncerraServidor() {
+        final long valor = 5_000_000_000_000_000_000L;
+        assertTimeoutPreemptively(Duration.ofSeconds(30), () -> {
+            try (Caixa caixa = new Caixa()) {
+                final ByteBuffer requisicoes = caixa.requisicoes();
+                escreveLogin(requisicoes, 1, Chaves.cpf(CPF), "1234");
+                escreveValor(requisicoes, DEPOSITO, 2, valor);
+                escreveValor(requisicoes, DEPOSITO, 3, valor);
+                escreveSemParametros(requisicoes, SALDO, 4);
+
+                final ByteBuffer respostas = caixa.envia(4);
+                final long saldo = contas.getConta("12345-6").getSaldoTotalCentavos();
+                assertResposta(1, OK, 10000, respostas);
+                assertResposta(2, OK, saldo, respostas);
+                assertResposta(3, RECUSADA, saldo, respostas);
+                assertResposta(4, OK, saldo, respostas);
+            }
+
+            try (Caixa caixa = new Caixa()) {
+                escreveLogin(caixa.requisicoes(), 1, Chaves.cpf(CPF), "1234");
+                assertEquals(OK, caixa.envia(1).get(Integer.BYTES));
+            }
+        });
+    }
+}
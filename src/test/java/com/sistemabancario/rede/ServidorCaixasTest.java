@@ -0,0 +1,139 @@
+package com.sistemabancario.rede;
+
+import com.sistemabancario.model.Cliente;
+import com.sistemabancario.model.ColecaoClientes;
+import com.sistemabancario.model.ColecaoContas;
+import com.sistemabancario.model.Conta;
+import com.sistemabancario.model.Senhas;
+import com.sistemabancario.model.Sessoes;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ServidorCaixasTest {
+    private static final String CPF = "23906078027";
+
+    private ColecaoContas contas;
+    private ServidorCaixas servidor;
+
+    /**
+     * Conexão de um caixa com o servidor.
+     */
+    private final class Caixa implements AutoCloseable {
+        private final Socket socket;
+        private final BufferedReader entrada;
+        private final PrintWriter saida;
+
+        Caixa() throws IOException {
+            socket = new Socket(InetAddress.getLoopbackAddress(), servidor.getPorta());
+            entrada = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            saida = new PrintWriter(socket.getOutputStream(), true, StandardCharsets.UTF_8);
+        }
+
+        String envia(final String comando) throws IOException {
+            saida.println(comando);
+            return entrada.readLine();
+        }
+
+        @Override
+        public void close() throws IOException {
+            socket.close();
+        }
+    }
+
+    @BeforeEach
+    void iniciaServidor() throws IOException {
+        contas = new ColecaoContas(4);
+        final Conta origem = new Conta();
+        origem.setNumero("12345-6");
+        origem.setSaldo(100);
+        contas.putConta(origem, origem.getNumero());
+        final Conta destino = new Conta();
+        destino.setNumero("65432-1");
+        contas.putConta(destino, destino.getNumero());
+
+        final Cliente cliente = new Cliente();
+        cliente.setCpf(CPF);
+        cliente.setHashSenha(Senhas.gera("1234", 1000));
+        cliente.setConta(origem);
+        final ColecaoClientes clientes = new ColecaoClientes(4);
+        clientes.putCliente(cliente, CPF);
+
+        servidor = new ServidorCaixas(clientes, contas, new Sessoes(100, 1, TimeUnit.MINUTES));
+        servidor.inicia(0);
+    }
+
+    @AfterEach
+    void encerraServidor() throws IOException {
+        servidor.close();
+    }
+
+    @Test
+    void testOpcoesDoMenu() throws IOException {
+        try (Caixa caixa = new Caixa()) {
+            assertEquals(ServidorCaixas.NEGADO, caixa.envia("SAQUE 10"));
+            assertEquals(ServidorCaixas.NEGADO, caixa.envia("LOGIN " + CPF + " 1231"));
+            assertEquals(ServidorCaixas.OK, caixa.envia("LOGIN " + CPF + " 1234"));
+
+            assertEquals("OK 90.0", caixa.envia("SAQUE 10"));
+            assertEquals("OK 95.0", caixa.envia("2 5"));
+            assertEquals("OK 75.0", caixa.envia("TRANSFERÊNCIA 65432-1 20"));
+            assertEquals(20, contas.getConta("65432-1").getSaldo());
+            assertEquals("ERRO Conta de destino não encontrada.", caixa.envia("TRANSFERENCIA 99999-9 20"));
+            assertEquals("ERRO Saldo em conta é menor que valor para saque!", caixa.envia("1 1000"));
+            assertEquals("ERRO Opção não suportada!", caixa.envia("EXTRATO"));
+            assertEquals(ServidorCaixas.BYE, caixa.envia("SAIR"));
+        }
+    }
+
+    @Test
+    void testSessoesSimultaneas() throws Exception {
+        final int caixas = 50;
+        final ExecutorService executor = Executors.newFixedThreadPool(caixas);
+        final List<Future<String>> respostas = new ArrayList<>();
+        for (int i = 0; i < caixas; i++) {
+            respostas.add(executor.submit(() -> {
+                try (Caixa caixa = new Caixa()) {
+                    caixa.envia("LOGIN " + CPF + " 1234");
+                    return caixa.envia("DEPOSITO 1");
+                }
+            }));
+        }
+
+        for (final Future<String> resposta : respostas) {
+            assertTrue(resposta.get(30, TimeUnit.SECONDS).startsWith(ServidorCaixas.OK));
+        }
+        executor.shutdown();
+        assertEquals(100 + caixas, contas.getConta("12345-6").getSaldo());
+    }
+
+    /**
+     * Uma operação que excede o saldo máximo deve ser recusada sem encerrar a sessão.
+     */
+    @Test
+    void testEstouroDeSaldoNaoEncerraSessao() throws IOException {
+        try (Caixa caixa = new Caixa()) {
+            assertEquals(ServidorCaixas.OK, caixa.envia("LOGIN " + CPF + " 1234"));
+            assertTrue(caixa.envia("DEPOSITO 50000000000000000").startsWith(ServidorCaixas.OK));
+            final String resposta = caixa.envia("DEPOSITO 50000000000000000");
+            assertTrue(resposta.startsWith(ServidorCaixas.ERRO), resposta);
+            assertTrue(caixa.envia("SAQUE 10").startsWith(ServidorCaixas.OK));
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.sistemabancario.simulacao;
+
+/**
+ * Histograma de latências (em nanossegundos), com precisão relativa fixa.
+ *
+ * <p>
+ * Os valores são agrupados em faixas de potências de 2, cada uma dividida em
+ * {@value #SUBFAIXAS} partes iguais. Assim, o histograma ocupa sempre o mesmo espaço,
+ * registrar um valor não cria nenhum objeto e os percentis têm um erro
+ * de no máximo 1/{@value #SUBFAIXAS} do valor (cerca de 3%), seja ele
+ * de microssegundos ou de segundos.
+ * </p>
+ *
+ * <p>
+ * Não é thread-safe: cada thread deve registrar as suas latências num histograma
+ * próprio, e os histogramas são {@link #soma(Histograma) somados} ao final.
+ * </p>
+ *
+ * @author Manoel Campos da Silva Filho
+ */
+final class Histograma {
+    private static final int BITS_SUBFAIXA = 5;
+    private static final int SUBFAIXAS = 1 << BITS_SUBFAIXA;
+
+    /**
+     * Quantidade de valores registrados em cada intervalo. Cada faixa usa {@code 2 * SUBFAIXAS}
+     * posições, sendo que somente as {@code SUBFAIXAS} últimas são ocupadas
+     * (exceto na primeira faixa, que armazena os valores menores que {@code 2 * SUBFAIXAS} exatamente).
+     */
+    private final long[] contagens = new long[(Long.SIZE - BITS_SUBFAIXA) * 2 * SUBFAIXAS];
+    private long total;
+    private long maximo;
+
+    /**
+     * Registra um valor.
+     * @param valor valor a ser registrado (valores negativos são registrados como zero)
+     */
+    void registra(final long valor) {
+        final long positivo = Math.max(valor, 0);
+        contagens[indice(positivo)]++;
+        total++;
+        maximo = Math.max(maximo, positivo);
+    }
+
+    /**
+     * Obtém a posição de um valor nas {@link #contagens}. O valor é deslocado à direita
+     * até ficar menor que {@code 2 * SUBFAIXAS}, mantendo os seus {@code BITS_SUBFAIXA + 1}
+     * bits mais significativos.
+     */
+    private static int indice(final long valor) {
+        final int deslocamento = Math.max(0, Long.SIZE - Long.numberOfLeadingZeros(valor) - BITS_SUBFAIXA - 1);
+        return deslocamento * 2 * SUBFAIXAS + (int) (valor >>> deslocamento);
+    }
+
+    /**
+     * Obtém o maior valor que pode ter sido registrado numa posição das {@link #contagens}.
+     */
+    private static long maiorValor(final int indice) {
+        final int deslocamento = indice / (2 * SUBFAIXAS);
+        final long base = indice % (2 * SUBFAIXAS);
+        return ((base + 1) << deslocamento) - 1;
+    }
+
+    /**
+     * Soma os valores registrados em outro histograma a este.
+     * @param outro histograma a ser somado
+     */
+    void soma(final Histograma outro) {
+        for (int i = 0; i < contagens.length; i++) {
+            contagens[i] += outro.contagens[i];
+        }
+        total += outro.total;
+        maximo = Math.max(maximo, outro.maximo);
+    }
+
+    /**
+     * Obtém o valor abaixo do qual está um determinado percentual dos valores registrados.
+     * @param percentual percentual entre 0 e 100
+     * @return o percentil (arredondado para o limite superior do intervalo onde ele está)
+     *         ou 0 se nenhum valor foi registrado
+     */
+    long percentil(final double percentual) {
+        if (total == 0) {
+            return 0;
+        }
+
+        final long posicao = Math.max(1, (long) Math.ceil(percentual / 100 * total));
+        long acumulado = 0;
+        for (int i = 0; i < contagens.length; i++) {
+            acumulado += contagens[i];
+            if (acumulado >= posicao) {
+                return Math.min(maiorValor(i), maximo);
+            }
+        }
+
+        return maximo;
+    }
+
+    long getTotal() {
+        return total;
+    }
+
+    long getMaximo() {
+        return maximo;
+    }
+}
@@ -0,0 +1,36 @@
+package com.sistemabancario.simulacao;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HistogramaTest {
+    @Test
+    void testPercentisValoresPequenosSaoExatos() {
+        final Histograma histograma = new Histograma();
+        for (int i = 1; i <= 50; i++) {
+            histograma.registra(i);
+        }
+
+        assertEquals(50, histograma.getTotal());
+        assertEquals(25, histograma.percentil(50));
+        assertEquals(50, histograma.percentil(99));
+        assertEquals(50, histograma.getMaximo());
+    }
+
+    @Test
+    void testPercentisComErroRelativoLimitado() {
+        final Histograma histograma = new Histograma();
+        final Histograma outro = new Histograma();
+        for (long i = 1; i <= 1_000_000; i++) {
+            (i % 2 == 0 ? histograma : outro).registra(i * 1000);
+        }
+        histograma.soma(outro);
+
+        assertEquals(1_000_000, histograma.getTotal());
+        assertEquals(500_000_000, histograma.percentil(50), 500_000_000 / 32.0);
+        assertEquals(990_000_000, histograma.percentil(99), 990_000_000 / 32.0);
+        assertEquals(999_000_000, histograma.percentil(99.9), 999_000_000 / 32.0);
+        assertEquals(1_000_000_000, histograma.percentil(100));
+    }
+}
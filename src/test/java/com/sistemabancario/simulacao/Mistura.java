@@ -0,0 +1,88 @@
+package com.sistemabancario.simulacao;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Proporção de cada tipo de operação realizada pela {@link SimulacaoCarga simulação}.
+ *
+ * @author Manoel Campos da Silva Filho
+ */
+final class Mistura {
+    /**
+     * Operações realizadas pelos caixas eletrônicos e pelos caixas das agências.
+     */
+    enum Tipo { SAQUE, DEPOSITO, CHEQUE, TRANSFERENCIA, LOGIN }
+
+    /**
+     * Tipos de operação, obtidos uma única vez, pois {@link Tipo#values()} cria um novo vetor a cada chamada.
+     */
+    static final Tipo[] TIPOS = Tipo.values();
+
+    /**
+     * Mistura padrão, com predominância de saques e depósitos.
+     */
+    static final String PADRAO = "saque=35,deposito=30,cheque=10,transferencia=20,login=5";
+
+    private final Map<Tipo, Integer> pesos;
+
+    /**
+     * Soma dos pesos até cada tipo (inclusive), na ordem de {@link #TIPOS}.
+     */
+    private final int[] acumulados = new int[TIPOS.length];
+
+    /**
+     * Instancia uma mistura a partir de uma descrição como {@value #PADRAO}.
+     * Os tipos não informados não são realizados.
+     * @param descricao pares tipo=peso separados por vírgula; a proporção de cada tipo
+     *                  é o seu peso dividido pela soma dos pesos
+     * @throws IllegalArgumentException se a descrição for inválida ou a soma dos pesos for zero
+     */
+    Mistura(final String descricao) {
+        pesos = new EnumMap<>(Tipo.class);
+        for (final String par : descricao.split(",")) {
+            final String[] partes = par.trim().split("=");
+            if (partes.length != 2) {
+                throw new IllegalArgumentException("Mistura deve ter o formato tipo=peso: " + par);
+            }
+
+            final int peso = Integer.parseInt(partes[1].trim());
+            if (peso < 0) {
+                throw new IllegalArgumentException("Peso não pode ser negativo: " + par);
+            }
+            pesos.put(Tipo.valueOf(partes[0].trim().toUpperCase(Locale.ROOT)), peso);
+        }
+
+        int soma = 0;
+        for (final Tipo tipo : TIPOS) {
+            soma += pesos.getOrDefault(tipo, 0);
+            acumulados[tipo.ordinal()] = soma;
+        }
+        if (soma == 0) {
+            throw new IllegalArgumentException("A soma dos pesos deve ser maior que zero.");
+        }
+    }
+
+    /**
+     * Sorteia um tipo de operação de acordo com os pesos.
+     * @param aleatorio gerador de números aleatórios da thread
+     * @return o tipo sorteado
+     */
+    Tipo sorteia(final Random aleatorio) {
+        final int sorteado = aleatorio.nextInt(acumulados[acumulados.length - 1]);
+        for (int i = 0; i < acumulados.length; i++) {
+            if (sorteado < acumulados[i]) {
+                return TIPOS[i];
+            }
+        }
+
+        throw new AssertionError("Peso sorteado fora do intervalo: " + sorteado);
+    }
+
+    @Override
+    public String toString() {
+        return pesos.toString();
+    }
+}
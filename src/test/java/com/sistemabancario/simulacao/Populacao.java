@@ -0,0 +1,117 @@
+package com.sistemabancario.simulacao;
+
+import com.sistemabancario.benchmark.Dados;
+import com.sistemabancario.model.Cliente;
+import com.sistemabancario.model.ColecaoClientes;
+import com.sistemabancario.model.ColecaoContas;
+import com.sistemabancario.model.Conta;
+import com.sistemabancario.model.Senhas;
+
+/**
+ * População sintética de clientes, cada um com a sua conta, criada com os mesmos
+ * setters usados por {@link ColecaoClientes#inicializaClientes()}.
+ *
+ * <p>
+ * Os números de conta têm o formato 99999-9, o que limita a população
+ * a {@value #MAXIMO} clientes. Como gerar o hash de cada senha leva centenas
+ * de milissegundos (veja {@link Senhas}), todos os clientes compartilham
+ * um único hash, gerado com um fator de trabalho indicado na criação da população.
+ * </p>
+ *
+ * @author Manoel Campos da Silva Filho
+ */
+final class Populacao {
+    /**
+     * Total máximo de clientes: a quantidade de números de conta diferentes.
+     */
+    static final int MAXIMO = 1_000_000;
+
+    /**
+     * Senha de todos os clientes.
+     */
+    static final String SENHA = "1234";
+
+    private final ColecaoClientes clientes;
+    private final ColecaoContas contas;
+    private final Conta[] vetorContas;
+    private final String[] cpfs;
+
+    /**
+     * Cria a população. A cada 4 contas, uma é especial (com limite).
+     * @param total quantidade de clientes
+     * @param iteracoesSenha fator de trabalho do hash da {@link #SENHA}
+     *                       (veja {@link Senhas#gera(String, int)})
+     * @throws IllegalArgumentException se o total não estiver entre 2 e {@value #MAXIMO}
+     */
+    Populacao(final int total, final int iteracoesSenha) {
+        if (total < 2 || total > MAXIMO) {
+            throw new IllegalArgumentException("Total de clientes deve estar entre 2 e " + MAXIMO);
+        }
+
+        final String hash = Senhas.gera(SENHA, iteracoesSenha);
+        clientes = new ColecaoClientes(total);
+        contas = new ColecaoContas(total);
+        vetorContas = new Conta[total];
+        cpfs = new String[total];
+        for (int i = 0; i < total; i++) {
+            final Cliente cliente = new Cliente();
+            cliente.setId(i + 1);
+            cliente.setNome("Cliente " + (i + 1));
+            cliente.setCpf(Dados.cpf(i));
+            cliente.setHashSenha(hash);
+
+            final boolean especial = i % 4 == 0;
+            final Conta conta = new Conta(especial, especial ? 1000 : 0);
+            conta.setSaldo(1000 + i % 1000);
+            conta.setNumero(Dados.numeroConta(i));
+            cliente.setConta(conta);
+
+            clientes.putCliente(cliente, cliente.getCpf());
+            contas.putConta(conta, conta.getNumero());
+            vetorContas[i] = conta;
+            cpfs[i] = cliente.getCpf();
+        }
+    }
+
+    int getTotal() {
+        return vetorContas.length;
+    }
+
+    ColecaoClientes getClientes() {
+        return clientes;
+    }
+
+    ColecaoContas getContas() {
+        return contas;
+    }
+
+    /**
+     * Obtém a conta de um cliente pela sua posição na população.
+     * @param i posição entre 0 e {@link #getTotal()} - 1
+     * @return
+     */
+    Conta getConta(final int i) {
+        return vetorContas[i];
+    }
+
+    /**
+     * Obtém o CPF de um cliente pela sua posição na população.
+     * @param i posição entre 0 e {@link #getTotal()} - 1
+     * @return
+     */
+    String getCpf(final int i) {
+        return cpfs[i];
+    }
+
+    /**
+     * Soma os saldos de todas as contas (sem os limites).
+     * @return a soma em centavos
+     */
+    long getSaldoCentavos() {
+        long soma = 0;
+        for (final Conta conta : vetorContas) {
+            soma += conta.getSaldoCentavos();
+        }
+        return soma;
+    }
+}
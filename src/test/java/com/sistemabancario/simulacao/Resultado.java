@@ -0,0 +1,110 @@
+package com.sistemabancario.simulacao;
+
+import com.sistemabancario.model.Centavos;
+
+import java.io.PrintStream;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import static com.sistemabancario.simulacao.Mistura.TIPOS;
+
+/**
+ * Resultado de uma {@link SimulacaoCarga simulação}: vazão e latências de cada
+ * tipo de operação e a verificação de que nenhum dinheiro foi criado ou perdido.
+ *
+ * @author Manoel Campos da Silva Filho
+ */
+final class Resultado {
+    private final Histograma[] latencias = new Histograma[TIPOS.length];
+    private final long[] recusadas = new long[TIPOS.length];
+    private final long duracaoNanos;
+    private final long saldoInicial, saldoEsperado, saldoFinal;
+
+    /**
+     * Instancia um resultado.
+     * @param duracaoNanos duração da simulação
+     * @param saldoInicial soma dos saldos antes da simulação (em centavos)
+     * @param saldoEsperado saldo inicial mais os depósitos (em dinheiro e em cheques confirmados)
+     *                      menos os saques realizados (em centavos)
+     * @param saldoFinal soma dos saldos após a simulação (em centavos)
+     */
+    Resultado(final long duracaoNanos, final long saldoInicial, final long saldoEsperado, final long saldoFinal) {
+        this.duracaoNanos = duracaoNanos;
+        this.saldoInicial = saldoInicial;
+        this.saldoEsperado = saldoEsperado;
+        this.saldoFinal = saldoFinal;
+        for (int i = 0; i < latencias.length; i++) {
+            latencias[i] = new Histograma();
+        }
+    }
+
+    /**
+     * Soma as operações realizadas por um caixa.
+     * @param tipo tipo das operações
+     * @param latencias latências das operações (incluindo as recusadas)
+     * @param recusadas quantidade de operações recusadas (como saques sem saldo ou logins negados)
+     */
+    void soma(final Mistura.Tipo tipo, final Histograma latencias, final long recusadas) {
+        this.latencias[tipo.ordinal()].soma(latencias);
+        this.recusadas[tipo.ordinal()] += recusadas;
+    }
+
+    long getTotal(final Mistura.Tipo tipo) {
+        return latencias[tipo.ordinal()].getTotal();
+    }
+
+    long getRecusadas(final Mistura.Tipo tipo) {
+        return recusadas[tipo.ordinal()];
+    }
+
+    /**
+     * Verifica se a soma dos saldos ao final é a esperada, ou seja,
+     * se as transferências não criaram nem perderam dinheiro.
+     * @return
+     */
+    boolean isConservado() {
+        return saldoFinal == saldoEsperado;
+    }
+
+    /**
+     * Imprime a vazão e as latências (em microssegundos) de cada tipo de operação e do total,
+     * e a verificação dos saldos.
+     * @param saida onde o resultado será impresso
+     */
+    void imprime(final PrintStream saida) {
+        final double segundos = duracaoNanos / (double) TimeUnit.SECONDS.toNanos(1);
+        saida.printf(Locale.ROOT, "%-14s %12s %10s %12s %10s %10s %10s %10s%n",
+                     "Operação", "Total", "Recusadas", "ops/s", "p50 (us)", "p99 (us)", "p99.9 (us)", "máx (us)");
+
+        final Histograma todas = new Histograma();
+        long todasRecusadas = 0;
+        for (final Mistura.Tipo tipo : TIPOS) {
+            final Histograma histograma = latencias[tipo.ordinal()];
+            if (histograma.getTotal() > 0) {
+                imprime(saida, tipo.name(), histograma, recusadas[tipo.ordinal()], segundos);
+            }
+            todas.soma(histograma);
+            todasRecusadas += recusadas[tipo.ordinal()];
+        }
+        imprime(saida, "TOTAL", todas, todasRecusadas, segundos);
+
+        saida.println();
+        saida.printf(Locale.ROOT, "Saldo inicial:  %,.2f%n", Centavos.paraReais(saldoInicial));
+        saida.printf(Locale.ROOT, "Saldo esperado: %,.2f%n", Centavos.paraReais(saldoEsperado));
+        saida.printf(Locale.ROOT, "Saldo final:    %,.2f%n", Centavos.paraReais(saldoFinal));
+        saida.println(isConservado() ? "Dinheiro conservado." : "ERRO: a soma dos saldos difere da esperada!");
+    }
+
+    private static void imprime(final PrintStream saida, final String nome, final Histograma histograma,
+                                final long recusadas, final double segundos)
+    {
+        saida.printf(Locale.ROOT, "%-14s %12d %10d %12.0f %10.1f %10.1f %10.1f %10.1f%n",
+                     nome, histograma.getTotal(), recusadas, histograma.getTotal() / segundos,
+                     micros(histograma.percentil(50)), micros(histograma.percentil(99)),
+                     micros(histograma.percentil(99.9)), micros(histograma.getMaximo()));
+    }
+
+    private static double micros(final long nanos) {
+        return nanos / 1000.0;
+    }
+}
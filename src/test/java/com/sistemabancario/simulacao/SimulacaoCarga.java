@@ -0,0 +1,251 @@
+package com.sistemabancario.simulacao;
+
+import com.sistemabancario.model.Centavos;
+import com.sistemabancario.model.CompensacaoCheques;
+import com.sistemabancario.model.Conta;
+import com.sistemabancario.model.Sessoes;
+import com.sistemabancario.rede.ServidorCaixas;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.sistemabancario.simulacao.Mistura.TIPOS;
+
+/**
+ * Simula a carga de vários caixas eletrônicos e caixas de agências operando ao mesmo tempo
+ * sobre uma {@link Populacao população} sintética de clientes, para reproduzir localmente
+ * (sem rede nem serviços externos) a concorrência do ambiente de produção.
+ *
+ * <p>
+ * Cada caixa é executado numa thread (de plataforma ou virtual) e realiza, até o fim
+ * da simulação, operações sorteadas de acordo com uma {@link Mistura mistura}, em contas
+ * e valores também sorteados. Enquanto isso, os depósitos em cheque são compensados
+ * (e todos confirmados) a cada segundo. Ao final, são informadas a vazão e as latências
+ * de cada tipo de operação, e é verificado se a soma dos saldos é igual à soma inicial
+ * mais os depósitos e menos os saques, ou seja, se nenhuma operação concorrente
+ * criou ou perdeu dinheiro.
+ * </p>
+ *
+ * <p>
+ * Uso: {@code mvn -P simulacao test-compile exec:exec -Dsimulacao.args="clientes=1000000 threads=64 virtuais=true duracao=30"}.
+ * Os argumentos (todos opcionais) são:
+ * </p>
+ * <ul>
+ *     <li>{@code clientes}: tamanho da população (padrão 100000, máximo {@value Populacao#MAXIMO});</li>
+ *     <li>{@code threads}: quantidade de caixas (padrão 64);</li>
+ *     <li>{@code virtuais}: se os caixas devem ser executados em threads virtuais (padrão false;
+ *         veja {@link ServidorCaixas#executorPorSessao()});</li>
+ *     <li>{@code duracao}: duração em segundos (padrão 30);</li>
+ *     <li>{@code mistura}: pesos de cada operação (padrão {@value Mistura#PADRAO});</li>
+ *     <li>{@code iteracoes}: fator de trabalho do hash das senhas, que determina o custo do login (padrão 1000).</li>
+ * </ul>
+ *
+ * @author Manoel Campos da Silva Filho
+ */
+public final class SimulacaoCarga {
+    /**
+     * Valor máximo de cada operação, em centavos.
+     */
+    private static final int VALOR_MAXIMO = 500_00;
+
+    private final Populacao populacao;
+    private final Mistura mistura;
+    private final int threads;
+    private final boolean virtuais;
+    private final Sessoes sessoes;
+    private final CompensacaoCheques compensacao = new CompensacaoCheques();
+
+    /**
+     * Data de compensação de todos os cheques depositados na simulação.
+     */
+    private final LocalDate hoje = LocalDate.now();
+
+    /**
+     * Operações realizadas por um caixa. É acessado somente pela thread
+     * do caixa até o fim da simulação, assim não precisa de sincronização.
+     */
+    private final class Caixa {
+        private final Histograma[] latencias = new Histograma[TIPOS.length];
+        private final long[] recusadas = new long[TIPOS.length];
+
+        /**
+         * Soma dos depósitos em dinheiro e dos saques realizados, em centavos.
+         */
+        private long creditos, debitos;
+
+        Caixa() {
+            for (int i = 0; i < latencias.length; i++) {
+                latencias[i] = new Histograma();
+            }
+        }
+
+        Caixa executa(final long fimNanos) {
+            final ThreadLocalRandom aleatorio = ThreadLocalRandom.current();
+            while (System.nanoTime() - fimNanos < 0) {
+                final Mistura.Tipo tipo = mistura.sorteia(aleatorio);
+                final int cliente = aleatorio.nextInt(populacao.getTotal());
+                final long centavos = 1 + aleatorio.nextInt(VALOR_MAXIMO);
+
+                final long inicio = System.nanoTime();
+                final boolean realizada = realiza(tipo, cliente, centavos, aleatorio);
+                latencias[tipo.ordinal()].registra(System.nanoTime() - inicio);
+                if (!realizada) {
+                    recusadas[tipo.ordinal()]++;
+                }
+            }
+
+            return this;
+        }
+
+        /**
+         * Realiza uma operação.
+         * @return true se a operação foi realizada, false se foi recusada
+         */
+        private boolean realiza(final Mistura.Tipo tipo, final int cliente, final long centavos, final ThreadLocalRandom aleatorio) {
+            final Conta conta = populacao.getConta(cliente);
+            final double valor = Centavos.paraReais(centavos);
+            try {
+                switch (tipo) {
+                    case SAQUE:
+                        conta.saque(valor);
+                        debitos += centavos;
+                        return true;
+                    case DEPOSITO:
+                        conta.depositoDinheiro(valor);
+                        creditos += centavos;
+                        return true;
+                    case CHEQUE:
+                        compensacao.depositoCheque(conta, valor, hoje);
+                        return true;
+                    case TRANSFERENCIA:
+                        conta.transferencia(populacao.getConta(outroCliente(cliente, aleatorio)), valor);
+                        return true;
+                    default:
+                        final String token = sessoes.abre(populacao.getClientes(), populacao.getCpf(cliente), Populacao.SENHA);
+                        return sessoes.encerra(token);
+                }
+            } catch (IllegalArgumentException e) {
+                //Saldo insuficiente
+                return false;
+            }
+        }
+
+        private int outroCliente(final int cliente, final ThreadLocalRandom aleatorio) {
+            final int outro = aleatorio.nextInt(populacao.getTotal() - 1);
+            return outro < cliente ? outro : outro + 1;
+        }
+    }
+
+    /**
+     * Instancia uma simulação.
+     * @param populacao clientes e contas sobre os quais as operações são realizadas
+     * @param mistura proporção de cada tipo de operação
+     * @param threads quantidade de caixas operando ao mesmo tempo
+     * @param virtuais se os caixas devem ser executados em threads virtuais
+     */
+    SimulacaoCarga(final Populacao populacao, final Mistura mistura, final int threads, final boolean virtuais) {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("Quantidade de threads deve ser maior que zero.");
+        }
+
+        this.populacao = populacao;
+        this.mistura = mistura;
+        this.threads = threads;
+        this.virtuais = virtuais;
+        this.sessoes = new Sessoes(populacao.getTotal(), 15, TimeUnit.MINUTES);
+    }
+
+    /**
+     * Executa a simulação.
+     * @param duracao tempo durante o qual os caixas realizam operações
+     * @param unidade unidade de tempo da duração
+     * @return a vazão, as latências e a verificação dos saldos
+     * @throws InterruptedException se a thread for interrompida enquanto aguarda o fim da simulação
+     * @throws ExecutionException se um caixa falhar com uma exceção inesperada
+     */
+    Resultado executa(final long duracao, final TimeUnit unidade) throws InterruptedException, ExecutionException {
+        final long saldoInicial = populacao.getSaldoCentavos();
+        final AtomicLong chequesConfirmados = new AtomicLong();
+        final ScheduledExecutorService compensador = Executors.newSingleThreadScheduledExecutor();
+        compensador.scheduleWithFixedDelay(() -> chequesConfirmados.addAndGet(compensa()), 1, 1, TimeUnit.SECONDS);
+
+        final ExecutorService executor = virtuais ? ServidorCaixas.executorPorSessao() : Executors.newFixedThreadPool(threads);
+        final long inicio = System.nanoTime();
+        final long fim = inicio + unidade.toNanos(duracao);
+        final List<Future<Caixa>> execucoes = new ArrayList<>(threads);
+        for (int i = 0; i < threads; i++) {
+            execucoes.add(executor.submit(() -> new Caixa().executa(fim)));
+        }
+
+        final List<Caixa> caixas = new ArrayList<>(threads);
+        try {
+            for (final Future<Caixa> execucao : execucoes) {
+                caixas.add(execucao.get());
+            }
+        } finally {
+            executor.shutdownNow();
+            compensador.shutdown();
+            compensador.awaitTermination(1, TimeUnit.MINUTES);
+        }
+        final long duracaoNanos = System.nanoTime() - inicio;
+
+        //Compensa os cheques depositados após a última compensação periódica
+        chequesConfirmados.addAndGet(compensa());
+        long saldoEsperado = saldoInicial + chequesConfirmados.get();
+        for (final Caixa caixa : caixas) {
+            saldoEsperado += caixa.creditos - caixa.debitos;
+        }
+
+        final Resultado resultado = new Resultado(duracaoNanos, saldoInicial, saldoEsperado, populacao.getSaldoCentavos());
+        for (final Caixa caixa : caixas) {
+            for (final Mistura.Tipo tipo : TIPOS) {
+                resultado.soma(tipo, caixa.latencias[tipo.ordinal()], caixa.recusadas[tipo.ordinal()]);
+            }
+        }
+
+        return resultado;
+    }
+
+    private long compensa() {
+        return compensacao.compensa(hoje, deposito -> true).getValorConfirmadoCentavos();
+    }
+
+    public static void main(final String[] args) throws InterruptedException, ExecutionException {
+        final Map<String, String> parametros = new HashMap<>();
+        for (final String arg : args) {
+            final int separador = arg.indexOf('=');
+            if (separador <= 0) {
+                throw new IllegalArgumentException("Argumento deve ter o formato nome=valor: " + arg);
+            }
+            parametros.put(arg.substring(0, separador), arg.substring(separador + 1));
+        }
+
+        final int clientes = Integer.parseInt(parametros.getOrDefault("clientes", "100000"));
+        final int threads = Integer.parseInt(parametros.getOrDefault("threads", "64"));
+        final boolean virtuais = Boolean.parseBoolean(parametros.getOrDefault("virtuais", "false"));
+        final int duracao = Integer.parseInt(parametros.getOrDefault("duracao", "30"));
+        final Mistura mistura = new Mistura(parametros.getOrDefault("mistura", Mistura.PADRAO));
+        final int iteracoes = Integer.parseInt(parametros.getOrDefault("iteracoes", "1000"));
+
+        System.out.printf("Criando %d clientes...%n", clientes);
+        final Populacao populacao = new Populacao(clientes, iteracoes);
+        System.out.printf("Simulando %d caixas (threads %s) por %d s com a mistura %s%n%n",
+                          threads, virtuais ? "virtuais" : "de plataforma", duracao, mistura);
+        final Resultado resultado = new SimulacaoCarga(populacao, mistura, threads, virtuais).executa(duracao, TimeUnit.SECONDS);
+        resultado.imprime(System.out);
+        if (!resultado.isConservado()) {
+            System.exit(1);
+        }
+    }
+}
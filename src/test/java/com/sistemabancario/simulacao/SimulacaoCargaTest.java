@@ -0,0 +1,29 @@
+package com.sistemabancario.simulacao;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SimulacaoCargaTest {
+    @Test
+    void testDinheiroConservadoComOperacoesConcorrentes() throws Exception {
+        final Populacao populacao = new Populacao(200, 1000);
+        final Mistura mistura = new Mistura(Mistura.PADRAO);
+        final Resultado resultado = new SimulacaoCarga(populacao, mistura, 8, false).executa(1500, TimeUnit.MILLISECONDS);
+
+        for (final Mistura.Tipo tipo : Mistura.TIPOS) {
+            assertTrue(resultado.getTotal(tipo) > 0, tipo.name());
+        }
+        assertEquals(0, resultado.getRecusadas(Mistura.Tipo.LOGIN));
+        assertTrue(resultado.isConservado());
+    }
+
+    @Test
+    void testMisturaInvalida() {
+        assertThrows(IllegalArgumentException.class, () -> new Mistura("saque"));
+        assertThrows(IllegalArgumentException.class, () -> new Mistura("saque=0"));
+        assertThrows(IllegalArgumentException.class, () -> new Mistura("extrato=1"));
+    }
+}